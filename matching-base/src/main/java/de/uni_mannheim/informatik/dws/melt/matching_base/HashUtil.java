@@ -0,0 +1,49 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helper methods for the SHA-256 hashes which are used as file names and keys of persistent caches
+ * (e.g. ontology snapshots and stored execution results).
+ */
+public class HashUtil {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Returns a new SHA-256 message digest.
+     * @return the message digest
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+    }
+
+    /**
+     * Returns the SHA-256 hash of the UTF-8 bytes of the text as lowercase hex string.
+     * @param text the text to hash
+     * @return the hash (64 hex characters)
+     */
+    public static String sha256Hex(String text) {
+        return toHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Converts the bytes to a lowercase hex string (two characters per byte, leading zeros are kept).
+     * @param bytes the bytes
+     * @return the hex string
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
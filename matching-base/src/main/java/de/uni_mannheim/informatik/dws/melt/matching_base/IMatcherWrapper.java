@@ -0,0 +1,14 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+/**
+ * Interface for matchers which only wrap another matcher (e.g. to cache its result).
+ * {@link PipelineInstrumentation} reports such a matcher with the stage name of the wrapped matcher.
+ */
+public interface IMatcherWrapper {
+    
+    /**
+     * Returns the wrapped matcher.
+     * @return the wrapped matcher
+     */
+    Object getWrappedMatcher();
+}
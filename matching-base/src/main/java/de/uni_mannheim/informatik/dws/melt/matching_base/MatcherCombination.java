@@ -17,7 +17,8 @@ public abstract class MatcherCombination extends MatcherURL{
     @Override
     public URL match(URL source, URL target, URL inputAlignment) throws Exception{
         for(MatcherURL matcher : this.matchers){
-             inputAlignment = matcher.match(source, target, inputAlignment);
+             final URL stageInput = inputAlignment;
+             inputAlignment = PipelineInstrumentation.measure(PipelineInstrumentation.getStageName(matcher), () -> matcher.match(source, target, stageInput));
         }
         return inputAlignment;
     }
@@ -0,0 +1,353 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe cache for ontologies (independent of the API which is used to represent them) which is used by the ontology caches of the different modules.
+ * <ul>
+ * <li>Concurrent requests for the same key are de-duplicated: the ontology is loaded only once and all callers wait for it.</li>
+ * <li>The cache can be bounded by the number of entries and by the sum of the weights of all entries (e.g. the number of triples or axioms as a proxy for the memory).
+ * If one of the budgets is exceeded, the least recently used entries are evicted. The ontologies are only weighed if a weight budget is set.</li>
+ * <li>Entries can be pinned while they are in use. Pinned entries (and entries which are currently loaded) are never evicted,
+ * thus the cache may exceed the budget if all entries are pinned.</li>
+ * <li>Hits, misses, evictions and the time spent for loading are counted.</li>
+ * </ul>
+ * By default the cache is unbounded.
+ * @param <T> the type of the ontology
+ */
+public class OntologyCache<T> {
+
+    private final LinkedHashMap<String, Entry<T>> entries;
+    private final ToLongFunction<T> weigher;
+
+    private int maximumEntries;
+    /**
+     * Volatile because it is read without the lock to decide whether a loaded ontology is weighed.
+     */
+    private volatile long maximumWeight;
+    private long totalWeight;
+
+    private long hitCount;
+    private long missCount;
+    private long loadCount;
+    private long loadFailureCount;
+    private long totalLoadTime;
+    private long evictionCount;
+
+    /**
+     * Constructor for an unbounded cache.
+     * @param weigher function which computes the weight of an ontology (used for the weight budget).
+     */
+    public OntologyCache(ToLongFunction<T> weigher) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.weigher = weigher;
+        this.maximumEntries = Integer.MAX_VALUE;
+        this.maximumWeight = Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the ontology for the given key. If it is not in the cache, it is loaded with the given loader.
+     * If another thread is already loading the same key, this method waits for it instead of loading it again.
+     * @param key the key of the ontology
+     * @param loader the loader which is called in case the ontology is not in the cache
+     * @return the ontology
+     */
+    public T get(String key, Supplier<T> loader) {
+        return get(key, loader, false);
+    }
+
+    /**
+     * Returns the ontology for the given key. If it is not in the cache, it is loaded with the given loader.
+     * If another thread is already loading the same key, this method waits for it instead of loading it again.
+     * @param key the key of the ontology
+     * @param loader the loader which is called in case the ontology is not in the cache
+     * @param pin if true, the entry is pinned and will not be evicted until {@link #unpin(String)} is called
+     * @return the ontology
+     */
+    public T get(String key, Supplier<T> loader, boolean pin) {
+        Entry<T> entry;
+        boolean load = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(new FutureTask<>(loader::get));
+                entries.put(key, entry);
+                missCount++;
+                load = true;
+            } else {
+                hitCount++;
+            }
+            if (pin)
+                entry.pins++;
+        }
+        if (load) {
+            long startTime = System.nanoTime();
+            entry.task.run();
+            long loadTime = System.nanoTime() - startTime;
+            T value = getIfLoaded(entry);
+            //weigh outside of the lock because weighing can be expensive
+            boolean weighed = value != null && isWeightBounded();
+            long weight = weighed ? weigher.applyAsLong(value) : 0;
+            synchronized (this) {
+                totalLoadTime += loadTime;
+                if (value == null) {
+                    loadFailureCount++;
+                    entries.remove(key, entry);
+                } else {
+                    loadCount++;
+                    if (entries.get(key) == entry) {
+                        if (weighed)
+                            setWeight(entry, weight);
+                        else
+                            weigh(entry);
+                        evict();
+                    }
+                }
+            }
+        }
+        try {
+            return entry.task.get();
+        } catch (ExecutionException ex) {
+            if (pin)
+                unpin(entry);
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException("Could not load the ontology with key " + key, cause);
+        } catch (InterruptedException ex) {
+            if (pin)
+                unpin(entry);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ontology with key " + key, ex);
+        }
+    }
+
+    /**
+     * Adds an already loaded ontology to the cache (replaces an existing entry including its pins).
+     * @param key the key of the ontology
+     * @param ontology the ontology
+     */
+    public synchronized void put(String key, T ontology) {
+        Entry<T> entry = new Entry<>(new FutureTask<>(() -> ontology));
+        entry.task.run();
+        Entry<T> old = entries.put(key, entry);
+        if (old != null)
+            totalWeight -= old.weight;
+        weigh(entry);
+        evict();
+    }
+
+    /**
+     * Pins the entry with the given key (if it is in the cache) such that it is not evicted.
+     * Each successful call has to be followed by a call to {@link #unpin(String)}.
+     * @param key the key of the ontology
+     * @return true if the entry exists and is pinned, false otherwise
+     */
+    public synchronized boolean pin(String key) {
+        Entry<T> entry = entries.get(key);
+        if (entry == null)
+            return false;
+        entry.pins++;
+        return true;
+    }
+
+    /**
+     * Releases one pin of the entry with the given key.
+     * @param key the key of the ontology
+     */
+    public synchronized void unpin(String key) {
+        Entry<T> entry = entries.get(key);
+        if (entry != null)
+            unpin(entry);
+    }
+
+    /**
+     * Releases one pin of the entry with the given key if the entry still contains the given ontology.
+     * In contrast to {@link #unpin(String)}, this does not release a pin of another caller in case the entry was replaced or removed in between.
+     * @param key the key of the ontology
+     * @param ontology the ontology which was returned by {@link #get(String, Supplier, boolean)}
+     */
+    public synchronized void unpin(String key, T ontology) {
+        Entry<T> entry = entries.get(key);
+        if (entry != null && entry.task.isDone() && getIfLoaded(entry) == ontology)
+            unpin(entry);
+    }
+
+    private synchronized void unpin(Entry<T> entry) {
+        if (entry.pins > 0)
+            entry.pins--;
+        evict();
+    }
+
+    /**
+     * Removes all entries (also the pinned ones). The statistics are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * Resets the hit, miss, load and eviction statistics.
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        loadCount = 0;
+        loadFailureCount = 0;
+        totalLoadTime = 0;
+        evictionCount = 0;
+    }
+
+    /**
+     * Evicts the least recently used entries which are neither pinned nor currently loaded until both budgets are met.
+     */
+    private void evict() {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while ((entries.size() > maximumEntries || totalWeight > maximumWeight) && iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (entry.pins == 0 && entry.task.isDone()) {
+                iterator.remove();
+                totalWeight -= entry.weight;
+                evictionCount++;
+            }
+        }
+    }
+
+    private boolean isWeightBounded() {
+        return maximumWeight != Long.MAX_VALUE;
+    }
+
+    /**
+     * Weighs the entry if a weight budget is set and the entry is loaded and not yet weighed.
+     */
+    private void weigh(Entry<T> entry) {
+        if (entry.weighed || !isWeightBounded())
+            return;
+        T value = getIfLoaded(entry);
+        if (value != null)
+            setWeight(entry, weigher.applyAsLong(value));
+    }
+
+    private void setWeight(Entry<T> entry, long weight) {
+        if (entry.weighed)
+            return;
+        entry.weight = weight;
+        entry.weighed = true;
+        totalWeight += weight;
+    }
+
+    private static <T> T getIfLoaded(Entry<T> entry) {
+        try {
+            return entry.task.get();
+        } catch (ExecutionException | InterruptedException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the maximum number of ontologies in the cache.
+     * @param maximumEntries the maximum number of entries (Integer.MAX_VALUE for no limit)
+     */
+    public synchronized void setMaximumEntries(int maximumEntries) {
+        this.maximumEntries = maximumEntries;
+        evict();
+    }
+
+    public synchronized int getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    /**
+     * Sets the maximum sum of the weights of all ontologies in the cache.
+     * Setting a budget weighs all ontologies in the cache which are not yet weighed.
+     * @param maximumWeight the maximum weight (Long.MAX_VALUE for no limit)
+     */
+    public synchronized void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        for (Entry<T> entry : entries.values()) {
+            if (entry.task.isDone())
+                weigh(entry);
+        }
+        evict();
+    }
+
+    public synchronized long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns the number of entries (including entries which are currently loaded).
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Returns the sum of the weights of all ontologies in the cache.
+     * It is only complete while a weight budget is set, because otherwise the ontologies are not weighed.
+     * @return the total weight
+     */
+    public synchronized long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    public synchronized long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Returns the time spent for loading ontologies (successful and failed loads).
+     * @return the load time in nanoseconds
+     */
+    public synchronized long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "OntologyCache{" + "size=" + entries.size() + ", totalWeight=" + totalWeight + ", hits=" + hitCount + ", misses=" + missCount
+                + ", loads=" + loadCount + ", loadFailures=" + loadFailureCount + ", loadTimeMs=" + (totalLoadTime / 1_000_000)
+                + ", evictions=" + evictionCount + '}';
+    }
+
+    private static class Entry<T> {
+        private final FutureTask<T> task;
+        private long weight;
+        private boolean weighed;
+        private int pins;
+
+        Entry(FutureTask<T> task) {
+            this.task = task;
+        }
+    }
+}
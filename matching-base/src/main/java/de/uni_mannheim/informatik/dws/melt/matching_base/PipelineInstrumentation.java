@@ -0,0 +1,254 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the resource usage of the stages of matcher pipelines (wall time, cpu time, allocated bytes, peak heap and alignment sizes).
+ * The recording is bound to the current thread: it is started with {@link #startRecording()} (e.g. by the evaluation framework before a matcher is executed)
+ * and the statistics are obtained with {@link #stopRecording()}. Pipelines call one of the measure methods for each stage.
+ * If no recording is started, the stage is just executed (no overhead).
+ * <p>
+ * Cpu time and allocated bytes only cover the thread which executes the stage.
+ * The peak heap is measured with the JVM wide memory pools, whose peaks are reset at the beginning of each stage.
+ * Thus it is only meaningful if the pipelines are executed sequentially: as long as more than one recording is active (in different threads),
+ * the peaks are not reset and the peak heap of all stages which overlap with another recording is reported as -1.
+ * The heap used by other threads which do not record anything is still included.
+ */
+public class PipelineInstrumentation {
+    
+    private static final ThreadLocal<Recording> RECORDING = new ThreadLocal<>();
+    
+    /**
+     * The number of threads which currently record.
+     */
+    private static final AtomicInteger ACTIVE_RECORDINGS = new AtomicInteger();
+    
+    /**
+     * Incremented whenever a recording starts while another one is active. A stage whose value differs between its start and end overlapped with another recording.
+     */
+    private static final AtomicLong CONCURRENT_STARTS = new AtomicLong();
+    
+    /**
+     * Starts a new recording for the current thread. A previous recording of this thread is discarded.
+     * Each recording has to be stopped with {@link #stopRecording()}, otherwise the peak heap is not measured for the recordings of other threads.
+     */
+    public static void startRecording(){
+        Recording previous = RECORDING.get();
+        RECORDING.set(new Recording());
+        if(previous == null && ACTIVE_RECORDINGS.incrementAndGet() > 1)
+            CONCURRENT_STARTS.incrementAndGet();
+    }
+    
+    /**
+     * Stops the recording of the current thread and returns the statistics of all stages which were executed since the recording was started.
+     * @return the statistics of all stages in the order in which they were started (empty list if no recording was started).
+     */
+    public static List<StageStatistics> stopRecording(){
+        Recording recording = RECORDING.get();
+        RECORDING.remove();
+        if(recording == null)
+            return new ArrayList<>();
+        ACTIVE_RECORDINGS.decrementAndGet();
+        return recording.getStatistics();
+    }
+    
+    /**
+     * Returns true if a recording is started for the current thread.
+     * @return true if stages are recorded
+     */
+    public static boolean isRecording(){
+        return RECORDING.get() != null;
+    }
+    
+    /**
+     * Executes and measures one stage which transforms an alignment (or any other collection) into another one.
+     * @param <T> the type of the output
+     * @param stageName the name of the stage (usually the simple class name of the matcher)
+     * @param input the input of the stage (to measure its size - can be null)
+     * @param stage the execution of the stage
+     * @return the output of the stage
+     * @throws Exception the exception of the stage
+     */
+    public static <T extends Collection<?>> T measure(String stageName, Collection<?> input, Callable<T> stage) throws Exception{
+        Recording recording = RECORDING.get();
+        if(recording == null)
+            return stage.call();
+        Frame frame = recording.enter(stageName, input == null ? -1 : input.size());
+        T output = null;
+        try{
+            output = stage.call();
+            return output;
+        }finally{
+            recording.exit(frame, output == null ? -1 : output.size());
+        }
+    }
+    
+    /**
+     * Executes and measures one stage whose input and output size is unknown (e.g. a matcher which returns a URL).
+     * @param <T> the type of the output
+     * @param stageName the name of the stage (usually the simple class name of the matcher)
+     * @param stage the execution of the stage
+     * @return the output of the stage
+     * @throws Exception the exception of the stage
+     */
+    public static <T> T measure(String stageName, Callable<T> stage) throws Exception{
+        Recording recording = RECORDING.get();
+        if(recording == null)
+            return stage.call();
+        Frame frame = recording.enter(stageName, -1);
+        try{
+            return stage.call();
+        }finally{
+            recording.exit(frame, -1);
+        }
+    }
+    
+    /**
+     * Returns the name of a stage for the given matcher (the simple class name or the full name for anonymous classes).
+     * Wrappers ({@link IMatcherWrapper}) are reported with the name of the wrapped matcher.
+     * @param matcher the matcher
+     * @return the stage name
+     */
+    public static String getStageName(Object matcher){
+        while(matcher instanceof IMatcherWrapper && ((IMatcherWrapper) matcher).getWrappedMatcher() != null){
+            matcher = ((IMatcherWrapper) matcher).getWrappedMatcher();
+        }
+        String name = matcher.getClass().getSimpleName();
+        return name.isEmpty() ? matcher.getClass().getName() : name;
+    }
+    
+    private static class Frame {
+        private final int index;
+        private final String stage;
+        private final long inputSize;
+        private final long startWallTime;
+        private final long startCpuTime;
+        private final long startAllocatedBytes;
+        private final long concurrentStarts;
+        private final boolean exclusive;
+        private long peakHeap;
+        private StageStatistics statistics;
+        
+        Frame(int index, String stage, long inputSize, long startWallTime, long startCpuTime, long startAllocatedBytes, long concurrentStarts, boolean exclusive) {
+            this.index = index;
+            this.stage = stage;
+            this.inputSize = inputSize;
+            this.startWallTime = startWallTime;
+            this.startCpuTime = startCpuTime;
+            this.startAllocatedBytes = startAllocatedBytes;
+            this.concurrentStarts = concurrentStarts;
+            this.exclusive = exclusive;
+            this.peakHeap = -1;
+        }
+    }
+    
+    private static class Recording {
+        private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        private static final List<MemoryPoolMXBean> heapPools = getHeapPools();
+        private final List<Frame> frames = new ArrayList<>();
+        private final Deque<Frame> open = new ArrayDeque<>();
+        
+        Frame enter(String stageName, long inputSize){
+            Frame parent = open.peek();
+            String stage = parent == null ? stageName : parent.stage + "/" + stageName;
+            if(parent != null)
+                parent.peakHeap = Math.max(parent.peakHeap, getPeakHeap()); // the peak is reset for the nested stage
+            long concurrentStarts = CONCURRENT_STARTS.get();
+            boolean exclusive = ACTIVE_RECORDINGS.get() == 1;
+            if(exclusive)
+                resetPeakHeap(); // the peaks are JVM wide: do not reset them for the stages of other recordings
+            Frame frame = new Frame(frames.size(), stage, inputSize, System.nanoTime(), getCpuTime(), getAllocatedBytes(), concurrentStarts, exclusive);
+            frames.add(frame);
+            open.push(frame);
+            return frame;
+        }
+        
+        void exit(Frame frame, long outputSize){
+            long wallTime = System.nanoTime() - frame.startWallTime;
+            long cpuTime = difference(getCpuTime(), frame.startCpuTime);
+            long allocatedBytes = difference(getAllocatedBytes(), frame.startAllocatedBytes);
+            frame.peakHeap = Math.max(frame.peakHeap, getPeakHeap());
+            if(!frame.exclusive || CONCURRENT_STARTS.get() != frame.concurrentStarts)
+                frame.peakHeap = -1;
+            open.remove(frame);
+            Frame parent = open.peek();
+            if(parent != null)
+                parent.peakHeap = Math.max(parent.peakHeap, frame.peakHeap);
+            frame.statistics = new StageStatistics(frame.index, frame.stage, wallTime, cpuTime, allocatedBytes, frame.peakHeap, frame.inputSize, outputSize);
+        }
+        
+        List<StageStatistics> getStatistics(){
+            List<StageStatistics> statistics = new ArrayList<>(frames.size());
+            for(Frame frame : frames){
+                if(frame.statistics != null)
+                    statistics.add(frame.statistics);
+            }
+            return statistics;
+        }
+        
+        private static long getCpuTime(){
+            try{
+                if(threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled())
+                    return threadBean.getCurrentThreadCpuTime();
+            }catch(UnsupportedOperationException ex){
+                //not supported by this JVM
+            }
+            return -1;
+        }
+        
+        private static long getAllocatedBytes(){
+            if(threadBean instanceof com.sun.management.ThreadMXBean){
+                com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+                try{
+                    if(sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled())
+                        return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }catch(UnsupportedOperationException ex){
+                    //not supported by this JVM
+                }
+            }
+            return -1;
+        }
+        
+        private static long getPeakHeap(){
+            if(heapPools.isEmpty())
+                return -1;
+            long peak = 0;
+            for(MemoryPoolMXBean pool : heapPools){
+                peak += pool.getPeakUsage().getUsed();
+            }
+            return peak;
+        }
+        
+        private static void resetPeakHeap(){
+            for(MemoryPoolMXBean pool : heapPools){
+                pool.resetPeakUsage();
+            }
+        }
+        
+        private static long difference(long end, long start){
+            if(end < 0 || start < 0)
+                return -1;
+            return end - start;
+        }
+        
+        private static List<MemoryPoolMXBean> getHeapPools(){
+            List<MemoryPoolMXBean> pools = new ArrayList<>();
+            for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+                if(pool.getType() == MemoryType.HEAP)
+                    pools.add(pool);
+            }
+            return pools;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+/**
+ * Resource usage of one stage of a matcher pipeline (recorded by {@link PipelineInstrumentation}).
+ * Values which could not be measured (e.g. because the JVM does not support it) are -1.
+ */
+public class StageStatistics {
+    
+    private final int index;
+    private final String stage;
+    private final long wallTime;
+    private final long cpuTime;
+    private final long allocatedBytes;
+    private final long peakHeap;
+    private final long inputSize;
+    private final long outputSize;
+
+    /**
+     * Constructor.
+     * @param index the position of the stage (in the order in which the stages are started)
+     * @param stage the name of the stage. Stages of nested pipelines are prefixed with the name of the enclosing stage (separated by a slash).
+     * @param wallTime the elapsed time in nanoseconds
+     * @param cpuTime the cpu time of the executing thread in nanoseconds
+     * @param allocatedBytes the bytes allocated by the executing thread
+     * @param peakHeap the peak usage of the heap in bytes (JVM wide - -1 if the stage overlapped with the recording of another thread)
+     * @param inputSize the number of correspondences of the input alignment
+     * @param outputSize the number of correspondences of the output alignment
+     */
+    public StageStatistics(int index, String stage, long wallTime, long cpuTime, long allocatedBytes, long peakHeap, long inputSize, long outputSize) {
+        this.index = index;
+        this.stage = stage;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+        this.peakHeap = peakHeap;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getPeakHeap() {
+        return peakHeap;
+    }
+
+    public long getInputSize() {
+        return inputSize;
+    }
+
+    public long getOutputSize() {
+        return outputSize;
+    }
+
+    @Override
+    public String toString() {
+        return "StageStatistics{" + "index=" + index + ", stage=" + stage + ", wallTime=" + wallTime + ", cpuTime=" + cpuTime + 
+                ", allocatedBytes=" + allocatedBytes + ", peakHeap=" + peakHeap + ", inputSize=" + inputSize + ", outputSize=" + outputSize + '}';
+    }
+}
@@ -0,0 +1,20 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashUtilTest {
+
+    @Test
+    void toHexKeepsLeadingZeros() {
+        assertEquals("000fa0ff", HashUtil.toHex(new byte[]{0x00, 0x0f, (byte) 0xa0, (byte) 0xff}));
+        assertEquals("", HashUtil.toHex(new byte[0]));
+    }
+
+    @Test
+    void sha256Hex() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", HashUtil.sha256Hex(""));
+        assertEquals(64, HashUtil.sha256Hex("http://example.com/onto.owl").length());
+    }
+}
@@ -0,0 +1,147 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OntologyCacheTest {
+
+    @Test
+    void concurrentLoadsAreDeduplicated() throws Exception {
+        OntologyCache<String> cache = new OntologyCache<>(String::length);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get("onto", () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "model";
+                })));
+            }
+            for (Future<String> result : results) {
+                assertEquals("model", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getLoadCount());
+        assertTrue(cache.getTotalLoadTime() > 0);
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvicted() {
+        OntologyCache<String> cache = new OntologyCache<>(String::length);
+        cache.setMaximumEntries(2);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "a");
+        cache.get("c", () -> "c");
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.getEvictionCount());
+
+        // weight budget
+        cache.setMaximumEntries(Integer.MAX_VALUE);
+        cache.setMaximumWeight(5);
+        cache.get("long", () -> "12345");
+        assertEquals(1, cache.size());
+        assertEquals(5, cache.getTotalWeight());
+    }
+
+    @Test
+    void pinnedEntriesAreNotEvicted() {
+        OntologyCache<String> cache = new OntologyCache<>(String::length);
+        cache.setMaximumEntries(1);
+        cache.get("a", () -> "a", true);
+        cache.get("b", () -> "b");
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+
+        assertTrue(cache.pin("a"));
+        assertFalse(cache.pin("b"));
+        cache.unpin("a");
+        cache.get("c", () -> "c");
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("c"));
+
+        cache.unpin("a");
+        cache.get("d", () -> "d");
+        assertFalse(cache.contains("a"));
+        assertTrue(cache.contains("d"));
+    }
+
+    @Test
+    void ontologiesAreOnlyWeighedWithWeightBudget() {
+        AtomicInteger weighings = new AtomicInteger();
+        OntologyCache<String> cache = new OntologyCache<>(s -> {
+            weighings.incrementAndGet();
+            return s.length();
+        });
+        cache.get("a", () -> "abc");
+        cache.put("b", "de");
+        assertEquals(0, weighings.get());
+        assertEquals(0, cache.getTotalWeight());
+
+        // setting a budget weighs the existing entries
+        cache.setMaximumWeight(10);
+        assertEquals(2, weighings.get());
+        assertEquals(5, cache.getTotalWeight());
+        cache.get("c", () -> "fghi");
+        cache.get("c", () -> "fghi");
+        assertEquals(3, weighings.get());
+        assertEquals(9, cache.getTotalWeight());
+    }
+
+    @Test
+    void unpinOnlyReleasesPinOfSameOntology() {
+        OntologyCache<String> cache = new OntologyCache<>(String::length);
+        cache.setMaximumEntries(1);
+        String first = cache.get("a", () -> new String("a"), true);
+        // replaced entry: the pin of the old ontology is not transferred and unpin has no effect
+        cache.put("a", "other");
+        cache.get("b", () -> "b", true);
+        cache.unpin("b", "b");
+        cache.unpin("a", first);
+        assertTrue(cache.contains("b"));
+        assertFalse(cache.contains("a"));
+
+        String second = cache.get("c", () -> "c", true);
+        cache.get("d", () -> "d");
+        assertTrue(cache.contains("c"));
+        cache.unpin("c", second);
+        cache.get("e", () -> "e");
+        assertFalse(cache.contains("c"));
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        OntologyCache<String> cache = new OntologyCache<>(String::length);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("a", () -> {
+            throw new IllegalArgumentException("not parseable");
+        }));
+        assertFalse(cache.contains("a"));
+        assertEquals(1, cache.getLoadFailureCount());
+        assertEquals("a", cache.get("a", () -> "a"));
+    }
+}
@@ -0,0 +1,96 @@
+package de.uni_mannheim.informatik.dws.melt.matching_base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineInstrumentationTest {
+
+    @Test
+    void recordNestedStages() throws Exception {
+        // without recording, the stage is just executed
+        assertFalse(PipelineInstrumentation.isRecording());
+        assertEquals(2, PipelineInstrumentation.measure("stage", Arrays.asList(1), () -> Arrays.asList(1, 2)).size());
+        assertTrue(PipelineInstrumentation.stopRecording().isEmpty());
+
+        PipelineInstrumentation.startRecording();
+        List<Integer> first = PipelineInstrumentation.measure("first", new ArrayList<>(), () -> Arrays.asList(1, 2, 3));
+        PipelineInstrumentation.measure("nested", first, () -> {
+            List<Integer> inner = PipelineInstrumentation.measure("inner", first, () -> new ArrayList<>(first.subList(0, 1)));
+            return inner;
+        });
+        PipelineInstrumentation.measure("url", () -> "file.rdf");
+        List<StageStatistics> statistics = PipelineInstrumentation.stopRecording();
+        assertFalse(PipelineInstrumentation.isRecording());
+
+        assertEquals(4, statistics.size());
+        assertEquals("first", statistics.get(0).getStage());
+        assertEquals(0, statistics.get(0).getInputSize());
+        assertEquals(3, statistics.get(0).getOutputSize());
+        assertEquals("nested", statistics.get(1).getStage());
+        assertEquals(1, statistics.get(1).getOutputSize());
+        assertEquals("nested/inner", statistics.get(2).getStage());
+        assertEquals(3, statistics.get(2).getInputSize());
+        assertEquals("url", statistics.get(3).getStage());
+        assertEquals(-1, statistics.get(3).getOutputSize());
+        for(int i = 0; i < statistics.size(); i++){
+            assertEquals(i, statistics.get(i).getIndex());
+            assertTrue(statistics.get(i).getWallTime() >= 0);
+        }
+        assertTrue(statistics.get(1).getWallTime() >= statistics.get(2).getWallTime());
+        assertTrue(statistics.get(1).getPeakHeap() >= statistics.get(2).getPeakHeap());
+    }
+
+    @Test
+    void failingStageIsRecorded() {
+        PipelineInstrumentation.startRecording();
+        assertThrows(IllegalStateException.class, () -> PipelineInstrumentation.measure("failing", null, () -> {
+            throw new IllegalStateException("stage failed");
+        }));
+        List<StageStatistics> statistics = PipelineInstrumentation.stopRecording();
+        assertEquals(1, statistics.size());
+        assertEquals(-1, statistics.get(0).getInputSize());
+        assertEquals(-1, statistics.get(0).getOutputSize());
+    }
+
+    @Test
+    void peakHeapIsOnlyMeasuredForSequentialRecordings() throws Exception {
+        PipelineInstrumentation.startRecording();
+        PipelineInstrumentation.measure("sequential", () -> new byte[1024]);
+        assertTrue(PipelineInstrumentation.stopRecording().get(0).getPeakHeap() > 0);
+
+        // both stages wait for each other within the stage, so they overlap for sure
+        CyclicBarrier insideStage = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<List<StageStatistics>>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> {
+                    PipelineInstrumentation.startRecording();
+                    PipelineInstrumentation.measure("parallel", () -> {
+                        insideStage.await(10, TimeUnit.SECONDS);
+                        return new byte[1024];
+                    });
+                    return PipelineInstrumentation.stopRecording();
+                }));
+            }
+            for (Future<List<StageStatistics>> result : results) {
+                assertEquals(-1, result.get(10, TimeUnit.SECONDS).get(0).getPeakHeap());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PipelineInstrumentation.startRecording();
+        PipelineInstrumentation.measure("sequential", () -> new byte[1024]);
+        assertTrue(PipelineInstrumentation.stopRecording().get(0).getPeakHeap() > 0);
+    }
+}
@@ -3,9 +3,11 @@ package de.uni_mannheim.informatik.dws.melt.matching_eval;
 import com.googlecode.cqengine.attribute.Attribute;
 import com.googlecode.cqengine.attribute.SimpleAttribute;
 import com.googlecode.cqengine.query.option.QueryOptions;
+import de.uni_mannheim.informatik.dws.melt.matching_base.StageStatistics;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.refinement.Refiner;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.AlignmentParser;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.AlignmentSerializer;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.Track;
 import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
@@ -13,8 +15,10 @@ import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
 import java.io.*;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import org.slf4j.Logger;
@@ -39,6 +43,17 @@ public class ExecutionResult {
     private Alignment referenceAlignment;
     private IOntologyMatchingToolBridge matcher;
     private Set<Refiner> refinements;
+    
+    /**
+     * The alignment returned by an in-process matcher which is not yet written to a file.
+     * It is serialized lazily when the original system alignment URL is requested.
+     */
+    private Alignment unserializedSystemAlignment;
+    
+    /**
+     * The resource usage of the pipeline stages of the matcher (empty if the matcher is not a pipeline or it was not executed in-process).
+     */
+    private List<StageStatistics> stageStatistics;
 
 
     /**
@@ -73,6 +88,7 @@ public class ExecutionResult {
         this.matcher = matcher;
         if(refinements != null) this.refinements = refinements;
         else this.refinements = new HashSet<>();
+        this.stageStatistics = new ArrayList<>();
     }
 
     
@@ -99,6 +115,20 @@ public class ExecutionResult {
     public ExecutionResult(TestCase testCase, String matcherName, URL originalSystemAlignment, long runtime, IOntologyMatchingToolBridge matcher) {
         this(testCase, matcherName, originalSystemAlignment, runtime, null, testCase.getParsedReferenceAlignment(), matcher, new HashSet());
     }
+    
+    /**
+     * Constructor used by ExecutionRunner for initializing a execution result from an in-process matcher run
+     * which returns the alignment directly. The alignment is only written to a file if {@link #getOriginalSystemAlignment()} is called.
+     * @param testCase Test case on which the matcher was run which produced this particular result.
+     * @param matcherName Name of the matcher.
+     * @param systemAlignment The alignment returned by the matcher.
+     * @param runtime Runtime by the matcher.
+     * @param matcher Matcher that was used for the testCase.
+     */
+    public ExecutionResult(TestCase testCase, String matcherName, Alignment systemAlignment, long runtime, IOntologyMatchingToolBridge matcher) {
+        this(testCase, matcherName, null, runtime, systemAlignment, testCase.getParsedReferenceAlignment(), matcher, new HashSet());
+        this.unserializedSystemAlignment = systemAlignment;
+    }
 
     
     /**
@@ -112,6 +142,8 @@ public class ExecutionResult {
      */
     public ExecutionResult(ExecutionResult base, Alignment systemAlignment, Alignment referenceAlignment, Refiner refinement) {
         this(base.testCase, base.matcherName, base.originalSystemAlignment, base.runtime, systemAlignment, referenceAlignment, base.matcher, addRefinementToNewSet(base.refinements, refinement));
+        this.unserializedSystemAlignment = base.unserializedSystemAlignment;
+        this.stageStatistics = base.stageStatistics;
     }
     
     /**
@@ -178,10 +210,55 @@ public class ExecutionResult {
         return this.referenceAlignment;
     }
 
-    public URL getOriginalSystemAlignment() {
+    /**
+     * Returns the URL of the alignment file which was returned by the matcher.
+     * If the matcher returned the alignment directly (in-process YAAA matcher), the alignment is written to a temporary file when this method is called the first time.
+     * @return URL of the original system alignment or null if not available
+     */
+    public synchronized URL getOriginalSystemAlignment() {
+        if(this.originalSystemAlignment == null && this.unserializedSystemAlignment != null){
+            try {
+                File file = File.createTempFile("alignment", ".rdf");
+                file.deleteOnExit();
+                AlignmentSerializer.serialize(this.unserializedSystemAlignment, file);
+                this.originalSystemAlignment = file.toURI().toURL();
+                this.unserializedSystemAlignment = null;
+            } catch (IOException ex) {
+                LOGGER.error("Could not write the system alignment to a file.", ex);
+            }
+        }
         return originalSystemAlignment;
     }
 
+    /**
+     * Returns true if the original system alignment is available as a file.
+     * In contrast to {@link #getOriginalSystemAlignment()}, an alignment which is only held in memory is not written to a file.
+     * @return true if the URL of the original system alignment is already known
+     */
+    public synchronized boolean isOriginalSystemAlignmentSerialized() {
+        return this.originalSystemAlignment != null;
+    }
+
+    /**
+     * Returns the alignment returned by an in-process matcher as long as it is not written to a file.
+     * @return the in-memory system alignment or null if it is already serialized or was never held in memory
+     */
+    synchronized Alignment getUnserializedSystemAlignment() {
+        return this.unserializedSystemAlignment;
+    }
+
+    /**
+     * Returns the resource usage (runtime, allocated memory etc) of each stage of the matcher pipeline.
+     * @return the statistics of the stages in the order of execution (empty if no stages were recorded)
+     */
+    public List<StageStatistics> getStageStatistics() {
+        return stageStatistics;
+    }
+
+    public void setStageStatistics(List<StageStatistics> stageStatistics) {
+        this.stageStatistics = stageStatistics == null ? new ArrayList<>() : stageStatistics;
+    }
+
     public File getMatcherLog() {
         return matcherLog;
     }
@@ -0,0 +1,380 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval;
+
+import de.uni_mannheim.informatik.dws.melt.matching_base.HashUtil;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.AlignmentSerializer;
+import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.beanutils.PropertyUtilsBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent store for execution results which allows to resume an interrupted run (e.g. a long grid search).
+ * Each task (matcher on a test case) is identified by a key which is the SHA-256 hash of
+ * <ul>
+ * <li>the class of the matcher</li>
+ * <li>the configuration of the matcher (all bean properties, see {@link #getConfigurationFingerprint(IOntologyMatchingToolBridge)})</li>
+ * <li>the name of the matcher (which contains the configuration in case of a {@link de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning.GridSearch})</li>
+ * <li>the content of the source, target and input alignment file of the test case</li>
+ * </ul>
+ * The store writes the produced alignment and the runtime in a folder named after the key.
+ * When a task is executed again, the stored result is loaded instead of running the matcher.
+ * The result properties are written after the alignment with an atomic move, thus tasks which were interrupted during writing are executed again.
+ */
+public class ExecutionResultStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionResultStore.class);
+
+    private static final String ALIGNMENT_FILE = "alignment.rdf";
+    private static final String RESULT_FILE = "result.properties";
+    private static final String RUNTIME = "runtime";
+    private static final String MATCHER_NAME = "matcherName";
+    private static final String MATCHER_CLASS = "matcherClass";
+    private static final String MATCHER_CONFIGURATION = "matcherConfiguration";
+    private static final String TESTCASE = "testcase";
+    private static final String TRACK = "track";
+
+    private final File directory;
+
+    /**
+     * Cache for the hashes of the test case files (key is the URI, file length and modification time).
+     */
+    private final Map<String, String> fileHashes;
+
+    /**
+     * Constructor.
+     * @param directory the directory where all results are stored (it is created if it does not exist)
+     */
+    public ExecutionResultStore(File directory) {
+        this.directory = directory;
+        this.fileHashes = new ConcurrentHashMap<>();
+        if (!directory.exists() && !directory.mkdirs())
+            LOGGER.warn("Could not create the directory of the execution result store: {}", directory);
+    }
+
+    /**
+     * Returns the stored result of the task or null if the task was not executed before.
+     * @param testCase the test case
+     * @param matcher the matcher
+     * @param matcherName the name of the matcher (including its configuration)
+     * @return the stored execution result or null
+     */
+    public ExecutionResult load(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName) {
+        return load(getKey(testCase, matcher, matcherName), testCase, matcher, matcherName);
+    }
+
+    /**
+     * Returns the stored result of the task with the given key or null if the task was not executed before.
+     * @param key the key of the task (see {@link #getKey(TestCase, IOntologyMatchingToolBridge, String)}) - null if the task is not cached
+     * @param testCase the test case
+     * @param matcher the matcher
+     * @param matcherName the name of the matcher (including its configuration)
+     * @return the stored execution result or null
+     */
+    public ExecutionResult load(String key, TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName) {
+        if (key == null)
+            return null;
+        File taskDirectory = new File(directory, key);
+        File resultFile = new File(taskDirectory, RESULT_FILE);
+        File alignmentFile = new File(taskDirectory, ALIGNMENT_FILE);
+        if (!resultFile.isFile() || !alignmentFile.isFile())
+            return null;
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(resultFile)) {
+            properties.load(in);
+            long runtime = Long.parseLong(properties.getProperty(RUNTIME, "0"));
+            LOGGER.info("Load stored result of matcher {} on testcase {} (track {}) from {}.", matcherName, testCase.getName(), testCase.getTrack().getName(), taskDirectory);
+            return new ExecutionResult(testCase, matcherName, alignmentFile.toURI().toURL(), runtime, matcher);
+        } catch (IOException | NumberFormatException ex) {
+            LOGGER.warn("Could not load the stored result in " + taskDirectory + ". The task is executed again.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of a task. The original system alignment is copied into the store.
+     * @param result the execution result to store
+     * @param matcher the matcher which produced the result
+     */
+    public void store(ExecutionResult result, IOntologyMatchingToolBridge matcher) {
+        store(getKey(result.getTestCase(), matcher, result.getMatcherName()), result, matcher);
+    }
+
+    /**
+     * Stores the result of a task under the given key. The original system alignment is copied into the store
+     * (an alignment which is only held in memory is written directly into the store).
+     * The key should be computed before the matcher runs, because running a matcher can change its bean properties.
+     * @param key the key of the task (see {@link #getKey(TestCase, IOntologyMatchingToolBridge, String)}) - null if the task is not cached
+     * @param result the execution result to store
+     * @param matcher the matcher which produced the result
+     */
+    public void store(String key, ExecutionResult result, IOntologyMatchingToolBridge matcher) {
+        if (key == null) {
+            LOGGER.info("The configuration of matcher {} can not be fingerprinted reliably. The result is not stored.", result.getMatcherName());
+            return;
+        }
+        File taskDirectory = new File(directory, key);
+        if (!taskDirectory.exists() && !taskDirectory.mkdirs()) {
+            LOGGER.warn("Could not create directory {} to store the execution result.", taskDirectory);
+            return;
+        }
+        try {
+            File alignmentTmp = new File(taskDirectory, ALIGNMENT_FILE + ".tmp");
+            Alignment inMemory = result.getUnserializedSystemAlignment();
+            if (inMemory != null) {
+                // write the alignment of an in-process matcher directly into the store (and not into a temp file first)
+                AlignmentSerializer.serialize(inMemory, alignmentTmp);
+            } else {
+                URL alignment = result.getOriginalSystemAlignment();
+                if (alignment == null) {
+                    LOGGER.warn("The execution result of matcher {} on testcase {} has no alignment and is not stored.", result.getMatcherName(), result.getTestCase().getName());
+                    return;
+                }
+                try (InputStream in = alignment.openStream()) {
+                    Files.copy(in, alignmentTmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            move(alignmentTmp, new File(taskDirectory, ALIGNMENT_FILE));
+
+            Properties properties = new Properties();
+            properties.setProperty(RUNTIME, Long.toString(result.getRuntime()));
+            properties.setProperty(MATCHER_NAME, result.getMatcherName());
+            properties.setProperty(MATCHER_CLASS, matcher == null ? "" : matcher.getClass().getName());
+            properties.setProperty(MATCHER_CONFIGURATION, Objects.toString(getConfigurationFingerprint(matcher), ""));
+            properties.setProperty(TESTCASE, result.getTestCase().getName());
+            properties.setProperty(TRACK, result.getTestCase().getTrack().getName());
+            File resultTmp = new File(taskDirectory, RESULT_FILE + ".tmp");
+            try (OutputStream out = new FileOutputStream(resultTmp)) {
+                properties.store(out, "Execution result");
+            }
+            move(resultTmp, new File(taskDirectory, RESULT_FILE));
+        } catch (IOException ex) {
+            LOGGER.warn("Could not store the execution result in " + taskDirectory + ".", ex);
+        }
+    }
+
+    /**
+     * Checks if the result of the task is already stored.
+     * @param testCase the test case
+     * @param matcher the matcher
+     * @param matcherName the name of the matcher (including its configuration)
+     * @return true if the result is available in the store
+     */
+    public boolean contains(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName) {
+        String key = getKey(testCase, matcher, matcherName);
+        if (key == null)
+            return false;
+        File taskDirectory = new File(directory, key);
+        return new File(taskDirectory, RESULT_FILE).isFile() && new File(taskDirectory, ALIGNMENT_FILE).isFile();
+    }
+
+    /**
+     * Returns the stable key of a task.
+     * @param testCase the test case
+     * @param matcher the matcher
+     * @param matcherName the name of the matcher (including its configuration)
+     * @return the key as hex string or null if the configuration of the matcher can not be fingerprinted (then the task is not cached)
+     */
+    public String getKey(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName) {
+        String configuration = getConfigurationFingerprint(matcher);
+        if (configuration == null)
+            return null;
+        StringBuilder sb = new StringBuilder();
+        sb.append(matcher == null ? "" : matcher.getClass().getName()).append('\n');
+        sb.append(configuration).append('\n');
+        sb.append(matcherName).append('\n');
+        sb.append(getContentHash(testCase.getSource())).append('\n');
+        sb.append(getContentHash(testCase.getTarget())).append('\n');
+        sb.append(testCase.getInputAlignment() == null ? "" : getContentHash(testCase.getInputAlignment()));
+        return HashUtil.sha256Hex(sb.toString());
+    }
+
+    /**
+     * Returns the directory of the store.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns a stable description of the configuration of the matcher: all bean properties with getter and setter
+     * (the same properties which are set by {@link de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning.GridSearch}) sorted by name.
+     * Read-only properties are not accessed because their getters might compute something or have side effects.
+     * Primitives, strings, enums, files and URIs (as well as arrays, collections and maps of them) are represented by their value.
+     * Other values are represented by their own toString or hashCode if the class overrides it, or otherwise by their bean properties (recursively).
+     * If a value can not be represented reliably (no overridden toString/hashCode and no bean properties, a cycle, or a getter which fails),
+     * null is returned and the task is not cached at all.
+     * Configuration which is not available via getters and setters (e.g. only passed to the constructor) has to be part of the matcher name.
+     * @param matcher the matcher
+     * @return the configuration fingerprint (empty if the matcher is null) or null if the configuration can not be fingerprinted reliably
+     */
+    public static String getConfigurationFingerprint(IOntologyMatchingToolBridge matcher) {
+        if (matcher == null)
+            return "";
+        return fingerprintBean(new PropertyUtilsBean(), matcher, Collections.newSetFromMap(new IdentityHashMap<>()), true);
+    }
+
+    private static String fingerprintBean(PropertyUtilsBean pub, Object bean, Set<Object> visiting, boolean allowEmpty) {
+        Map<String, String> properties = new TreeMap<>();
+        visiting.add(bean);
+        try {
+            for (PropertyDescriptor descriptor : pub.getPropertyDescriptors(bean)) {
+                if (descriptor.getReadMethod() == null || descriptor.getWriteMethod() == null)
+                    continue;
+                Object value;
+                try {
+                    value = pub.getSimpleProperty(bean, descriptor.getName());
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    LOGGER.debug("Could not read property {} of {} for the configuration fingerprint.", descriptor.getName(), bean.getClass().getName(), ex);
+                    return null;
+                }
+                String fingerprint = fingerprintValue(pub, value, visiting);
+                if (fingerprint == null)
+                    return null;
+                properties.put(descriptor.getName(), fingerprint);
+            }
+        } finally {
+            visiting.remove(bean);
+        }
+        if (properties.isEmpty() && !allowEmpty)
+            return null;
+        StringJoiner joiner = new StringJoiner(",", bean.getClass().getName() + "{", "}");
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            joiner.add(property.getKey() + "=" + property.getValue());
+        }
+        return joiner.toString();
+    }
+
+    private static String fingerprintValue(PropertyUtilsBean pub, Object value, Set<Object> visiting) {
+        if (value == null)
+            return "null";
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof CharSequence
+                || value instanceof Enum || value instanceof File || value instanceof URI || value instanceof URL)
+            return value.toString();
+        if (value instanceof Class)
+            return ((Class<?>) value).getName();
+        if (visiting.contains(value))
+            return null; // cycle
+        List<String> elements = new ArrayList<>();
+        if (value.getClass().isArray()) {
+            visiting.add(value);
+            for (int i = 0; i < Array.getLength(value); i++) {
+                elements.add(fingerprintValue(pub, Array.get(value, i), visiting));
+            }
+            visiting.remove(value);
+        } else if (value instanceof Collection) {
+            visiting.add(value);
+            for (Object element : (Collection<?>) value) {
+                elements.add(fingerprintValue(pub, element, visiting));
+            }
+            visiting.remove(value);
+            if (elements.contains(null))
+                return null;
+            if (value instanceof Set)
+                Collections.sort(elements);
+        } else if (value instanceof Map) {
+            visiting.add(value);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                String key = fingerprintValue(pub, entry.getKey(), visiting);
+                String entryValue = fingerprintValue(pub, entry.getValue(), visiting);
+                elements.add(key == null || entryValue == null ? null : key + ":" + entryValue);
+            }
+            visiting.remove(value);
+            if (elements.contains(null))
+                return null;
+            Collections.sort(elements);
+        } else if (overrides(value.getClass(), "toString")) {
+            return value.getClass().getName() + ":" + value.toString();
+        } else if (overrides(value.getClass(), "hashCode")) {
+            return value.getClass().getName() + "#" + value.hashCode();
+        } else {
+            return fingerprintBean(pub, value, visiting, false);
+        }
+        if (elements.contains(null))
+            return null;
+        return elements.toString();
+    }
+
+    private static boolean overrides(Class<?> clazz, String methodName) {
+        try {
+            return clazz.getMethod(methodName).getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Hash of the content of a file. For URIs which are not files, the URI itself is hashed.
+     * @param uri the uri of the file
+     * @return the hash as hex string
+     */
+    private String getContentHash(URI uri) {
+        if (uri == null)
+            return "";
+        File file;
+        try {
+            file = "file".equals(uri.getScheme()) ? new File(uri) : null;
+        } catch (IllegalArgumentException ex) {
+            file = null;
+        }
+        if (file == null || !file.isFile())
+            return HashUtil.sha256Hex(uri.toString());
+        String cacheKey = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+        final File toHash = file;
+        return fileHashes.computeIfAbsent(cacheKey, k -> hashFile(toHash, uri));
+    }
+
+    private static String hashFile(File file, URI uri) {
+        MessageDigest digest = HashUtil.sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HashUtil.toHex(digest.digest());
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read file " + file + " to compute the key of the execution result store. Use the URI instead.", ex);
+            return HashUtil.sha256Hex(uri.toString());
+        }
+    }
+
+    private static void move(File source, File target) throws IOException {
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        try {
+            Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.MatcherFile;
+import de.uni_mannheim.informatik.dws.melt.matching_base.MatcherURL;
+import de.uni_mannheim.informatik.dws.melt.matching_base.PipelineInstrumentation;
+import de.uni_mannheim.informatik.dws.melt.matching_base.StageStatistics;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
 import eu.sealsproject.platform.res.tool.api.ToolBridgeException;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.List;
 import java.util.concurrent.Callable;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
@@ -24,17 +31,48 @@ class ExecutionRunner implements Callable<ExecutionResult> {
     private TestCase testCase;
     private IOntologyMatchingToolBridge matcher;        
     private String matcherName;
+    private ExecutionResultStore resultStore;
 
     public ExecutionRunner(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName){
+        this(testCase, matcher, matcherName, null);
+    }
+    
+    public ExecutionRunner(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName, ExecutionResultStore resultStore){
         this.testCase = testCase;
         this.matcher = matcher;
         this.matcherName = matcherName;
+        this.resultStore = resultStore;
     }
 
     @Override
     public ExecutionResult call() {
         Thread.currentThread().setName(matcherName + "-" + testCase.getName());
-        return runMatcher(testCase, matcher, matcherName);
+        return runMatcher(testCase, matcher, matcherName, resultStore);
+    }
+    
+    /**
+     * Run an individual matcher on an individual test case.
+     * If the result is already in the result store, it is loaded instead of running the matcher.
+     * Otherwise the new result is written to the store.
+     * @param testCase Test case to be used for run.
+     * @param matcher Matcher to be run.
+     * @param matcherName Name of the matcher.
+     * @param resultStore The store for execution results (can be null - then the matcher is always executed).
+     *                    The store is also skipped if the configuration of the matcher can not be fingerprinted (see {@link ExecutionResultStore#getConfigurationFingerprint(IOntologyMatchingToolBridge)}).
+     * @return ExecutionResult Object
+     */
+    public static ExecutionResult runMatcher(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName, ExecutionResultStore resultStore){
+        if(resultStore == null)
+            return runMatcher(testCase, matcher, matcherName);
+        //compute the key before the matcher runs because running it can change its configuration
+        String key = resultStore.getKey(testCase, matcher, matcherName);
+        ExecutionResult stored = resultStore.load(key, testCase, matcher, matcherName);
+        if(stored != null)
+            return stored;
+        ExecutionResult result = runMatcher(testCase, matcher, matcherName);
+        if(result != null)
+            resultStore.store(key, result, matcher);
+        return result;
     }
 
     /**
@@ -45,9 +83,14 @@ class ExecutionRunner implements Callable<ExecutionResult> {
      * @return ExecutionResult Object
      */
     public static ExecutionResult runMatcher(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName){
+        if(canReturnAlignmentDirectly(matcher)){
+            return runMatcherYAAA(testCase, (MatcherYAAA) matcher, matcherName);
+        }
         LOGGER.info("Running matcher {} on testcase {} (track {}).",matcherName, testCase.getName(), testCase.getTrack().getName());
         long runTime;
         URL resultingAlignment = null;
+        List<StageStatistics> stageStatistics;
+        PipelineInstrumentation.startRecording();
         long startTime = System.nanoTime();
         try {
             if(testCase.getInputAlignment() != null){
@@ -61,6 +104,7 @@ class ExecutionRunner implements Callable<ExecutionResult> {
         finally
         {
             runTime = System.nanoTime() - startTime;  
+            stageStatistics = PipelineInstrumentation.stopRecording();
             LOGGER.info("Running matcher {} on testcase {} (track {}) completed in {}.", matcherName, testCase.getName(), testCase.getTrack().getName(), DurationFormatUtils.formatDurationWords((long)(runTime/1_000_000), true, true));
         }
         if(resultingAlignment == null) {
@@ -72,8 +116,68 @@ class ExecutionRunner implements Callable<ExecutionResult> {
                 LOGGER.error("Original system alignment does not point to a file and thus cannot be deleted on evaluation exit. " +
                         "Use Executor.deleteOriginalSystemResults", ex);
             }
-            return new ExecutionResult(testCase, matcherName, resultingAlignment, runTime, matcher);
+            ExecutionResult result = new ExecutionResult(testCase, matcherName, resultingAlignment, runTime, matcher);
+            result.setStageStatistics(stageStatistics);
+            return result;
         }
         return null;
     }
+    
+    /**
+     * Run a YAAA matcher on an individual test case.
+     * The resulting alignment is directly attached to the execution result (without writing and parsing a file).
+     * The file is only written if the original system alignment is requested.
+     * @param testCase Test case to be used for run.
+     * @param matcher Matcher to be run.
+     * @param matcherName Name of the matcher.
+     * @return ExecutionResult Object
+     */
+    private static ExecutionResult runMatcherYAAA(TestCase testCase, MatcherYAAA matcher, String matcherName){
+        LOGGER.info("Running matcher {} on testcase {} (track {}).",matcherName, testCase.getName(), testCase.getTrack().getName());
+        long runTime;
+        Alignment resultingAlignment = null;
+        List<StageStatistics> stageStatistics;
+        PipelineInstrumentation.startRecording();
+        long startTime = System.nanoTime();
+        try {
+            URL inputAlignment = testCase.getInputAlignment() == null ? null : testCase.getInputAlignment().toURL();
+            resultingAlignment = matcher.matchAsAlignment(testCase.getSource().toURL(), testCase.getTarget().toURL(), inputAlignment);
+        } catch (Exception ex) {
+            LOGGER.error("Exception during matching (matcher " + matcherName + " on testcase " +  testCase.getName() + ").", ex);
+        }
+        finally
+        {
+            runTime = System.nanoTime() - startTime;  
+            stageStatistics = PipelineInstrumentation.stopRecording();
+            LOGGER.info("Running matcher {} on testcase {} (track {}) completed in {}.", matcherName, testCase.getName(), testCase.getTrack().getName(), DurationFormatUtils.formatDurationWords((long)(runTime/1_000_000), true, true));
+        }
+        if(resultingAlignment == null) {
+            LOGGER.error("Matching task unsuccessful: output alignment equals null. (matcher: {} testcase: {} track: {})", matcherName, testCase.getName(), testCase.getTrack().getName());
+            return null;
+        }
+        ExecutionResult result = new ExecutionResult(testCase, matcherName, resultingAlignment, runTime, matcher);
+        result.setStageStatistics(stageStatistics);
+        return result;
+    }
+    
+    /**
+     * Checks if the matcher is a YAAA matcher which does not override the methods which produce the alignment file.
+     * Only then the alignment can be obtained directly without changing the behaviour of the matcher.
+     * @param matcher the matcher to check
+     * @return true if the alignment can be obtained directly
+     */
+    private static boolean canReturnAlignmentDirectly(IOntologyMatchingToolBridge matcher){
+        if(!(matcher instanceof MatcherYAAA))
+            return false;
+        try {
+            Class<?> clazz = matcher.getClass();
+            return clazz.getMethod("match", URL.class, URL.class, URL.class, File.class).getDeclaringClass() == MatcherYAAA.class &&
+                    clazz.getMethod("match", URL.class, URL.class, URL.class).getDeclaringClass() == MatcherFile.class &&
+                    clazz.getMethod("align", URL.class, URL.class, URL.class).getDeclaringClass() == MatcherURL.class &&
+                    clazz.getMethod("align", URL.class, URL.class).getDeclaringClass() == MatcherURL.class;
+        } catch (NoSuchMethodException | SecurityException ex) {
+            LOGGER.debug("No access to match methods of matcher.", ex);
+            return false;
+        }
+    }
 }
@@ -125,6 +125,19 @@ public class Executor {
      * @return The matching result as {@link ExecutionResultSet} instance.
      */
     public static ExecutionResultSet runTracks(List<Track> tracks, Map<String, IOntologyMatchingToolBridge> matchers) {
+        return runTracks(tracks, matchers, null);
+    }
+    
+    /**
+     * Run multiple matchers on multiple tracks.
+     * Results which are already in the result store are loaded instead of running the matcher again.
+     *
+     * @param tracks The tracks on which the matchers shall be run.
+     * @param matchers The matchers that shall be run.
+     * @param resultStore The store for execution results which allows to resume a run (can be null).
+     * @return The matching result as {@link ExecutionResultSet} instance.
+     */
+    public static ExecutionResultSet runTracks(List<Track> tracks, Map<String, IOntologyMatchingToolBridge> matchers, ExecutionResultStore resultStore) {
         if(tracks == null){
             LOGGER.error("The tracks list is null. Resolution: Returning empty resultSet.");
             return new ExecutionResultSet();
@@ -137,7 +150,7 @@ public class Executor {
         for(Track track : tracks){
             for (TestCase tc : track.getTestCases()) {
                 for(Entry<String, IOntologyMatchingToolBridge> matcher : matchers.entrySet()){
-                    ExecutionResult er = ExecutionRunner.runMatcher(tc, matcher.getValue(), matcher.getKey());
+                    ExecutionResult er = ExecutionRunner.runMatcher(tc, matcher.getValue(), matcher.getKey(), resultStore);
                     if(er != null)
                         r.add(er);
                 }
@@ -154,6 +167,19 @@ public class Executor {
      * @return The matching result as {@link ExecutionResultSet} instance.
      */
     public static ExecutionResultSet run(List<TestCase> testCases, Map<String, IOntologyMatchingToolBridge> matchers) {
+        return run(testCases, matchers, null);
+    }
+    
+    /**
+     * Run a set of matchers on a set of test cases.
+     * Results which are already in the result store are loaded instead of running the matcher again.
+     *
+     * @param testCases The test cases on which all the specified matchers shall be run.
+     * @param matchers  A map of matchers from unique_name to matcher instance.
+     * @param resultStore The store for execution results which allows to resume a run (can be null).
+     * @return The matching result as {@link ExecutionResultSet} instance.
+     */
+    public static ExecutionResultSet run(List<TestCase> testCases, Map<String, IOntologyMatchingToolBridge> matchers, ExecutionResultStore resultStore) {
         if(testCases == null){
             LOGGER.error("The testCases list is null. Resolution: Returning empty resultSet.");
             return new ExecutionResultSet();
@@ -165,7 +191,7 @@ public class Executor {
         ExecutionResultSet r = new ExecutionResultSet();
         for (TestCase tc : testCases) {
             for (Entry<String, IOntologyMatchingToolBridge> matcher : matchers.entrySet()) {
-                ExecutionResult er = ExecutionRunner.runMatcher(tc, matcher.getValue(), matcher.getKey());
+                ExecutionResult er = ExecutionRunner.runMatcher(tc, matcher.getValue(), matcher.getKey(), resultStore);
                 if(er != null)
                     r.add(er);
             }
@@ -565,6 +591,7 @@ public class Executor {
     /**
      * Deletes all system results which are stored usually in the tmp folder.
      * This will not delete anything in the results folder.
+     * Alignments which are only held in memory are not written to a file just to delete it.
      *
      * @param er the execution results where all system alignments should be removed.
      * @return <code>true</code> if and only if all results are
@@ -574,7 +601,7 @@ public class Executor {
         boolean allDeleted = true;
         for (ExecutionResult r : er) {
             try {
-                if (r.getOriginalSystemAlignment() != null) {
+                if (r.isOriginalSystemAlignmentSerialized()) {
                     if (!new File(r.getOriginalSystemAlignment().toURI()).delete()) {
                         allDeleted = false;
                     }
@@ -22,13 +22,28 @@ public class ExecutorParallel {
     
     private int numberOfThreads;
     
+    /**
+     * The store for execution results which allows to resume a run (can be null).
+     */
+    private ExecutionResultStore resultStore;
+    
     
     public ExecutorParallel(){
-        this.numberOfThreads = Runtime.getRuntime().availableProcessors();
+        this(Runtime.getRuntime().availableProcessors());
     }
     
     public ExecutorParallel(int numberOfThreads){
+        this(numberOfThreads, null);
+    }
+    
+    /**
+     * Constructor.
+     * @param numberOfThreads the number of threads
+     * @param resultStore the store for execution results. Results which are already stored are loaded instead of running the matcher again.
+     */
+    public ExecutorParallel(int numberOfThreads, ExecutionResultStore resultStore){
         this.numberOfThreads = numberOfThreads;
+        this.resultStore = resultStore;
     }
     
     
@@ -45,7 +60,7 @@ public class ExecutorParallel {
         List<Future<ExecutionResult>> futures = new ArrayList<>(testCases.size() * matchers.size());
         for (TestCase tc : testCases) {
             for (Map.Entry<String, IOntologyMatchingToolBridge> matcher : matchers.entrySet()) {
-                futures.add(exec.submit(new ExecutionRunner(tc, matcher.getValue(), matcher.getKey())));
+                futures.add(exec.submit(new ExecutionRunner(tc, matcher.getValue(), matcher.getKey(), resultStore)));
             }
         }
 
@@ -72,6 +87,14 @@ public class ExecutorParallel {
         }
         return run(testCases, matchers);
     }
+
+    public ExecutionResultStore getResultStore() {
+        return resultStore;
+    }
+
+    public void setResultStore(ExecutionResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
     
 }
 //to run in parallel use ExecutorService 
@@ -0,0 +1,463 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval;
+
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.Track;
+import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor to run matchers in parallel where each (matcher, testcase) task runs in its own JVM.
+ * In contrast to {@link ExecutorParallel}, the matchers do not share any static state (like caches or options)
+ * and each task has its own temp directory (java.io.tmpdir) and working directory.
+ * Thus also matchers which write to fixed files in the temp directory can be run in parallel.
+ * <br>
+ * Matchers which implement {@link Serializable} are serialized and thus keep their configuration.
+ * All other matchers are instantiated in the new JVM with their no-argument constructor. Such matchers are rejected
+ * (with an IllegalArgumentException) if they have no no-argument constructor or if the given instance differs in any
+ * field from a newly created instance, because the configuration would be silently lost otherwise.
+ * <br>
+ * The number of parallel tasks is bounded by the given maximum and by the physical memory (minus the memory reserved for
+ * this JVM and the operating system) divided by the memory per task (heap plus non-heap overhead of each JVM).
+ */
+public class ExecutorParallelIsolated {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorParallelIsolated.class);
+
+    private static final long DEFAULT_MEMORY_PER_TASK_IN_MB = 4096;
+
+    /**
+     * Memory in MB which each JVM needs in addition to its heap (metaspace, code cache, thread stacks).
+     */
+    private static final long NON_HEAP_MEMORY_PER_TASK_IN_MB = 256;
+
+    /**
+     * Memory in MB which is reserved for the operating system and the non-heap memory of this JVM.
+     */
+    private static final long RESERVED_SYSTEM_MEMORY_IN_MB = 1024;
+
+    /**
+     * The maximum number of tasks which run in parallel (regardless of the memory).
+     */
+    private int maxParallelTasks;
+
+    /**
+     * The maximum heap size of each JVM in MB (-Xmx).
+     */
+    private long memoryPerTaskInMB;
+
+    /**
+     * The physical memory in MB which is not used for the tasks (this JVM and the operating system).
+     */
+    private long reservedMemoryInMB;
+
+    /**
+     * The directory where the folder for each task is created (containing the log files and the temp dir of the task).
+     */
+    private File baseDirectory;
+
+    /**
+     * Timeout for each task.
+     */
+    private long timeout;
+
+    /**
+     * Time unit for the timeout.
+     */
+    private TimeUnit timeoutTimeUnit;
+
+    /**
+     * The command to start java in the terminal. Typically, this is "java"
+     */
+    private String javaCommand;
+
+    /**
+     * Additional parameters which are passed to each JVM (like "-XX:+UseG1GC").
+     */
+    private List<String> javaRuntimeParameters;
+
+    /**
+     * Constructor
+     * @param maxParallelTasks the maximum number of tasks which run in parallel
+     * @param memoryPerTaskInMB the maximum heap size of each JVM in MB
+     * @param baseDirectory the directory where the folder for each task is created
+     * @param timeout timeout for each task
+     * @param timeoutTimeUnit the unit of the timeout
+     */
+    public ExecutorParallelIsolated(int maxParallelTasks, long memoryPerTaskInMB, File baseDirectory, long timeout, TimeUnit timeoutTimeUnit) {
+        this.maxParallelTasks = maxParallelTasks;
+        this.memoryPerTaskInMB = memoryPerTaskInMB;
+        this.baseDirectory = baseDirectory;
+        this.timeout = timeout;
+        this.timeoutTimeUnit = timeoutTimeUnit;
+        this.javaCommand = getJavaCommandOfCurrentJVM();
+        this.javaRuntimeParameters = new ArrayList<>();
+        this.reservedMemoryInMB = getDefaultReservedMemoryInMB();
+    }
+
+    /**
+     * Constructor with a timeout of 12 hours and the folder "isolatedExecution" as base directory.
+     * @param maxParallelTasks the maximum number of tasks which run in parallel
+     * @param memoryPerTaskInMB the maximum heap size of each JVM in MB
+     */
+    public ExecutorParallelIsolated(int maxParallelTasks, long memoryPerTaskInMB) {
+        this(maxParallelTasks, memoryPerTaskInMB, new File("isolatedExecution"), 12, TimeUnit.HOURS);
+    }
+
+    /**
+     * Constructor which uses all processors, 4 GB per task, a timeout of 12 hours and the folder "isolatedExecution" as base directory.
+     */
+    public ExecutorParallelIsolated() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MEMORY_PER_TASK_IN_MB);
+    }
+
+    /**
+     * Run the given matchers on the given testcases. Each combination of matcher and testcase runs in its own JVM.
+     * @param testCases the testcases on which the matchers should be run
+     * @param matchers the matchers (map of matcher name to matcher)
+     * @return ExecutionResultSet
+     * @throws IllegalArgumentException if a matcher can not be transferred to the new JVM (see class description)
+     */
+    public ExecutionResultSet run(List<TestCase> testCases, Map<String, IOntologyMatchingToolBridge> matchers) {
+        for (Map.Entry<String, IOntologyMatchingToolBridge> matcher : matchers.entrySet()) {
+            checkTransferable(matcher.getValue(), matcher.getKey());
+        }
+        int numberOfParallelTasks = getNumberOfParallelTasks();
+        LOGGER.info("Run {} matchers on {} testcases with {} parallel JVMs ({} MB each).",
+                matchers.size(), testCases.size(), numberOfParallelTasks, this.memoryPerTaskInMB);
+        ExecutorService exec = Executors.newFixedThreadPool(numberOfParallelTasks);
+
+        List<Future<ExecutionResult>> futures = new ArrayList<>(testCases.size() * matchers.size());
+        for (TestCase tc : testCases) {
+            for (Map.Entry<String, IOntologyMatchingToolBridge> matcher : matchers.entrySet()) {
+                futures.add(exec.submit(() -> runIsolated(tc, matcher.getValue(), matcher.getKey())));
+            }
+        }
+
+        ExecutionResultSet results = new ExecutionResultSet();
+        for (Future<ExecutionResult> f : futures) {
+            try {
+                ExecutionResult result = f.get();
+                if(result != null)
+                    results.add(result);
+            } catch (InterruptedException ex) {
+                LOGGER.warn("Interrupted while waiting for parallel results of isolated matcher execution. The remaining tasks are cancelled.");
+                Thread.currentThread().interrupt();
+                exec.shutdownNow();
+                break;
+            } catch (ExecutionException ex) {
+                LOGGER.warn("Error when waiting for parallel results of isolated matcher execution.", ex);
+            }
+        }
+        exec.shutdown();
+        return results;
+    }
+
+    public ExecutionResultSet run(List<TestCase> testCases, IOntologyMatchingToolBridge matcher, String matcherName) {
+        Map<String, IOntologyMatchingToolBridge> matchers = new LinkedHashMap<>();
+        matchers.put(matcherName, matcher);
+        return run(testCases, matchers);
+    }
+
+    public ExecutionResultSet run(Track track, Map<String, IOntologyMatchingToolBridge> matchers) {
+        return run(track.getTestCases(), matchers);
+    }
+
+    public ExecutionResultSet runTracks(List<Track> tracks, Map<String, IOntologyMatchingToolBridge> matchers) {
+        List<TestCase> testCases = new ArrayList<>();
+        for(Track t : tracks){
+            testCases.addAll(t.getTestCases());
+        }
+        return run(testCases, matchers);
+    }
+
+    /**
+     * Runs one matcher on one testcase in a new JVM.
+     * @param testCase the testcase
+     * @param matcher the matcher (serialized if it is {@link Serializable}, otherwise only the class is used)
+     * @param matcherName the name of the matcher
+     * @return the execution result or null in case of an error
+     */
+    protected ExecutionResult runIsolated(TestCase testCase, IOntologyMatchingToolBridge matcher, String matcherName) {
+        File taskDirectory = new File(new File(new File(this.baseDirectory, testCase.getTrack().getNameAndVersionString()), testCase.getName()), matcherName);
+        File tmpDirectory = new File(taskDirectory, "tmp");
+        tmpDirectory.mkdirs();
+        File resultFile = new File(taskDirectory, "result.properties");
+        resultFile.delete();
+        File logFile = new File(taskDirectory, "log.txt");
+        File errorFile = new File(taskDirectory, "error.txt");
+
+        List<String> commands = new ArrayList<>();
+        commands.add(this.javaCommand);
+        commands.add("-Xmx" + this.memoryPerTaskInMB + "m");
+        commands.add("-Djava.io.tmpdir=" + tmpDirectory.getAbsolutePath());
+        commands.addAll(this.javaRuntimeParameters);
+        commands.add("-cp");
+        commands.add(System.getProperty("java.class.path"));
+        commands.add(IsolatedMatcherProcess.class.getName());
+        commands.add(resultFile.getAbsolutePath());
+        if(matcher instanceof Serializable){
+            File matcherFile = new File(taskDirectory, "matcher.ser");
+            try(OutputStream out = new FileOutputStream(matcherFile);
+                    ObjectOutputStream objectOut = new ObjectOutputStream(out)){
+                objectOut.writeObject(matcher);
+            } catch (IOException ex) {
+                LOGGER.error("Could not serialize matcher " + matcherName, ex);
+                return null;
+            }
+            commands.add(IsolatedMatcherProcess.SERIALIZED_MATCHER + matcherFile.getAbsolutePath());
+        }else{
+            commands.add(matcher.getClass().getName());
+        }
+        try {
+            commands.add(testCase.getSource().toURL().toString());
+            commands.add(testCase.getTarget().toURL().toString());
+            if(testCase.getInputAlignment() != null)
+                commands.add(testCase.getInputAlignment().toURL().toString());
+        } catch (MalformedURLException ex) {
+            LOGGER.error("Could not convert testcase URIs to URLs.", ex);
+            return null;
+        }
+
+        ProcessBuilder builder = new ProcessBuilder(commands);
+        builder.directory(taskDirectory);
+        builder.redirectOutput(logFile);
+        builder.redirectError(errorFile);
+
+        LOGGER.info("Running matcher {} on testcase {} (track {}) in a separate JVM.", matcherName, testCase.getName(), testCase.getTrack().getName());
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException ex) {
+            LOGGER.error("Could not start the JVM for matcher " + matcherName, ex);
+            return null;
+        }
+        boolean finishedInTime;
+        try {
+            finishedInTime = process.waitFor(this.timeout, this.timeoutTimeUnit);
+        } catch (InterruptedException ex) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for matcher {} on testcase {}. The JVM of the matcher is stopped.", matcherName, testCase.getName());
+            return null;
+        }
+        if(process.isAlive()){
+            process.destroyForcibly();
+        }
+        if(!finishedInTime){
+            LOGGER.warn("Matcher {} on testcase {} did not finish within the given timeout.", matcherName, testCase.getName());
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try(InputStream in = new FileInputStream(resultFile)){
+            properties.load(in);
+        } catch (IOException ex) {
+            LOGGER.error("Matcher {} on testcase {} failed (exit code {}). See error log: {}", matcherName, testCase.getName(), process.exitValue(), errorFile.getAbsolutePath());
+            return null;
+        }
+        long runtime = Long.parseLong(properties.getProperty(IsolatedMatcherProcess.RESULT_RUNTIME, "0"));
+        LOGGER.info("Running matcher {} on testcase {} (track {}) completed in {}.", matcherName, testCase.getName(), testCase.getTrack().getName(),
+                DurationFormatUtils.formatDurationWords((long)(runtime/1_000_000), true, true));
+        String alignment = properties.getProperty(IsolatedMatcherProcess.RESULT_ALIGNMENT);
+        if(alignment == null){
+            LOGGER.error("Matching task unsuccessful: output alignment equals null. (matcher: {} testcase: {} track: {})", matcherName, testCase.getName(), testCase.getTrack().getName());
+            return null;
+        }
+        try {
+            ExecutionResult result = new ExecutionResult(testCase, matcherName, new URL(alignment), runtime, matcher);
+            result.setMatcherLog(logFile);
+            result.setMatcherErrorLog(errorFile);
+            return result;
+        } catch (MalformedURLException ex) {
+            LOGGER.error("The matcher returned a malformed URL: " + alignment, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the matcher can be run in a new JVM without losing its configuration.
+     * Serializable matchers have to be serializable (all fields). All other matchers need a no-argument constructor
+     * and the given instance has to be equal (field by field) to a newly created instance.
+     * Fields whose values do not override equals are only compared by their class.
+     * @param matcher the matcher to check
+     * @param matcherName the name of the matcher (used in the error message)
+     * @throws IllegalArgumentException if the matcher can not be transferred
+     */
+    static void checkTransferable(IOntologyMatchingToolBridge matcher, String matcherName){
+        if(matcher instanceof Serializable){
+            try(ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream())){
+                out.writeObject(matcher);
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("The matcher " + matcherName + " implements Serializable but can not be serialized for the isolated JVM.", ex);
+            }
+            return;
+        }
+        Class<?> clazz = matcher.getClass();
+        Object defaultInstance;
+        try {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            defaultInstance = constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new IllegalArgumentException("The matcher " + matcherName + " (" + clazz.getName() + ") can not be instantiated with a no-argument constructor "
+                    + "which is necessary to run it in an isolated JVM. Make it a static class with a no-argument constructor or implement Serializable.", ex);
+        }
+        List<String> differentFields = new ArrayList<>();
+        for(Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()){
+            for(Field field : c.getDeclaredFields()){
+                int modifiers = field.getModifiers();
+                if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+                    continue;
+                try {
+                    field.setAccessible(true);
+                    if(!isSameConfiguration(field.get(matcher), field.get(defaultInstance)))
+                        differentFields.add(c.getSimpleName() + "." + field.getName());
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    LOGGER.debug("Could not compare field {} of matcher {}.", field.getName(), matcherName, ex);
+                }
+            }
+        }
+        if(!differentFields.isEmpty()){
+            throw new IllegalArgumentException("The matcher " + matcherName + " (" + clazz.getName() + ") is configured differently than an instance "
+                    + "created with the no-argument constructor (fields " + differentFields + "). The configuration would be lost in the isolated JVM. "
+                    + "Implement Serializable to transfer the configured instance.");
+        }
+    }
+
+    private static boolean isSameConfiguration(Object value, Object defaultValue) throws NoSuchMethodException{
+        if(Objects.deepEquals(value, defaultValue))
+            return true;
+        if(value == null || defaultValue == null || value.getClass() != defaultValue.getClass() || value.getClass().isArray())
+            return false;
+        //no equals method: the state can not be compared
+        return value.getClass().getMethod("equals", Object.class).getDeclaringClass() == Object.class;
+    }
+
+    /**
+     * Returns the number of tasks which run in parallel.
+     * This is the minimum of the maximum parallel tasks and the number of JVMs (with the given memory) which fit into
+     * the physical memory minus the reserved memory.
+     * @return the number of parallel tasks (at least one)
+     */
+    public int getNumberOfParallelTasks(){
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if(os instanceof com.sun.management.OperatingSystemMXBean){
+            long physicalMemoryInMB = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize() / (1024 * 1024);
+            return getNumberOfParallelTasks(this.maxParallelTasks, this.memoryPerTaskInMB, physicalMemoryInMB, this.reservedMemoryInMB);
+        }
+        return Math.max(1, this.maxParallelTasks);
+    }
+
+    /**
+     * Returns the number of tasks which run in parallel.
+     * @param maxParallelTasks the maximum number of tasks which run in parallel
+     * @param memoryPerTaskInMB the maximum heap size of each JVM in MB (a non-positive value means no memory bound)
+     * @param physicalMemoryInMB the physical memory in MB
+     * @param reservedMemoryInMB the memory in MB which is not available for the tasks
+     * @return the number of parallel tasks (at least one)
+     */
+    static int getNumberOfParallelTasks(int maxParallelTasks, long memoryPerTaskInMB, long physicalMemoryInMB, long reservedMemoryInMB){
+        int parallelTasks = maxParallelTasks;
+        if(memoryPerTaskInMB > 0){
+            long availableMemoryInMB = physicalMemoryInMB - reservedMemoryInMB;
+            parallelTasks = (int) Math.min(parallelTasks, availableMemoryInMB / (memoryPerTaskInMB + NON_HEAP_MEMORY_PER_TASK_IN_MB));
+        }
+        return Math.max(1, parallelTasks);
+    }
+
+    /**
+     * Returns the memory which is reserved by default: the maximum heap of this JVM plus a fixed amount for the operating system
+     * and the non-heap memory of this JVM.
+     * @return reserved memory in MB
+     */
+    static long getDefaultReservedMemoryInMB(){
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        if(maxHeap == Long.MAX_VALUE)
+            maxHeap = Runtime.getRuntime().totalMemory();
+        return maxHeap / (1024 * 1024) + RESERVED_SYSTEM_MEMORY_IN_MB;
+    }
+
+    private static String getJavaCommandOfCurrentJVM(){
+        File java = new File(new File(System.getProperty("java.home"), "bin"), "java");
+        if(java.exists())
+            return java.getAbsolutePath();
+        File javaExe = new File(new File(System.getProperty("java.home"), "bin"), "java.exe");
+        if(javaExe.exists())
+            return javaExe.getAbsolutePath();
+        return "java";
+    }
+
+    public int getMaxParallelTasks() {
+        return maxParallelTasks;
+    }
+
+    public void setMaxParallelTasks(int maxParallelTasks) {
+        this.maxParallelTasks = maxParallelTasks;
+    }
+
+    public long getMemoryPerTaskInMB() {
+        return memoryPerTaskInMB;
+    }
+
+    public void setMemoryPerTaskInMB(long memoryPerTaskInMB) {
+        this.memoryPerTaskInMB = memoryPerTaskInMB;
+    }
+
+    public long getReservedMemoryInMB() {
+        return reservedMemoryInMB;
+    }
+
+    /**
+     * Sets the physical memory in MB which is not used for the tasks. By default, this is the maximum heap
+     * of this JVM plus 1 GB for the operating system.
+     * @param reservedMemoryInMB the reserved memory in MB
+     */
+    public void setReservedMemoryInMB(long reservedMemoryInMB) {
+        this.reservedMemoryInMB = reservedMemoryInMB;
+    }
+
+    public String getJavaCommand() {
+        return javaCommand;
+    }
+
+    public void setJavaCommand(String javaCommand) {
+        this.javaCommand = javaCommand;
+    }
+
+    public List<String> getJavaRuntimeParameters() {
+        return javaRuntimeParameters;
+    }
+
+    public void setJavaRuntimeParameters(List<String> javaRuntimeParameters) {
+        this.javaRuntimeParameters = javaRuntimeParameters;
+    }
+}
@@ -19,6 +19,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -84,6 +88,20 @@ public class ExecutorSeals {
      */
     private String javaCommand = "java";
 
+    /**
+     * The maximum number of SEALS processes which run in parallel.
+     * If greater than one, each run gets its own directory (a subdirectory of sealsHome) with a fresh copy of the matcher,
+     * its own SEALS_HOME and its own temp directory.
+     */
+    private int numberOfParallelRuns = 1;
+    
+    /**
+     * The physical memory in MB which is not used for the parallel SEALS processes (this JVM and the operating system).
+     */
+    private long reservedMemoryInMB = ExecutorParallelIsolated.getDefaultReservedMemoryInMB();
+    
+    private static final Pattern maxHeapPattern = Pattern.compile("^-Xmx(\\d+)([kKmMgGtT]?)$");
+
     /**
      * Constructor
      *
@@ -297,10 +315,91 @@ public class ExecutorSeals {
      * @return Execution Result Set instance for the matcher on the track.
      */
     public ExecutionResultSet run(Track track, File matcherDirectory) {
+        return run(track.getTestCases(), matcherDirectory);
+    }
+    
+    /**
+     * Evaluate matcher(s) using the local SEALS client on multiple testcases.
+     * If the number of parallel runs is greater than one, the runs are executed in parallel
+     * (see {@link #setNumberOfParallelRuns(int)}). In this case each run unzips (or copies) the matcher into its own directory.
+     * @param testCases The testcases on which the matcher shall be run.
+     * @param matcherDirectory The directory containing the matcher(s).
+     * @return Execution Result Set instance for the matcher on the testcases.
+     */
+    public ExecutionResultSet run(List<TestCase> testCases, File matcherDirectory) {
+        int parallelRuns = getEffectiveNumberOfParallelRuns();
+        if(parallelRuns <= 1){
+            ExecutionResultSet resultSet = new ExecutionResultSet();
+            for (TestCase testCase : testCases) {
+                resultSet.addAll(run(testCase, matcherDirectory));
+            }
+            return resultSet;
+        }
+        return runParallel(testCases, getMatcherSources(matcherDirectory), parallelRuns);
+    }
+    
+    /**
+     * Runs all matchers on all testcases in parallel.
+     * Each run has its own directory (run_N in the SEALS home) which contains a fresh copy of the matcher (unzipped or copied),
+     * the SEALS_HOME and the temp directory of this run. Thus concurrent runs never write into the same matcher directory.
+     * The run directory is deleted after the run (the alignment and the logs are written to the results directory).
+     * @param testCases the testcases
+     * @param matcherSources map of the matcher source (zip file or matcher directory) and corresponding matcher name
+     * @param parallelRuns number of SEALS processes which run in parallel
+     * @return Execution Result Set instance
+     */
+    private ExecutionResultSet runParallel(List<TestCase> testCases, Map<File, String> matcherSources, int parallelRuns){
+        LOGGER.info("Run {} matchers on {} testcases with {} parallel SEALS processes.", matcherSources.size(), testCases.size(), parallelRuns);
+        LOGGER.info("Remove all files and folders in SEALS_HOME folder which is {}", this.sealsHome);
+        try {
+            FileUtils.deleteDirectory(this.sealsHome);
+        } catch (IOException ex) {
+            LOGGER.error("Could not delete SEALS_HOME folder " + this.sealsHome.toString(), ex);
+        }
+        if(this.deleteTempFiles)
+            Executor.deleteTempFiles();
+        
+        ExecutorService exec = Executors.newFixedThreadPool(parallelRuns);
+        List<Future<ExecutionResult>> futures = new ArrayList<>();
+        int runId = 0;
+        for(TestCase testCase : testCases){
+            for(Entry<File, String> entry : matcherSources.entrySet()){
+                File runDirectory = new File(this.sealsHome, "run_" + runId++);
+                futures.add(exec.submit(() -> {
+                    try{
+                        File matcherDirectory = copyMatcher(entry.getKey(), new File(runDirectory, "matcher"));
+                        if(matcherDirectory == null){
+                            LOGGER.error("Could not prepare matcher {} (source: {}) for testcase {}. Skip this run.", entry.getValue(), entry.getKey(), testCase);
+                            return null;
+                        }
+                        LOGGER.info("Run matcher {} (directory: {}) on testcase {}", entry.getValue(), matcherDirectory, testCase);
+                        return runUnzippedMatcher(testCase, matcherDirectory, entry.getValue(), new File(runDirectory, "seals_home"), new File(runDirectory, "tmp"));
+                    }finally{
+                        try {
+                            FileUtils.deleteDirectory(runDirectory);
+                        } catch (IOException ex) {
+                            LOGGER.warn("Could not delete the run directory " + runDirectory, ex);
+                        }
+                    }
+                }));
+            }
+        }
         ExecutionResultSet resultSet = new ExecutionResultSet();
-        for (TestCase testCase : track.getTestCases()) {
-            resultSet.addAll(run(testCase, matcherDirectory));
+        for (Future<ExecutionResult> f : futures) {
+            try {
+                ExecutionResult result = f.get();
+                if(result != null)
+                    resultSet.add(result);
+            } catch (InterruptedException ex) {
+                LOGGER.warn("Interrupted while waiting for parallel results of SEALS execution. The remaining runs are cancelled.");
+                Thread.currentThread().interrupt();
+                exec.shutdownNow();
+                break;
+            } catch (ExecutionException ex) {
+                LOGGER.warn("Error when waiting for parallel results of SEALS execution.", ex);
+            }
         }
+        exec.shutdown();
         return resultSet;
     }
     
@@ -374,6 +473,74 @@ public class ExecutorSeals {
     }
     
     
+    /**
+     * Returns all matchers for a given file or directory like {@link #getMatcherDirectories(java.io.File) } but without unzipping them.
+     * @param matcher the directoroy or file which represents a matcher or a directory of matchers.
+     * @return a map of the matcher source (zip file or directory runnable in SEALS) and corresponding matcher name
+     */
+    private Map<File, String> getMatcherSources(File matcher){
+        Map<File, String> map = new HashMap<>();
+        if (!matcher.exists()) {
+            LOGGER.error("The given matcher path does not exist. Returning no matchers.");
+            return map;
+        }
+        if (matcher.isDirectory()) {
+            if(isDirectoryRunnableInSeals(matcher)){
+                map.put(matcher, getMatcherNameFromSealsDescriptor(matcher));
+            } else {
+                LOGGER.info("Inspect all direct subdirectories/subfiles(zip) in folder {}.", matcher);
+                for (File fileInMatcher : matcher.listFiles()) {
+                    if(fileInMatcher.isDirectory()){
+                        File sealsMatcherDir = getFirstSubDirectoryRunnableInSeals(fileInMatcher);
+                        if(sealsMatcherDir != null)
+                            map.put(sealsMatcherDir, fileInMatcher.getName());
+                    }else if(fileInMatcher.isFile() && fileInMatcher.getName().toLowerCase().endsWith(".zip")){
+                        map.put(fileInMatcher, getNameWithoutZipExtension(fileInMatcher));
+                    }
+                }
+            }
+        } else if (matcher.getName().endsWith(".zip")) {
+            map.put(matcher, getNameWithoutZipExtension(matcher));
+        }
+        return map;
+    }
+    
+    /**
+     * Creates a fresh copy of the matcher in the given directory.
+     * A zip file is unzipped into the directory and a matcher directory is copied into it.
+     * @param matcherSource the zip file or the matcher directory
+     * @param directory the directory which will contain the matcher (it is deleted before)
+     * @return the matcher directory which is runnable in SEALS or null if the matcher could not be prepared
+     */
+    static File copyMatcher(File matcherSource, File directory){
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException ex) {
+            LOGGER.error("Could not delete directory " + directory, ex);
+            return null;
+        }
+        if(matcherSource.isDirectory()){
+            File copy = new File(directory, matcherSource.getName());
+            try {
+                FileUtils.copyDirectory(matcherSource, copy);
+            } catch (IOException ex) {
+                LOGGER.error("Could not copy matcher directory " + matcherSource, ex);
+                return null;
+            }
+            return copy;
+        }
+        File unzippedDir = unzip(matcherSource, new File(directory, getNameWithoutZipExtension(matcherSource)));
+        File unzippedMatcher = getFirstSubDirectoryRunnableInSeals(unzippedDir);
+        if(unzippedMatcher == null)
+            LOGGER.error("Matcher folder is not runnable in SEALS: {}\n\tbased on zip file {}", unzippedDir, matcherSource);
+        return unzippedMatcher;
+    }
+    
+    private static String getNameWithoutZipExtension(File zipFile){
+        return zipFile.getName().substring(0, zipFile.getName().length() - 4);
+    }
+    
+    
     /**
      * Evaluate a single matcher using the local SEALS client.
      *
@@ -394,20 +561,36 @@ public class ExecutorSeals {
      * @return ExecutionResult
      */
     protected ExecutionResult runUnzippedMatcher(TestCase testCase, File matcherDirectory, String matcherName) {
+        if(this.deleteTempFiles)
+            Executor.deleteTempFiles();
+        return runUnzippedMatcher(testCase, matcherDirectory, matcherName, this.sealsHome, null);
+    }
+    
+    /**
+     * Evaluate a single matcher using the local SEALS client.
+     *
+     * @param matcherDirectory The directory containing the matcher
+     * @param testCase         The testCase on which the matcher shall be run.
+     * @param matcherName      Matcher name
+     * @param runSealsHome     The SEALS_HOME directory for this run (will be deleted before the run).
+     * @param tmpDirectory     The temp directory for the SEALS process or null to use the default temp directory.
+     * @return ExecutionResult
+     */
+    private ExecutionResult runUnzippedMatcher(TestCase testCase, File matcherDirectory, String matcherName, File runSealsHome, File tmpDirectory) {
 
         // results folder
         File resultsFolder = Paths.get(this.resultsDirectory.getAbsolutePath(), testCase.getName()).toFile();
         if (!resultsFolder.exists()) resultsFolder.mkdirs();
         
-        LOGGER.info("Remove all files and folders in SEALS_HOME folder which is {}", this.sealsHome);
+        LOGGER.info("Remove all files and folders in SEALS_HOME folder which is {}", runSealsHome);
         try {
-            FileUtils.deleteDirectory(this.sealsHome);
+            FileUtils.deleteDirectory(runSealsHome);
         } catch (IOException ex) {
-            LOGGER.error("Could not delete SEALS_HOME folder " + this.sealsHome.toString(), ex);
+            LOGGER.error("Could not delete SEALS_HOME folder " + runSealsHome.toString(), ex);
         }
-        this.sealsHome.mkdirs();
-        if(this.deleteTempFiles)
-            Executor.deleteTempFiles();
+        runSealsHome.mkdirs();
+        if(tmpDirectory != null)
+            tmpDirectory.mkdirs();
         
 
         File systemAlignmentToBeWritten = new File(resultsFolder, matcherName + ".rdf");
@@ -422,6 +605,7 @@ public class ExecutorSeals {
         }
         commands.add(javaCommand);
         if (javaRuntimeParameters != null) commands.addAll(this.javaRuntimeParameters);
+        if (tmpDirectory != null) commands.add("-Djava.io.tmpdir=" + tmpDirectory.getAbsolutePath());
         commands.add("-jar");
         commands.add(this.sealsClientJar.getAbsolutePath());
         commands.add(matcherDirectory.getAbsolutePath());
@@ -437,7 +621,7 @@ public class ExecutorSeals {
 
         builder.redirectError(errorFileToBeWritten);
         builder.redirectOutput(logfileToBeWritten);
-        builder.directory(this.sealsHome);
+        builder.directory(runSealsHome);
 
         String timeoutText = this.getTimeoutAsText();
 
@@ -620,10 +804,25 @@ public class ExecutorSeals {
      * @return The path to the extracted file.
      */
     private static File unzip(File fileToBeUnzipped) {
+        try {
+            return unzip(fileToBeUnzipped, new File(fileToBeUnzipped.getParentFile().getCanonicalPath(), getNameWithoutZipExtension(fileToBeUnzipped)));
+        } catch (IOException e) {
+            LOGGER.warn("Cannot unzip matcher directory", e);
+        }
+        return null;
+    }
+    
+    /**
+     * Unzips a zip-file in the given directory.
+     *
+     * @param fileToBeUnzipped The file that shall be unzipped.
+     * @param dir The directory which will contain the zipped contents.
+     * @return The path to the extracted file.
+     */
+    private static File unzip(File fileToBeUnzipped, File dir) {
         LOGGER.info("Unzipping " + fileToBeUnzipped.getName());
         try {
-            String destDir = fileToBeUnzipped.getParentFile().getCanonicalPath() + File.separator + fileToBeUnzipped.getName().substring(0, fileToBeUnzipped.getName().length() - 4);
-            File dir = new File(destDir);
+            String destDir = dir.getCanonicalPath();
             // create output directory if it doesn't exist
             if (!dir.exists()) dir.mkdirs();
             FileInputStream fis;
@@ -778,6 +977,98 @@ public class ExecutorSeals {
         return javaCommand;
     }
 
+    public int getNumberOfParallelRuns() {
+        return numberOfParallelRuns;
+    }
+
+    /**
+     * Sets the maximum number of SEALS processes which run in parallel (default is one).
+     * Each parallel run gets its own directory (subdirectory of the SEALS home) with a fresh copy of the matcher,
+     * its own SEALS_HOME and its own temp directory.
+     * The number of processes is further limited by the physical memory (minus the reserved memory, see {@link #setReservedMemoryInMB(long)})
+     * divided by the heap size (-Xmx) of the java runtime parameters plus the non-heap memory of each process.
+     * @param numberOfParallelRuns the maximum number of parallel processes
+     */
+    public void setNumberOfParallelRuns(int numberOfParallelRuns) {
+        this.numberOfParallelRuns = numberOfParallelRuns;
+    }
+    
+    /**
+     * Returns the number of SEALS processes which really run in parallel.
+     * This is the minimum of the number of parallel runs and the number of processes (with the -Xmx of the java runtime parameters)
+     * which fit into the physical memory which is not reserved.
+     * @return the number of parallel processes (at least one)
+     */
+    public int getEffectiveNumberOfParallelRuns() {
+        long physicalMemoryInMB = -1;
+        java.lang.management.OperatingSystemMXBean os = java.lang.management.ManagementFactory.getOperatingSystemMXBean();
+        if(os instanceof com.sun.management.OperatingSystemMXBean){
+            physicalMemoryInMB = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize() / (1024 * 1024);
+        }
+        return getEffectiveNumberOfParallelRuns(this.numberOfParallelRuns, getMaxHeapInMB(this.javaRuntimeParameters), physicalMemoryInMB, this.reservedMemoryInMB);
+    }
+    
+    /**
+     * Returns the number of processes which run in parallel (same computation as in {@link ExecutorParallelIsolated}).
+     * @param numberOfParallelRuns the maximum number of parallel processes
+     * @param heapInMB the heap size of one process in MB (or a value smaller one if unknown)
+     * @param physicalMemoryInMB the physical memory in MB (or a value smaller one if unknown)
+     * @param reservedMemoryInMB the memory in MB which is not available for the processes
+     * @return the number of parallel processes (at least one)
+     */
+    static int getEffectiveNumberOfParallelRuns(int numberOfParallelRuns, long heapInMB, long physicalMemoryInMB, long reservedMemoryInMB) {
+        if(heapInMB <= 0 || physicalMemoryInMB <= 0)
+            return Math.max(1, numberOfParallelRuns);
+        return ExecutorParallelIsolated.getNumberOfParallelTasks(numberOfParallelRuns, heapInMB, physicalMemoryInMB, reservedMemoryInMB);
+    }
+    
+    public long getReservedMemoryInMB() {
+        return reservedMemoryInMB;
+    }
+    
+    /**
+     * Sets the physical memory in MB which is not used for the parallel SEALS processes. By default, this is the maximum heap
+     * of this JVM plus 1 GB for the operating system.
+     * @param reservedMemoryInMB the reserved memory in MB
+     */
+    public void setReservedMemoryInMB(long reservedMemoryInMB) {
+        this.reservedMemoryInMB = reservedMemoryInMB;
+    }
+    
+    /**
+     * Returns the maximum heap size in MB given by the -Xmx parameter.
+     * @param javaRuntimeParameters the java runtime parameters like ("-Xmx25g", "-Xms15g")
+     * @return the heap size in MB or -1 if no -Xmx parameter is contained
+     */
+    static long getMaxHeapInMB(List<String> javaRuntimeParameters){
+        if(javaRuntimeParameters == null)
+            return -1;
+        long heap = -1;
+        for(String parameter : javaRuntimeParameters){
+            Matcher m = maxHeapPattern.matcher(parameter.trim());
+            if(m.find()){
+                long value = Long.parseLong(m.group(1));
+                switch(m.group(2).toLowerCase()){
+                    case "k":
+                        heap = value / 1024;
+                        break;
+                    case "m":
+                        heap = value;
+                        break;
+                    case "g":
+                        heap = value * 1024;
+                        break;
+                    case "t":
+                        heap = value * 1024 * 1024;
+                        break;
+                    default:
+                        heap = value / (1024 * 1024);
+                }
+            }
+        }
+        return heap;
+    }
+
     /**
      * If in your system, the "java" command links to a jdk &gt; 8, issues might occur. Therefore, you can use
      * this command to point to a jdk 8 executable.
@@ -0,0 +1,79 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval;
+
+import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Main class which is started in a new JVM by {@link ExecutorParallelIsolated}.
+ * It deserializes the matcher or instantiates the matcher class (no-argument constructor), runs it on the given ontologies
+ * and writes the resulting alignment URL and the runtime to a properties file.
+ * Development Remark: Not a public class because this should not be called by user of framework.
+ */
+class IsolatedMatcherProcess {
+
+    static final String RESULT_ALIGNMENT = "alignment";
+    static final String RESULT_RUNTIME = "runtime";
+
+    /**
+     * Prefix of the matcher argument if it is the path to a serialized matcher (instead of a class name).
+     */
+    static final String SERIALIZED_MATCHER = "serialized:";
+
+    /**
+     * Arguments: result properties file, matcher class (or serialized prefix and file), source url, target url, [input alignment url]
+     * @param args the arguments
+     * @throws Exception in case the matcher can not be instantiated or fails
+     */
+    public static void main(String[] args) throws Exception {
+        if(args.length < 4){
+            System.err.println("Usage: IsolatedMatcherProcess resultFile (matcherClass|serialized:file) sourceURL targetURL [inputAlignmentURL]");
+            System.exit(1);
+        }
+        File resultFile = new File(args[0]);
+        IOntologyMatchingToolBridge matcher = createMatcher(args[1]);
+        URL source = new URL(args[2]);
+        URL target = new URL(args[3]);
+
+        long startTime = System.nanoTime();
+        URL alignment;
+        if(args.length > 4){
+            alignment = matcher.align(source, target, new URL(args[4]));
+        }else{
+            alignment = matcher.align(source, target);
+        }
+        long runtime = System.nanoTime() - startTime;
+
+        Properties properties = new Properties();
+        properties.setProperty(RESULT_RUNTIME, Long.toString(runtime));
+        if(alignment != null)
+            properties.setProperty(RESULT_ALIGNMENT, alignment.toString());
+        writeResult(properties, resultFile);
+        //some matchers leave non daemon threads
+        System.exit(0);
+    }
+
+    private static IOntologyMatchingToolBridge createMatcher(String matcher) throws Exception{
+        if(matcher.startsWith(SERIALIZED_MATCHER)){
+            try(ObjectInputStream in = new ObjectInputStream(new FileInputStream(matcher.substring(SERIALIZED_MATCHER.length())))){
+                return (IOntologyMatchingToolBridge) in.readObject();
+            }
+        }
+        Constructor<?> constructor = Class.forName(matcher).getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return (IOntologyMatchingToolBridge) constructor.newInstance();
+    }
+
+    private static void writeResult(Properties properties, File resultFile) throws IOException{
+        try(OutputStream out = new FileOutputStream(resultFile)){
+            properties.store(out, "Result of isolated matcher run");
+        }
+    }
+}
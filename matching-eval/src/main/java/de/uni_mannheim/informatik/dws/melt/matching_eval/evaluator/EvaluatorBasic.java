@@ -89,7 +89,7 @@ public class EvaluatorBasic extends Evaluator {
                     Map<String, String> alignmentExtensions = er.getSystemAlignment().getExtensions();
                     extensionValues = determineExtensionValuesToWriteForCSV(alignmentExtensions);
                 } else extensionValues = new String[0];
-                ConfusionMatrix matrix = this.metric.compute(er);
+                ConfusionMatrix matrix = this.metric.get(er);
                 printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, er.getTestCase().getTrack().getName(), er.getTestCase().getName(), er.getMatcherName(), matrix.getPrecision(),
                         matrix.getRecall(),matrix.getF1measure(), matrix.getTruePositiveSize(),
                         matrix.getFalsePositiveSize(), matrix.getFalseNegativeSize(), er.getRuntime()));
@@ -1,6 +1,7 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator;
 
 import de.uni_mannheim.informatik.dws.melt.matching_base.IExplainerResource;
+import de.uni_mannheim.informatik.dws.melt.matching_base.StageStatistics;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultSet;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ResourceType;
@@ -246,6 +247,71 @@ public class EvaluatorCSV extends Evaluator {
         LOGGER.info("Writing alignment cube");
         alignmentsCube.write(baseDirectory);
         closePrinters();
+        writeStagePerformanceCube(baseDirectory);
+    }
+
+
+    /**
+     * Returns the summary of the pipeline stages (see {@link ExecutionResult#getStageStatistics()}) which is written as additional columns
+     * of the performance files: the summed cpu time and allocated bytes of the top level stages, the peak heap and the name and wall time
+     * of the slowest top level stage. Times are in nanoseconds and memory in bytes. Values which are not measured are represented by "-".
+     *
+     * @param result the execution result
+     * @return the five stage columns
+     */
+    private static Object[] getStageColumns(ExecutionResult result) {
+        long cpuTime = 0;
+        long allocatedBytes = 0;
+        long peakHeap = -1;
+        StageStatistics slowest = null;
+        for (StageStatistics stage : result.getStageStatistics()) {
+            if (stage.getStage().contains("/"))
+                continue; // nested stages are already contained in their parent
+            cpuTime = (cpuTime < 0 || stage.getCpuTime() < 0) ? -1 : cpuTime + stage.getCpuTime();
+            allocatedBytes = (allocatedBytes < 0 || stage.getAllocatedBytes() < 0) ? -1 : allocatedBytes + stage.getAllocatedBytes();
+            peakHeap = Math.max(peakHeap, stage.getPeakHeap());
+            if (slowest == null || stage.getWallTime() > slowest.getWallTime())
+                slowest = stage;
+        }
+        if (slowest == null)
+            return new Object[]{"-", "-", "-", "-", "-"};
+        return new Object[]{cpuTime < 0 ? "-" : cpuTime, allocatedBytes < 0 ? "-" : allocatedBytes, peakHeap < 0 ? "-" : peakHeap,
+            slowest.getStage(), slowest.getWallTime()};
+    }
+
+
+    /**
+     * Writes the resource usage of each pipeline stage (see {@link ExecutionResult#getStageStatistics()}) to file stagePerformanceCube.csv.
+     * Each row represents one stage of a matcher on a test case. The file is only written if at least one stage is recorded.
+     * The performance files (performance.csv and testCasePerformanceCube.csv) only contain a summary of the stages in additional columns
+     * (see {@link #getStageColumns(ExecutionResult)}) because the number of stages differs between matchers
+     * and thus each stage can not be represented by a fixed set of columns.
+     *
+     * @param baseDirectory The base directory to which the CSV file shall be written to.
+     */
+    private void writeStagePerformanceCube(File baseDirectory) {
+        List<ExecutionResult> resultsWithStages = new ArrayList<>();
+        for (ExecutionResult result : this.results.getUnrefinedResults()) {
+            if (!result.getStageStatistics().isEmpty())
+                resultsWithStages.add(result);
+        }
+        if (resultsWithStages.isEmpty())
+            return;
+        resultsWithStages.sort(Comparator.comparing((ExecutionResult r) -> r.getTrack().getName())
+                .thenComparing(r -> r.getTestCase().getName())
+                .thenComparing(ExecutionResult::getMatcherName));
+        try (CSVPrinter printer = CSVFormat.DEFAULT.print(new File(baseDirectory, "stagePerformanceCube.csv"), StandardCharsets.UTF_8)) {
+            printer.printRecord(getHeaderStagePerformanceCube());
+            for (ExecutionResult result : resultsWithStages) {
+                for (StageStatistics stage : result.getStageStatistics()) {
+                    printer.printRecord(result.getTrack().getName(), result.getTestCase().getName(), result.getMatcherName(),
+                            stage.getIndex(), stage.getStage(), stage.getWallTime(), stage.getCpuTime(), stage.getAllocatedBytes(),
+                            stage.getPeakHeap(), stage.getInputSize(), stage.getOutputSize());
+                }
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write the stage performance cube.", ioe);
+        }
     }
 
 
@@ -388,14 +454,14 @@ public class EvaluatorCSV extends Evaluator {
 
         // evaluate system result
         ExecutionResult allExecutionResult = results.get(testCase, matcher);
-        ConfusionMatrix allCm = confusionMatrixMetric.compute(results.get(testCase, matcher));
-        ConfusionMatrix classCm = confusionMatrixMetric.compute(results.get(testCase, matcher, classRefiner));
-        ConfusionMatrix propertiesCm = confusionMatrixMetric.compute(results.get(testCase, matcher, propertyRefiner));
-        ConfusionMatrix instanceCm = confusionMatrixMetric.compute(results.get(testCase, matcher, instanceRefiner));
-        ConfusionMatrix allResidualCm = confusionMatrixMetric.compute(results.get(testCase, matcher, residualRefiner));
-        ConfusionMatrix classResidualCm = confusionMatrixMetric.compute(results.get(testCase, matcher, classRefiner, residualRefiner));
-        ConfusionMatrix propertiesResidualCm = confusionMatrixMetric.compute(results.get(testCase, matcher, propertyRefiner, residualRefiner));
-        ConfusionMatrix instanceResidualCm = confusionMatrixMetric.compute(results.get(testCase, matcher, instanceRefiner, residualRefiner));
+        ConfusionMatrix allCm = confusionMatrixMetric.get(results.get(testCase, matcher));
+        ConfusionMatrix classCm = confusionMatrixMetric.get(results.get(testCase, matcher, classRefiner));
+        ConfusionMatrix propertiesCm = confusionMatrixMetric.get(results.get(testCase, matcher, propertyRefiner));
+        ConfusionMatrix instanceCm = confusionMatrixMetric.get(results.get(testCase, matcher, instanceRefiner));
+        ConfusionMatrix allResidualCm = confusionMatrixMetric.get(results.get(testCase, matcher, residualRefiner));
+        ConfusionMatrix classResidualCm = confusionMatrixMetric.get(results.get(testCase, matcher, classRefiner, residualRefiner));
+        ConfusionMatrix propertiesResidualCm = confusionMatrixMetric.get(results.get(testCase, matcher, propertyRefiner, residualRefiner));
+        ConfusionMatrix instanceResidualCm = confusionMatrixMetric.get(results.get(testCase, matcher, instanceRefiner, residualRefiner));
 
         // evaluation result
         if (allCm.getTruePositive() != null)
@@ -435,18 +501,19 @@ public class EvaluatorCSV extends Evaluator {
                     extensionValues = determineAlignmentExtensionValuesToWriteForCSV(alignmentExtensions);
                 } else extensionValues = new String[0];
 
+                Object[] stageColumns = getStageColumns(allExecutionResult);
                 File fileToBeWritten = new File(super.getResultsFolderTrackTestcaseMatcher(baseDirectory, allExecutionResult), "performance.csv");
                 fileToBeWritten.getParentFile().mkdirs();
                 CSVPrinter printer =  CSVFormat.DEFAULT.print(fileToBeWritten, StandardCharsets.UTF_8);
                 printer.printRecord(getHeaderIndividual());
-                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "ALL", allCm.getPrecision(), allCm.getRecall(), allResidualCm.getRecall(), allCm.getF1measure(), allCm.getTruePositiveSize(), allCm.getFalsePositiveSize(), allCm.getFalseNegativeSize(), allCm.getNumberOfCorrespondences(), allExecutionResult.getRuntime()));
-                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "ALL", allCm.getPrecision(), allCm.getRecall(), allResidualCm.getRecall(), allCm.getF1measure(), allCm.getTruePositiveSize(), allCm.getFalsePositiveSize(), allCm.getFalseNegativeSize(), allCm.getNumberOfCorrespondences(), allExecutionResult.getRuntime()));
-                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "CLASSES", classCm.getPrecision(), classCm.getRecall(), classResidualCm.getRecall(), classCm.getF1measure(), classCm.getTruePositiveSize(), classCm.getFalsePositiveSize(), classCm.getFalseNegativeSize(), classCm.getNumberOfCorrespondences(), "-"));
-                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "CLASSES", classCm.getPrecision(), classCm.getRecall(), classResidualCm.getRecall(), classCm.getF1measure(), classCm.getTruePositiveSize(), classCm.getFalsePositiveSize(), classCm.getFalseNegativeSize(), classCm.getNumberOfCorrespondences(), "-"));
-                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "PROPERTIES", propertiesCm.getPrecision(), propertiesCm.getRecall(), propertiesResidualCm.getRecall(), propertiesCm.getF1measure(), propertiesCm.getTruePositiveSize(), propertiesCm.getFalsePositiveSize(), propertiesCm.getFalseNegativeSize(), propertiesCm.getNumberOfCorrespondences(), "-"));
-                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "PROPERTIES", propertiesCm.getPrecision(), propertiesCm.getRecall(), propertiesResidualCm.getRecall(), propertiesCm.getF1measure(), propertiesCm.getTruePositiveSize(), propertiesCm.getFalsePositiveSize(), propertiesCm.getFalseNegativeSize(), propertiesCm.getNumberOfCorrespondences(), "-"));
-                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "INSTANCES", instanceCm.getPrecision(), instanceCm.getRecall(), instanceResidualCm.getRecall(), instanceCm.getF1measure(), instanceCm.getTruePositiveSize(), instanceCm.getFalsePositiveSize(), instanceCm.getFalseNegativeSize(), instanceCm.getNumberOfCorrespondences(), "-"));
-                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "INSTANCES", instanceCm.getPrecision(), instanceCm.getRecall(), instanceResidualCm.getRecall(), instanceCm.getF1measure(), instanceCm.getTruePositiveSize(), instanceCm.getFalsePositiveSize(), instanceCm.getFalseNegativeSize(), instanceCm.getNumberOfCorrespondences(), "-"));
+                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "ALL", allCm.getPrecision(), allCm.getRecall(), allResidualCm.getRecall(), allCm.getF1measure(), allCm.getTruePositiveSize(), allCm.getFalsePositiveSize(), allCm.getFalseNegativeSize(), allCm.getNumberOfCorrespondences(), allExecutionResult.getRuntime(), stageColumns[0], stageColumns[1], stageColumns[2], stageColumns[3], stageColumns[4]));
+                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "ALL", allCm.getPrecision(), allCm.getRecall(), allResidualCm.getRecall(), allCm.getF1measure(), allCm.getTruePositiveSize(), allCm.getFalsePositiveSize(), allCm.getFalseNegativeSize(), allCm.getNumberOfCorrespondences(), allExecutionResult.getRuntime(), stageColumns[0], stageColumns[1], stageColumns[2], stageColumns[3], stageColumns[4]));
+                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "CLASSES", classCm.getPrecision(), classCm.getRecall(), classResidualCm.getRecall(), classCm.getF1measure(), classCm.getTruePositiveSize(), classCm.getFalsePositiveSize(), classCm.getFalseNegativeSize(), classCm.getNumberOfCorrespondences(), "-", "-", "-", "-", "-", "-"));
+                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "CLASSES", classCm.getPrecision(), classCm.getRecall(), classResidualCm.getRecall(), classCm.getF1measure(), classCm.getTruePositiveSize(), classCm.getFalsePositiveSize(), classCm.getFalseNegativeSize(), classCm.getNumberOfCorrespondences(), "-", "-", "-", "-", "-", "-"));
+                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "PROPERTIES", propertiesCm.getPrecision(), propertiesCm.getRecall(), propertiesResidualCm.getRecall(), propertiesCm.getF1measure(), propertiesCm.getTruePositiveSize(), propertiesCm.getFalsePositiveSize(), propertiesCm.getFalseNegativeSize(), propertiesCm.getNumberOfCorrespondences(), "-", "-", "-", "-", "-", "-"));
+                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "PROPERTIES", propertiesCm.getPrecision(), propertiesCm.getRecall(), propertiesResidualCm.getRecall(), propertiesCm.getF1measure(), propertiesCm.getTruePositiveSize(), propertiesCm.getFalsePositiveSize(), propertiesCm.getFalseNegativeSize(), propertiesCm.getNumberOfCorrespondences(), "-", "-", "-", "-", "-", "-"));
+                printer.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, "INSTANCES", instanceCm.getPrecision(), instanceCm.getRecall(), instanceResidualCm.getRecall(), instanceCm.getF1measure(), instanceCm.getTruePositiveSize(), instanceCm.getFalsePositiveSize(), instanceCm.getFalseNegativeSize(), instanceCm.getNumberOfCorrespondences(), "-", "-", "-", "-", "-", "-"));
+                testCasePerformanceCubePrinter.printRecord(toStringArrayWithArrayAtTheEnd(extensionValues, testCase.getTrack().getName(), testCase.getName(), matcher, "INSTANCES", instanceCm.getPrecision(), instanceCm.getRecall(), instanceResidualCm.getRecall(), instanceCm.getF1measure(), instanceCm.getTruePositiveSize(), instanceCm.getFalsePositiveSize(), instanceCm.getFalseNegativeSize(), instanceCm.getNumberOfCorrespondences(), "-", "-", "-", "-", "-", "-"));
                 printer.flush();
                 printer.close();
             } catch (IOException ioe) {
@@ -496,10 +563,26 @@ public class EvaluatorCSV extends Evaluator {
         result.add("# of FN");
         result.add("# of Correspondences");
         result.add("Time");
+        result.add("Stage CPU Time");
+        result.add("Stage Allocated Bytes");
+        result.add("Stage Peak Heap");
+        result.add("Slowest Stage");
+        result.add("Slowest Stage Wall Time");
         return result;
     }
 
 
+    /**
+     * Get the header row for the stage performance cube. Times are in nanoseconds and memory in bytes (-1 if not measured).
+     *
+     * @return CSV header row in the form of a String-List.
+     */
+    private List<String> getHeaderStagePerformanceCube() {
+        return Arrays.asList("Track", "Test Case", "Matcher", "Stage Index", "Stage", "Wall Time", "CPU Time",
+                "Allocated Bytes", "Peak Heap", "Input Size", "Output Size");
+    }
+
+
     /**
      * Get the header row for the individual statistics in the overall CSV file.
      *
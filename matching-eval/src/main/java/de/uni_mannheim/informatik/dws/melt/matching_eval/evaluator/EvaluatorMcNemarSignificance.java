@@ -3,6 +3,7 @@ package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultSet;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrixMetric;
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +30,11 @@ public class EvaluatorMcNemarSignificance extends Evaluator {
     private static Logger LOGGER = LoggerFactory.getLogger(EvaluatorMcNemarSignificance.class);
     
     protected double alpha;
+    
+    /**
+     * The metric which provides the (cached) true positives of the execution results.
+     */
+    protected ConfusionMatrixMetric metric;
 
     /**
      * Constructor. It runs the test with alpha=0.05
@@ -46,8 +52,21 @@ public class EvaluatorMcNemarSignificance extends Evaluator {
      * @param alpha The desired alpha (probability of making a type 1 error.
      */
     public EvaluatorMcNemarSignificance(ExecutionResultSet results, double alpha) {
+        this(results, alpha, new ConfusionMatrixMetric());
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param results The results of the matching process.
+     * @param alpha The desired alpha (probability of making a type 1 error.
+     * @param metric The confusion matrix metric which provides the true positives. It can be shared with other evaluators (e.g. {@link EvaluatorCSV})
+     *               such that the true positives are only computed once.
+     */
+    public EvaluatorMcNemarSignificance(ExecutionResultSet results, double alpha, ConfusionMatrixMetric metric) {
         super(results);
         this.alpha = alpha;
+        this.metric = metric;
     }
 
 
@@ -168,7 +187,8 @@ public class EvaluatorMcNemarSignificance extends Evaluator {
         ChiSquaredDistribution distribution = new ChiSquaredDistribution(1);
 
         // n01
-        Alignment A2_intersects_R = Alignment.intersection(executionResult2.getSystemAlignment(), executionResult2.getReferenceAlignment());
+        // the intersection of system and reference alignment are the true positives
+        Alignment A2_intersects_R = metric.get(executionResult2).getTruePositive();
         Alignment A2_intersects_R_minus_A1 = Alignment.subtraction(A2_intersects_R, executionResult1.getSystemAlignment());
         int summand_01a = A2_intersects_R_minus_A1.size();
         int summand_01b = Alignment.subtraction(Alignment.subtraction(executionResult1.getSystemAlignment(), executionResult2.getSystemAlignment()), executionResult1.getReferenceAlignment()).size();
@@ -176,7 +196,7 @@ public class EvaluatorMcNemarSignificance extends Evaluator {
 
 
         // n10
-        Alignment A1_intersects_R = Alignment.intersection(executionResult1.getSystemAlignment(), executionResult1.getReferenceAlignment());
+        Alignment A1_intersects_R = metric.get(executionResult1).getTruePositive();
         Alignment A1_intersects_R_minus_A2 = Alignment.subtraction(A1_intersects_R, executionResult2.getSystemAlignment());
         int summand_10a = A1_intersects_R_minus_A2.size();
         int summand_10b = Alignment.subtraction(Alignment.subtraction(executionResult2.getSystemAlignment(), executionResult1.getSystemAlignment()), executionResult1.getReferenceAlignment()).size();
@@ -2,17 +2,30 @@ package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric;
 
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Abstract class which represents a metric.
+ * The results are cached in a {@link MetricCache} which is thread safe. Thus one metric can be shared across threads and evaluators.
  * @author Sven Hertling, Jan Portisch
  */
 public abstract class Metric<MetricResult> {
-    
-    protected Map<ExecutionResult, MetricResult> cache = new HashMap<>();
-        
+
+    protected MetricCache<MetricResult> cache;
+
+    /**
+     * Constructor with an unbounded cache.
+     */
+    public Metric(){
+        this(new MetricCache<>());
+    }
+
+    /**
+     * Constructor with the given cache (e.g. a bounded one).
+     * @param cache the cache which stores the metric results
+     */
+    public Metric(MetricCache<MetricResult> cache){
+        this.cache = cache;
+    }
+
     /**
      * Triggers the computation of the metric for an individual execution result.
      * The metic should always use the {@link ExecutionResult#getSystemAlignment()} and {@link ExecutionResult#getReferenceAlignment()} methods.
@@ -20,13 +33,24 @@ public abstract class Metric<MetricResult> {
      * @return The metric result.
      */
     public MetricResult get(ExecutionResult executionResult){
-        MetricResult r = cache.get(executionResult);
-        if(r == null){
-            r = compute(executionResult);
-            this.cache.put(executionResult, r);
-        }
-        return r;
+        return cache.get(executionResult, this::compute);
     }
-    
+
     protected abstract MetricResult compute(ExecutionResult executionResult);
+
+    /**
+     * Returns the cache of this metric (e.g. to inspect the hit and miss counts).
+     * @return the cache
+     */
+    public MetricCache<MetricResult> getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache of this metric. The results in the old cache are not transferred.
+     * @param cache the new cache
+     */
+    public void setCache(MetricCache<MetricResult> cache) {
+        this.cache = cache;
+    }
 }
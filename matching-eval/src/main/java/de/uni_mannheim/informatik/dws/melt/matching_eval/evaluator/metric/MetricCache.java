@@ -0,0 +1,260 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric;
+
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread safe cache for metric results which is used by {@link Metric}.
+ * Each result is computed only once per execution result, even if multiple threads request it at the same time.
+ * Threads which request different execution results do not block each other during the computation.
+ * <br>
+ * The cache can be bounded by a maximum weight. Each result is weighted by the given weigher (by default each result has a weight of one,
+ * thus the maximum weight is the maximum number of results). If the weight is exceeded, the least recently used results are evicted.
+ * Optionally, the results are only softly referenced, such that the garbage collector can remove them when memory is running low.
+ * <br>
+ * Subclasses can override {@link #get(ExecutionResult, Function)} to plug in another caching strategy.
+ * @param <MetricResult> the type of the metric result
+ */
+public class MetricCache<MetricResult> {
+
+    /**
+     * The entries in access order (least recently used first). All access is synchronized on this map.
+     */
+    private final LinkedHashMap<ExecutionResult, Entry<MetricResult>> entries;
+    private final long maximumWeight;
+    private final ToLongFunction<? super MetricResult> weigher;
+    private final boolean softValues;
+
+    /**
+     * The weight of all computed results in the cache. Guarded by entries.
+     */
+    private long totalWeight;
+
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder evictionCount;
+
+    /**
+     * Constructor for an unbounded cache with strong references (the results are kept as long as the cache exists).
+     */
+    public MetricCache() {
+        this(Long.MAX_VALUE, result -> 1, false);
+    }
+
+    /**
+     * Constructor for a cache which holds at most the given number of results.
+     * @param maximumSize the maximum number of results
+     */
+    public MetricCache(long maximumSize) {
+        this(maximumSize, result -> 1, false);
+    }
+
+    /**
+     * Constructor.
+     * @param maximumWeight the maximum weight of all results in the cache (use {@link Long#MAX_VALUE} for an unbounded cache)
+     * @param weigher function which computes the weight of a result (needs to be non negative).
+     *                E.g. the number of correspondences in a confusion matrix.
+     * @param softValues if true, the results are softly referenced and can be garbage collected if memory is running low
+     */
+    public MetricCache(long maximumWeight, ToLongFunction<? super MetricResult> weigher, boolean softValues) {
+        if(maximumWeight < 0)
+            throw new IllegalArgumentException("The maximum weight of the metric cache must not be negative.");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.softValues = softValues;
+        this.totalWeight = 0;
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+    }
+
+    /**
+     * Returns the cached result for the given execution result or computes it (only once per execution result).
+     * @param executionResult the execution result which is the key of the cache
+     * @param computation the function which computes the result if it is not in the cache
+     * @return the (possibly cached) result
+     */
+    public MetricResult get(ExecutionResult executionResult, Function<ExecutionResult, MetricResult> computation) {
+        Entry<MetricResult> entry;
+        synchronized (entries) {
+            entry = entries.get(executionResult);
+            if (entry == null) {
+                entry = new Entry<>();
+                entries.put(executionResult, entry);
+            }
+        }
+        MetricResult result;
+        long weight;
+        synchronized (entry) {
+            result = entry.getValue();
+            if (result != null) {
+                hitCount.increment();
+                return result;
+            }
+            missCount.increment();
+            try {
+                result = computation.apply(executionResult);
+            } catch (RuntimeException e) {
+                removeUncomputed(executionResult, entry);
+                throw e;
+            }
+            if (result == null) {
+                removeUncomputed(executionResult, entry);
+                return null;
+            }
+            weight = weigher.applyAsLong(result);
+            if (weight < 0)
+                throw new IllegalStateException("The weight of a metric result must not be negative.");
+            entry.setValue(result, softValues);
+        }
+        synchronized (entries) {
+            //the entry might be evicted or invalidated in the meantime
+            if (entries.get(executionResult) == entry) {
+                totalWeight += weight - entry.weight;
+                entry.weight = weight;
+                evict(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the entry if the computation failed such that it does not stay in the cache forever.
+     * @param executionResult the key of the entry
+     * @param entry the entry without a result
+     */
+    private void removeUncomputed(ExecutionResult executionResult, Entry<MetricResult> entry) {
+        if (entry.computed)
+            return;
+        synchronized (entries) {
+            entries.remove(executionResult, entry);
+        }
+    }
+
+    /**
+     * Evicts the least recently used results until the total weight is below the maximum weight.
+     * Results which are currently computed and the given entry are not evicted.
+     * Needs to be called when holding the lock of entries.
+     * @param current the entry which was just computed
+     */
+    private void evict(Entry<MetricResult> current) {
+        Iterator<Map.Entry<ExecutionResult, Entry<MetricResult>>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maximumWeight && iterator.hasNext()) {
+            Entry<MetricResult> candidate = iterator.next().getValue();
+            if (candidate == current || candidate.computed == false)
+                continue;
+            iterator.remove();
+            totalWeight -= candidate.weight;
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Removes all results from the cache. The statistics are not reset.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    /**
+     * Returns the number of results in the cache (including results which are currently computed or garbage collected).
+     * @return the number of results in the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the weight of all results in the cache.
+     * @return the total weight
+     */
+    public long getTotalWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+    /**
+     * Returns the number of requests which were answered from the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of requests which needed a computation.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of results which were evicted because of the maximum weight.
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Returns the ratio of requests which were answered from the cache.
+     * @return the hit rate [0, 1] (1.0 if there was no request)
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long requests = hits + getMissCount();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricCache{size=" + size() + ", weight=" + getTotalWeight() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + '}';
+    }
+
+    /**
+     * One entry of the cache. The monitor of the entry is used to compute the result only once.
+     */
+    private static class Entry<MetricResult> {
+        private MetricResult strongValue;
+        private SoftReference<MetricResult> softValue;
+        /**
+         * Written when holding the monitor of this entry. Volatile because it is read during eviction.
+         */
+        private volatile boolean computed;
+        /**
+         * The weight which is accounted in the total weight of the cache. Guarded by the entries of the cache.
+         */
+        private long weight;
+
+        MetricResult getValue() {
+            if (strongValue != null)
+                return strongValue;
+            if (softValue != null)
+                return softValue.get();
+            return null;
+        }
+
+        void setValue(MetricResult value, boolean soft) {
+            if (soft) {
+                this.softValue = new SoftReference<>(value);
+            } else {
+                this.strongValue = value;
+            }
+            this.computed = true;
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm;
 
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Data Structure for an individual confusion matrix.
+ * The true positives, false positives and false negatives can be stored as plain collections of (distinct) correspondences.
+ * In this case the (indexed) alignments are only created when they are requested.
  *
  * @author Sven Hertling, Jan Portisch
  */
@@ -13,6 +21,13 @@ public class ConfusionMatrix {
     private Alignment falsePositive;
     private Alignment falseNegative;
     
+    /**
+     * The true positives as long as the alignment is not materialized (null afterwards).
+     */
+    private Collection<Correspondence> truePositiveCorrespondences;
+    private Collection<Correspondence> falsePositiveCorrespondences;
+    private Collection<Correspondence> falseNegativeCorrespondences;
+    
     private double precision;
     private double recall;
 
@@ -58,41 +73,100 @@ public class ConfusionMatrix {
         this.recall = recall;
         this.numberOfCorrespondences = numberOfCorrespondences;
     }
+    
+    /**
+     * Constructor to fill confusion matrix with plain collections of correspondences.
+     * The alignments are only created when they are requested via the corresponding getter.
+     * @param truePositive True positive correspondences (each correspondence only once).
+     * @param falsePositive False positive correspondences (each correspondence only once).
+     * @param falseNegative False negative correspondences (each correspondence only once).
+     * @param numberOfCorrespondences The number of correspondences. Note that this number can deviate from {@code truePositive + falsePositive}
+     *                                in case of partial gold standards.
+     * @param precision Precision as double [0, 1].
+     * @param recall Recall as double [0, 1].
+     */
+    ConfusionMatrix(Collection<Correspondence> truePositive, Collection<Correspondence> falsePositive, Collection<Correspondence> falseNegative, int numberOfCorrespondences, double precision, double recall){
+        this.truePositiveCorrespondences = truePositive;
+        this.falsePositiveCorrespondences = falsePositive;
+        this.falseNegativeCorrespondences = falseNegative;
+        this.precision = precision;
+        this.recall = recall;
+        this.numberOfCorrespondences = numberOfCorrespondences;
+    }
 
     /**
      * Alignments which are in the reference mapping and are also found by the matcher.
      * @return found and correct mappings (correct)
      */
-    public Alignment getTruePositive() {
+    public synchronized Alignment getTruePositive() {
+        if(truePositive == null){
+            truePositive = new Alignment(truePositiveCorrespondences);
+            truePositiveCorrespondences = null;
+        }
         return truePositive;
     }
     
-    public int getTruePositiveSize() {
-        return truePositive.size();
+    public synchronized int getTruePositiveSize() {
+        return truePositive == null ? truePositiveCorrespondences.size() : truePositive.size();
     }
 
     /**
      * Alignments which are not correct but found by the matcher
      * @return found but not correct mappings (too much)
      */
-    public Alignment getFalsePositive() {
+    public synchronized Alignment getFalsePositive() {
+        if(falsePositive == null){
+            falsePositive = new Alignment(falsePositiveCorrespondences);
+            falsePositiveCorrespondences = null;
+        }
         return falsePositive;
     }
     
-    public int getFalsePositiveSize() {
-        return falsePositive.size();
+    public synchronized int getFalsePositiveSize() {
+        return falsePositive == null ? falsePositiveCorrespondences.size() : falsePositive.size();
     }
 
     /**
      * Alignments which are correct but not found by the matcher
      * @return correct but not found by the matcher (should be found)
      */
-    public Alignment getFalseNegative() {
+    public synchronized Alignment getFalseNegative() {
+        if(falseNegative == null){
+            falseNegative = new Alignment(falseNegativeCorrespondences);
+            falseNegativeCorrespondences = null;
+        }
         return falseNegative;
     }
     
-    public int getFalseNegativeSize() {
-        return falseNegative.size();
+    public synchronized int getFalseNegativeSize() {
+        return falseNegative == null ? falseNegativeCorrespondences.size() : falseNegative.size();
+    }
+    
+    /**
+     * Returns the true positives without materializing an alignment (if not already done).
+     * The returned collection is unmodifiable and contains each correspondence only once.
+     * @return true positive correspondences
+     */
+    synchronized Collection<Correspondence> getTruePositiveCorrespondences() {
+        return Collections.unmodifiableCollection(truePositive == null ? truePositiveCorrespondences : truePositive);
+    }
+    
+    /**
+     * Returns the false positives without materializing an alignment (if not already done).
+     * The returned collection is unmodifiable and contains each correspondence only once.
+     * @return false positive correspondences
+     */
+    synchronized Collection<Correspondence> getFalsePositiveCorrespondences() {
+        return Collections.unmodifiableCollection(falsePositive == null ? falsePositiveCorrespondences : falsePositive);
+    }
+    
+    /**
+     * Returns the false negatives without materializing an alignment (if not already done).
+     * The returned collection is unmodifiable and contains each correspondence only once.
+     * @return false negative correspondences
+     */
+    synchronized Collection<Correspondence> getFalseNegativeCorrespondences() {
+        return Collections.unmodifiableCollection(falseNegative == null ? falseNegativeCorrespondences : falseNegative);
     }
 
     public double getPrecision() {
@@ -133,18 +207,18 @@ public class ConfusionMatrix {
      */
     public ConfusionMatrix subtract(ConfusionMatrix other){
         
-        Alignment subTruePositive = new Alignment(this.truePositive);
-        subTruePositive.removeAll(other.truePositive);
+        Set<Correspondence> subTruePositive = new LinkedHashSet<>(this.getTruePositiveCorrespondences());
+        subTruePositive.removeAll(new HashSet<>(other.getTruePositiveCorrespondences()));
         
-        Alignment subFalsePositive = new Alignment(this.falsePositive);
-        subFalsePositive.removeAll(other.falsePositive);
+        Set<Correspondence> subFalsePositive = new LinkedHashSet<>(this.getFalsePositiveCorrespondences());
+        subFalsePositive.removeAll(new HashSet<>(other.getFalsePositiveCorrespondences()));
         
-        Alignment subFalseNegative = new Alignment(this.falseNegative);
-        subFalseNegative.removeAll(other.falseNegative);
+        Set<Correspondence> subFalseNegative = new LinkedHashSet<>(this.getFalseNegativeCorrespondences());
+        subFalseNegative.removeAll(new HashSet<>(other.getFalseNegativeCorrespondences()));
 
         int numberOfCorrespondences = this.getNumberOfCorrespondences();
         numberOfCorrespondences = numberOfCorrespondences - other.getNumberOfCorrespondences();
         
-        return ConfusionMatrixMetric.calculateConfusionMatrixFromMappings(subTruePositive, subFalsePositive, subFalseNegative, numberOfCorrespondences);
+        return ConfusionMatrixMetric.calculateConfusionMatrixFromCorrespondences(subTruePositive, subFalsePositive, subFalseNegative, numberOfCorrespondences);
     }
 }
@@ -5,9 +5,16 @@ import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Corresponde
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.CorrespondenceRelation;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.Metric;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.MetricCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -25,6 +32,32 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
      */
     private Logger LOGGER = LoggerFactory.getLogger(ConfusionMatrixMetric.class);
 
+    /**
+     * Constructor with an unbounded cache.
+     */
+    public ConfusionMatrixMetric() {
+        super();
+    }
+
+    /**
+     * Constructor with the given cache. See {@link #createBoundedCache(long, boolean)} for a cache which is bounded by the number of correspondences.
+     * @param cache the cache which stores the confusion matrices
+     */
+    public ConfusionMatrixMetric(MetricCache<ConfusionMatrix> cache) {
+        super(cache);
+    }
+
+    /**
+     * Creates a cache which is bounded by the number of correspondences (true positives, false positives and false negatives) of all cached confusion matrices.
+     * @param maximumNumberOfCorrespondences the maximum number of correspondences in all cached confusion matrices
+     * @param softValues if true, the confusion matrices can be garbage collected if memory is running low
+     * @return the bounded cache
+     */
+    public static MetricCache<ConfusionMatrix> createBoundedCache(long maximumNumberOfCorrespondences, boolean softValues) {
+        return new MetricCache<>(maximumNumberOfCorrespondences,
+                cm -> (long) cm.getTruePositiveSize() + cm.getFalsePositiveSize() + cm.getFalseNegativeSize(), softValues);
+    }
+
     @Override
     public ConfusionMatrix compute(ExecutionResult executionResult) {
         if(executionResult.getTestCase().getGoldStandardCompleteness().isGoldStandardComplete()){
@@ -42,11 +75,12 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
      * @return The confusion matrix.
      */
     private ConfusionMatrix computeForPartialGoldStandard(ExecutionResult executionResult){
-        Alignment truePositives = new Alignment();
-        Alignment falsePositives = new Alignment();
-        Alignment falseNegatives = new Alignment();
+        Alignment systemAlignment = executionResult.getSystemAlignment();
+        Set<Correspondence> truePositives = new LinkedHashSet<>();
+        Set<Correspondence> falsePositives = new LinkedHashSet<>();
+        List<Correspondence> falseNegatives = new ArrayList<>();
 
-        int numberOfCorrespondences = executionResult.getSystemAlignment().size();
+        int numberOfCorrespondences = systemAlignment.size();
         GoldStandardCompleteness gsCompleteness = executionResult.getTestCase().getGoldStandardCompleteness();
 
         for(Correspondence referenceCell : executionResult.getReferenceAlignment()){
@@ -58,14 +92,14 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
                 //mapping like <"null", "http://.....", =, 1.0> or <"http://.....", "null", =, 1.0>
                 //to express than one resource has no correspondence
                 if(referenceCell.getEntityTwo().equals("null") || referenceCell.getEntityTwo().trim().isEmpty()){
-                    for(Correspondence c : executionResult.getSystemAlignment().getCorrespondencesSourceRelation(referenceCell.getEntityOne(), CorrespondenceRelation.EQUIVALENCE))
+                    for(Correspondence c : systemAlignment.getCorrespondencesSourceRelation(referenceCell.getEntityOne(), CorrespondenceRelation.EQUIVALENCE))
                         falsePositives.add(c);
                 } else if(referenceCell.getEntityOne().equals("null") || referenceCell.getEntityOne().trim().isEmpty()){
-                    for(Correspondence c : executionResult.getSystemAlignment().getCorrespondencesTargetRelation(referenceCell.getEntityTwo(), CorrespondenceRelation.EQUIVALENCE))
+                    for(Correspondence c : systemAlignment.getCorrespondencesTargetRelation(referenceCell.getEntityTwo(), CorrespondenceRelation.EQUIVALENCE))
                         falsePositives.add(c);
                 } else {
                     //negative mapping -> this mapping should not appear in the systemAlignment alignment, otherwise this is a false positive
-                    Correspondence systemCell = executionResult.getSystemAlignment().getCorrespondence(referenceCell.getEntityOne(), referenceCell.getEntityTwo(), CorrespondenceRelation.EQUIVALENCE);
+                    Correspondence systemCell = systemAlignment.getCorrespondence(referenceCell.getEntityOne(), referenceCell.getEntityTwo(), CorrespondenceRelation.EQUIVALENCE);
                     if(systemCell != null){
                         //found something which should not be found
                         falsePositives.add(systemCell);
@@ -73,7 +107,7 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
                 }
             }
             else {
-                Correspondence systemCell = executionResult.getSystemAlignment().getCorrespondence(referenceCell.getEntityOne(), referenceCell.getEntityTwo(), referenceCell.getRelation());
+                Correspondence systemCell = systemAlignment.getCorrespondence(referenceCell.getEntityOne(), referenceCell.getEntityTwo(), referenceCell.getRelation());
 
                 if(systemCell != null){
                     truePositives.add(systemCell);
@@ -85,7 +119,7 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
                 }
 
                 if(gsCompleteness.isTargetComplete()){
-                    for(Correspondence sameTarget : executionResult.getSystemAlignment().getCorrespondencesTargetRelation(referenceCell.getEntityTwo(), referenceCell.getRelation())){
+                    for(Correspondence sameTarget : systemAlignment.getCorrespondencesTargetRelation(referenceCell.getEntityTwo(), referenceCell.getRelation())){
                         if(sameTarget.equals(referenceCell) == false){
                             falsePositives.add(sameTarget);
                         }
@@ -93,7 +127,7 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
                 }
 
                 if(gsCompleteness.isSourceComplete()){
-                    for(Correspondence sameSource : executionResult.getSystemAlignment().getCorrespondencesSourceRelation(referenceCell.getEntityOne(), referenceCell.getRelation())){
+                    for(Correspondence sameSource : systemAlignment.getCorrespondencesSourceRelation(referenceCell.getEntityOne(), referenceCell.getRelation())){
                         if(sameSource.equals(referenceCell) == false){
                             falsePositives.add(sameSource);
                         }
@@ -111,38 +145,51 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
         // the TPs are removed from the FPs.
         falsePositives.removeAll(truePositives);
 
-        return calculateConfusionMatrixFromMappings(truePositives, falsePositives, falseNegatives, numberOfCorrespondences);
+        return calculateConfusionMatrixFromCorrespondences(truePositives, falsePositives, falseNegatives, numberOfCorrespondences);
     }
 
     /**
      * Calculate the confusion matrix under the premises that the gold standard is complete.
+     * This is a hash join of the reference and system alignment over (source, target, relation).
+     * The true positives, false positives and false negatives are collected in lists and no intermediate alignments are created.
      * @param executionResult The execution result for which the gold standard shall be calculated.
      * @return The confusion matrix.
      */
     private ConfusionMatrix computeForCompleteGoldStandard(ExecutionResult executionResult){
-        //TODO: what happens when referenceAlignment is empty and systemAlignment contains 200 mappings?
-        Alignment truePositives = new Alignment();
-        Alignment falsePositives = new Alignment(executionResult.getSystemAlignment());
-        Alignment falseNegatives = new Alignment();
+        Alignment systemAlignment = executionResult.getSystemAlignment();
+        List<Correspondence> truePositives = new ArrayList<>();
+        List<Correspondence> falseNegatives = new ArrayList<>();
+        Set<Correspondence> foundSystemCells = new HashSet<>();
+        Set<List<String>> unknownSourceTargets = new HashSet<>();
         
         for(Correspondence referenceCell : executionResult.getReferenceAlignment()){
             if(referenceCell.getRelation() == CorrespondenceRelation.UNKNOWN){
                 //see http://www.cs.ox.ac.uk/isg/projects/SEALS/oaei/2017/oaei2017_umls_reference.html
-                falsePositives.removeCorrespondencesSourceTarget(referenceCell.getEntityOne(), referenceCell.getEntityTwo());
+                unknownSourceTargets.add(Arrays.asList(referenceCell.getEntityOne(), referenceCell.getEntityTwo()));
             }//incompat should not appear in gold standard if it is a complete gold standard
             else {
-                Correspondence systemCell = executionResult.getSystemAlignment().getCorrespondence(referenceCell.getEntityOne(), referenceCell.getEntityTwo(), referenceCell.getRelation());
+                Correspondence systemCell = systemAlignment.getCorrespondence(referenceCell.getEntityOne(), referenceCell.getEntityTwo(), referenceCell.getRelation());
                 if(systemCell != null){
-                    truePositives.add(systemCell);
-                    falsePositives.remove(systemCell);
+                    if(foundSystemCells.add(systemCell))
+                        truePositives.add(systemCell);
                 } else {
                     referenceCell.setConfidence(0.0);
                     falseNegatives.add(referenceCell);
                 }
             }
         }
-        int numberOfCorrespondences = executionResult.getSystemAlignment().size();
-        return calculateConfusionMatrixFromMappings(truePositives, falsePositives, falseNegatives, numberOfCorrespondences);
+        
+        //all system correspondences which are not found and not covered by an unknown reference cell are false positives
+        List<Correspondence> falsePositives = new ArrayList<>();
+        for(Correspondence systemCell : systemAlignment){
+            if(foundSystemCells.contains(systemCell))
+                continue;
+            if(unknownSourceTargets.isEmpty() == false && unknownSourceTargets.contains(Arrays.asList(systemCell.getEntityOne(), systemCell.getEntityTwo())))
+                continue;
+            falsePositives.add(systemCell);
+        }
+        int numberOfCorrespondences = systemAlignment.size();
+        return calculateConfusionMatrixFromCorrespondences(truePositives, falsePositives, falseNegatives, numberOfCorrespondences);
     }
 
 
@@ -162,6 +209,24 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
         double recall = divideWithTwoDenominators(tpSize, tpSize, fnSize);
         return new ConfusionMatrix(truePositives, falsePositives, falseNegatives, numberOfCorrespondences, precision, recall);
     }
+    
+    /**
+     * Calculation method which calculates the confusion matrix given three collections of distinct correspondences: tp, fp, and fn.
+     * The alignments of the confusion matrix are only created when they are requested.
+     * @param truePositives True Positive (tp) correspondences.
+     * @param falsePositives False Positive (fp) correspondences.
+     * @param falseNegatives False Negative (fn) correspondences.
+     * @param numberOfCorrespondences The number of correspondences.
+     * @return The confusion matrix.
+     */
+    static ConfusionMatrix calculateConfusionMatrixFromCorrespondences(Collection<Correspondence> truePositives, Collection<Correspondence> falsePositives, Collection<Correspondence> falseNegatives, int numberOfCorrespondences){
+        double tpSize = truePositives.size();
+        double fpSize = falsePositives.size();
+        double fnSize = falseNegatives.size();
+        double precision = divideWithTwoDenominators(tpSize, tpSize, fpSize);
+        double recall = divideWithTwoDenominators(tpSize, tpSize, fnSize);
+        return new ConfusionMatrix(truePositives, falsePositives, falseNegatives, numberOfCorrespondences, precision, recall);
+    }
 
 
     /**
@@ -175,7 +240,7 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
     public ConfusionMatrix getMicroAveragesForResults(Iterable<ExecutionResult> resultsForCalculation) {
         HashSet<ConfusionMatrix> confusionMatrices = new HashSet<>();
         for (ExecutionResult result : resultsForCalculation) {
-            confusionMatrices.add(compute(result));
+            confusionMatrices.add(get(result));
         }
         return getMicroAverages(confusionMatrices);
     }
@@ -190,7 +255,7 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
     public ConfusionMatrix getMacroAveragesForResults(Iterable<ExecutionResult> resultsForCalculation) {
         HashSet<ConfusionMatrix> confusionMatrices = new HashSet<>();
         for (ExecutionResult result : resultsForCalculation) {
-            confusionMatrices.add(compute(result));
+            confusionMatrices.add(get(result));
         }
         return getMacroAverages(confusionMatrices);
     }
@@ -205,20 +270,20 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
     public ConfusionMatrix getMacroAveragesForResults(Iterable<ExecutionResult> resultsForCalculation, int numberOfTestCases) {
         HashSet<ConfusionMatrix> confusionMatrices = new HashSet<>();
         for (ExecutionResult result : resultsForCalculation) {
-            confusionMatrices.add(compute(result));
+            confusionMatrices.add(get(result));
         }
-        Alignment truePositive = new Alignment();
-        Alignment falsePositive = new Alignment();
-        Alignment falseNegative = new Alignment();
+        Set<Correspondence> truePositive = new LinkedHashSet<>();
+        Set<Correspondence> falsePositive = new LinkedHashSet<>();
+        Set<Correspondence> falseNegative = new LinkedHashSet<>();
 
         double precision = 0.0; // dummy init
         double recall = 0.0; // dummy init
 
         // for aggregation:
         for (ConfusionMatrix individualConfusionMatrix : confusionMatrices) {
-            truePositive.addAll(individualConfusionMatrix.getTruePositive());
-            falsePositive.addAll(individualConfusionMatrix.getFalsePositive());
-            falseNegative.addAll(individualConfusionMatrix.getFalseNegative());
+            truePositive.addAll(individualConfusionMatrix.getTruePositiveCorrespondences());
+            falsePositive.addAll(individualConfusionMatrix.getFalsePositiveCorrespondences());
+            falseNegative.addAll(individualConfusionMatrix.getFalseNegativeCorrespondences());
         }
         
         double aggregatedPrecision = 0.0;
@@ -230,7 +295,7 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
         precision = aggregatedPrecision / numberOfTestCases;
         recall = aggregatedRecall / numberOfTestCases;
                 
-        return new ConfusionMatrix(truePositive, falsePositive, falseNegative, precision, recall);
+        return new ConfusionMatrix(truePositive, falsePositive, falseNegative, truePositive.size() + falsePositive.size(), precision, recall);
     }
 
 
@@ -272,9 +337,9 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
             aggregationMode = ConfusionMatrixAggregationMode.MICRO;
         }
 
-        Alignment truePositive = new Alignment();
-        Alignment falsePositive = new Alignment();
-        Alignment falseNegative = new Alignment();
+        Set<Correspondence> truePositive = new LinkedHashSet<>();
+        Set<Correspondence> falsePositive = new LinkedHashSet<>();
+        Set<Correspondence> falseNegative = new LinkedHashSet<>();
 
         double precision = 0.0; // dummy init
         double recall = 0.0; // dummy init
@@ -286,9 +351,9 @@ public class ConfusionMatrixMetric extends Metric<ConfusionMatrix> {
         int numberOfCorrespondences = 0;
 
         for (ConfusionMatrix individualConfusionMatrix : confusionMatrices) {
-            truePositive.addAll(individualConfusionMatrix.getTruePositive());
-            falsePositive.addAll(individualConfusionMatrix.getFalsePositive());
-            falseNegative.addAll(individualConfusionMatrix.getFalseNegative());
+            truePositive.addAll(individualConfusionMatrix.getTruePositiveCorrespondences());
+            falsePositive.addAll(individualConfusionMatrix.getFalsePositiveCorrespondences());
+            falseNegative.addAll(individualConfusionMatrix.getFalseNegativeCorrespondences());
             numberOfElementsInConfusionMatrices++;
             numberOfCorrespondences += individualConfusionMatrix.getNumberOfCorrespondences();
         }
@@ -0,0 +1,167 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm;
+
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Computes the confusion matrix sizes for many confidence thresholds in one pass.
+ * The result for a threshold is the same as evaluating the system alignment which is cut at this threshold
+ * (see {@link de.uni_mannheim.informatik.dws.melt.matching_eval.refinement.ConfidenceRefiner}):
+ * <ul>
+ * <li>true positives: true positives with a confidence greater or equal to the threshold</li>
+ * <li>false positives: false positives with a confidence greater or equal to the threshold</li>
+ * <li>false negatives: all false negatives and the true positives with a confidence lower than the threshold</li>
+ * </ul>
+ * The confidences of the true and false positives are sorted once and the thresholds are processed in ascending order.
+ * No alignments are created.
+ */
+public class ThresholdSweep {
+
+    private final double[] thresholds;
+    private final int[] truePositives;
+    private final int[] falsePositives;
+    private final int[] falseNegatives;
+
+    /**
+     * Computes the sweep for all confidences which occur in the true and false positives of the confusion matrix.
+     * @param confusionMatrix the confusion matrix of the not cut system alignment
+     */
+    public ThresholdSweep(ConfusionMatrix confusionMatrix) {
+        this(confusionMatrix, null);
+    }
+
+    /**
+     * Computes the sweep for the given thresholds.
+     * @param confusionMatrix the confusion matrix of the not cut system alignment
+     * @param thresholds the thresholds to evaluate (if null, all occurring confidences are used)
+     */
+    public ThresholdSweep(ConfusionMatrix confusionMatrix, Collection<Double> thresholds) {
+        double[] tpConfidences = getSortedConfidences(confusionMatrix.getTruePositiveCorrespondences());
+        double[] fpConfidences = getSortedConfidences(confusionMatrix.getFalsePositiveCorrespondences());
+        int falseNegativeBase = confusionMatrix.getFalseNegativeSize();
+
+        if (thresholds == null) {
+            this.thresholds = distinct(tpConfidences, fpConfidences);
+        } else {
+            this.thresholds = thresholds.stream().mapToDouble(Double::doubleValue).sorted().distinct().toArray();
+        }
+
+        int size = this.thresholds.length;
+        this.truePositives = new int[size];
+        this.falsePositives = new int[size];
+        this.falseNegatives = new int[size];
+
+        int tpIndex = 0;
+        int fpIndex = 0;
+        for (int i = 0; i < size; i++) {
+            double threshold = this.thresholds[i];
+            //move over all confidences which are lower than the threshold
+            while (tpIndex < tpConfidences.length && tpConfidences[tpIndex] < threshold)
+                tpIndex++;
+            while (fpIndex < fpConfidences.length && fpConfidences[fpIndex] < threshold)
+                fpIndex++;
+            this.truePositives[i] = tpConfidences.length - tpIndex;
+            this.falsePositives[i] = fpConfidences.length - fpIndex;
+            this.falseNegatives[i] = falseNegativeBase + tpIndex;
+        }
+    }
+
+    private static double[] getSortedConfidences(Collection<Correspondence> correspondences) {
+        double[] confidences = new double[correspondences.size()];
+        int i = 0;
+        for (Correspondence c : correspondences) {
+            confidences[i++] = c.getConfidence();
+        }
+        Arrays.sort(confidences);
+        return confidences;
+    }
+
+    private static double[] distinct(double[] sortedOne, double[] sortedTwo) {
+        double[] merged = new double[sortedOne.length + sortedTwo.length];
+        System.arraycopy(sortedOne, 0, merged, 0, sortedOne.length);
+        System.arraycopy(sortedTwo, 0, merged, sortedOne.length, sortedTwo.length);
+        return Arrays.stream(merged).sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns the number of thresholds.
+     * @return number of thresholds
+     */
+    public int size() {
+        return thresholds.length;
+    }
+
+    /**
+     * Returns the threshold at the given position (thresholds are sorted ascending).
+     * @param index position of the threshold
+     * @return the threshold
+     */
+    public double getThreshold(int index) {
+        return thresholds[index];
+    }
+
+    public int getTruePositiveSize(int index) {
+        return truePositives[index];
+    }
+
+    public int getFalsePositiveSize(int index) {
+        return falsePositives[index];
+    }
+
+    public int getFalseNegativeSize(int index) {
+        return falseNegatives[index];
+    }
+
+    public double getPrecision(int index) {
+        return divideWithTwoDenominators(truePositives[index], truePositives[index], falsePositives[index]);
+    }
+
+    public double getRecall(int index) {
+        return divideWithTwoDenominators(truePositives[index], truePositives[index], falseNegatives[index]);
+    }
+
+    public double getF1measure(int index) {
+        return getFbetaMeasure(index, 1.0);
+    }
+
+    public double getFbetaMeasure(int index, double beta) {
+        double precision = getPrecision(index);
+        double recall = getRecall(index);
+        double betaSquared = Math.pow(beta, 2);
+        double numerator = (1 + betaSquared) * (precision * recall);
+        double denominator = ((betaSquared * precision) + recall);
+        if (denominator == 0) {
+            return 0;
+        } else {
+            return numerator / denominator;
+        }
+    }
+
+    /**
+     * Returns the position of the threshold with the highest F-measure.
+     * In case of ties, the highest threshold is returned.
+     * @param beta the beta of the F-measure (1.0 for F1)
+     * @return the position of the best threshold or -1 if there are no thresholds
+     */
+    public int getBestIndexForFbetaMeasure(double beta) {
+        int bestIndex = -1;
+        double bestValue = 0.0;
+        for (int i = 0; i < thresholds.length; i++) {
+            double value = getFbetaMeasure(i, beta);
+            if (value >= bestValue) {
+                bestIndex = i;
+                bestValue = value;
+            }
+        }
+        return bestIndex;
+    }
+
+    private static double divideWithTwoDenominators(double numerator, double denominatorOne, double denominatorTwo) {
+        if ((denominatorOne + denominatorTwo) > 0.0) {
+            return numerator / (denominatorOne + denominatorTwo);
+        } else {
+            return 0.0;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.visualization.dashboard;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.uni_mannheim.informatik.dws.melt.matching_base.StageStatistics;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultSet;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.Evaluator;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.EvaluatorCSV;
@@ -14,7 +18,9 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.lang.StringUtils;
@@ -132,6 +138,10 @@ public class DashboardBuilder extends Evaluator {
         this.addDataCount();
         //this.addTextFilter();
         this.addDataChart();
+        if(hasStageStatistics()){
+            this.newRow();
+            this.addStageRuntimeChart();
+        }
         return this;
     }
     
@@ -461,6 +471,67 @@ public class DashboardBuilder extends Evaluator {
     }
     
     
+    /**
+     * Adds a row chart which shows the runtime of each pipeline stage (summed over all test cases) per matcher.
+     * The tooltip also shows the cpu time and the allocated memory. The data comes from {@link ExecutionResult#getStageStatistics()}
+     * and is not connected to the filters of the other charts (which are based on correspondences).
+     * @return DashboardBuilder object (for builder pattern)
+     */
+    public DashboardBuilder addStageRuntimeChart(){
+        List<Map<String, Object>> stages = new ArrayList<>();
+        Set<String> distinctStages = new HashSet<>();
+        for(ExecutionResult result : this.results.getUnrefinedResults()){
+            for(StageStatistics stage : result.getStageStatistics()){
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("stage", String.format("%s | %03d %s", result.getMatcherName(), stage.getIndex(), stage.getStage()));
+                row.put("testcase", result.getTestCase().getName());
+                row.put("wall", stage.getWallTime() / 1e9);
+                row.put("cpu", Math.max(0, stage.getCpuTime()) / 1e9);
+                row.put("allocated", Math.max(0, stage.getAllocatedBytes()));
+                stages.add(row);
+                distinctStages.add((String)row.get("stage"));
+            }
+        }
+        String json;
+        try {
+            json = new ObjectMapper().writeValueAsString(stages).replace("</", "<\\/");
+        } catch (JsonProcessingException ex) {
+            LOGGER.error("Could not serialize the stage statistics.", ex);
+            json = "[]";
+        }
+        DcjsElement e = new DcjsElement("dc.rowChart", "stageRuntimeChart");
+        e.setTitle("Runtime per Pipeline Stage (seconds)");
+        e.setResetText("reset");
+        e.createGroupDefinition("stageRuntime", "(function() {" +
+                "var stageNdx = crossfilter(" + json + ");" +
+                "var dimension = stageNdx.dimension(function(d) {return d.stage;});" +
+                "var group = dimension.group().reduce(" +
+                "function(p, v) {p.wall += v.wall; p.cpu += v.cpu; p.allocated += v.allocated; return p;}," +
+                "function(p, v) {p.wall -= v.wall; p.cpu -= v.cpu; p.allocated -= v.allocated; return p;}," +
+                "function() {return {wall: 0, cpu: 0, allocated: 0};});" +
+                "return {dimension: dimension, group: group};" +
+                "})();");
+        e.setDimension("stageRuntime.dimension");
+        e.setGroup("stageRuntime.group");
+        e.addJsMethod(
+                "valueAccessor(function(d) {return d.value.wall;})",
+                "title(function(d) {return d.key + '\\nwall time: ' + d.value.wall.toFixed(2) + ' s\\ncpu time: ' + d.value.cpu.toFixed(2) + ' s\\nallocated: ' + (d.value.allocated / 1e6).toFixed(1) + ' MB';})",
+                "ordering(function(d) {return d.key;})",
+                "elasticX(true)",
+                "width(800)",
+                "height(" + (40 + 22 * distinctStages.size()) + ")"
+        );
+        return addElement(e);
+    }
+    
+    private boolean hasStageStatistics(){
+        for(ExecutionResult result : this.results.getUnrefinedResults()){
+            if(!result.getStageStatistics().isEmpty())
+                return true;
+        }
+        return false;
+    }
+    
     public DashboardBuilder addElement(DcjsElement element){
         this.currentRow.add(element);
         return this;
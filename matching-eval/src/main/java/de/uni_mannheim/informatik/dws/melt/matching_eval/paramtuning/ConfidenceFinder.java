@@ -5,6 +5,7 @@ import de.uni_mannheim.informatik.dws.melt.matching_eval.refinement.ConfidenceRe
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrix;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrixMetric;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ThresholdSweep;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 
 import java.math.BigDecimal;
@@ -73,31 +74,17 @@ public class ConfidenceFinder{
 
     /**
      * Given an ExecutionResult, this method determines the best cutting point in order to optimize the F1-score.
+     * All thresholds are evaluated in one pass with a {@link ThresholdSweep}.
      * @param executionResult The execution result for which the optimal confidence threshold shall be determined.
      * @return The optimal confidence threshold.
      */
     public static double getBestConfidenceForFmeasure(ExecutionResult executionResult){
         ConfusionMatrix m = new ConfusionMatrixMetric().compute(executionResult);
-
-        List<Double> systemConfidences = new ArrayList(getOccurringConfidences(executionResult.getSystemAlignment(), 2));
-        Collections.sort(systemConfidences);
-        double bestConf = 1.0d;
-        double bestValue = 0.0d;
-        for(Double conf : systemConfidences){
-            int tpSize = m.getTruePositive().cut(conf).size();
-            int fpSize = m.getFalsePositive().cut(conf).size();
-            int fnSize = m.getFalseNegative().cut(conf).size();
-            
-            double precision = divideWithTwoDenominators(tpSize, tpSize, fpSize);
-            double recall = divideWithTwoDenominators(tpSize, tpSize, fnSize);
-            double f1measure = divideWithTwoDenominators(2*precision*recall, precision, recall);
-            
-            if(f1measure >= bestValue){
-                bestConf = conf;
-                bestValue = f1measure;
-            }
-        }
-        return bestConf;
+        ThresholdSweep sweep = new ThresholdSweep(m, getOccurringConfidences(executionResult.getSystemAlignment(), 2));
+        int bestIndex = sweep.getBestIndexForFbetaMeasure(1.0);
+        if(bestIndex < 0)
+            return 1.0d;
+        return sweep.getThreshold(bestIndex);
     }
     
     public static ExecutionResultSet getConfidenceResultSet(ExecutionResult executionResult){
@@ -110,21 +97,5 @@ public class ConfidenceFinder{
         }
         return s;
     }
-
-    /**
-     * Simple division that is to be performed. The two denominators will be added.
-     *
-     * @param numerator      Numerator of fraction
-     * @param denominatorOne Denominator 1
-     * @param denominatorTwo Denominator 2
-     * @return Result as double.
-     */
-    private static double divideWithTwoDenominators(double numerator, double denominatorOne, double denominatorTwo) {
-        if ((denominatorOne + denominatorTwo) > 0.0) {
-            return numerator / (denominatorOne + denominatorTwo);
-        } else {
-            return 0.0;
-        }
-    }
     
 }
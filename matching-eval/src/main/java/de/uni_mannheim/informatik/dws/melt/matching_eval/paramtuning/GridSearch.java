@@ -3,9 +3,16 @@ package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultSet;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.Executor;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultStore;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutorParallel;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrixMetric;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.Track;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherPipelineYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherPipelineYAAAJenaConstructor;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherPipelineYAAA;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.DefaultExtensions;
 import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
 
@@ -15,10 +22,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.beanutils.PropertyUtilsBean;
 import org.slf4j.Logger;
@@ -43,6 +54,11 @@ public class GridSearch {
      */
     private static final String CONSTRUCTOR = "constructor";
 
+    /**
+     * Pattern for parameters which are set on a stage of a matcher pipeline e.g. matchers[1].threshold
+     */
+    private static final Pattern PIPELINE_STAGE_PARAMETER = Pattern.compile("^matchers\\[(\\d+)\\]");
+
     /**
      * The matcher under evaluation.
      */
@@ -52,6 +68,16 @@ public class GridSearch {
     private List<List<Object>> paramValues;
 
     private List<Class<?>> paramTypes;
+    
+    /**
+     * The store for execution results which allows to resume an interrupted grid search (can be null).
+     */
+    private ExecutionResultStore resultStore;
+
+    /**
+     * The memo for the intermediate alignments of pipeline stages (null if stages are not memoized).
+     */
+    private PipelineStageMemo stageMemo;
 
     /**
      * Constructor
@@ -270,6 +296,42 @@ public class GridSearch {
         return this;
     }
 
+    /**
+     * Sets a store for the execution results. Each finished configuration is persisted and when the grid search is started again,
+     * the already finished configurations are loaded instead of running the matcher again.
+     * @param resultStore the store for execution results (null to disable)
+     * @return GridSearch object (for builder pattern)
+     */
+    public GridSearch setResultStore(ExecutionResultStore resultStore){
+        this.resultStore = resultStore;
+        return this;
+    }
+
+    public ExecutionResultStore getResultStore() {
+        return resultStore;
+    }
+
+    /**
+     * Memoizes the intermediate alignments of the stages in case the matcher is a pipeline
+     * ({@link MatcherPipelineYAAAJena}, {@link MatcherPipelineYAAAJenaConstructor} or {@link MatcherPipelineYAAA}).
+     * Configurations which share the same stages with the same parameters (a common prefix of the pipeline) compute the
+     * intermediate alignment of this prefix only once per test case. Thus the grid only branches at the first differing stage.
+     * Parameters of a stage have to be set with the indexed property of the pipeline e.g. {@code addParameter("matchers[1].threshold", 0.5, 0.8)}.
+     * All other parameters (including constructor parameters) are assumed to influence every stage.
+     * The stages should be deterministic and should only depend on the ontologies, the input alignment and their parameters.
+     * The intermediate alignments are kept in memory until the run of the grid search is finished.
+     * @param memoize true to memoize the stages of a pipeline
+     * @return GridSearch object (for builder pattern)
+     */
+    public GridSearch setMemoizePipelineStages(boolean memoize){
+        this.stageMemo = memoize ? new PipelineStageMemo() : null;
+        return this;
+    }
+
+    public boolean isMemoizePipelineStages() {
+        return stageMemo != null;
+    }
+
     /**
      * Run in parallel on {@link TestCase}.
      * @param testCase The test case to use.
@@ -297,19 +359,19 @@ public class GridSearch {
     }
 
     public ExecutionResultSet runGridParallel(TestCase testCase, int numberOfThreads){
-        return updateExecutionResultSet(new ExecutorParallel(numberOfThreads).run(Arrays.asList(testCase), getMatcherConfigurations()));
+        return finishRun(new ExecutorParallel(numberOfThreads, resultStore).run(Arrays.asList(testCase), getMatcherConfigurations()));
     }
     
     public ExecutionResultSet runGridParallel(List<TestCase> testCases, int numberOfThreads){
-        return updateExecutionResultSet(new ExecutorParallel(numberOfThreads).run(testCases, getMatcherConfigurations()));
+        return finishRun(new ExecutorParallel(numberOfThreads, resultStore).run(testCases, getMatcherConfigurations()));
     }
     
     public ExecutionResultSet runGridParallel(Track track, int numberOfThreads){
-        return updateExecutionResultSet(new ExecutorParallel(numberOfThreads).run(track, getMatcherConfigurations()));
+        return finishRun(new ExecutorParallel(numberOfThreads, resultStore).run(track, getMatcherConfigurations()));
     }
     
     public ExecutionResultSet runGridParallelTrack(List<Track> tracks, int numberOfThreads){
-        return updateExecutionResultSet(new ExecutorParallel(numberOfThreads).runTracks(tracks, getMatcherConfigurations()));
+        return finishRun(new ExecutorParallel(numberOfThreads, resultStore).runTracks(tracks, getMatcherConfigurations()));
     }
 
     /**
@@ -318,7 +380,7 @@ public class GridSearch {
      * @return {@link ExecutionResultSet} instance.
      */
     public ExecutionResultSet runGridSequential(TestCase testCase){
-        return updateExecutionResultSet(Executor.run(Arrays.asList(testCase), getMatcherConfigurations()));
+        return finishRun(Executor.run(Arrays.asList(testCase), getMatcherConfigurations(), resultStore));
     }
 
     /**
@@ -327,7 +389,7 @@ public class GridSearch {
      * @return {@link ExecutionResultSet} instance.
      */
     public ExecutionResultSet runGridSequential(List<TestCase> testCases){
-        return updateExecutionResultSet(Executor.run(testCases, getMatcherConfigurations()));
+        return finishRun(Executor.run(testCases, getMatcherConfigurations(), resultStore));
     }
 
     /**
@@ -336,7 +398,7 @@ public class GridSearch {
      * @return {@link ExecutionResultSet} instance.
      */
     public ExecutionResultSet runGridSequential(Track track){
-        return updateExecutionResultSet(Executor.run(track, getMatcherConfigurations()));
+        return finishRun(Executor.run(track.getTestCases(), getMatcherConfigurations(), resultStore));
     }
 
     /**
@@ -345,9 +407,260 @@ public class GridSearch {
      * @return {@link ExecutionResultSet} instance.
      */
     public ExecutionResultSet runGridSequentialTracks(List<Track> tracks){
-        return updateExecutionResultSet(Executor.runTracks(tracks, getMatcherConfigurations()));
+        return finishRun(Executor.runTracks(tracks, getMatcherConfigurations(), resultStore));
     }
     
+    /**
+     * Run successive halving on a {@link Track}.
+     * @param track The track to use.
+     * @param reductionFactor The factor by which the number of configurations is reduced (and the number of test cases is increased) in each round (usually 3).
+     * @return {@link ExecutionResultSet} instance.
+     * @see #runSuccessiveHalving(java.util.List, int, int)
+     */
+    public ExecutionResultSet runSuccessiveHalving(Track track, int reductionFactor){
+        return runSuccessiveHalving(track.getTestCases(), reductionFactor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Run successive halving: all configurations are executed on a small subset of the test cases and only the best
+     * configurations (according to the micro F-measure) are executed on a larger subset in the next round.
+     * In each round only 1/reductionFactor of the configurations survive and the number of test cases is multiplied by reductionFactor.
+     * In the last round, the remaining configuration(s) are executed on all test cases.
+     * The subsets are prefixes of the given list, thus shuffle the test cases beforehand if they are ordered in a meaningful way.
+     * The returned result set contains the results of all executed configurations (also the ones which are dropped early).
+     * @param testCases The test cases to use.
+     * @param reductionFactor The factor by which the number of configurations is reduced (and the number of test cases is increased) in each round (usually 3).
+     * @param numberOfThreads The number of threads to use.
+     * @return {@link ExecutionResultSet} instance.
+     */
+    public ExecutionResultSet runSuccessiveHalving(List<TestCase> testCases, int reductionFactor, int numberOfThreads){
+        if(reductionFactor < 2)
+            throw new IllegalArgumentException("The reduction factor has to be at least two.");
+        if(testCases.isEmpty())
+            throw new IllegalArgumentException("At least one test case is required.");
+        Map<String, IOntologyMatchingToolBridge> configurations = getMatcherConfigurations();
+        int numberOfRounds = 1 + (int)Math.ceil(log(configurations.size(), reductionFactor) - 1e-9);
+        ExecutionResultSet results = new ExecutionResultSet();
+        Map<String, IOntologyMatchingToolBridge> survivors = successiveHalving(configurations, testCases, numberOfRounds,
+                reductionFactor, numberOfThreads, new ConfusionMatrixMetric(), results);
+        LOGGER.info("Successive halving finished with {} executions (exhaustive grid search: {}). Best configuration(s): {}",
+                results.size(), configurations.size() * testCases.size(), survivors.keySet());
+        return finishRun(results);
+    }
+
+    /**
+     * Run Hyperband on a {@link Track}.
+     * @param track The track to use.
+     * @param reductionFactor The factor by which the number of configurations is reduced in each round of successive halving (usually 3).
+     * @param seed The seed for sampling the configurations.
+     * @return {@link ExecutionResultSet} instance.
+     * @see #runHyperband(java.util.List, int, long, int)
+     */
+    public ExecutionResultSet runHyperband(Track track, int reductionFactor, long seed){
+        return runHyperband(track.getTestCases(), reductionFactor, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Run Hyperband (Li et al.: Hyperband: A Novel Bandit-Based Approach to Hyperparameter Optimization).
+     * It runs multiple brackets of successive halving (see {@link #runSuccessiveHalving(java.util.List, int, int)}) with randomly sampled
+     * configurations. The first bracket starts with many configurations on few test cases and the last one runs few configurations on all test cases.
+     * The resource is the number of test cases (prefixes of the given list). A configuration is executed at most once on each test case, even if it is sampled in multiple brackets.
+     * @param testCases The test cases to use.
+     * @param reductionFactor The factor by which the number of configurations is reduced in each round of successive halving (usually 3).
+     * @param seed The seed for sampling the configurations.
+     * @param numberOfThreads The number of threads to use.
+     * @return {@link ExecutionResultSet} instance.
+     */
+    public ExecutionResultSet runHyperband(List<TestCase> testCases, int reductionFactor, long seed, int numberOfThreads){
+        if(reductionFactor < 2)
+            throw new IllegalArgumentException("The reduction factor has to be at least two.");
+        if(testCases.isEmpty())
+            throw new IllegalArgumentException("At least one test case is required.");
+        Map<String, IOntologyMatchingToolBridge> configurations = getMatcherConfigurations();
+        List<String> names = new ArrayList<>(configurations.keySet());
+        Collections.sort(names);
+        Random random = new Random(seed);
+        ConfusionMatrixMetric metric = new ConfusionMatrixMetric();
+        ExecutionResultSet results = new ExecutionResultSet();
+        
+        int maxBracket = (int)Math.floor(log(testCases.size(), reductionFactor) + 1e-9);
+        for(int bracket = maxBracket; bracket >= 0; bracket--){
+            int numberOfConfigurations = (int)Math.ceil((maxBracket + 1.0) / (bracket + 1.0) * Math.pow(reductionFactor, bracket));
+            Collections.shuffle(names, random);
+            Map<String, IOntologyMatchingToolBridge> sampled = new LinkedHashMap<>();
+            for(String name : names.subList(0, Math.min(numberOfConfigurations, names.size()))){
+                sampled.put(name, configurations.get(name));
+            }
+            LOGGER.info("Hyperband bracket {} with {} configurations.", bracket, sampled.size());
+            successiveHalving(sampled, testCases, bracket + 1, reductionFactor, numberOfThreads, metric, results);
+        }
+        LOGGER.info("Hyperband finished with {} executions (exhaustive grid search: {}).", results.size(), configurations.size() * testCases.size());
+        return finishRun(results);
+    }
+
+    /**
+     * Run random search on a {@link Track}.
+     * @param track The track to use.
+     * @param timeBudgetInMillis The time budget in milliseconds.
+     * @param seed The seed for sampling the configurations.
+     * @return {@link ExecutionResultSet} instance.
+     * @see #runRandomSearch(java.util.List, long, long, int)
+     */
+    public ExecutionResultSet runRandomSearch(Track track, long timeBudgetInMillis, long seed){
+        return runRandomSearch(track.getTestCases(), timeBudgetInMillis, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Run random search with a time budget and early stopping.
+     * The configurations are sampled (without replacement) in a random order until the time budget is exhausted.
+     * The budget is also checked before each prefix, thus a configuration is stopped (and not considered as best configuration)
+     * if the budget is exhausted before it is evaluated on all test cases. Each configuration is executed on a growing prefix of the test cases
+     * (1, 2, 4, ... test cases) and it is stopped early as soon as its micro F-measure on the prefix is lower than the F-measure of
+     * the best completely evaluated configuration on the same prefix.
+     * @param testCases The test cases to use.
+     * @param timeBudgetInMillis The time budget in milliseconds.
+     * @param seed The seed for sampling the configurations.
+     * @param numberOfThreads The number of threads to use (the test cases of one prefix are executed in parallel).
+     * @return {@link ExecutionResultSet} instance.
+     */
+    public ExecutionResultSet runRandomSearch(List<TestCase> testCases, long timeBudgetInMillis, long seed, int numberOfThreads){
+        if(testCases.isEmpty())
+            throw new IllegalArgumentException("At least one test case is required.");
+        List<List<Object>> paramCombinations = cartesianProduct(0, this.paramValues);
+        Collections.shuffle(paramCombinations, new Random(seed));
+        ConfusionMatrixMetric metric = new ConfusionMatrixMetric();
+        ExecutionResultSet results = new ExecutionResultSet();
+        long startTime = System.currentTimeMillis();
+        String bestConfiguration = null;
+        int numberOfConfigurations = 0;
+        for(List<Object> paramSetting : paramCombinations){
+            if(System.currentTimeMillis() - startTime > timeBudgetInMillis){
+                LOGGER.info("Time budget of random search is exhausted.");
+                break;
+            }
+            Collections.reverse(paramSetting);
+            String name = getMatcherNameWithSettings(paramSetting);
+            Map<String, IOntologyMatchingToolBridge> configuration = new HashMap<>();
+            try {
+                configuration.put(name, getInstantiatedMatcher(paramSetting));
+            } catch (ReflectiveOperationException ex) {
+                LOGGER.error("Cannot instantiate new Matcher", ex);
+                continue;
+            }
+            numberOfConfigurations++;
+            boolean stopped = false;
+            for(int prefix = 1; ; prefix = Math.min(prefix * 2, testCases.size())){
+                if(prefix > 1 && System.currentTimeMillis() - startTime > timeBudgetInMillis){
+                    LOGGER.info("Time budget of random search is exhausted. Stop configuration {} before it is evaluated on {} test cases.", name, prefix);
+                    stopped = true;
+                    break;
+                }
+                List<TestCase> subset = testCases.subList(0, prefix);
+                runMissing(subset, configuration, results, numberOfThreads);
+                if(bestConfiguration != null &&
+                        getFmeasure(name, subset, results, metric) < getFmeasure(bestConfiguration, subset, results, metric)){
+                    LOGGER.info("Stop configuration {} after {} test cases.", name, prefix);
+                    stopped = true;
+                    break;
+                }
+                if(prefix >= testCases.size())
+                    break;
+            }
+            if(!stopped)
+                bestConfiguration = name;
+        }
+        LOGGER.info("Random search evaluated {} configurations with {} executions. Best configuration: {}", numberOfConfigurations, results.size(), bestConfiguration);
+        return finishRun(results);
+    }
+
+    /**
+     * Runs successive halving on the given configurations.
+     * @param configurations the configurations (matcher name to matcher instance)
+     * @param testCases the test cases (the rounds use prefixes of this list)
+     * @param numberOfRounds the number of rounds (in the last round all test cases are used)
+     * @param reductionFactor the factor by which the number of configurations is reduced in each round
+     * @param numberOfThreads the number of threads
+     * @param metric the metric to compute the F-measure
+     * @param results the results of all executions (new results are added)
+     * @return the configurations which survived all rounds
+     */
+    private Map<String, IOntologyMatchingToolBridge> successiveHalving(Map<String, IOntologyMatchingToolBridge> configurations, List<TestCase> testCases,
+            int numberOfRounds, int reductionFactor, int numberOfThreads, ConfusionMatrixMetric metric, ExecutionResultSet results){
+        Map<String, IOntologyMatchingToolBridge> survivors = configurations;
+        for(int round = 0; round < numberOfRounds; round++){
+            int prefix = (int)Math.ceil(testCases.size() / Math.pow(reductionFactor, numberOfRounds - 1 - round));
+            List<TestCase> subset = testCases.subList(0, Math.max(1, Math.min(prefix, testCases.size())));
+            runMissing(subset, survivors, results, numberOfThreads);
+            if(round == numberOfRounds - 1)
+                break;
+            Map<String, Double> fmeasures = new HashMap<>();
+            for(String name : survivors.keySet()){
+                fmeasures.put(name, getFmeasure(name, subset, results, metric));
+            }
+            List<String> ranking = new ArrayList<>(survivors.keySet());
+            ranking.sort((one, two) -> {
+                int compare = Double.compare(fmeasures.get(two), fmeasures.get(one));
+                return compare != 0 ? compare : one.compareTo(two);
+            });
+            Map<String, IOntologyMatchingToolBridge> nextSurvivors = new LinkedHashMap<>();
+            for(String name : ranking.subList(0, Math.max(1, ranking.size() / reductionFactor))){
+                nextSurvivors.put(name, survivors.get(name));
+            }
+            LOGGER.info("Successive halving round {}: keep {} of {} configurations (evaluated on {} test cases).",
+                    round, nextSurvivors.size(), survivors.size(), subset.size());
+            survivors = nextSurvivors;
+        }
+        return survivors;
+    }
+
+    /**
+     * Executes the configurations on the test cases for which no result exists yet.
+     * Configurations which miss the same test cases are executed together.
+     * @param testCases the test cases
+     * @param configurations the configurations (matcher name to matcher instance)
+     * @param results the results of all executions (new results are added)
+     * @param numberOfThreads the number of threads
+     */
+    private void runMissing(List<TestCase> testCases, Map<String, IOntologyMatchingToolBridge> configurations, ExecutionResultSet results, int numberOfThreads){
+        Map<List<TestCase>, Map<String, IOntologyMatchingToolBridge>> groups = new LinkedHashMap<>();
+        for(Entry<String, IOntologyMatchingToolBridge> configuration : configurations.entrySet()){
+            List<TestCase> missing = new ArrayList<>();
+            for(TestCase testCase : testCases){
+                if(results.get(testCase, configuration.getKey()) == null)
+                    missing.add(testCase);
+            }
+            if(!missing.isEmpty())
+                groups.computeIfAbsent(missing, k -> new HashMap<>()).put(configuration.getKey(), configuration.getValue());
+        }
+        for(Entry<List<TestCase>, Map<String, IOntologyMatchingToolBridge>> group : groups.entrySet()){
+            results.addAll(new ExecutorParallel(numberOfThreads, resultStore).run(group.getKey(), group.getValue()));
+        }
+    }
+
+    private static double getFmeasure(String matcherName, List<TestCase> testCases, ExecutionResultSet results, ConfusionMatrixMetric metric){
+        List<ExecutionResult> matcherResults = new ArrayList<>();
+        for(TestCase testCase : testCases){
+            ExecutionResult result = results.get(testCase, matcherName);
+            if(result != null)
+                matcherResults.add(result);
+        }
+        if(matcherResults.isEmpty())
+            return 0.0;
+        return metric.getMicroAveragesForResults(matcherResults).getF1measure();
+    }
+
+    private static double log(double value, double base){
+        return Math.log(Math.max(1.0, value)) / Math.log(base);
+    }
+
+    private ExecutionResultSet finishRun(ExecutionResultSet set){
+        if(stageMemo != null){
+            LOGGER.info("Pipeline stage memo: {} computed and {} reused intermediate alignments.", stageMemo.getMissCount(), stageMemo.getHitCount());
+            stageMemo.clear();
+        }
+        return updateExecutionResultSet(set);
+    }
+
     /**
      * Updates the execution result set with configuration attributes in the extension of the alignment.
      * @param set The execution result set to be updated.
@@ -437,8 +750,62 @@ public class GridSearch {
                 LOGGER.error("Cannot set property", ex);
             }
         }
+        if(stageMemo != null)
+            memoizePipelineStages(matcherInstance, paramValue);
         return matcherInstance;
     }
+
+    /**
+     * Replaces the stages of a matcher pipeline with stages which use the memo.
+     * The key of a stage contains the class and the parameters of all stages up to this stage (and all parameters which are not specific to one stage).
+     * @param matcherInstance the instantiated matcher
+     * @param paramValue the values of the parameters
+     */
+    private void memoizePipelineStages(IOntologyMatchingToolBridge matcherInstance, List<Object> paramValue){
+        List<MatcherYAAAJena> jenaStages = null;
+        List<MatcherYAAA> stages = null;
+        if(matcherInstance instanceof MatcherPipelineYAAAJena){
+            jenaStages = ((MatcherPipelineYAAAJena)matcherInstance).getMatchers();
+        }else if(matcherInstance instanceof MatcherPipelineYAAAJenaConstructor){
+            jenaStages = ((MatcherPipelineYAAAJenaConstructor)matcherInstance).getMatchers();
+        }else if(matcherInstance instanceof MatcherPipelineYAAA){
+            stages = ((MatcherPipelineYAAA)matcherInstance).getMatchers();
+        }else{
+            LOGGER.warn("Memoization of pipeline stages is enabled but matcher {} is not a supported pipeline. Run it without memoization.", matcherInstance.getClass().getName());
+            return;
+        }
+        if(jenaStages == null && stages == null)
+            return;
+        
+        StringBuilder globalSetting = new StringBuilder();
+        Map<Integer, StringBuilder> stageSettings = new HashMap<>();
+        for(int i=0; i < paramValue.size(); i++){
+            String name = this.paramName.get(i);
+            Matcher stageMatcher = PIPELINE_STAGE_PARAMETER.matcher(name);
+            StringBuilder setting = globalSetting;
+            if(!isConstructorParameter(name) && stageMatcher.find())
+                setting = stageSettings.computeIfAbsent(Integer.parseInt(stageMatcher.group(1)), k -> new StringBuilder());
+            setting.append(name).append('=').append(paramValue.get(i)).append(';');
+        }
+        
+        StringBuilder prefixKey = new StringBuilder();
+        prefixKey.append(matcherInstance.getClass().getName()).append('(').append(globalSetting).append(')');
+        int numberOfStages = jenaStages != null ? jenaStages.size() : stages.size();
+        try {
+            for(int i=0; i < numberOfStages; i++){
+                Object stage = jenaStages != null ? jenaStages.get(i) : stages.get(i);
+                StringBuilder stageSetting = stageSettings.get(i);
+                prefixKey.append('|').append(stage.getClass().getName()).append('(').append(stageSetting == null ? "" : stageSetting).append(')');
+                if(jenaStages != null){
+                    jenaStages.set(i, new MemoizedStageJena((MatcherYAAAJena)stage, stageMemo, prefixKey.toString()));
+                }else{
+                    stages.set(i, new MemoizedStageYAAA((MatcherYAAA)stage, stageMemo, prefixKey.toString()));
+                }
+            }
+        } catch (UnsupportedOperationException ex) {
+            LOGGER.warn("The stages of matcher {} cannot be replaced (unmodifiable list). Run it without memoization.", matcherInstance.getClass().getName());
+        }
+    }
     
     private static boolean isConstructorParameter(String parameterName){
         return parameterName.toLowerCase().equals(CONSTRUCTOR);
@@ -0,0 +1,56 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
+
+import de.uni_mannheim.informatik.dws.melt.matching_base.IMatcherWrapper;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.OntoInfo;
+import java.util.Properties;
+import org.apache.jena.ontology.OntModel;
+
+/**
+ * Stage of a jena pipeline whose result is memoized in a {@link PipelineStageMemo}.
+ * The test case is identified by the ontology locations of the input alignment (set by {@link MatcherYAAAJena}),
+ * the content of the input alignment and the properties (see {@link PipelineStageMemo#getInputKey(Alignment, Properties)}).
+ * The ontology locations are also set on the returned alignment such that the next stage can identify the test case.
+ */
+class MemoizedStageJena extends MatcherYAAAJena implements IMatcherWrapper {
+
+    private final MatcherYAAAJena stage;
+    private final PipelineStageMemo memo;
+    private final String prefixKey;
+
+    MemoizedStageJena(MatcherYAAAJena stage, PipelineStageMemo memo, String prefixKey) {
+        this.stage = stage;
+        this.memo = memo;
+        this.prefixKey = prefixKey;
+    }
+
+    @Override
+    public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+        String testCaseKey = getTestCaseKey(inputAlignment);
+        if (testCaseKey == null)
+            return stage.match(source, target, inputAlignment, properties);
+        String key = testCaseKey + "\n" + PipelineStageMemo.getInputKey(inputAlignment, properties) + "\n" + prefixKey;
+        Alignment result = memo.get(key, () -> stage.match(source, target, inputAlignment, properties));
+        if (result != null && getTestCaseKey(result) == null) {
+            result.setOnto1(new OntoInfo(inputAlignment.getOnto1()));
+            result.setOnto2(new OntoInfo(inputAlignment.getOnto2()));
+        }
+        return result;
+    }
+
+    private static String getTestCaseKey(Alignment alignment) {
+        if (alignment == null || alignment.getOnto1() == null || alignment.getOnto2() == null)
+            return null;
+        String source = alignment.getOnto1().getOntoLocation();
+        String target = alignment.getOnto2().getOntoLocation();
+        if (source == null || target == null || source.isEmpty() || target.isEmpty())
+            return null;
+        return source + "\n" + target;
+    }
+
+    @Override
+    public MatcherYAAAJena getWrappedMatcher() {
+        return stage;
+    }
+}
@@ -0,0 +1,36 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
+
+import de.uni_mannheim.informatik.dws.melt.matching_base.IMatcherWrapper;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Stage of a YAAA pipeline whose result is memoized in a {@link PipelineStageMemo}.
+ * The test case is identified by the source and target URL,
+ * the content of the input alignment and the properties (see {@link PipelineStageMemo#getInputKey(Alignment, Properties)}).
+ */
+class MemoizedStageYAAA extends MatcherYAAA implements IMatcherWrapper {
+
+    private final MatcherYAAA stage;
+    private final PipelineStageMemo memo;
+    private final String prefixKey;
+
+    MemoizedStageYAAA(MatcherYAAA stage, PipelineStageMemo memo, String prefixKey) {
+        this.stage = stage;
+        this.memo = memo;
+        this.prefixKey = prefixKey;
+    }
+
+    @Override
+    public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+        String key = source + "\n" + target + "\n" + PipelineStageMemo.getInputKey(inputAlignment, properties) + "\n" + prefixKey;
+        return memo.get(key, () -> stage.match(source, target, inputAlignment, properties));
+    }
+
+    @Override
+    public MatcherYAAA getWrappedMatcher() {
+        return stage;
+    }
+}
@@ -0,0 +1,144 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
+
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memo for the intermediate alignments of pipeline stages which is shared by all configurations of a {@link GridSearch}.
+ * The key of an intermediate alignment identifies the test case and all stages up to (and including) the current one.
+ * Thus configurations which only differ in later stages share the result of the common prefix.
+ * Each intermediate alignment is only computed once, even if multiple configurations are executed in parallel.
+ * Because stages may modify their input alignment, every caller receives its own (deep) copy.
+ * The caller which computes the alignment receives the computed alignment itself and only the memoized alignment is a copy.
+ */
+class PipelineStageMemo {
+
+    private final ConcurrentHashMap<String, FutureTask<Alignment>> results;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    PipelineStageMemo() {
+        this.results = new ConcurrentHashMap<>();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * Returns a copy of the memoized alignment or computes it (only once per key).
+     * @param key the key of the stage prefix and test case
+     * @param computation the computation of the stage
+     * @return a copy of the alignment which is produced by the stage
+     * @throws Exception in case the computation fails (then it is not memoized)
+     */
+    Alignment get(String key, Callable<Alignment> computation) throws Exception {
+        Alignment[] computed = new Alignment[1];
+        FutureTask<Alignment> task = new FutureTask<>(() -> {
+            computed[0] = computation.call();
+            return copy(computed[0]);
+        });
+        FutureTask<Alignment> existing = results.putIfAbsent(key, task);
+        if (existing == null) {
+            missCount.increment();
+            task.run();
+            existing = task;
+        } else {
+            hitCount.increment();
+        }
+        try {
+            Alignment memoized = existing.get();
+            return existing == task ? computed[0] : copy(memoized);
+        } catch (ExecutionException ex) {
+            results.remove(key, existing);
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            throw ex;
+        }
+    }
+
+    /**
+     * Removes all intermediate alignments.
+     */
+    void clear() {
+        results.clear();
+    }
+
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+    long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns a key for the input of a stage: a SHA-256 hash of the correspondences (including their extensions) of the input alignment
+     * and of the properties. The order of the correspondences does not matter.
+     * @param inputAlignment the input alignment (can be null)
+     * @param properties the properties which are passed to the stage (can be null)
+     * @return the key as hex string
+     */
+    static String getInputKey(Alignment inputAlignment, Properties properties) {
+        List<String> correspondences = new ArrayList<>(inputAlignment == null ? 0 : inputAlignment.size());
+        if (inputAlignment != null) {
+            for (Correspondence c : inputAlignment) {
+                correspondences.add(c.getEntityOne() + "\t" + c.getEntityTwo() + "\t" + c.getRelation() + "\t" + c.getConfidence() + "\t"
+                        + (c.getExtensions() == null ? "" : new TreeMap<>(c.getExtensions()).toString()));
+            }
+        }
+        Collections.sort(correspondences);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+        for (String correspondence : correspondences) {
+            digest.update(correspondence.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        digest.update((byte) '\n');
+        if (properties != null) {
+            Map<String, String> sortedProperties = new TreeMap<>();
+            for (Map.Entry<Object, Object> property : properties.entrySet()) {
+                sortedProperties.put(String.valueOf(property.getKey()), String.valueOf(property.getValue()));
+            }
+            digest.update(sortedProperties.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return new BigInteger(1, digest.digest()).toString(16);
+    }
+
+    /**
+     * Deep copy of the alignment (including the correspondences, because stages may change e.g. the confidence).
+     * @param alignment the alignment to copy
+     * @return the copy
+     */
+    static Alignment copy(Alignment alignment) {
+        if (alignment == null)
+            return null;
+        Alignment copy = new Alignment(alignment, false);
+        List<Correspondence> correspondences = new ArrayList<>(alignment.size());
+        for (Correspondence c : alignment) {
+            correspondences.add(new Correspondence(c.getEntityOne(), c.getEntityTwo(), c.getConfidence(), c.getRelation(),
+                    c.getExtensions() == null ? null : new HashMap<>(c.getExtensions()), c.getIdentifier()));
+        }
+        copy.addAllBulk(correspondences);
+        return copy;
+    }
+}
@@ -1,6 +1,7 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval.tracks;
 
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.GoldStandardCompleteness;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.OntologyCacheJena;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -54,6 +55,11 @@ public abstract class Track {
      */
     protected static File cacheFolder;
 
+    /**
+     * Name of the folder (within the cache folder) where the Jena snapshots of the track ontologies are stored.
+     */
+    public static final String SNAPSHOT_FOLDER = "jena_snapshots";
+
     protected static boolean skipTestsWithoutRefAlign;
     
     protected String remoteLocation;
@@ -104,6 +110,8 @@ public abstract class Track {
 
     /**
      * Folder where the tracks and the corresponding test cases shall be cached.
+     * Ontologies of the cached tracks are also parsed only once by Jena and stored as snapshot in the subfolder
+     * {@value #SNAPSHOT_FOLDER} (see {@link OntologyCacheJena#setSnapshotFolder(File, File)}).
      * @param directory Target directory.
      */
     public static void setCacheFolder(File directory){
@@ -117,6 +125,7 @@ public abstract class Track {
             throw new IllegalArgumentException("CacheFolder should be a directory.");
         }
         cacheFolder = directory;
+        OntologyCacheJena.setSnapshotFolder(directory, new File(directory, SNAPSHOT_FOLDER));
         try {
             LOGGER.info("Track cache folder is: " + cacheFolder.getCanonicalPath());
         } catch (IOException e) {
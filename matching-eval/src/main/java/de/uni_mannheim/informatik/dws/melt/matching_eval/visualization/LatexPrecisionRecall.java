@@ -2,6 +2,7 @@ package de.uni_mannheim.informatik.dws.melt.matching_eval.visualization;
 
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrix;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ThresholdSweep;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
@@ -179,6 +180,29 @@ public class LatexPrecisionRecall {
                 value);
     }
     
+    /**
+     * Writes the precision recall curve of a matcher where each point is the result for one confidence threshold.
+     * @param value the name of the matcher
+     * @param sweep the sweep which contains precision and recall for each threshold
+     * @return the latex (tikz) code for the curve
+     */
+    public static String writeCurve(String value, ThresholdSweep sweep){
+        if(sweep.size() == 0)
+            return "";
+        List<PrecRecPoint> points = new ArrayList<>(sweep.size());
+        for(int i = 0; i < sweep.size(); i++){
+            points.add(getPolarCoord(sweep.getPrecision(i), sweep.getRecall(i)));
+        }
+        String formattedPoints = points.stream()
+                .map(point -> point.formatFMeasureLine())
+                .collect( Collectors.joining( " " ) );
+        PrecRecPoint last = points.get(points.size() - 1);
+        return String.format("\\draw[thin] plot[mark=*,mark size=0.5pt] coordinates { %s };%n\\draw %s node[anchor=south west] {%s};", 
+                formattedPoints,
+                last.textPosition(),
+                value);
+    }
+    
     public static List<Double> range(double start, double end, double step){
         List<Double> list = new ArrayList<>();
         for(double d = start; d <= end; d += step){
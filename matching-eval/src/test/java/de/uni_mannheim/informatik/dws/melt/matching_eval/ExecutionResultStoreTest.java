@@ -0,0 +1,211 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval;
+
+import de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning.GridSearch;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionResultStoreTest {
+
+    @TempDir
+    File storeDirectory;
+
+    @Test
+    void resumeGridSearch() {
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("store", "1.0", new File("src/test/resources")));
+        ExecutionResultStore store = new ExecutionResultStore(storeDirectory);
+
+        CountingMatcher.COUNTER.set(0);
+        ExecutionResultSet first = new GridSearch(CountingMatcher.class)
+                .addParameter("threshold", 0.5, 0.9)
+                .setResultStore(store)
+                .runGridSequential(testCase);
+        assertEquals(2, first.size());
+        assertEquals(2, CountingMatcher.COUNTER.get());
+        CountingMatcher configured = new CountingMatcher();
+        configured.setThreshold(0.5);
+        assertTrue(store.contains(testCase, configured, "CountingMatcher (threshold=0.5)"));
+        assertFalse(store.contains(testCase, new CountingMatcher(), "CountingMatcher (threshold=0.5)"));
+
+        // second run with one additional configuration: only the new one is executed
+        ExecutionResultSet second = new GridSearch(CountingMatcher.class)
+                .addParameter("threshold", 0.5, 0.9, 0.7)
+                .setResultStore(store)
+                .runGridParallel(testCase, 2);
+        assertEquals(3, second.size());
+        assertEquals(3, CountingMatcher.COUNTER.get());
+
+        ExecutionResult stored = second.get(testCase, "CountingMatcher (threshold=0.9)");
+        assertEquals(1, stored.getSystemAlignment().size());
+        assertEquals(0.9, stored.getSystemAlignment().iterator().next().getConfidence());
+    }
+
+    @Test
+    void keyDependsOnNameAndClass() {
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("store", "1.0", new File("src/test/resources")));
+        ExecutionResultStore store = new ExecutionResultStore(storeDirectory);
+        String key = store.getKey(testCase, new CountingMatcher(), "A");
+        assertEquals(key, new ExecutionResultStore(storeDirectory).getKey(testCase, new CountingMatcher(), "A"));
+        assertNotEquals(key, store.getKey(testCase, new CountingMatcher(), "B"));
+        assertNotEquals(key, store.getKey(testCase, new MatcherYAAA() {
+            @Override
+            public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+                return new Alignment();
+            }
+        }, "A"));
+    }
+
+    @Test
+    void keyDependsOnConfiguration() {
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("store", "1.0", new File("src/test/resources")));
+        ExecutionResultStore store = new ExecutionResultStore(storeDirectory);
+        CountingMatcher low = new CountingMatcher();
+        low.setThreshold(0.5);
+        CountingMatcher high = new CountingMatcher();
+        high.setThreshold(0.9);
+        assertTrue(ExecutionResultStore.getConfigurationFingerprint(low).contains("threshold=0.5"));
+        assertNotEquals(store.getKey(testCase, low, "A"), store.getKey(testCase, high, "A"));
+
+        // plain executor with the same matcher name: a changed configuration is executed again
+        CountingMatcher.COUNTER.set(0);
+        Map<String, IOntologyMatchingToolBridge> matchers = new HashMap<>();
+        matchers.put("A", low);
+        Executor.run(Arrays.asList(testCase), matchers, store);
+        Executor.run(Arrays.asList(testCase), matchers, store);
+        assertEquals(1, CountingMatcher.COUNTER.get());
+        matchers.put("A", high);
+        ExecutionResultSet result = Executor.run(Arrays.asList(testCase), matchers, store);
+        assertEquals(2, CountingMatcher.COUNTER.get());
+        assertEquals(0.9, result.get(testCase, "A").getSystemAlignment().iterator().next().getConfidence());
+    }
+
+    @Test
+    void nestedConfigurationIsFingerprinted() {
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("store", "1.0", new File("src/test/resources")));
+        ExecutionResultStore store = new ExecutionResultStore(storeDirectory);
+        NestedMatcher first = new NestedMatcher();
+        first.getHolder().setValue(0.5);
+        NestedMatcher second = new NestedMatcher();
+        second.getHolder().setValue(0.9);
+        assertNotNull(store.getKey(testCase, first, "A"));
+        assertNotEquals(store.getKey(testCase, first, "A"), store.getKey(testCase, second, "A"));
+
+        Properties properties = new Properties();
+        properties.setProperty("threshold", "0.5");
+        first.setProperties(properties);
+        String withProperties = store.getKey(testCase, first, "A");
+        properties.setProperty("threshold", "0.9");
+        assertNotEquals(withProperties, store.getKey(testCase, first, "A"));
+
+        // an opaque value can not be fingerprinted: the task is not cached
+        first.setOpaque(new Object());
+        assertNull(ExecutionResultStore.getConfigurationFingerprint(first));
+        assertNull(store.getKey(testCase, first, "A"));
+        CountingMatcher.COUNTER.set(0);
+        ExecutionRunner.runMatcher(testCase, first, "A", store);
+        ExecutionRunner.runMatcher(testCase, first, "A", store);
+        assertEquals(2, CountingMatcher.COUNTER.get());
+        assertFalse(store.contains(testCase, first, "A"));
+    }
+
+    @Test
+    void inMemoryAlignmentIsWrittenOnlyIntoTheStore() {
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("store", "1.0", new File("src/test/resources")));
+        ExecutionResultStore store = new ExecutionResultStore(storeDirectory);
+        CountingMatcher matcher = new CountingMatcher();
+        matcher.setThreshold(0.5);
+        ExecutionResult result = ExecutionRunner.runMatcher(testCase, matcher, "A", store);
+        assertFalse(result.isOriginalSystemAlignmentSerialized());
+        assertTrue(store.contains(testCase, matcher, "A"));
+
+        ExecutionResultSet results = new ExecutionResultSet();
+        results.add(result);
+        assertTrue(Executor.deleteOriginalSystemResults(results));
+        assertFalse(result.isOriginalSystemAlignmentSerialized());
+
+        ExecutionResult stored = store.load(testCase, matcher, "A");
+        assertTrue(stored.isOriginalSystemAlignmentSerialized());
+        assertEquals(0.5, stored.getSystemAlignment().iterator().next().getConfidence());
+    }
+
+    public static class NestedMatcher extends CountingMatcher {
+        private ThresholdHolder holder = new ThresholdHolder();
+        private Properties properties = new Properties();
+        private Object opaque;
+
+        public ThresholdHolder getHolder() {
+            return holder;
+        }
+
+        public void setHolder(ThresholdHolder holder) {
+            this.holder = holder;
+        }
+
+        public Properties getProperties() {
+            return properties;
+        }
+
+        public void setProperties(Properties properties) {
+            this.properties = properties;
+        }
+
+        public Object getOpaque() {
+            return opaque;
+        }
+
+        public void setOpaque(Object opaque) {
+            this.opaque = opaque;
+        }
+    }
+
+    public static class ThresholdHolder {
+        private double value;
+
+        public double getValue() {
+            return value;
+        }
+
+        public void setValue(double value) {
+            this.value = value;
+        }
+    }
+
+    public static class CountingMatcher extends MatcherYAAA {
+        static final AtomicInteger COUNTER = new AtomicInteger();
+        private double threshold;
+
+        @Override
+        public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+            COUNTER.incrementAndGet();
+            Alignment alignment = new Alignment();
+            alignment.add("http://one", "http://two", threshold);
+            return alignment;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(double threshold) {
+            this.threshold = threshold;
+        }
+    }
+}
@@ -1,12 +1,30 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.StageStatistics;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.EvaluatorCSV;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.visualization.dashboard.DashboardBuilder;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TrackRepository;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherPipelineYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.AlignmentParser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.jena.ontology.OntModel;
 import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
 import java.util.ArrayList;
 import java.util.Collections;
 
@@ -45,5 +63,91 @@ class ExecutionResultTest {
             fail("Test case ran into an exception.");
         }
     }
+    
+    @Test
+    void testInMemorySystemAlignment() throws Exception {
+        Alignment matcherResult = new Alignment();
+        matcherResult.add("http://one", "http://two", 0.7);
+        MatcherYAAA matcher = new MatcherYAAA() {
+            @Override
+            public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+                return matcherResult;
+            }
+        };
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(), 
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("inMemory", "1.0", new File("src/test/resources")));
+        
+        ExecutionResult result = Executor.runSingle(testCase, matcher, "InMemory");
+        assertSame(matcherResult, result.getSystemAlignment());
+        
+        //the file is written only when requested
+        URL file = result.getOriginalSystemAlignment();
+        assertNotNull(file);
+        assertEquals(file, result.getOriginalSystemAlignment());
+        assertEquals(matcherResult, AlignmentParser.parse(file));
+    }
+
+    @Test
+    void stageStatistics(@TempDir File directory) throws IOException {
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("stages", "1.0", new File("src/test/resources")));
+        ExecutionResultSet results = Executor.run(testCase, new TwoStagePipeline(), "pipeline");
+        ExecutionResult result = results.get(testCase, "pipeline");
+        List<StageStatistics> stages = result.getStageStatistics();
+        assertEquals(2, stages.size());
+        assertEquals("AddStage", stages.get(0).getStage());
+        assertEquals(0, stages.get(0).getInputSize());
+        assertEquals(2, stages.get(0).getOutputSize());
+        assertEquals("AddStage", stages.get(1).getStage());
+        assertEquals(2, stages.get(1).getInputSize());
+        assertEquals(4, stages.get(1).getOutputSize());
+        assertTrue(stages.get(0).getWallTime() <= result.getRuntime());
+
+        new EvaluatorCSV(results).writeToDirectory(directory);
+        File stageCube = new File(directory, "stagePerformanceCube.csv");
+        assertTrue(stageCube.exists());
+        List<String> lines = Files.readAllLines(stageCube.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("Track,Test Case,Matcher,Stage Index,Stage,Wall Time"));
+        assertTrue(lines.get(2).startsWith("stages,cmt-conference,pipeline,1,AddStage,"));
+
+        // summary of the stages as additional columns of the performance output
+        List<String> cube = Files.readAllLines(new File(directory, "testCasePerformanceCube.csv").toPath(), StandardCharsets.UTF_8);
+        assertTrue(cube.get(0).contains(",Time,Stage CPU Time,Stage Allocated Bytes,Stage Peak Heap,Slowest Stage,Slowest Stage Wall Time"));
+        assertTrue(cube.get(1).startsWith("stages,cmt-conference,pipeline,ALL,"));
+        assertTrue(cube.get(1).contains(",AddStage,"));
+        assertTrue(cube.get(2).endsWith(",-,-,-,-,-,-"));
+
+        File dashboard = new File(directory, "dashboard.html");
+        new DashboardBuilder(results).writeToFile(dashboard);
+        assertTrue(new String(Files.readAllBytes(dashboard.toPath()), StandardCharsets.UTF_8).contains("stageRuntimeChart"));
+    }
+
+    public static class TwoStagePipeline extends MatcherPipelineYAAAJena {
+        @Override
+        protected List<MatcherYAAAJena> initializeMatchers() {
+            return Arrays.asList(new AddStage(), new AddStage());
+        }
+    }
 
-}
\ No newline at end of file
+    /**
+     * Adds the next two correspondences of the reference alignment.
+     */
+    public static class AddStage extends MatcherYAAAJena {
+        private static final String[][] PAIRS = {
+            {"http://cmt#Conference", "http://conference#Conference_volume"},
+            {"http://cmt#Preference", "http://conference#Review_preference"},
+            {"http://cmt#Author", "http://conference#Regular_author"},
+            {"http://cmt#Person", "http://conference#Person"}
+        };
+
+        @Override
+        public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+            Alignment alignment = new Alignment(inputAlignment);
+            int size = alignment.size();
+            alignment.add(PAIRS[size][0], PAIRS[size][1]);
+            alignment.add(PAIRS[size + 1][0], PAIRS[size + 1][1]);
+            return alignment;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval;
+
+import de.uni_mannheim.informatik.dws.melt.matching_base.MatcherURL;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import eu.sealsproject.platform.res.domain.omt.IOntologyMatchingToolBridge;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorParallelIsolatedTest {
+
+    /**
+     * Matcher which always writes to the same file in the temp directory and counts its executions in a static variable.
+     * This only works in parallel if each execution is isolated.
+     */
+    public static class FixedTempFileMatcher extends MatcherURL{
+        private static int executions = 0;
+        @Override
+        public URL match(URL source, URL target, URL inputAlignment) throws Exception {
+            executions++;
+            Alignment a = new Alignment();
+            a.add(source.toString(), target.toString(), executions);
+            File f = new File(System.getProperty("java.io.tmpdir"), "alignment.rdf");
+            a.serialize(f);
+            return f.toURI().toURL();
+        }
+    }
+
+    /**
+     * Matcher with a configuration which is only transferred to the isolated JVM by serialization.
+     */
+    public static class ConfiguredMatcher extends MatcherURL implements Serializable{
+        private static final long serialVersionUID = 1L;
+        private double confidence;
+        public ConfiguredMatcher(){
+            this(1.0);
+        }
+        public ConfiguredMatcher(double confidence){
+            this.confidence = confidence;
+        }
+        @Override
+        public URL match(URL source, URL target, URL inputAlignment) throws Exception {
+            Alignment a = new Alignment();
+            a.add(source.toString(), target.toString(), confidence);
+            File f = new File(System.getProperty("java.io.tmpdir"), "alignment.rdf");
+            a.serialize(f);
+            return f.toURI().toURL();
+        }
+    }
+
+    public static class ConfiguredNonSerializableMatcher extends MatcherURL{
+        private double confidence;
+        public ConfiguredNonSerializableMatcher(){
+            this(1.0);
+        }
+        public ConfiguredNonSerializableMatcher(double confidence){
+            this.confidence = confidence;
+        }
+        @Override
+        public URL match(URL source, URL target, URL inputAlignment) throws Exception {
+            return null;
+        }
+    }
+
+    public static class SleepingMatcher extends MatcherURL{
+        @Override
+        public URL match(URL source, URL target, URL inputAlignment) throws Exception {
+            Thread.sleep(60_000);
+            return null;
+        }
+    }
+
+    @Test
+    void testParallelIsolatedExecution() throws IOException{
+        File base = Files.createTempDirectory("isolatedExecution").toFile();
+        List<TestCase> testCases = getTestCases(base);
+        Map<String, IOntologyMatchingToolBridge> matchers = new HashMap<>();
+        matchers.put("First", new FixedTempFileMatcher());
+        matchers.put("Second", new FixedTempFileMatcher());
+
+        ExecutionResultSet er = new ExecutorParallelIsolated(4, 256, base, 5, TimeUnit.MINUTES).run(testCases, matchers);
+        assertEquals(4, er.size());
+        Set<URL> urls = new HashSet<>();
+        for(ExecutionResult r : er){
+            urls.add(r.getOriginalSystemAlignment());
+            //each execution has its own static state
+            assertEquals(1.0, r.getSystemAlignment().iterator().next().getConfidence());
+            assertEquals(r.getTestCase().getSource().toURL().toString(), r.getSystemAlignment().iterator().next().getEntityOne());
+        }
+        assertEquals(4, urls.size());
+    }
+
+    @Test
+    void testSerializableMatcherKeepsConfiguration() throws IOException{
+        File base = Files.createTempDirectory("isolatedExecution").toFile();
+        ExecutionResultSet er = new ExecutorParallelIsolated(2, 256, base, 5, TimeUnit.MINUTES)
+                .run(getTestCases(base), new ConfiguredMatcher(0.42), "Configured");
+        assertEquals(2, er.size());
+        for(ExecutionResult r : er){
+            assertEquals(0.42, r.getSystemAlignment().iterator().next().getConfidence());
+        }
+    }
+
+    @Test
+    void testCheckTransferable(){
+        ExecutorParallelIsolated.checkTransferable(new FixedTempFileMatcher(), "default");
+        ExecutorParallelIsolated.checkTransferable(new ConfiguredNonSerializableMatcher(), "default");
+        ExecutorParallelIsolated.checkTransferable(new ConfiguredMatcher(0.42), "serializable");
+
+        IllegalArgumentException configured = assertThrows(IllegalArgumentException.class,
+                () -> ExecutorParallelIsolated.checkTransferable(new ConfiguredNonSerializableMatcher(0.42), "configured"));
+        assertTrue(configured.getMessage().contains("confidence"));
+
+        //anonymous classes have no no-argument constructor
+        MatcherURL anonymous = new MatcherURL() {
+            @Override
+            public URL match(URL source, URL target, URL inputAlignment) throws Exception {
+                return null;
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> ExecutorParallelIsolated.checkTransferable(anonymous, "anonymous"));
+    }
+
+    @Test
+    void testInterruption() throws Exception{
+        File base = Files.createTempDirectory("isolatedExecution").toFile();
+        ExecutorParallelIsolated executor = new ExecutorParallelIsolated(1, 256, base, 5, TimeUnit.MINUTES);
+        TestCase testCase = getTestCases(base).get(0);
+        AtomicReference<ExecutionResult> result = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        Thread thread = new Thread(() -> {
+            result.set(executor.runIsolated(testCase, new SleepingMatcher(), "Sleeping"));
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        thread.start();
+        Thread.sleep(1000);
+        thread.interrupt();
+        thread.join(30_000);
+        assertFalse(thread.isAlive());
+        assertNull(result.get());
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void testGetNumberOfParallelTasks(){
+        //16 GB physical, 5 GB reserved: 11 GB / (2 GB + 256 MB non heap) = 4
+        assertEquals(4, ExecutorParallelIsolated.getNumberOfParallelTasks(8, 2048, 16384, 5120));
+        assertEquals(2, ExecutorParallelIsolated.getNumberOfParallelTasks(2, 2048, 16384, 5120));
+        //without reserved memory: 16 GB / 2304 MB = 7
+        assertEquals(7, ExecutorParallelIsolated.getNumberOfParallelTasks(8, 2048, 16384, 0));
+        //not enough memory: at least one task
+        assertEquals(1, ExecutorParallelIsolated.getNumberOfParallelTasks(8, 2048, 4096, 5120));
+        //no memory bound
+        assertEquals(8, ExecutorParallelIsolated.getNumberOfParallelTasks(8, 0, 4096, 5120));
+    }
+
+    private static List<TestCase> getTestCases(File base){
+        LocalTrack track = new LocalTrack("isolated", "1.0", base);
+        return Arrays.asList(
+            new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), track),
+            new TestCase("conference-cmt", new File("src/test/resources/conference.owl").toURI(), new File("src/test/resources/cmt.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), track)
+        );
+    }
+}
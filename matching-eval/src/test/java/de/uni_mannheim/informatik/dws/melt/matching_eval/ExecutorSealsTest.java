@@ -1,8 +1,24 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval;
 
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 class ExecutorSealsTest {
 
@@ -32,4 +48,101 @@ class ExecutorSealsTest {
         executorSeals = new ExecutorSeals(null, "", "");
         assertEquals("java", executorSeals.getJavaCommand());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMaxHeapInMB() {
+        assertEquals(25 * 1024, ExecutorSeals.getMaxHeapInMB(Arrays.asList("-Xmx25g", "-Xms15g")));
+        assertEquals(512, ExecutorSeals.getMaxHeapInMB(Arrays.asList("-Xms15g", "-Xmx512M")));
+        assertEquals(-1, ExecutorSeals.getMaxHeapInMB(Arrays.asList("-Xms15g")));
+        assertEquals(-1, ExecutorSeals.getMaxHeapInMB(null));
+
+        ExecutorSeals executorSeals = new ExecutorSeals("", "");
+        assertEquals(1, executorSeals.getEffectiveNumberOfParallelRuns());
+        executorSeals.setNumberOfParallelRuns(4);
+        assertEquals(4, executorSeals.getEffectiveNumberOfParallelRuns()); //no -Xmx given
+    }
+
+    @Test
+    void getEffectiveNumberOfParallelRuns() {
+        assertEquals(2, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, 1024, 2600, 0));
+        assertEquals(1, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, 1024, 2500, 0)); // non-heap memory of each process
+        assertEquals(4, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, 1024, 16 * 1024, 0));
+        assertEquals(1, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, 1024, 16 * 1024, 14 * 1024)); // reserved memory
+        assertEquals(1, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, 4096, 2048, 0));
+        assertEquals(4, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, -1, 2048, 0));
+        assertEquals(4, ExecutorSeals.getEffectiveNumberOfParallelRuns(4, 1024, -1, 0));
+        assertEquals(1, ExecutorSeals.getEffectiveNumberOfParallelRuns(0, 1024, 2048, 0));
+    }
+
+    @Test
+    void copyMatcherCreatesOneCopyPerRun() throws IOException {
+        File matcher = new File("./src/test/resources/sealsCompliantDirectory");
+        File tmp = Files.createTempDirectory("sealsRuns").toFile();
+        try {
+            File zip = new File(tmp, "DemoMatcher.zip");
+            try(ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))){
+                for(File f : FileUtils.listFilesAndDirs(matcher, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)){
+                    String name = "DemoMatcher/" + matcher.toPath().relativize(f.toPath()).toString().replace(File.separatorChar, '/');
+                    if(f.isDirectory()){
+                        out.putNextEntry(new ZipEntry(name + "/"));
+                    }else{
+                        out.putNextEntry(new ZipEntry(name));
+                        Files.copy(f.toPath(), out);
+                    }
+                    out.closeEntry();
+                }
+            }
+            for(File source : Arrays.asList(zip, matcher)){
+                File first = ExecutorSeals.copyMatcher(source, new File(tmp, "run_0/matcher"));
+                File second = ExecutorSeals.copyMatcher(source, new File(tmp, "run_1/matcher"));
+                assertNotNull(first);
+                assertNotNull(second);
+                assertTrue(ExecutorSeals.isDirectoryRunnableInSeals(first));
+                assertTrue(ExecutorSeals.isDirectoryRunnableInSeals(second));
+                assertTrue(first.toPath().startsWith(new File(tmp, "run_0").toPath()));
+                assertTrue(second.toPath().startsWith(new File(tmp, "run_1").toPath()));
+            }
+        } finally {
+            FileUtils.deleteDirectory(tmp);
+        }
+    }
+
+    @Test
+    void runParallelWithDummyMatcher() throws IOException {
+        assumeFalse(System.getProperty("os.name").toLowerCase().contains("win"));
+        File tmp = Files.createTempDirectory("sealsParallel").toFile();
+        try {
+            // the "java command" is a script which just writes the reference alignment as system alignment
+            File reference = new File("src/test/resources/cmt-conference.rdf");
+            File script = new File(tmp, "dummySeals.sh");
+            FileUtils.writeStringToFile(script, "#!/bin/sh\n"
+                    + "while [ $# -gt 0 ]; do\n"
+                    + "  if [ \"$1\" = \"-f\" ]; then out=\"$2\"; fi\n"
+                    + "  shift\n"
+                    + "done\n"
+                    + "cp '" + reference.getAbsolutePath() + "' \"$out\"\n", StandardCharsets.UTF_8);
+            assertTrue(script.setExecutable(true));
+            File sealsHome = new File(tmp, "sealsHome");
+            ExecutorSeals executorSeals = new ExecutorSeals(script.getAbsolutePath(), new File(tmp, "seals.jar"), sealsHome,
+                    new File(tmp, "results"), Arrays.asList(), 1, TimeUnit.MINUTES, false);
+            executorSeals.setNumberOfParallelRuns(2);
+
+            List<TestCase> testCases = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                testCases.add(new TestCase("testcase" + i, new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                        reference.toURI(), new LocalTrack("seals", "1.0", new File("src/test/resources"))));
+            }
+            ExecutionResultSet results = executorSeals.run(testCases, new File("./src/test/resources/sealsCompliantDirectory"));
+            assertEquals(3, results.size());
+            for (ExecutionResult result : results) {
+                assertEquals("DemoMatcher", result.getMatcherName());
+                assertEquals(result.getReferenceAlignment().size(), result.getSystemAlignment().size());
+            }
+            // the copies of the matcher are removed after each run
+            File[] remaining = sealsHome.listFiles();
+            assertTrue(remaining == null || remaining.length == 0);
+        } finally {
+            FileUtils.deleteDirectory(tmp);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric;
+
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricCacheTest {
+
+    @Test
+    void computeOnlyOnce() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        Metric<Integer> metric = new Metric<Integer>() {
+            @Override
+            protected Integer compute(ExecutionResult executionResult) {
+                computations.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return executionResult.getSystemAlignment().size();
+            }
+        };
+        ExecutionResult result = new ExecutionResult(null, "Matcher", new Alignment(), new Alignment());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> metric.get(result)));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(0, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, computations.get());
+        assertEquals(1, metric.getCache().getMissCount());
+        assertEquals(15, metric.getCache().getHitCount());
+    }
+
+    @Test
+    void evictByWeight() {
+        MetricCache<Integer> cache = new MetricCache<>(10, value -> value, false);
+        ExecutionResult one = new ExecutionResult(null, "One", new Alignment(), new Alignment());
+        ExecutionResult two = new ExecutionResult(null, "Two", new Alignment(), new Alignment());
+        ExecutionResult three = new ExecutionResult(null, "Three", new Alignment(), new Alignment());
+
+        assertEquals(4, cache.get(one, r -> 4));
+        assertEquals(4, cache.get(two, r -> 4));
+        assertEquals(4, cache.get(one, r -> 100)); // hit - one is now the most recently used
+        assertEquals(8, cache.getTotalWeight());
+
+        assertEquals(4, cache.get(three, r -> 4)); // evicts two (least recently used)
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.getTotalWeight());
+        assertEquals(1, cache.getEvictionCount());
+
+        assertEquals(4, cache.get(one, r -> 100));
+        assertEquals(5, cache.get(two, r -> 5)); // recomputed
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    void failedComputationIsNotCached() {
+        MetricCache<Integer> cache = new MetricCache<>();
+        ExecutionResult result = new ExecutionResult(null, "Matcher", new Alignment(), new Alignment());
+        assertThrows(IllegalStateException.class, () -> cache.get(result, r -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.get(result, r -> 3));
+    }
+}
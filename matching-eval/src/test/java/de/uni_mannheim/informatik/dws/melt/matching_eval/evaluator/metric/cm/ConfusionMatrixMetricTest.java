@@ -3,12 +3,16 @@ package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultSet;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.Executor;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.CorrespondenceRelation;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TrackRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledOnOs;
 
+import java.io.File;
 import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,6 +90,43 @@ class ConfusionMatrixMetricTest {
         assertEquals(f1, confusionMatrix.getF1measure());
     }
 
+    @Test
+    void computeWithUnknownRelation() throws Exception {
+        ConfusionMatrixMetric metric = new ConfusionMatrixMetric();
+
+        Alignment referenceAlignment = new Alignment();
+        referenceAlignment.add("http://www.example.com/entity_1", "http://www.loremIpsum.com/entity_a");
+        referenceAlignment.add("http://www.example.com/entity_2", "http://www.loremIpsum.com/entity_b"); // fn
+        referenceAlignment.add("http://www.example.com/entity_3", "http://www.loremIpsum.com/entity_c", CorrespondenceRelation.UNKNOWN);
+
+        Alignment systemAlignment = new Alignment();
+        systemAlignment.add("http://www.example.com/entity_1", "http://www.loremIpsum.com/entity_a", 0.8); // tp
+        systemAlignment.add("http://www.example.com/entity_3", "http://www.loremIpsum.com/entity_c"); // ignored
+        systemAlignment.add("http://www.example.com/entity_3", "http://www.loremIpsum.com/entity_c", CorrespondenceRelation.SUBSUMED); // ignored
+        systemAlignment.add("http://www.example.com/entity_4", "http://www.loremIpsum.com/entity_d"); // fp
+
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(), 
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("confusion", "1.0", new File("src/test/resources")));
+        ConfusionMatrix confusionMatrix = metric.compute(new ExecutionResult(testCase, "myTestMatcher", systemAlignment, referenceAlignment));
+
+        assertEquals(1, confusionMatrix.getTruePositiveSize());
+        assertEquals(1, confusionMatrix.getFalsePositiveSize());
+        assertEquals(1, confusionMatrix.getFalseNegativeSize());
+        assertEquals(4, confusionMatrix.getNumberOfCorrespondences());
+        assertEquals(0.5, confusionMatrix.getPrecision());
+        assertEquals(0.5, confusionMatrix.getRecall());
+
+        assertEquals(0.8, confusionMatrix.getTruePositive().getCorrespondence("http://www.example.com/entity_1", "http://www.loremIpsum.com/entity_a", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+        assertTrue(confusionMatrix.getFalsePositive().contains(new Correspondence("http://www.example.com/entity_4", "http://www.loremIpsum.com/entity_d")));
+        assertEquals(0.0, confusionMatrix.getFalseNegative().iterator().next().getConfidence());
+        assertEquals(1, confusionMatrix.getFalseNegativeSize());
+        
+        ConfusionMatrix empty = confusionMatrix.subtract(confusionMatrix);
+        assertEquals(0, empty.getTruePositiveSize());
+        assertEquals(0, empty.getFalsePositiveSize());
+        assertEquals(0, empty.getFalseNegativeSize());
+    }
+
     @Test
     //@EnabledOnOs({ MAC })
     void getMicroAverages() throws Exception {
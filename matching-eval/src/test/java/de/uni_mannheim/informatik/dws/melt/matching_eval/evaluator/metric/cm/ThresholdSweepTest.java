@@ -0,0 +1,59 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm;
+
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning.ConfidenceFinder;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.refinement.ConfidenceRefiner;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThresholdSweepTest {
+
+    @Test
+    void sameAsCutAlignment() {
+        Alignment referenceAlignment = new Alignment();
+        for (int i = 0; i < 10; i++) {
+            referenceAlignment.add("http://www.example.com/entity_" + i, "http://www.loremIpsum.com/entity_" + i);
+        }
+        Alignment systemAlignment = new Alignment();
+        for (int i = 0; i < 8; i++) {
+            systemAlignment.add("http://www.example.com/entity_" + i, "http://www.loremIpsum.com/entity_" + i, 0.3 + i * 0.1); // tp
+        }
+        for (int i = 0; i < 5; i++) {
+            systemAlignment.add("http://www.example.com/entity_" + i, "http://www.loremIpsum.com/other_" + i, 0.2 + i * 0.15); // fp
+        }
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("sweep", "1.0", new File("src/test/resources")));
+        ExecutionResult executionResult = new ExecutionResult(testCase, "myTestMatcher", systemAlignment, referenceAlignment);
+
+        ConfusionMatrixMetric metric = new ConfusionMatrixMetric();
+        ThresholdSweep sweep = new ThresholdSweep(metric.compute(executionResult));
+        assertEquals(systemAlignment.getDistinctConfidencesAsSet().size(), sweep.size());
+        for (int i = 0; i < sweep.size(); i++) {
+            ConfusionMatrix cut = metric.compute(new ConfidenceRefiner(sweep.getThreshold(i)).refine(executionResult));
+            assertEquals(cut.getTruePositiveSize(), sweep.getTruePositiveSize(i));
+            assertEquals(cut.getFalsePositiveSize(), sweep.getFalsePositiveSize(i));
+            assertEquals(cut.getFalseNegativeSize(), sweep.getFalseNegativeSize(i));
+            assertEquals(cut.getF1measure(), sweep.getF1measure(i), 0.000001);
+        }
+
+        ThresholdSweep given = new ThresholdSweep(metric.compute(executionResult), Arrays.asList(0.0, 0.55, 2.0));
+        assertEquals(3, given.size());
+        assertEquals(8, given.getTruePositiveSize(0));
+        assertEquals(5, given.getFalsePositiveSize(0));
+        assertEquals(2, given.getFalseNegativeSize(0));
+        assertEquals(5, given.getTruePositiveSize(1));
+        assertEquals(2, given.getFalsePositiveSize(1));
+        assertEquals(5, given.getFalseNegativeSize(1));
+        assertEquals(0, given.getTruePositiveSize(2));
+        assertEquals(0.0, given.getRecall(2));
+
+        // best threshold: all true positives and four false positives (F1 of 0.727)
+        assertEquals(0.3, ConfidenceFinder.getBestConfidenceForFmeasure(executionResult), 0.000001);
+    }
+}
@@ -1,13 +1,19 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
 
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class ConfidenceFinderTest {
     
     @Test
@@ -32,4 +38,30 @@ public class ConfidenceFinderTest {
         //assertSame(confs, new HashSet<>(Arrays.asList(0.0, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0)));
         //TODO: make assertion
     }
+    
+    @Test
+    public void checkGetBestConfidenceForFmeasure(){
+        Alignment reference = new Alignment();
+        for(int i = 0; i < 4; i++){
+            reference.add("http://one.com/" + i, "http://two.com/" + i);
+        }
+        Alignment system = new Alignment();
+        double[] truePositives = {0.9, 0.8, 0.6, 0.4};
+        for(int i = 0; i < truePositives.length; i++){
+            system.add("http://one.com/" + i, "http://two.com/" + i, truePositives[i]);
+        }
+        double[] falsePositives = {0.85, 0.5, 0.3, 0.2};
+        for(int i = 0; i < falsePositives.length; i++){
+            system.add("http://one.com/" + i, "http://two.com/wrong" + i, falsePositives[i]);
+        }
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("confidence", "1.0", new File("src/test/resources")));
+        
+        //threshold 0.4 keeps all four true positives and two false positives (F1 of 0.8),
+        //all other thresholds are worse (e.g. 0.3 yields 0.727 and 0.6 yields 0.75)
+        assertEquals(0.4, ConfidenceFinder.getBestConfidenceForFmeasure(new ExecutionResult(testCase, "matcher", system, reference)), 0.000001);
+        
+        //no correspondences at all
+        assertEquals(1.0, ConfidenceFinder.getBestConfidenceForFmeasure(new ExecutionResult(testCase, "matcher", new Alignment(), reference)), 0.000001);
+    }
 }
@@ -1,11 +1,29 @@
 package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
 
 import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResultSet;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
 import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TrackRepository;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherPipelineYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.AlignmentParser;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
 
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.ontology.OntModel;
+import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class GridSearchTest {
     
@@ -30,5 +48,181 @@ public class GridSearchTest {
     void simpleGridSearch() throws Exception{        
         
     }
+
+    @Test
+    void memoizePipelineStages() {
+        TestCase tc = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("memo", "1.0", new File("src/test/resources")));
+        
+        ExpensiveStage.COUNTER.set(0);
+        ExecutionResultSet r = new GridSearch(TwoStagePipeline.class)
+                .addParameter("matchers[1].threshold", 0.2, 0.5, 0.7, 1.0)
+                .setMemoizePipelineStages(true)
+                .runGridParallel(tc, 4);
+        assertEquals(4, r.size());
+        assertEquals(1, ExpensiveStage.COUNTER.get()); // first stage is shared by all configurations
+        assertEquals(4, r.get(tc, "TwoStagePipeline (matchers[1].threshold=0.2)").getSystemAlignment().size());
+        assertEquals(3, r.get(tc, "TwoStagePipeline (matchers[1].threshold=0.5)").getSystemAlignment().size());
+        assertEquals(2, r.get(tc, "TwoStagePipeline (matchers[1].threshold=0.7)").getSystemAlignment().size());
+        assertEquals(0, r.get(tc, "TwoStagePipeline (matchers[1].threshold=1.0)").getSystemAlignment().size());
+        
+        // without memoization, each configuration runs all stages
+        ExpensiveStage.COUNTER.set(0);
+        new GridSearch(TwoStagePipeline.class)
+                .addParameter("matchers[1].threshold", 0.2, 0.5)
+                .runGridSequential(tc);
+        assertEquals(2, ExpensiveStage.COUNTER.get());
+    }
+    
+    public static class TwoStagePipeline extends MatcherPipelineYAAAJena {
+        @Override
+        protected List<MatcherYAAAJena> initializeMatchers() {
+            return Arrays.asList(new ExpensiveStage(), new ThresholdStage());
+        }
+    }
+    
+    public static class ExpensiveStage extends MatcherYAAAJena {
+        static final AtomicInteger COUNTER = new AtomicInteger();
+        
+        @Override
+        public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+            COUNTER.incrementAndGet();
+            Alignment alignment = new Alignment();
+            alignment.add("http://one/a", "http://two/a", 0.3);
+            alignment.add("http://one/b", "http://two/b", 0.6);
+            alignment.add("http://one/c", "http://two/c", 0.8);
+            alignment.add("http://one/d", "http://two/d", 0.9);
+            return alignment;
+        }
+    }
+    
+    public static class ThresholdStage extends MatcherYAAAJena {
+        private double threshold;
+        
+        @Override
+        public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+            // modifies the input alignment to check that the memoized alignment is not changed
+            inputAlignment.removeIf(c -> c.getConfidence() < threshold);
+            return inputAlignment;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(double threshold) {
+            this.threshold = threshold;
+        }
+    }
+    
+    @Test
+    void successiveHalving() {
+        List<TestCase> testCases = getLocalTestCases(4);
+        QualityMatcher.COUNTER.set(0);
+        ExecutionResultSet r = new GridSearch(QualityMatcher.class)
+                .addParameter("quality", 0, 1, 2, 3, 4, 5, 6, 7, 8)
+                .runSuccessiveHalving(testCases, 3, 2);
+        // 9 configurations on one test case, 3 on two and the best one on all four
+        assertEquals(9 + 3 + 2, QualityMatcher.COUNTER.get());
+        assertEquals(14, r.size());
+        assertEquals(4, r.getGroup("QualityMatcher (quality=8)").size());
+        assertEquals(2, r.getGroup("QualityMatcher (quality=7)").size());
+        assertEquals(1, r.getGroup("QualityMatcher (quality=0)").size());
+    }
+    
+    @Test
+    void hyperbandAndRandomSearch() {
+        List<TestCase> testCases = getLocalTestCases(4);
+        QualityMatcher.COUNTER.set(0);
+        ExecutionResultSet hyperband = new GridSearch(QualityMatcher.class)
+                .addParameter("quality", 0, 1, 2, 3, 4, 5, 6, 7, 8)
+                .runHyperband(testCases, 3, 42, 2);
+        assertEquals(hyperband.size(), QualityMatcher.COUNTER.get()); // each configuration is run at most once per test case
+        assertTrue(hyperband.size() < 36);
+        
+        QualityMatcher.COUNTER.set(0);
+        ExecutionResultSet random = new GridSearch(QualityMatcher.class)
+                .addParameter("quality", 0, 1, 2, 3, 4, 5, 6, 7, 8)
+                .runRandomSearch(testCases, Long.MAX_VALUE, 42, 2);
+        assertEquals(random.size(), QualityMatcher.COUNTER.get());
+        assertTrue(random.size() < 36);
+        assertEquals(4, random.getGroup("QualityMatcher (quality=8)").size()); // the best configuration is never stopped
+        
+        assertEquals(0, new GridSearch(QualityMatcher.class)
+                .addParameter("quality", 0, 1, 2, 3, 4, 5, 6, 7, 8)
+                .runRandomSearch(testCases, -1, 42, 2).size());
+    }
     
+    @Test
+    void randomSearchChecksBudgetWithinConfiguration() {
+        List<TestCase> testCases = getLocalTestCases(4);
+        SlowMatcher.COUNTER.set(0);
+        ExecutionResultSet random = new GridSearch(SlowMatcher.class)
+                .addParameter("quality", 1, 2, 3)
+                .runRandomSearch(testCases, 10, 42, 1);
+        // the first prefix of the first configuration already exceeds the budget
+        assertEquals(1, SlowMatcher.COUNTER.get());
+        assertEquals(1, random.size());
+        
+        assertThrows(IllegalArgumentException.class, () -> new GridSearch(QualityMatcher.class)
+                .addParameter("quality", 0, 1)
+                .runRandomSearch(new ArrayList<>(), Long.MAX_VALUE, 42, 2));
+        assertThrows(IllegalArgumentException.class, () -> new GridSearch(QualityMatcher.class)
+                .addParameter("quality", 0, 1)
+                .runSuccessiveHalving(new ArrayList<>(), 2, 2));
+    }
+    
+    public static class SlowMatcher extends MatcherYAAA {
+        static final AtomicInteger COUNTER = new AtomicInteger();
+        private int quality;
+        
+        @Override
+        public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+            COUNTER.incrementAndGet();
+            Thread.sleep(100);
+            return new Alignment();
+        }
+
+        public int getQuality() {
+            return quality;
+        }
+
+        public void setQuality(int quality) {
+            this.quality = quality;
+        }
+    }
+    
+    private static List<TestCase> getLocalTestCases(int numberOfTestCases){
+        LocalTrack track = new LocalTrack("budget", "1.0", new File("src/test/resources"));
+        List<TestCase> testCases = new ArrayList<>();
+        for(int i = 0; i < numberOfTestCases; i++){
+            testCases.add(new TestCase("cmt-conference-" + i, new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), track));
+        }
+        return testCases;
+    }
+    
+    /**
+     * Returns the first n correspondences of the reference alignment (n = quality).
+     */
+    public static class QualityMatcher extends MatcherYAAA {
+        static final AtomicInteger COUNTER = new AtomicInteger();
+        private int quality;
+        
+        @Override
+        public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+            COUNTER.incrementAndGet();
+            List<Correspondence> reference = new ArrayList<>(AlignmentParser.parse(new File("src/test/resources/cmt-conference.rdf")));
+            reference.sort(Comparator.comparing(Correspondence::getEntityOne).thenComparing(Correspondence::getEntityTwo));
+            return new Alignment(reference.subList(0, Math.min(quality, reference.size())));
+        }
+
+        public int getQuality() {
+            return quality;
+        }
+
+        public void setQuality(int quality) {
+            this.quality = quality;
+        }
+    }
 }
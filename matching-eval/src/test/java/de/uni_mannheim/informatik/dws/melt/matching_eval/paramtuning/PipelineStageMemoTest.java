@@ -0,0 +1,69 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.paramtuning;
+
+import de.uni_mannheim.informatik.dws.melt.matching_base.PipelineInstrumentation;
+import de.uni_mannheim.informatik.dws.melt.matching_yaaa.MatcherYAAA;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageMemoTest {
+
+    @Test
+    void inputAlignmentAndPropertiesArePartOfTheKey() throws Exception {
+        PipelineStageMemo memo = new PipelineStageMemo();
+        CountingStage counting = new CountingStage();
+        MemoizedStageYAAA stage = new MemoizedStageYAAA(counting, memo, "prefix");
+        URL source = new URL("file:/source.rdf");
+        URL target = new URL("file:/target.rdf");
+
+        Alignment first = new Alignment();
+        first.add("http://one/a", "http://two/a");
+        first.add("http://one/b", "http://two/b");
+        Alignment sameContent = new Alignment();
+        sameContent.add("http://one/b", "http://two/b");
+        sameContent.add("http://one/a", "http://two/a");
+        Alignment other = new Alignment();
+        other.add("http://one/a", "http://two/c");
+
+        stage.match(source, target, first, new Properties());
+        stage.match(source, target, sameContent, new Properties());
+        assertEquals(1, counting.counter.get());
+        stage.match(source, target, other, new Properties());
+        assertEquals(2, counting.counter.get());
+        Properties properties = new Properties();
+        properties.setProperty("parameter", "value");
+        stage.match(source, target, first, properties);
+        assertEquals(3, counting.counter.get());
+        assertEquals(1, memo.getHitCount());
+        assertEquals(3, memo.getMissCount());
+
+        assertEquals("CountingStage", PipelineInstrumentation.getStageName(stage));
+    }
+
+    @Test
+    void onlyTheMemoizedAlignmentIsCopied() throws Exception {
+        PipelineStageMemo memo = new PipelineStageMemo();
+        Alignment computed = new Alignment();
+        computed.add("http://one/a", "http://two/a", 0.5);
+        assertSame(computed, memo.get("key", () -> computed));
+        computed.clear(); // the caller may modify its alignment
+
+        Alignment reused = memo.get("key", () -> fail("is memoized"));
+        assertNotSame(computed, reused);
+        assertEquals(1, reused.size());
+    }
+
+    static class CountingStage extends MatcherYAAA {
+        final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
+            counter.incrementAndGet();
+            return new Alignment(inputAlignment);
+        }
+    }
+}
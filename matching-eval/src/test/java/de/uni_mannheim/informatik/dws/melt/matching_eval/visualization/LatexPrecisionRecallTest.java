@@ -0,0 +1,37 @@
+package de.uni_mannheim.informatik.dws.melt.matching_eval.visualization;
+
+import de.uni_mannheim.informatik.dws.melt.matching_eval.ExecutionResult;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrix;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ConfusionMatrixMetric;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.evaluator.metric.cm.ThresholdSweep;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.LocalTrack;
+import de.uni_mannheim.informatik.dws.melt.matching_eval.tracks.TestCase;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatexPrecisionRecallTest {
+
+    @Test
+    void writeCurve() {
+        Alignment reference = new Alignment();
+        reference.add("http://one.com/a", "http://two.com/a");
+        Alignment system = new Alignment();
+        system.add("http://one.com/a", "http://two.com/a", 0.9);
+        system.add("http://one.com/a", "http://two.com/b", 0.3);
+        TestCase testCase = new TestCase("cmt-conference", new File("src/test/resources/cmt.owl").toURI(), new File("src/test/resources/conference.owl").toURI(),
+                    new File("src/test/resources/cmt-conference.rdf").toURI(), new LocalTrack("latex", "1.0", new File("src/test/resources")));
+        ConfusionMatrix matrix = new ConfusionMatrixMetric().compute(new ExecutionResult(testCase, "matcher", system, reference));
+
+        // threshold 0.0: precision 0.5 and recall 1.0, threshold 0.5: precision and recall 1.0
+        String curve = LatexPrecisionRecall.writeCurve("matcher", new ThresholdSweep(matrix, Arrays.asList(0.0, 0.5)));
+        assertTrue(curve.startsWith("\\draw[thin] plot[mark=*,mark size=0.5pt] coordinates { (1.25, 4.84) (5.00, 8.66) };"), curve);
+        assertTrue(curve.endsWith("node[anchor=south west] {matcher};"), curve);
+
+        assertEquals("", LatexPrecisionRecall.writeCurve("matcher", new ThresholdSweep(matrix, Collections.emptyList())));
+    }
+}
@@ -2,12 +2,15 @@ package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel;
 
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntResource;
-import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDFS;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -91,10 +94,9 @@ public class BaselineStringMatcher extends MatcherYAAAJena {
         if (resource.isAnon()) {
             return null;
         }
-        ExtendedIterator<RDFNode> iterator = resource.listLabels(null);
-        while (iterator.hasNext()) {
-            RDFNode node = iterator.next();
-            return node.asLiteral().toString();
+        List<Literal> labels = TextIndex.get(resource.getModel()).getLiterals(resource.getURI(), RDFS.label);
+        if (!labels.isEmpty()) {
+            return labels.get(0).toString();
         }
         // no label found: return local name
         return resource.getLocalName();
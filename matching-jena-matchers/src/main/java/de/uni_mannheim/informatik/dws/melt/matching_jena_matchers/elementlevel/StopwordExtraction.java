@@ -3,6 +3,7 @@ package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel;
 import de.uni_mannheim.informatik.dws.melt.matching_base.DataStore;
 import de.uni_mannheim.informatik.dws.melt.matching_base.OaeiOptions;
 import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex;
 import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel.scale.PropertySpecificStringProcessing;
 import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel.scale.ValueExtractor;
 import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel.scale.ValueExtractorProperty;
@@ -113,6 +114,14 @@ public class StopwordExtraction extends MatcherYAAAJena {
     
     @Override
     public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+        //extract the literal tables of all properties once (in parallel) - the property extractors read from the shared index
+        List<Property> extractorProperties = new ArrayList<>();
+        for(ValueExtractor extractor : this.valueExtractors){
+            if(extractor instanceof ValueExtractorProperty)
+                extractorProperties.add(((ValueExtractorProperty) extractor).getProperty());
+        }
+        TextIndex.get(source).prepare(extractorProperties);
+        TextIndex.get(target).prepare(extractorProperties);
         if(OaeiOptions.isMatchingClassesRequired()){
             storeExtractedStopwords(source.listClasses(), "stopwords_source_classes");
             storeExtractedStopwords(target.listClasses(), "stopwords_target_classes");
@@ -2,14 +2,12 @@ package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel;
 
 import de.uni_mannheim.informatik.dws.melt.matching_base.OaeiOptions;
 import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntResource;
 import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.RDFS;
 
@@ -46,6 +44,8 @@ public class StringMatcher extends MatcherYAAAJena {
 
     @Override
     public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+        TextIndex.get(source).prepare(this.properties);
+        TextIndex.get(target).prepare(this.properties);
         if(OaeiOptions.isMatchingClassesRequired())
             matchResources(source.listClasses(), target.listClasses(), inputAlignment);
         if(OaeiOptions.isMatchingDataPropertiesRequired() || OaeiOptions.isMatchingObjectPropertiesRequired())
@@ -83,21 +83,9 @@ public class StringMatcher extends MatcherYAAAJena {
     }
 
     protected Set<String> getStringRepresentations(Resource r){
-        Set<String> values = new HashSet<>();
         if(r.isURIResource() == false)
-            return values;
-        for(Property p : properties){
-            StmtIterator i = r.listProperties(p);
-            while(i.hasNext()){
-                RDFNode n = i.next().getObject();
-                if(n.isLiteral()){
-                    String processed =  this.transformationFunction.apply(n.asLiteral().getLexicalForm());
-                    if(StringUtils.isBlank(processed) == false)
-                        values.add(processed);
-                }
-            }
-        }
-        return values;
+            return new HashSet<>();
+        return TextIndex.get(r.getModel()).getValues(r.getURI(), properties, this.transformationFunction);
     }
 
     public Function<String, String> getTransformationFunction() {
@@ -5,6 +5,7 @@ import com.github.liblevenshtein.transducer.ITransducer;
 import com.github.liblevenshtein.transducer.factory.TransducerBuilder;
 import de.uni_mannheim.informatik.dws.melt.matching_base.OaeiOptions;
 import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -15,9 +16,16 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.model.InfModel;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +57,11 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
     protected boolean matchInstances = true;    
     protected boolean earlyStopping = true;
     
+    /**
+     * The number of threads used for matching. If it is greater than one, the resources are processed in parallel.
+     */
+    protected int numberOfThreads = 1;
+    
     /**
      * A list of fucntions which gets an ontModel and returns an iterator over elements which should be matched like classes, instances, proeprties etc.
      */
@@ -70,6 +83,13 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
     
     @Override
     public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+        List<Property> extractorProperties = new ArrayList<>();
+        for(ValueExtractor extractor : this.usedValueExtractors){
+            if(extractor instanceof ValueExtractorProperty)
+                extractorProperties.add(((ValueExtractorProperty) extractor).getProperty());
+        }
+        TextIndex.get(source).prepare(extractorProperties);
+        TextIndex.get(target).prepare(extractorProperties);
         if(OaeiOptions.isMatchingClassesRequired() && matchClasses){
             LOGGER.debug("Match classes");
             matchResources(source.listClasses(), target.listClasses(), inputAlignment);  
@@ -91,74 +111,168 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
     
     
     public void matchResources(Iterator<? extends Resource> sourceResources, Iterator<? extends Resource> targetResources, Alignment alignment) {
+        if(this.numberOfThreads > 1){
+            matchResourcesParallel(sourceResources, targetResources, alignment);
+            return;
+        }
         //processing -> tokens/ids -> (list of resources)
         Map<PropertySpecificStringProcessing, Map<Object, Set<String>>> index = new HashMap<>();
         
-
         //source
         while (sourceResources.hasNext()) {
-            Resource source = sourceResources.next();
-            if(source.isURIResource() == false)
-                continue;
-            String sourceURI = source.getURI();            
-            Map<ValueExtractor, Set<String>> valueMap = extractAllValues(source);
-            for(PropertySpecificStringProcessing processing : this.processingElements){
-                Map<Object, Set<String>> tokenIndex = index.computeIfAbsent(processing, k->new HashMap<>());
-                for(String sourceLabels : getLiterals(processing, valueMap)){
-                    if(StringUtils.isBlank(sourceLabels))
-                        continue;
-                    Object o = processing.getProcessing().apply(sourceLabels);
-                    if(isObjectEmpty(o))
-                        continue;
-                    tokenIndex.computeIfAbsent(o, k-> new HashSet<>()).add(sourceURI);
-                }
-            }
+            indexResource(sourceResources.next(), index);
         }
         
         Map<PropertySpecificStringProcessing, ITransducer> levenshteinIndex = buildLevenshteinIndex(index);
         
         while (targetResources.hasNext()) {
-            Resource target = targetResources.next();
-            if(target.isURIResource() == false)
-                continue;
-            String targetURI = target.getURI();
+            matchResource(targetResources.next(), index, levenshteinIndex, alignment::addOrUseHighestConfidence);
+        }
+    }
+    
+    /**
+     * Parallel version of {@link #matchResources(Iterator, Iterator, Alignment)}.
+     * The source resources are partitioned and each worker builds its own token index which are merged for each processing in parallel.
+     * Afterwards the target resources are partitioned and each worker collects the candidates in its own buffer (on the shared read-only index).
+     * The buffers are added to the alignment at the end.
+     * @param sourceResources the source resources
+     * @param targetResources the target resources
+     * @param alignment the alignment to which the correspondences are added
+     */
+    private void matchResourcesParallel(Iterator<? extends Resource> sourceResources, Iterator<? extends Resource> targetResources, Alignment alignment) {
+        List<Resource> sources = toList(sourceResources);
+        List<Resource> targets = toList(targetResources);
+        List<PropertySpecificStringProcessing> processings = new ArrayList<>();
+        this.processingElements.forEach(processings::add);
+        
+        ForkJoinPool pool = new ForkJoinPool(this.numberOfThreads);
+        try {
+            //source
+            List<Map<PropertySpecificStringProcessing, Map<Object, Set<String>>>> localIndices = pool.submit(() -> 
+                partition(sources).parallelStream().map(chunk -> {
+                    Map<PropertySpecificStringProcessing, Map<Object, Set<String>>> localIndex = new HashMap<>();
+                    for(Resource source : chunk){
+                        indexResource(source, localIndex);
+                    }
+                    return localIndex;
+                }).collect(Collectors.toList())
+            ).get();
             
-            Map<ValueExtractor, Set<String>> valueMap = extractAllValues(target);
-            for(PropertySpecificStringProcessing processing : this.processingElements){
-                Map<Object, Set<String>> tokenIndex = index.get(processing);
-                if(tokenIndex == null)
+            Map<PropertySpecificStringProcessing, Map<Object, Set<String>>> index = new ConcurrentHashMap<>();
+            Map<PropertySpecificStringProcessing, ITransducer> levenshteinIndex = new ConcurrentHashMap<>();
+            pool.submit(() -> processings.parallelStream().forEach(processing -> {
+                Map<Object, Set<String>> tokenIndex = new HashMap<>();
+                for(Map<PropertySpecificStringProcessing, Map<Object, Set<String>>> localIndex : localIndices){
+                    for(Entry<Object, Set<String>> entry : localIndex.getOrDefault(processing, new HashMap<>()).entrySet()){
+                        tokenIndex.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+                    }
+                }
+                index.put(processing, tokenIndex);
+                if(processing.getMaxLevenshteinDistance() > 0){
+                    levenshteinIndex.put(processing, buildTransducer(processing, tokenIndex));
+                }
+            })).get();
+            
+            //target
+            List<List<Candidate>> candidates = pool.submit(() -> 
+                partition(targets).parallelStream().map(chunk -> {
+                    List<Candidate> localCandidates = new ArrayList<>();
+                    for(Resource target : chunk){
+                        matchResource(target, index, levenshteinIndex, (sourceURI, targetURI, confidence) -> 
+                                localCandidates.add(new Candidate(sourceURI, targetURI, confidence)));
+                    }
+                    return localCandidates;
+                }).collect(Collectors.toList())
+            ).get();
+            
+            for(List<Candidate> localCandidates : candidates){
+                for(Candidate candidate : localCandidates){
+                    alignment.addOrUseHighestConfidence(candidate.sourceURI, candidate.targetURI, candidate.confidence);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while matching resources in parallel.", ex);
+        } catch (ExecutionException ex) {
+            if(ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException("Could not match resources in parallel.", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Adds the processed values of the resource to the index.
+     * @param source the source resource
+     * @param index processing -&gt; tokens/ids -&gt; (list of resources)
+     */
+    private void indexResource(Resource source, Map<PropertySpecificStringProcessing, Map<Object, Set<String>>> index){
+        if(source.isURIResource() == false)
+            return;
+        String sourceURI = source.getURI();            
+        Map<ValueExtractor, Set<String>> valueMap = extractAllValues(source);
+        for(PropertySpecificStringProcessing processing : this.processingElements){
+            Map<Object, Set<String>> tokenIndex = index.computeIfAbsent(processing, k->new HashMap<>());
+            for(String sourceLabels : getLiterals(processing, valueMap)){
+                if(StringUtils.isBlank(sourceLabels))
                     continue;
-                boolean findMatch = false;
-                for(String targetLabel : getLiterals(processing, valueMap)){
-                    if(StringUtils.isBlank(targetLabel))
-                        continue;
-                    Object o = processing.getProcessing().apply(targetLabel);
-                    
-                    Set<Object> searchObjects = new HashSet<>();
-                    if(o == null)
+                Object o = processing.getProcessing().apply(sourceLabels);
+                if(isObjectEmpty(o))
+                    continue;
+                tokenIndex.computeIfAbsent(o, k-> new HashSet<>()).add(sourceURI);
+            }
+        }
+    }
+    
+    /**
+     * Looks up the processed values of the target resource in the index and reports all matching source resources.
+     * @param target the target resource
+     * @param index processing -&gt; tokens/ids -&gt; (list of resources)
+     * @param levenshteinIndex the transducer for each processing which allows a levenshtein distance
+     * @param consumer receives the found correspondences
+     */
+    private void matchResource(Resource target, Map<PropertySpecificStringProcessing, Map<Object, Set<String>>> index, 
+            Map<PropertySpecificStringProcessing, ITransducer> levenshteinIndex, CandidateConsumer consumer){
+        if(target.isURIResource() == false)
+            return;
+        String targetURI = target.getURI();
+
+        Map<ValueExtractor, Set<String>> valueMap = extractAllValues(target);
+        for(PropertySpecificStringProcessing processing : this.processingElements){
+            Map<Object, Set<String>> tokenIndex = index.get(processing);
+            if(tokenIndex == null)
+                continue;
+            boolean findMatch = false;
+            for(String targetLabel : getLiterals(processing, valueMap)){
+                if(StringUtils.isBlank(targetLabel))
+                    continue;
+                Object o = processing.getProcessing().apply(targetLabel);
+
+                Set<Object> searchObjects = new HashSet<>();
+                if(o == null)
+                    continue;
+                searchObjects.add(o);
+                if(o instanceof String){
+                    String oString = (String)o;
+                    if(StringUtils.isBlank(oString))
                         continue;
-                    searchObjects.add(o);
-                    if(o instanceof String){
-                        String oString = (String)o;
-                        if(StringUtils.isBlank(oString))
-                            continue;
-                        ITransducer transducer = levenshteinIndex.get(processing);
-                        if(transducer != null){
-                            for(Object s : transducer.transduce(oString)){
-                                searchObjects.add(s);
-                            }
+                    ITransducer transducer = levenshteinIndex.get(processing);
+                    if(transducer != null){
+                        for(Object s : transducer.transduce(oString)){
+                            searchObjects.add(s);
                         }
                     }
-                    for(Object object : searchObjects){
-                        for(String sourceURI : tokenIndex.getOrDefault(object, new HashSet<>())){
-                            findMatch = true;
-                            alignment.addOrUseHighestConfidence(sourceURI, targetURI, processing.getConfidence());
-                        }
+                }
+                for(Object object : searchObjects){
+                    for(String sourceURI : tokenIndex.getOrDefault(object, new HashSet<>())){
+                        findMatch = true;
+                        consumer.accept(sourceURI, targetURI, processing.getConfidence());
                     }
                 }
-                if(findMatch && earlyStopping)
-                    break;
             }
+            if(findMatch && earlyStopping)
+                break;
         }
     }
     
@@ -173,28 +287,52 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
         
         Map<PropertySpecificStringProcessing, ITransducer> levenshteinIndex = new HashMap<>();
         for(PropertySpecificStringProcessing processsing : levenshteinProcessings){
-            List<String> texts = new ArrayList<>();
-            int minLength = processsing.getMinLengthForLevenshtein();
-            for(Object o : index.get(processsing).keySet()){
-                if(o instanceof String){
-                    String text = (String)o;
-                    if(text.length() > minLength){
-                        texts.add(text);
-                    }
+            levenshteinIndex.put(processsing, buildTransducer(processsing, index.getOrDefault(processsing, new HashMap<>())));
+        }
+        return levenshteinIndex;
+    }
+    
+    private static ITransducer buildTransducer(PropertySpecificStringProcessing processsing, Map<Object, Set<String>> tokenIndex){
+        List<String> texts = new ArrayList<>();
+        int minLength = processsing.getMinLengthForLevenshtein();
+        for(Object o : tokenIndex.keySet()){
+            if(o instanceof String){
+                String text = (String)o;
+                if(text.length() > minLength){
+                    texts.add(text);
                 }
             }
-            ITransducer transducer = new TransducerBuilder()
-                .dictionary(texts)
-                .isSorted(false)
-                .algorithm(Algorithm.TRANSPOSITION)
-                .defaultMaxDistance(processsing.getMaxLevenshteinDistance())
-                .includeDistance(false)
-                .build();
-            levenshteinIndex.put(processsing, transducer);
         }
-        return levenshteinIndex;
+        return new TransducerBuilder()
+            .dictionary(texts)
+            .isSorted(false)
+            .algorithm(Algorithm.TRANSPOSITION)
+            .defaultMaxDistance(processsing.getMaxLevenshteinDistance())
+            .includeDistance(false)
+            .build();
     }
     
+    private static List<Resource> toList(Iterator<? extends Resource> resources){
+        List<Resource> list = new ArrayList<>();
+        while (resources.hasNext()) {
+            list.add(resources.next());
+        }
+        return list;
+    }
+    
+    /**
+     * Splits the resources in chunks such that each thread gets multiple chunks (for load balancing).
+     * @param resources the resources
+     * @return the chunks
+     */
+    private List<List<Resource>> partition(List<Resource> resources){
+        int chunkSize = Math.max(1, (int) Math.ceil(resources.size() / (double) (this.numberOfThreads * 8)));
+        List<List<Resource>> chunks = new ArrayList<>();
+        for(int i = 0; i < resources.size(); i += chunkSize){
+            chunks.add(resources.subList(i, Math.min(resources.size(), i + chunkSize)));
+        }
+        return chunks;
+    }
     
     protected Set<String> getLiterals(PropertySpecificStringProcessing processing, Map<ValueExtractor, Set<String>> valueMap){
         Set<String> values = new HashSet<>();
@@ -205,6 +343,16 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
     }
     
     protected Map<ValueExtractor,Set<String>> extractAllValues(Resource r){
+        if(this.numberOfThreads > 1 && hasReasoner(r.getModel())){
+            //models with a reasoner can not be read concurrently
+            synchronized(r.getModel()){
+                return extractAllValuesFromModel(r);
+            }
+        }
+        return extractAllValuesFromModel(r);
+    }
+    
+    private Map<ValueExtractor,Set<String>> extractAllValuesFromModel(Resource r){
         Map<ValueExtractor, Set<String>> literals = new HashMap<>();
         for(ValueExtractor p : this.usedValueExtractors){
             literals.put(p, p.extract(r));
@@ -212,6 +360,10 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
         return literals;
     }
     
+    private static boolean hasReasoner(Model model){
+        return model instanceof InfModel && ((InfModel) model).getReasoner() != null;
+    }
+    
         
     protected boolean isObjectEmpty(Object o){
         if(o == null)
@@ -254,6 +406,20 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
     public void setEarlyStopping(boolean earlyStopping) {
         this.earlyStopping = earlyStopping;
     }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Sets the number of threads. With more than one thread, the source and target resources are processed in parallel.
+     * The processing functions and value extractors need to be thread-safe in this case.
+     * Value extraction from models with a reasoner is synchronized, because they can not be read concurrently.
+     * @param numberOfThreads the number of threads (1 for sequential matching)
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
     /**
      * Adds a function which gets an ontModel and returns an iterator over elements which should be matched like classes, instances, properties etc.
      * @param f a function which gets an ontModel and returns an iterator over elements which should be matched
@@ -261,4 +427,27 @@ public class ScalableStringProcessingMatcher extends MatcherYAAAJena{
     public void addMatchType(Function<OntModel, Iterator<? extends Resource>> f){
         this.matchableResourceIterators.add(f);
     }
+    
+    /**
+     * Receives the correspondences found for a target resource.
+     */
+    @FunctionalInterface
+    private interface CandidateConsumer {
+        void accept(String sourceURI, String targetURI, double confidence);
+    }
+    
+    /**
+     * A correspondence found by a worker in the parallel mode.
+     */
+    private static class Candidate {
+        private final String sourceURI;
+        private final String targetURI;
+        private final double confidence;
+
+        Candidate(String sourceURI, String targetURI, double confidence) {
+            this.sourceURI = sourceURI;
+            this.targetURI = targetURI;
+            this.confidence = confidence;
+        }
+    }
 }
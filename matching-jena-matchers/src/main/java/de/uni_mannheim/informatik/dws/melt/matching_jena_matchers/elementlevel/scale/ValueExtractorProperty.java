@@ -1,6 +1,7 @@
 
 package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.elementlevel.scale;
 
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -8,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
@@ -27,6 +29,15 @@ public class ValueExtractorProperty implements ValueExtractor{
     @Override
     public Set<String> extract(Resource r) {
         Set<String> values = new HashSet();
+        if(r.isURIResource() && r.getModel() != null){
+            //use the shared index of the model instead of iterating over the statements of the resource
+            for(Literal literal : TextIndex.get(r.getModel()).getLiterals(r.getURI(), this.property)){
+                String text = literal.getLexicalForm().trim();
+                if(!text.isEmpty())
+                    values.add(text);
+            }
+            return values;
+        }
         StmtIterator i = r.listProperties(this.property);
         while(i.hasNext()){
             RDFNode n = i.next().getObject();
@@ -0,0 +1,159 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.extraction;
+
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.CorrespondenceRelation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper class for {@link MaxWeightBipartiteExtractor} and {@link SparseAssignmentExtractor}.
+ * A connected component of the bipartite graph which is given by the equivalence correspondences of an alignment.
+ */
+class BipartiteComponent {
+    /**
+     * The correspondences (edges) of the component.
+     */
+    private final List<Correspondence> correspondences;
+    /**
+     * Number of distinct sources in this component.
+     */
+    private int sources;
+    /**
+     * Number of distinct targets in this component.
+     */
+    private int targets;
+
+    private BipartiteComponent() {
+        this.correspondences = new ArrayList<>();
+        this.sources = 0;
+        this.targets = 0;
+    }
+
+    /**
+     * Splits the bipartite graph (given by the equivalence correspondences) into connected components with a union-find structure.
+     * @param alignment the alignment
+     * @return the connected components sorted by the number of correspondences (largest first)
+     */
+    public static List<BipartiteComponent> of(Alignment alignment){
+        List<Correspondence> correspondences = new ArrayList<>();
+        for(Correspondence c : alignment.getCorrespondencesRelation(CorrespondenceRelation.EQUIVALENCE)){
+            correspondences.add(c);
+        }
+        Map<String, Integer> sourceIds = new HashMap<>();
+        Map<String, Integer> targetIds = new HashMap<>();
+        int[] sourceOfCorrespondence = new int[correspondences.size()];
+        int[] targetOfCorrespondence = new int[correspondences.size()];
+        for(int i = 0; i < correspondences.size(); i++){
+            Correspondence c = correspondences.get(i);
+            sourceOfCorrespondence[i] = sourceIds.computeIfAbsent(c.getEntityOne(), __ -> sourceIds.size());
+            targetOfCorrespondence[i] = targetIds.computeIfAbsent(c.getEntityTwo(), __ -> targetIds.size());
+        }
+        
+        //nodes 0..(sources-1) are the sources and the following ones the targets
+        int numberOfSources = sourceIds.size();
+        UnionFind unionFind = new UnionFind(numberOfSources + targetIds.size());
+        for(int i = 0; i < correspondences.size(); i++){
+            unionFind.union(sourceOfCorrespondence[i], numberOfSources + targetOfCorrespondence[i]);
+        }
+        
+        Map<Integer, BipartiteComponent> components = new HashMap<>();
+        for(int i = 0; i < correspondences.size(); i++){
+            BipartiteComponent component = components.computeIfAbsent(unionFind.find(sourceOfCorrespondence[i]), __ -> new BipartiteComponent());
+            component.correspondences.add(correspondences.get(i));
+        }
+        for(int i = 0; i < numberOfSources; i++){
+            components.get(unionFind.find(i)).sources++;
+        }
+        for(int i = numberOfSources; i < unionFind.size(); i++){
+            components.get(unionFind.find(i)).targets++;
+        }
+        
+        List<BipartiteComponent> sorted = new ArrayList<>(components.values());
+        sorted.sort((one, two) -> Integer.compare(two.correspondences.size(), one.correspondences.size()));
+        return sorted;
+    }
+    
+    /**
+     * Returns true if one side of the component consists of only one entity.
+     * In this case the best one to one alignment consists only of the best correspondence.
+     * @return true if one side of the component consists of only one entity
+     */
+    public boolean isStar(){
+        return sources == 1 || targets == 1;
+    }
+    
+    /**
+     * Returns the correspondence with the highest confidence (only if the confidence is greater than zero).
+     * @return the best correspondence or null if no correspondence has a positive confidence
+     */
+    public Correspondence getBestCorrespondence(){
+        Correspondence best = null;
+        for(Correspondence c : correspondences){
+            if(c.getConfidence() > 0 && (best == null || c.getConfidence() > best.getConfidence()))
+                best = c;
+        }
+        return best;
+    }
+
+    public List<Correspondence> getCorrespondences() {
+        return correspondences;
+    }
+
+    public int getSources() {
+        return sources;
+    }
+
+    public int getTargets() {
+        return targets;
+    }
+    
+    /**
+     * Union-find (disjoint set) structure with path compression and union by size.
+     */
+    private static class UnionFind {
+        private final int[] parent;
+        private final int[] size;
+
+        UnionFind(int numberOfElements) {
+            this.parent = new int[numberOfElements];
+            this.size = new int[numberOfElements];
+            for(int i = 0; i < numberOfElements; i++){
+                this.parent[i] = i;
+                this.size[i] = 1;
+            }
+        }
+        
+        int find(int element){
+            int root = element;
+            while(parent[root] != root)
+                root = parent[root];
+            while(parent[element] != root){
+                int next = parent[element];
+                parent[element] = root;
+                element = next;
+            }
+            return root;
+        }
+        
+        void union(int one, int two){
+            int rootOne = find(one);
+            int rootTwo = find(two);
+            if(rootOne == rootTwo)
+                return;
+            if(size[rootOne] < size[rootTwo]){
+                int tmp = rootOne;
+                rootOne = rootTwo;
+                rootTwo = tmp;
+            }
+            parent[rootTwo] = rootOne;
+            size[rootOne] += size[rootTwo];
+        }
+        
+        int size(){
+            return parent.length;
+        }
+    }
+}
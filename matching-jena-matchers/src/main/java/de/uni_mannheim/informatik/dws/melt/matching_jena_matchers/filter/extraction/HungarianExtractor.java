@@ -19,7 +19,7 @@ import org.slf4j.LoggerFactory;
 /**
  * This implementation uses the Hungarian algortithm to find a one to one mapping.
  * The runtime highly depends on the lower number of concepts (source or target) of the alignment as well as the number of correspondences.
- * If a better runtime is needed, use {@link MaxWeightBipartiteExtractor}.
+ * If a better runtime is needed, use {@link MaxWeightBipartiteExtractor} or {@link SparseAssignmentExtractor} (same result without a dense matrix).
  */
 public class HungarianExtractor extends MatcherYAAAJena {
 
@@ -4,14 +4,18 @@ import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.CorrespondenceRelation;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import org.apache.jena.ontology.OntModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,9 +29,44 @@ public class MaxWeightBipartiteExtractor extends MatcherYAAAJena {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MaxWeightBipartiteExtractor.class);
     
+    /**
+     * The heuristic which is used to initialize the potentials.
+     */
+    private MwbInitHeuristic heuristic;
+    
+    /**
+     * The number of threads which are used to solve the connected components of the graph.
+     */
+    private int numberOfThreads;
+    
+    /**
+     * Constructor which uses the naive heuristic and one thread.
+     */
+    public MaxWeightBipartiteExtractor() {
+        this(MwbInitHeuristic.NAIVE);
+    }
+    
+    /**
+     * Constructor which uses one thread.
+     * @param heuristic the heuristic which is used to initialize the potentials
+     */
+    public MaxWeightBipartiteExtractor(MwbInitHeuristic heuristic) {
+        this(heuristic, 1);
+    }
+    
+    /**
+     * Constructor.
+     * @param heuristic the heuristic which is used to initialize the potentials
+     * @param numberOfThreads the number of threads which are used to solve the connected components of the graph (1 for sequential extraction)
+     */
+    public MaxWeightBipartiteExtractor(MwbInitHeuristic heuristic, int numberOfThreads) {
+        this.heuristic = heuristic;
+        this.numberOfThreads = numberOfThreads;
+    }
+    
     @Override
     public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
-        return filter(inputAlignment);
+        return filter(inputAlignment, this.heuristic, this.numberOfThreads);
     }
     
     public static Alignment filter(Alignment inputAlignment){
@@ -35,20 +74,83 @@ public class MaxWeightBipartiteExtractor extends MatcherYAAAJena {
     }
     
     public static Alignment filter(Alignment inputAlignment, MwbInitHeuristic heuristic){
+        return filter(inputAlignment, heuristic, 1);
+    }
+    
+    /**
+     * Generates a one-to-one alignment with maximal weight (sum of confidences) out of the equivalence correspondences of the given alignment.
+     * The bipartite graph is first split into connected components which are solved independently:
+     * components where one side consists of only one entity are solved directly (best correspondence),
+     * all other components are solved with the shortest path augmentation (in parallel if numberOfThreads is greater than one).
+     * @param inputAlignment the alignment to filter
+     * @param heuristic the heuristic which is used to initialize the potentials
+     * @param numberOfThreads the number of threads which are used to solve the connected components (1 for sequential extraction)
+     * @return the filtered alignment
+     */
+    public static Alignment filter(Alignment inputAlignment, MwbInitHeuristic heuristic, int numberOfThreads){
         if(inputAlignment.isEmpty())
             return inputAlignment;
         
+        Alignment result = new Alignment(inputAlignment, false);
+        List<BipartiteComponent> components = new ArrayList<>();
+        for(BipartiteComponent component : BipartiteComponent.of(inputAlignment)){
+            if(component.isStar()){
+                Correspondence best = component.getBestCorrespondence();
+                if(best != null)
+                    result.add(best);
+            }else{
+                components.add(component);
+            }
+        }
+        if(components.isEmpty())
+            return result;
+        LOGGER.debug("Solve {} connected components (largest one has {} correspondences).", components.size(), components.get(0).getCorrespondences().size());
+        
+        if(numberOfThreads > 1 && components.size() > 1){
+            ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+            try {
+                List<List<Correspondence>> selected = pool.submit(() -> 
+                    components.parallelStream().map(component -> solve(component, heuristic)).collect(Collectors.toList())
+                ).get();
+                for(List<Correspondence> correspondences : selected){
+                    result.addAll(correspondences);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while extracting the alignment in parallel.", ex);
+            } catch (ExecutionException ex) {
+                if(ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) ex.getCause();
+                throw new IllegalStateException("Could not extract the alignment in parallel.", ex.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }else{
+            for(BipartiteComponent component : components){
+                result.addAll(solve(component, heuristic));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Computes the maximum weight matching of one connected component.
+     * @param component the component
+     * @param heuristic the heuristic which is used to initialize the potentials
+     * @return the selected correspondences
+     */
+    private static List<Correspondence> solve(BipartiteComponent component, MwbInitHeuristic heuristic){
         Map<String, MwbNode> sourceNodeMapping = new HashMap<>();
-        Map<String, MwbNode> targetNodeMapping = new HashMap<>();        
+        Map<String, MwbNode> targetNodeMapping = new HashMap<>();
         //switch source target depending on which one is larger
-        if(inputAlignment.getDistinctSourcesAsSet().size() > inputAlignment.getDistinctTargetsAsSet().size()){
-            for(Correspondence c : inputAlignment.getCorrespondencesRelation(CorrespondenceRelation.EQUIVALENCE)){
+        if(component.getSources() > component.getTargets()){
+            for(Correspondence c : component.getCorrespondences()){
                 MwbNode source = sourceNodeMapping.computeIfAbsent(c.getEntityTwo(), __ -> new MwbNode());
                 MwbNode target = targetNodeMapping.computeIfAbsent(c.getEntityOne(), __ -> new MwbNode());
                 source.addSuccesor(new MwbEdge(source, target, c)); //directed edge from source(A) to target(B)
             }
         } else {
-            for(Correspondence c : inputAlignment.getCorrespondencesRelation(CorrespondenceRelation.EQUIVALENCE)){
+            for(Correspondence c : component.getCorrespondences()){
                 MwbNode source = sourceNodeMapping.computeIfAbsent(c.getEntityOne(), __ -> new MwbNode());
                 MwbNode target = targetNodeMapping.computeIfAbsent(c.getEntityTwo(), __ -> new MwbNode());
                 source.addSuccesor(new MwbEdge(source, target, c)); //directed edge from source(A) to target(B)
@@ -57,12 +159,16 @@ public class MaxWeightBipartiteExtractor extends MatcherYAAAJena {
 
         switch(heuristic){
             case NAIVE:
-                double maxConfidence = Collections.max(inputAlignment.getDistinctConfidencesAsSet());
+                double maxConfidence = 0.0;
+                for(Correspondence c : component.getCorrespondences()){
+                    maxConfidence = Math.max(maxConfidence, c.getConfidence());
+                }
                 for(MwbNode a : sourceNodeMapping.values()){
                     a.setPotential(maxConfidence);
                 }
                 break;
             case SIMPLE:
+            case REFINED:
                 for(MwbNode a : sourceNodeMapping.values()){
                     MwbEdge eMax = null;
                     double cMax = 0.0;
@@ -73,18 +179,16 @@ public class MaxWeightBipartiteExtractor extends MatcherYAAAJena {
                         }
                     }
                     a.setPotential(cMax);
-                    //following is commented because it doesn't make sense to choose this edge so early (tests fail)
-                    /*
-                    if(eMax != null && eMax.getTarget().isFree()){
-                        eMax.reverse();//reverseEdge(eMax);
+                    //the best edge of a is tight (potential of a equals its weight and all potentials in B are zero),
+                    //thus it can be matched directly if the node in B is still free
+                    if(heuristic == MwbInitHeuristic.REFINED && eMax != null && eMax.getTarget().isFree()){
+                        MwbNode b = eMax.getTarget();
+                        eMax.reverse();
                         a.setFree(false);
-                        eMax.getTarget().setFree(false);
+                        b.setFree(false);
                     }
-                    */
                 }
                 break;
-            case REFINED:
-                throw new UnsupportedOperationException("Not implemented yet.");
         }
         
         //shortest path augmentation
@@ -95,22 +199,19 @@ public class MaxWeightBipartiteExtractor extends MatcherYAAAJena {
         }
         
         //selected correspondences are edges from target(B) to source(A)
-        Alignment result = new Alignment(inputAlignment, false);
+        List<Correspondence> selected = new ArrayList<>();
         for(MwbNode b : targetNodeMapping.values()){
             Set<MwbEdge> selectedEdges = b.getSuccessor();
             if(selectedEdges.size() > 1){
                 LOGGER.warn("There is more than one match - this should not happen... (Correspondence: {})", selectedEdges.iterator().next().getCorrespondence());
             }
             for(MwbEdge e: selectedEdges){
-                result.add(e.getCorrespondence());
+                selected.add(e.getCorrespondence());
             }
         }
-        return result;
+        return selected;
     }
     
-    
-    
-    
     private static void augment(MwbNode a, PriorityQueue<MwbNode> PQ){
         
         //initialization
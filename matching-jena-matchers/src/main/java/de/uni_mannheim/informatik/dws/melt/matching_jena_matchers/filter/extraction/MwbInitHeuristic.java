@@ -13,7 +13,8 @@ public enum MwbInitHeuristic {
      */
     SIMPLE,
     /**
-     * Refined heuristic - not implemented yet.
+     * Refined heuristic: like the simple heuristic but additionally the best edge of a node a in the source is directly
+     * added to the initial matching if its target is not matched yet (this edge is tight, thus the potentials stay feasible).
      */
     REFINED
 }
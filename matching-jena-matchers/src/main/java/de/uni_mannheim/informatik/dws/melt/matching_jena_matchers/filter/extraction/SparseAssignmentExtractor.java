@@ -0,0 +1,310 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.extraction;
+
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.apache.jena.ontology.OntModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Optimal one to one extraction (maximal sum of confidences) like {@link HungarianExtractor} but without a dense cost matrix.
+ * The alignment is split into connected components and each component is solved on the sparse candidate graph
+ * with shortest augmenting paths (Jonker-Volgenant style: row reduction, greedy initial assignment of tight edges
+ * and Dijkstra with potentials over the candidate edges only).
+ * Thus the runtime and memory depend on the number of correspondences and not on the number of sources times targets.
+ * Correspondences with a confidence of zero or lower are never selected.
+ */
+public class SparseAssignmentExtractor extends MatcherYAAAJena {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SparseAssignmentExtractor.class);
+
+    @Override
+    public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+        return filter(inputAlignment);
+    }
+
+    /**
+     * Filters the alignment such that only the one to one alignment with the maximal sum of confidences remains.
+     * Same as {@link HungarianExtractor#filter(Alignment)}, the given alignment is modified and returned.
+     * @param inputAlignment the alignment to filter
+     * @return the filtered alignment
+     */
+    public static Alignment filter(Alignment inputAlignment){
+        if(inputAlignment.isEmpty())
+            return inputAlignment;
+        Set<Correspondence> selected = new HashSet<>();
+        int solvedComponents = 0;
+        for(BipartiteComponent component : BipartiteComponent.of(inputAlignment)){
+            if(component.isStar()){
+                Correspondence best = component.getBestCorrespondence();
+                if(best != null)
+                    selected.add(best);
+            }else{
+                selected.addAll(new SparseAssignment(component).solve());
+                solvedComponents++;
+            }
+        }
+        LOGGER.debug("Solved {} non trivial connected components.", solvedComponents);
+        inputAlignment.retainAll(selected);
+        return inputAlignment;
+    }
+
+    /**
+     * Minimum cost assignment of one connected component.
+     * Rows are the entities of the smaller side, columns the entities of the other side.
+     * The cost of an edge is (maximal confidence - confidence) and each row has an additional dummy column
+     * (cost: maximal confidence) which represents that the row is not matched.
+     * Thus each row is assigned and a minimal cost corresponds to a maximal sum of confidences.
+     */
+    private static class SparseAssignment {
+        private final int rows;
+        private final int columns;
+        private final double maxConfidence;
+
+        //sparse graph in compressed row format
+        private final int[] rowStart;
+        private final int[] edgeColumn;
+        private final double[] edgeCost;
+        private final Correspondence[] edgeCorrespondence;
+
+        //dual variables and assignment (columns >= this.columns are dummy columns)
+        private final double[] u;
+        private final double[] v;
+        private final int[] rowAssignment;
+        private final int[] columnAssignment;
+
+        //state of the shortest path search
+        private final double[] distance;
+        private final int[] predecessor;
+        private final boolean[] finalized;
+        private final int[] finalizedColumns;
+        private final int[] touched;
+        private int touchedCount;
+        private final int[] heap;
+        private final int[] heapPosition;
+        private int heapSize;
+
+        SparseAssignment(BipartiteComponent component){
+            boolean switchSourceTarget = component.getSources() > component.getTargets();
+            List<Correspondence> correspondences = component.getCorrespondences();
+            Map<String, Integer> rowIds = new HashMap<>();
+            Map<String, Integer> columnIds = new HashMap<>();
+            int[] rowOfEdge = new int[correspondences.size()];
+            int[] columnOfEdge = new int[correspondences.size()];
+            double max = 0.0;
+            for(int i = 0; i < correspondences.size(); i++){
+                Correspondence c = correspondences.get(i);
+                String row = switchSourceTarget ? c.getEntityTwo() : c.getEntityOne();
+                String column = switchSourceTarget ? c.getEntityOne() : c.getEntityTwo();
+                rowOfEdge[i] = rowIds.computeIfAbsent(row, __ -> rowIds.size());
+                columnOfEdge[i] = columnIds.computeIfAbsent(column, __ -> columnIds.size());
+                max = Math.max(max, c.getConfidence());
+            }
+            this.rows = rowIds.size();
+            this.columns = columnIds.size();
+            this.maxConfidence = max;
+
+            this.rowStart = new int[rows + 1];
+            for(int row : rowOfEdge){
+                this.rowStart[row + 1]++;
+            }
+            for(int i = 0; i < rows; i++){
+                this.rowStart[i + 1] += this.rowStart[i];
+            }
+            this.edgeColumn = new int[correspondences.size()];
+            this.edgeCost = new double[correspondences.size()];
+            this.edgeCorrespondence = new Correspondence[correspondences.size()];
+            int[] position = Arrays.copyOf(this.rowStart, rows);
+            for(int i = 0; i < correspondences.size(); i++){
+                int e = position[rowOfEdge[i]]++;
+                this.edgeColumn[e] = columnOfEdge[i];
+                this.edgeCost[e] = max - correspondences.get(i).getConfidence();
+                this.edgeCorrespondence[e] = correspondences.get(i);
+            }
+
+            int allColumns = columns + rows;
+            this.u = new double[rows];
+            this.v = new double[allColumns];
+            this.rowAssignment = new int[rows];
+            this.columnAssignment = new int[allColumns];
+            Arrays.fill(this.rowAssignment, -1);
+            Arrays.fill(this.columnAssignment, -1);
+
+            this.distance = new double[allColumns];
+            Arrays.fill(this.distance, Double.POSITIVE_INFINITY);
+            this.predecessor = new int[allColumns];
+            this.finalized = new boolean[allColumns];
+            this.finalizedColumns = new int[allColumns];
+            this.touched = new int[allColumns];
+            this.heap = new int[allColumns];
+            this.heapPosition = new int[allColumns];
+            Arrays.fill(this.heapPosition, -1);
+        }
+
+        List<Correspondence> solve(){
+            //row reduction and greedy assignment of tight edges
+            for(int row = 0; row < rows; row++){
+                int bestColumn = columns + row;
+                double minCost = maxConfidence;
+                for(int e = rowStart[row]; e < rowStart[row + 1]; e++){
+                    if(edgeCost[e] < minCost){
+                        minCost = edgeCost[e];
+                        bestColumn = edgeColumn[e];
+                    }
+                }
+                u[row] = minCost;
+                if(columnAssignment[bestColumn] < 0){
+                    rowAssignment[row] = bestColumn;
+                    columnAssignment[bestColumn] = row;
+                }
+            }
+            //shortest augmenting paths for all remaining rows
+            for(int row = 0; row < rows; row++){
+                if(rowAssignment[row] < 0)
+                    augment(row);
+            }
+
+            List<Correspondence> selected = new ArrayList<>();
+            for(int row = 0; row < rows; row++){
+                for(int e = rowStart[row]; e < rowStart[row + 1]; e++){
+                    if(edgeColumn[e] == rowAssignment[row] && edgeCorrespondence[e].getConfidence() > 0){
+                        selected.add(edgeCorrespondence[e]);
+                        break;
+                    }
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * Searches the shortest augmenting path (with respect to the reduced costs) from the given free row to a free column,
+         * updates the dual variables and augments the assignment along the path.
+         * @param freeRow the row which is not assigned yet
+         */
+        private void augment(int freeRow){
+            relaxRow(freeRow, 0.0);
+            int sink = -1;
+            int finalizedCount = 0;
+            while(heapSize > 0){
+                int column = pop();
+                finalized[column] = true;
+                finalizedColumns[finalizedCount++] = column;
+                if(columnAssignment[column] < 0){
+                    sink = column;
+                    break;
+                }
+                relaxRow(columnAssignment[column], distance[column]);
+            }
+            //the dummy column of the free row is always reachable, thus a sink exists
+            double sinkDistance = distance[sink];
+            u[freeRow] += sinkDistance;
+            for(int i = 0; i < finalizedCount; i++){
+                int column = finalizedColumns[i];
+                double delta = sinkDistance - distance[column];
+                v[column] -= delta;
+                if(columnAssignment[column] >= 0)
+                    u[columnAssignment[column]] += delta;
+            }
+
+            int column = sink;
+            while(true){
+                int row = predecessor[column];
+                int previousColumn = rowAssignment[row];
+                rowAssignment[row] = column;
+                columnAssignment[column] = row;
+                if(row == freeRow)
+                    break;
+                column = previousColumn;
+            }
+
+            //reset the search state of all touched columns
+            for(int i = 0; i < touchedCount; i++){
+                int c = touched[i];
+                distance[c] = Double.POSITIVE_INFINITY;
+                finalized[c] = false;
+                heapPosition[c] = -1;
+            }
+            touchedCount = 0;
+            heapSize = 0;
+        }
+
+        private void relaxRow(int row, double rowDistance){
+            for(int e = rowStart[row]; e < rowStart[row + 1]; e++){
+                int column = edgeColumn[e];
+                relax(row, column, rowDistance + edgeCost[e] - u[row] - v[column]);
+            }
+            int dummy = columns + row;
+            relax(row, dummy, rowDistance + maxConfidence - u[row] - v[dummy]);
+        }
+
+        private void relax(int row, int column, double newDistance){
+            if(finalized[column])
+                return;
+            if(distance[column] == Double.POSITIVE_INFINITY)
+                touched[touchedCount++] = column;
+            if(newDistance < distance[column]){
+                distance[column] = newDistance;
+                predecessor[column] = row;
+                if(heapPosition[column] < 0){
+                    heap[heapSize] = column;
+                    heapPosition[column] = heapSize;
+                    heapSize++;
+                }
+                siftUp(heapPosition[column]);
+            }
+        }
+
+        private int pop(){
+            int top = heap[0];
+            heapPosition[top] = -1;
+            heapSize--;
+            if(heapSize > 0){
+                heap[0] = heap[heapSize];
+                heapPosition[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int position){
+            int column = heap[position];
+            while(position > 0){
+                int parent = (position - 1) / 2;
+                if(distance[heap[parent]] <= distance[column])
+                    break;
+                heap[position] = heap[parent];
+                heapPosition[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = column;
+            heapPosition[column] = position;
+        }
+
+        private void siftDown(int position){
+            int column = heap[position];
+            while(true){
+                int child = 2 * position + 1;
+                if(child >= heapSize)
+                    break;
+                if(child + 1 < heapSize && distance[heap[child + 1]] < distance[heap[child]])
+                    child++;
+                if(distance[heap[child]] >= distance[column])
+                    break;
+                heap[position] = heap[child];
+                heapPosition[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = column;
+            heapPosition[column] = position;
+        }
+    }
+}
@@ -2,23 +2,17 @@ package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.instan
 
 import com.googlecode.cqengine.query.QueryFactory;
 import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
-import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.agony.Agony;
-import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.agony.AgonyUtil;
-import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.util.URIUtil;
+import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.HierarchyIndex;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
-import java.io.File;
-import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.Queue;
 import java.util.Set;
 import org.apache.jena.ontology.Individual;
 import org.apache.jena.ontology.OntModel;
@@ -143,58 +137,52 @@ public class SimilarHierarchyFilter extends MatcherYAAAJena{
     
     /**
      * Returns the hierarchy levels computed by the agony algorithm.
+     * The agony algorithm runs only once on the whole hierarchy of the model (see {@link HierarchyIndex}) and not only on the
+     * hierarchy elements of the individual. Thus the first call takes time and memory for the full hierarchy:
+     * the running time is quadratic in the number of hierarchy edges in the worst case (usually much less)
+     * and the computation needs around a dozen int arrays of the size of the nodes and edges of the hierarchy (about 40 bytes per node and per edge).
+     * Afterwards only one int per node is kept.
+     * The levels of the hierarchy elements of the individual are shifted such that the lowest level is zero.
      * @param i the individual to start with.
      * @return map from hierarchical element uri to the normalized hierarchy level
      */
     public Map<String, Double> getNormalizedHierarchyLevels(Individual i){
-        // compute graph with breath first search        
-        Set<Resource> visited = new HashSet<>();
-        Queue<Resource> q = new LinkedList<>();
-        for(Resource firstHierarchyElement : getObjectAsResource(i.listProperties(this.instanceToHierarchyProperty))){
-            q.add(firstHierarchyElement);
-            visited.add(firstHierarchyElement);
-        }
-        List<Entry<Resource, Resource>> hierarchyGraph = new ArrayList<>();
-        while(!q.isEmpty()){
-            Resource current = q.poll();
-            for(Resource succ : getObjectAsResource(current.listProperties(this.hierarchyPropery))){
-                if(visited.contains(succ) == false){
-                    visited.add(succ);
-                    q.add(succ);
+        HierarchyIndex index = HierarchyIndex.get(i.getModel(), this.hierarchyPropery);
+        //only elements which are connected by at least one hierarchy edge (as child or as parent of another element)
+        Map<Resource, Integer> ancestorDistances = index.getAncestorDistances(getObjectAsResource(i.listProperties(this.instanceToHierarchyProperty)));
+        Set<Integer> parentIds = new HashSet<>();
+        for(Resource r : ancestorDistances.keySet()){
+            int id = index.getId(r);
+            if(id >= 0){
+                for(int parent : index.getParents(id)){
+                    parentIds.add(parent);
                 }
-                hierarchyGraph.add(new SimpleEntry(current, succ));
             }
-            
         }
-        if(hierarchyGraph.isEmpty())
-            return new HashMap<>();        
-        //AgonyUtil.writeDotFile(new File("category.dot"), hierarchyGraph, e->URIUtil.getUriFragment(e.getURI()).substring(9));
-        Agony<Resource> agony = new Agony(hierarchyGraph);
-        Map<Resource, Integer> hierarchyLevels = agony.computeAgony();
-        
+        Map<Resource, Integer> hierarchyLevels = new HashMap<>();
+        for(Resource r : ancestorDistances.keySet()){
+            int id = index.getId(r);
+            if(id >= 0 && (index.getParents(id).length > 0 || parentIds.contains(id)))
+                hierarchyLevels.put(r, index.getHierarchyLevel(id));
+        }
+        if(hierarchyLevels.isEmpty())
+            return new HashMap<>();
+        int minLevel = Collections.min(hierarchyLevels.values());
+        for(Entry<Resource, Integer> e : hierarchyLevels.entrySet()){
+            e.setValue(e.getValue() - minLevel);
+        }
         return inverseAndNormalizeMapValues(hierarchyLevels);
     }
     
+    /**
+     * Returns the depths of all hierarchy elements of the individual (the types have depth zero).
+     * The ancestors of each hierarchy element are precomputed once per model (see {@link HierarchyIndex}).
+     * @param i the individual to start with.
+     * @return map from hierarchical element uri to the normalized depth
+     */
     public Map<String, Double> getNormalizedDepths(Individual i){
-        //breath first search
-        Map<Resource, Integer> depths = new HashMap<>();
-        Set<Resource> visited = new HashSet<>();
-        Queue<Resource> q = new LinkedList<>();
-        for(Resource firstHierarchyElement : getObjectAsResource(i.listProperties(this.instanceToHierarchyProperty))){
-            depths.put(firstHierarchyElement, 0);
-            q.add(firstHierarchyElement);
-            visited.add(firstHierarchyElement);
-        }
-        while(!q.isEmpty()){
-            Resource current = q.poll();
-            for(Resource succ : getObjectAsResource(current.listProperties(this.hierarchyPropery))){
-                if(visited.contains(succ) == false){
-                    depths.put(succ, depths.get(current) + 1);
-                    visited.add(succ);                    
-                    q.add(succ);
-                }
-            }
-        }
+        HierarchyIndex index = HierarchyIndex.get(i.getModel(), this.hierarchyPropery);
+        Map<Resource, Integer> depths = index.getAncestorDistances(getObjectAsResource(i.listProperties(this.instanceToHierarchyProperty)));
         return inverseAndNormalizeMapValues(depths);
     }
     
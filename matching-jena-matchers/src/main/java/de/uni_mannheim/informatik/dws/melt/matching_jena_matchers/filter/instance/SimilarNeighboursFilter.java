@@ -1,15 +1,21 @@
 package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.instance;
 
 import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.BaseFilterWithSetComparison;
-import com.googlecode.cqengine.query.QueryFactory;
 import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.util.SetSimilarity;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import org.apache.jena.ontology.Individual;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.rdf.model.Literal;
@@ -28,6 +34,8 @@ import org.apache.jena.rdf.model.StmtIterator;
  *      |                                         |
  * Target_Subject ------Target_Property------Target_Object
  * 
+ * The neighbours of each matched individual are computed only once and the overlap is computed with a hash join
+ * on the alignment (in parallel for all correspondences).
  */
 public class SimilarNeighboursFilter extends BaseFilterWithSetComparison{
 
@@ -125,33 +133,63 @@ public class SimilarNeighboursFilter extends BaseFilterWithSetComparison{
     
     @Override
     public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
-        Alignment filteredAlignment = new Alignment(inputAlignment, false);
-        for(Correspondence correspondence : inputAlignment){
-            Individual sourceIndividual = source.getIndividual(correspondence.getEntityOne());
-            Individual targetIndividual = target.getIndividual(correspondence.getEntityTwo());
-            if(sourceIndividual == null || targetIndividual == null){
-                filteredAlignment.add(correspondence);
+        List<Correspondence> correspondences = new ArrayList<>(inputAlignment);
+        
+        //precomputation: the neighbours of each matched individual are computed only once and stored as ids
+        //the literal dictionary is shared such that literals of source and target can be compared by id
+        Dictionary<Object> literals = new Dictionary<>();
+        NeighbourIndex sourceIndex = new NeighbourIndex(literals);
+        NeighbourIndex targetIndex = new NeighbourIndex(literals);
+        int[] sourceEntities = new int[correspondences.size()];
+        int[] targetEntities = new int[correspondences.size()];
+        for(int i = 0; i < correspondences.size(); i++){
+            sourceEntities[i] = getEntityId(source, correspondences.get(i).getEntityOne(), sourceIndex);
+            targetEntities[i] = getEntityId(target, correspondences.get(i).getEntityTwo(), targetIndex);
+        }
+        
+        //hash join: source neighbour id -> target neighbour ids of all correspondences with enough confidence
+        Map<Integer, List<Integer>> joinMap = new HashMap<>();
+        for(Correspondence c : inputAlignment){
+            if(c.getConfidence() < minResourceConfidence)
                 continue;
-            }
-            
-            Neighbours sourceNeighbours = getNeighbours(source, sourceIndividual);
-            Neighbours targetNeighbours = getNeighbours(target, targetIndividual);
-            
-            Set<Object> literalIntersection = new HashSet(sourceNeighbours.getLiterals());
-            literalIntersection.retainAll(targetNeighbours.getLiterals());
+            Integer sourceId = sourceIndex.resources.getIdIfPresent(c.getEntityOne());
+            Integer targetId = targetIndex.resources.getIdIfPresent(c.getEntityTwo());
+            if(sourceId != null && targetId != null)
+                joinMap.computeIfAbsent(sourceId, __ -> new ArrayList<>()).add(targetId);
+        }
+        int[][] join = new int[sourceIndex.resources.size()][];
+        for(Entry<Integer, List<Integer>> entry : joinMap.entrySet()){
+            join[entry.getKey()] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        //overlap computation only works on the precomputed arrays, thus it can run in parallel
+        double[] values = new double[correspondences.size()];
+        String[] explanations = new String[correspondences.size()];
+        IntStream.range(0, correspondences.size()).parallel().forEach(i -> {
+            if(sourceEntities[i] < 0 || targetEntities[i] < 0)
+                return;
+            int[] sourceResources = sourceIndex.resourceNeighbours.get(sourceEntities[i]);
+            int[] targetResources = targetIndex.resourceNeighbours.get(targetEntities[i]);
+            int[] sourceLiterals = sourceIndex.literalNeighbours.get(sourceEntities[i]);
+            int[] targetLiterals = targetIndex.literalNeighbours.get(targetEntities[i]);
             
+            List<Integer> literalIntersection = intersect(sourceLiterals, targetLiterals);
             
-            Iterable<Correspondence> i = inputAlignment.retrieve(
-                QueryFactory.and(
-                    QueryFactory.in(Correspondence.SOURCE, sourceNeighbours.getUriResources()),
-                    QueryFactory.in(Correspondence.TARGET, targetNeighbours.getUriResources()),
-                    QueryFactory.greaterThanOrEqualTo(Correspondence.CONFIDENCE, minResourceConfidence)
-                ));
-            Set<String> mappedSources = new HashSet<>();
-            Set<String> mappedTargets = new HashSet<>();            
-            for(Correspondence c : i){
-                mappedSources.add(c.getEntityOne());
-                mappedTargets.add(c.getEntityTwo());
+            List<Integer> mappedSources = new ArrayList<>();
+            Set<Integer> mappedTargets = new HashSet<>();
+            for(int sourceNeighbour : sourceResources){
+                int[] joinedTargets = join[sourceNeighbour];
+                if(joinedTargets == null)
+                    continue;
+                boolean mapped = false;
+                for(int targetNeighbour : joinedTargets){
+                    if(Arrays.binarySearch(targetResources, targetNeighbour) >= 0){
+                        mappedTargets.add(targetNeighbour);
+                        mapped = true;
+                    }
+                }
+                if(mapped)
+                    mappedSources.add(sourceNeighbour);
             }
             //in case of n:m mappings only the minimum amount of resource is the number of the intersection.
             int resourceIntersection = Math.min(mappedSources.size(), mappedTargets.size());
@@ -159,30 +197,77 @@ public class SimilarNeighboursFilter extends BaseFilterWithSetComparison{
             if(this.addNeighboursToCorrespondence){
                 Set<String> neighboursPrint = new HashSet();
                 if(mappedSources.size() < mappedTargets.size()){
-                    neighboursPrint.addAll(mappedSources);
+                    for(int id : mappedSources)
+                        neighboursPrint.add(sourceIndex.resources.get(id));
                 }else{
-                    neighboursPrint.addAll(mappedTargets);
+                    for(int id : mappedTargets)
+                        neighboursPrint.add(targetIndex.resources.get(id));
                 }
-                for(Object o : literalIntersection){
-                    neighboursPrint.add(o.toString());
+                for(int id : literalIntersection){
+                    neighboursPrint.add(literals.get(id).toString());
                 }
-                correspondence.addAdditionalExplanation(this.getClass(), "[" + String.join(",", neighboursPrint) + "]");
+                explanations[i] = "[" + String.join(",", neighboursPrint) + "]";
             }
             
             //sum up resource mappings and literal mappings
-            int countSourceNeighbours = sourceNeighbours.getUriResources().size() + sourceNeighbours.getLiterals().size();
-            int countTargetNeighbours = targetNeighbours.getUriResources().size() + targetNeighbours.getLiterals().size();
+            int countSourceNeighbours = sourceResources.length + sourceLiterals.length;
+            int countTargetNeighbours = targetResources.length + targetLiterals.length;
             int countIntersection = resourceIntersection + literalIntersection.size();
             
-            double value = setSimilatity.compute(countIntersection, countSourceNeighbours, countTargetNeighbours);
-            if(value >= this.threshold){
-                correspondence.addAdditionalConfidence(this.getClass(), value);
+            values[i] = setSimilatity.compute(countIntersection, countSourceNeighbours, countTargetNeighbours);
+        });
+        
+        Alignment filteredAlignment = new Alignment(inputAlignment, false);
+        for(int i = 0; i < correspondences.size(); i++){
+            Correspondence correspondence = correspondences.get(i);
+            if(sourceEntities[i] < 0 || targetEntities[i] < 0){
+                filteredAlignment.add(correspondence);
+                continue;
+            }
+            if(explanations[i] != null)
+                correspondence.addAdditionalExplanation(this.getClass(), explanations[i]);
+            if(values[i] >= this.threshold){
+                correspondence.addAdditionalConfidence(this.getClass(), values[i]);
                 filteredAlignment.add(correspondence);
             }
         }
         return filteredAlignment;
     }
     
+    /**
+     * Returns the id of the individual in the neighbour index (the neighbours are computed if the individual is not yet in the index).
+     * @param model the model
+     * @param uri the uri of the individual
+     * @param index the neighbour index of the model
+     * @return the id of the individual or -1 if the uri is not an individual
+     */
+    private int getEntityId(OntModel model, String uri, NeighbourIndex index){
+        Integer id = index.entities.get(uri);
+        if(id == null){
+            Individual individual = model.getIndividual(uri);
+            id = individual == null ? -1 : index.add(getNeighbours(model, individual));
+            index.entities.put(uri, id);
+        }
+        return id;
+    }
+    
+    private static List<Integer> intersect(int[] one, int[] two){
+        List<Integer> intersection = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while(i < one.length && j < two.length){
+            if(one[i] < two[j]){
+                i++;
+            }else if(one[i] > two[j]){
+                j++;
+            }else{
+                intersection.add(one[i]);
+                i++;
+                j++;
+            }
+        }
+        return intersection;
+    }
     
     private Neighbours getNeighbours(OntModel model, Individual individual){
         Neighbours neighbours = new Neighbours();
@@ -311,6 +396,70 @@ public class SimilarNeighboursFilter extends BaseFilterWithSetComparison{
     public String toString() {
         return "SimilarNeighboursFilter";
     }
+
+    /**
+     * Neighbours of the individuals of one ontology in primitive form: individual id to sorted ids of neighbours.
+     */
+    private static class NeighbourIndex{
+        /**
+         * Individual uri to individual id (-1 if the uri is not an individual).
+         */
+        final Map<String, Integer> entities;
+        final Dictionary<String> resources;
+        final Dictionary<Object> literals;
+        final List<int[]> resourceNeighbours;
+        final List<int[]> literalNeighbours;
+
+        NeighbourIndex(Dictionary<Object> literals){
+            this.entities = new HashMap<>();
+            this.resources = new Dictionary<>();
+            this.literals = literals;
+            this.resourceNeighbours = new ArrayList<>();
+            this.literalNeighbours = new ArrayList<>();
+        }
+
+        public int add(Neighbours neighbours){
+            resourceNeighbours.add(neighbours.getUriResources().stream().mapToInt(resources::getId).sorted().toArray());
+            literalNeighbours.add(neighbours.getLiterals().stream().mapToInt(literals::getId).sorted().toArray());
+            return resourceNeighbours.size() - 1;
+        }
+    }
+
+    /**
+     * Maps elements to consecutive ids and back.
+     * @param <T> the type of the elements
+     */
+    private static class Dictionary<T>{
+        private final Map<T, Integer> ids;
+        private final List<T> elements;
+
+        Dictionary(){
+            this.ids = new HashMap<>();
+            this.elements = new ArrayList<>();
+        }
+
+        public int getId(T element){
+            Integer id = ids.get(element);
+            if(id == null){
+                id = elements.size();
+                ids.put(element, id);
+                elements.add(element);
+            }
+            return id;
+        }
+
+        public Integer getIdIfPresent(T element){
+            return ids.get(element);
+        }
+
+        public T get(int id){
+            return elements.get(id);
+        }
+
+        public int size(){
+            return elements.size();
+        }
+    }
 }
 
 class Neighbours{
@@ -337,4 +486,4 @@ class Neighbours{
     public Set<Object> getLiterals() {
         return literals;
     }
-}
\ No newline at end of file
+}
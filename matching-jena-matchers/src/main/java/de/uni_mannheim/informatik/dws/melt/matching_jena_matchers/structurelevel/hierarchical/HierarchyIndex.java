@@ -0,0 +1,458 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical;
+
+import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.agony.Agony;
+import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.agony.PrimitiveAgony;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.listeners.StatementListener;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precomputed hierarchy of one model which is given by a hierarchy property (usually rdfs:subClassOf) and can be shared by all filters.
+ * The hierarchy is read once from the model and all nodes get an integer id.
+ * The ancestors of a node (including the node itself) are computed on the first request for this node (breadth first search)
+ * and are memoized as a sorted id array together with the shortest distance to each ancestor.
+ * Thus ancestor checks need a binary search and lowest common ancestors / distances a merge of two (short) arrays.
+ * Only the ancestors of requested nodes are computed because the closure of all nodes is too large
+ * for big (and cyclic) hierarchies like the Wikipedia category graph.
+ * The hierarchy levels of the {@link Agony} algorithm are computed once for the whole hierarchy (on the first request) with {@link PrimitiveAgony}.
+ * Cycles in the hierarchy are allowed.
+ * <p>
+ * The index is cached together with the model and removed from the cache whenever a statement with the hierarchy property is added or removed.
+ * The listener which detects these changes is unregistered from the model as soon as no index of the model is cached anymore
+ * (and registered again when the next index is built).
+ * It only stores nodes (no resources which refer to the model), thus it does not keep the model reachable.
+ */
+public class HierarchyIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyIndex.class);
+
+    private static final Map<Model, ModelIndices> INDICES = new WeakHashMap<>();
+
+    private final WeakReference<Model> model;
+    private final Map<Node, Integer> ids;
+    private final Node[] nodes;
+    private final int[][] parents;
+    private final Ancestors[] ancestors;
+    private final ThreadLocal<int[]> distanceBuffer;
+    private volatile int[] hierarchyLevels;
+
+    /**
+     * Builds the hierarchy index.
+     * @param model the model
+     * @param hierarchyProperty the property connecting a child to its parent (usually rdfs:subClassOf)
+     */
+    public HierarchyIndex(Model model, Property hierarchyProperty) {
+        long startTime = System.currentTimeMillis();
+        this.model = new WeakReference<>(model);
+        this.ids = new HashMap<>();
+        List<Node> nodeList = new ArrayList<>();
+        Map<Integer, Set<Integer>> parentSets = new HashMap<>();
+        StmtIterator i = model.listStatements(null, hierarchyProperty, (RDFNode) null);
+        while(i.hasNext()){
+            Statement s = i.next();
+            if(s.getObject().isResource() == false)
+                continue;
+            int child = getOrCreateId(s.getSubject().asNode(), nodeList);
+            int parent = getOrCreateId(s.getObject().asNode(), nodeList);
+            parentSets.computeIfAbsent(child, __ -> new HashSet<>()).add(parent);
+        }
+        this.nodes = nodeList.toArray(new Node[0]);
+        this.parents = new int[nodes.length][];
+        for(int n = 0; n < nodes.length; n++){
+            Set<Integer> p = parentSets.get(n);
+            this.parents[n] = p == null ? new int[0] : p.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        this.ancestors = new Ancestors[nodes.length];
+        this.distanceBuffer = ThreadLocal.withInitial(() -> {
+            int[] distance = new int[nodes.length];
+            Arrays.fill(distance, -1);
+            return distance;
+        });
+        LOGGER.debug("Built hierarchy index with {} nodes in {} ms.", nodes.length, System.currentTimeMillis() - startTime);
+    }
+
+    private int getOrCreateId(Node n, List<Node> nodeList){
+        Integer id = ids.get(n);
+        if(id == null){
+            id = nodeList.size();
+            ids.put(n, id);
+            nodeList.add(n);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the memoized ancestors of the node (computed on the first request).
+     * @param id the id of the node
+     * @return the ancestors
+     */
+    private Ancestors ancestors(int id){
+        Ancestors a = ancestors[id];
+        if(a == null){
+            //concurrent requests may compute it twice, all fields of Ancestors are final thus it is safely published
+            a = computeAncestors(id);
+            ancestors[id] = a;
+        }
+        return a;
+    }
+
+    /**
+     * Breadth first search from the node upwards.
+     * @param id the id of the node
+     * @return the ancestors
+     */
+    private Ancestors computeAncestors(int id){
+        int[] distance = distanceBuffer.get();
+        int[] queue = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = id;
+        distance[id] = 0;
+        while(head < tail){
+            int current = queue[head++];
+            for(int parent : parents[current]){
+                if(distance[parent] < 0){
+                    distance[parent] = distance[current] + 1;
+                    if(tail == queue.length)
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    queue[tail++] = parent;
+                }
+            }
+        }
+        int[] found = Arrays.copyOf(queue, tail);
+        Arrays.sort(found);
+        int[] foundDistances = new int[tail];
+        int depth = 0;
+        for(int k = 0; k < tail; k++){
+            foundDistances[k] = distance[found[k]];
+            depth = Math.max(depth, foundDistances[k]);
+            distance[found[k]] = -1;
+        }
+        return new Ancestors(found, foundDistances, depth);
+    }
+
+    /**
+     * Returns the (cached) hierarchy index of the given model and property.
+     * @param model the model
+     * @param hierarchyProperty the property connecting a child to its parent (usually rdfs:subClassOf)
+     * @return the hierarchy index
+     */
+    public static HierarchyIndex get(Model model, Property hierarchyProperty){
+        while(true){
+            ModelIndices modelIndices;
+            synchronized(INDICES){
+                modelIndices = INDICES.get(model);
+                if(modelIndices == null){
+                    modelIndices = new ModelIndices(model);
+                    model.register(modelIndices.listener);
+                    INDICES.put(model, modelIndices);
+                }
+            }
+            HierarchyIndex index = modelIndices.indices.computeIfAbsent(hierarchyProperty.asNode(), p -> new HierarchyIndex(model, hierarchyProperty));
+            synchronized(INDICES){
+                //the listener may have been unregistered concurrently - then the index would not be invalidated anymore
+                if(INDICES.get(model) == modelIndices)
+                    return index;
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the resource in the hierarchy.
+     * @param resource the resource
+     * @return the id or -1 if the resource does not appear in the hierarchy
+     */
+    public int getId(Resource resource){
+        Integer id = ids.get(resource.asNode());
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the resource of the given id.
+     * @param id the id
+     * @return the resource (in the model of this index)
+     */
+    public Resource getResource(int id){
+        return getModel().wrapAsResource(nodes[id]);
+    }
+
+    private Model getModel(){
+        Model m = this.model.get();
+        if(m == null)
+            throw new IllegalStateException("The model of the hierarchy index is already garbage collected.");
+        return m;
+    }
+
+    /**
+     * Returns the number of nodes in the hierarchy.
+     * @return the number of nodes
+     */
+    public int size(){
+        return nodes.length;
+    }
+
+    /**
+     * Returns the ids of the direct parents.
+     * @param id the id of the node
+     * @return sorted ids of the parents
+     */
+    public int[] getParents(int id){
+        return parents[id];
+    }
+
+    /**
+     * Returns the ids of all ancestors (including the node itself).
+     * @param id the id of the node
+     * @return sorted ids of the ancestors (do not modify)
+     */
+    public int[] getAncestors(int id){
+        return ancestors(id).ids;
+    }
+
+    /**
+     * Returns the depth of the node which is the longest of the shortest paths to all of its ancestors (zero for a root node).
+     * @param id the id of the node
+     * @return the depth
+     */
+    public int getDepth(int id){
+        return ancestors(id).depth;
+    }
+
+    /**
+     * Checks if a node is an ancestor of another node (a node is an ancestor of itself).
+     * @param ancestor the id of the possible ancestor
+     * @param id the id of the node
+     * @return true if ancestor is an ancestor of the node
+     */
+    public boolean isAncestor(int ancestor, int id){
+        return Arrays.binarySearch(ancestors(id).ids, ancestor) >= 0;
+    }
+
+    /**
+     * Returns the length of the shortest path from the node upwards to the ancestor.
+     * @param id the id of the node
+     * @param ancestor the id of the ancestor
+     * @return the distance or -1 if it is not an ancestor
+     */
+    public int getDistanceToAncestor(int id, int ancestor){
+        Ancestors a = ancestors(id);
+        int position = Arrays.binarySearch(a.ids, ancestor);
+        return position < 0 ? -1 : a.distances[position];
+    }
+
+    /**
+     * Returns the hierarchy distance between two nodes which is the minimal sum of the distances of both nodes to a common ancestor.
+     * @param one the id of the first node
+     * @param two the id of the second node
+     * @return the distance or -1 if both nodes have no common ancestor
+     */
+    public int getDistance(int one, int two){
+        int best = -1;
+        Ancestors ancestorsOne = ancestors(one);
+        Ancestors ancestorsTwo = ancestors(two);
+        int[] a = ancestorsOne.ids;
+        int[] b = ancestorsTwo.ids;
+        int i = 0;
+        int j = 0;
+        while(i < a.length && j < b.length){
+            if(a[i] < b[j]){
+                i++;
+            }else if(a[i] > b[j]){
+                j++;
+            }else{
+                int distance = ancestorsOne.distances[i] + ancestorsTwo.distances[j];
+                if(best < 0 || distance < best)
+                    best = distance;
+                i++;
+                j++;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the lowest common ancestors of two nodes (all common ancestors with the minimal hierarchy distance, see {@link #getDistance(int, int) }).
+     * @param one the id of the first node
+     * @param two the id of the second node
+     * @return the ids of the lowest common ancestors (empty if there is no common ancestor)
+     */
+    public List<Integer> getLowestCommonAncestors(int one, int two){
+        int distance = getDistance(one, two);
+        List<Integer> result = new ArrayList<>();
+        if(distance < 0)
+            return result;
+        Ancestors ancestorsOne = ancestors(one);
+        Ancestors ancestorsTwo = ancestors(two);
+        int[] a = ancestorsOne.ids;
+        int[] b = ancestorsTwo.ids;
+        int i = 0;
+        int j = 0;
+        while(i < a.length && j < b.length){
+            if(a[i] < b[j]){
+                i++;
+            }else if(a[i] > b[j]){
+                j++;
+            }else{
+                if(ancestorsOne.distances[i] + ancestorsTwo.distances[j] == distance)
+                    result.add(a[i]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all ancestors of the given start resources together with the shortest distance from one of the start resources
+     * (same as a breadth first search starting at all start resources).
+     * Start resources which do not appear in the hierarchy are returned with distance zero.
+     * @param start the start resources
+     * @return map from ancestor to distance
+     */
+    public Map<Resource, Integer> getAncestorDistances(Collection<Resource> start){
+        Map<Resource, Integer> result = new HashMap<>();
+        for(Resource r : start){
+            Integer id = ids.get(r.asNode());
+            if(id == null){
+                result.put(r, 0);
+                continue;
+            }
+            Ancestors a = ancestors(id);
+            for(int k = 0; k < a.ids.length; k++){
+                result.merge(getResource(a.ids[k]), a.distances[k], Math::min);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the hierarchy level of the node computed by the {@link Agony} algorithm on the whole hierarchy.
+     * The levels are computed once on the first call.
+     * @param id the id of the node
+     * @return the hierarchy level
+     */
+    public int getHierarchyLevel(int id){
+        int[] levels = this.hierarchyLevels;
+        if(levels == null){
+            synchronized(this){
+                levels = this.hierarchyLevels;
+                if(levels == null){
+                    levels = computeHierarchyLevels();
+                    this.hierarchyLevels = levels;
+                }
+            }
+        }
+        return levels[id];
+    }
+
+    private int[] computeHierarchyLevels(){
+        int numberOfEdges = 0;
+        for(int[] p : parents){
+            numberOfEdges += p.length;
+        }
+        int[] levels = new int[nodes.length];
+        if(numberOfEdges == 0)
+            return levels;
+        //same edges and node order (first appearance) as with the Agony class to get the same levels
+        int[] agonyId = new int[nodes.length];
+        Arrays.fill(agonyId, -1);
+        int[] agonyNodes = new int[nodes.length];
+        int numberOfAgonyNodes = 0;
+        int[] childs = new int[numberOfEdges];
+        int[] parentIds = new int[numberOfEdges];
+        int e = 0;
+        for(int n = 0; n < nodes.length; n++){
+            for(int parent : parents[n]){
+                if(agonyId[n] < 0){
+                    agonyId[n] = numberOfAgonyNodes;
+                    agonyNodes[numberOfAgonyNodes++] = n;
+                }
+                if(agonyId[parent] < 0){
+                    agonyId[parent] = numberOfAgonyNodes;
+                    agonyNodes[numberOfAgonyNodes++] = parent;
+                }
+                childs[e] = agonyId[n];
+                parentIds[e] = agonyId[parent];
+                e++;
+            }
+        }
+        int[] ranks = new PrimitiveAgony(numberOfAgonyNodes, childs, parentIds).computeAgony();
+        for(int i = 0; i < numberOfAgonyNodes; i++){
+            levels[agonyNodes[i]] = ranks[i];
+        }
+        return levels;
+    }
+
+    /**
+     * All cached indices of one model (one per hierarchy property) and the listener which invalidates them.
+     */
+    private static class ModelIndices {
+        private final WeakReference<Model> model;
+        private final Map<Node, HierarchyIndex> indices;
+        private final StatementListener listener;
+
+        ModelIndices(Model model){
+            this.model = new WeakReference<>(model);
+            this.indices = new ConcurrentHashMap<>();
+            this.listener = new StatementListener() {
+                @Override
+                public void addedStatement(Statement s) {
+                    invalidate(s.getPredicate().asNode());
+                }
+
+                @Override
+                public void removedStatement(Statement s) {
+                    invalidate(s.getPredicate().asNode());
+                }
+            };
+        }
+
+        /**
+         * Removes the index of the property and unregisters the listener if no index of the model is left.
+         * @param property the changed property
+         */
+        private void invalidate(Node property){
+            if(indices.remove(property) == null || indices.isEmpty() == false)
+                return;
+            synchronized(INDICES){
+                Model m = model.get();
+                if(m != null && indices.isEmpty() && INDICES.get(m) == this){
+                    INDICES.remove(m);
+                    m.unregister(listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ancestors of one node: sorted ids, the shortest distance to each of them and the depth.
+     */
+    private static class Ancestors {
+        private final int[] ids;
+        private final int[] distances;
+        private final int depth;
+
+        Ancestors(int[] ids, int[] distances, int depth){
+            this.ids = ids;
+            this.distances = distances;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,718 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.agony;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Same algorithm as {@link Agony} (the computed ranks are identical) but nodes, edges, adjacency lists, slack lists and queues
+ * are stored in int arrays instead of node, edge and list objects.
+ * All orders (adjacency lists, queues and slack lists) are the same as in {@link Agony}, thus ties are resolved the same way.
+ * Besides the arrays which are allocated once for the graph, only the relief queues grow (and are reused) during the computation.
+ * <pre>{@code
+ * int[] ranks = new PrimitiveAgony(numberOfNodes, childs, parents).computeAgony();
+ * }</pre>
+ */
+public class PrimitiveAgony {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveAgony.class);
+
+    private final int numberOfNodes;
+    private final int numberOfEdges;
+    //edges of the input graph
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+
+    private Graph dag;
+    private Graph euler;
+
+    //node attributes
+    private final int[] rank;
+    private final int[] newrank;
+    private final int[] diff;
+    private final int[] parent;
+    private final int[] parentEdge;
+
+    //edge attributes
+    private final boolean[] eulerian;
+    private final int[] slack;
+
+    private int dual;
+    private int primal;
+
+    //slack lists: doubly linked lists of edges for each slack value
+    private final int[] slackHead;
+    private final int[] slackTail;
+    private final int[] slackNext;
+    private final int[] slackPrev;
+    private final int[] slackList;
+    private int curslack;
+
+    //relief queues: singly linked lists in an entry pool, removed entries are skipped lazily
+    private int[] queueHead;
+    private int[] queueTail;
+    private int[] queueSize;
+    private int[] entryNode;
+    private int[] entryNext;
+    private int entryCount;
+    private final LongSet removed;
+    private int[] nl;
+    private int nlCount;
+    private int[] visited;
+    private int visitedCount;
+
+    /**
+     * Constructor.
+     * @param numberOfNodes the number of nodes (node ids are 0 to numberOfNodes - 1)
+     * @param edgeFrom the source node of each edge
+     * @param edgeTo the target node of each edge (same length as edgeFrom)
+     */
+    public PrimitiveAgony(int numberOfNodes, int[] edgeFrom, int[] edgeTo) {
+        if(edgeFrom.length != edgeTo.length)
+            throw new IllegalArgumentException("The arrays for the source and target of the edges need to have the same length.");
+        this.numberOfNodes = numberOfNodes;
+        this.numberOfEdges = edgeFrom.length;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+
+        this.rank = new int[numberOfNodes];
+        this.newrank = new int[numberOfNodes];
+        this.diff = new int[numberOfNodes];
+        this.parent = new int[numberOfNodes];
+        Arrays.fill(this.parent, -1);
+        this.parentEdge = new int[numberOfNodes];
+
+        this.eulerian = new boolean[numberOfEdges];
+        this.slack = new int[numberOfEdges];
+
+        this.slackHead = new int[numberOfNodes];
+        this.slackTail = new int[numberOfNodes];
+        this.slackNext = new int[numberOfEdges];
+        this.slackPrev = new int[numberOfEdges];
+        this.slackList = new int[numberOfEdges];
+        Arrays.fill(this.slackList, -1);
+
+        this.queueHead = new int[16];
+        this.queueTail = new int[16];
+        this.queueSize = new int[16];
+        this.entryNode = new int[64];
+        this.entryNext = new int[64];
+        this.removed = new LongSet();
+        this.nl = new int[64];
+        this.visited = new int[64];
+    }
+
+    /**
+     * Computes the ranks for the given edges. The result is the same as {@link Agony#computeAgony() } of {@link Agony#Agony(java.util.List) }.
+     * @param <E> the type of the nodes
+     * @param edges the edges
+     * @return map from node to rank
+     */
+    public static <E> Map<E, Integer> computeAgony(List<Entry<E, E>> edges){
+        //same node ids as in Agony (order of first appearance)
+        Map<E, Integer> labelmap = new HashMap<>();
+        List<E> labels = new ArrayList<>();
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
+        for(int i = 0; i < edges.size(); i++){
+            Entry<E, E> entry = edges.get(i);
+            from[i] = labelmap.computeIfAbsent(entry.getKey(), l -> {labels.add(l); return labels.size() - 1;});
+            to[i] = labelmap.computeIfAbsent(entry.getValue(), l -> {labels.add(l); return labels.size() - 1;});
+        }
+        int[] ranks = new PrimitiveAgony(labels.size(), from, to).computeAgony();
+        Map<E, Integer> result = new HashMap<>();
+        for(int i = 0; i < ranks.length; i++){
+            result.put(labels.get(i), ranks[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the ranks of all nodes.
+     * @return the rank of each node (ranks are consecutive and start at zero)
+     */
+    public int[] computeAgony(){
+        this.cycledfs();
+        this.initagony();
+        this.initrank();
+        LOGGER.info("computeAgony: Primal: {} Dual: {}", primal, dual);
+        this.minagony();
+        LOGGER.info("computeAgony finished: Dual: {}", dual);
+        return writeagony();
+    }
+
+    private int[] writeagony(){
+        int[] distinct = Arrays.copyOf(rank, numberOfNodes);
+        Arrays.sort(distinct);
+        int distinctCount = 0;
+        for(int i = 0; i < distinct.length; i++){
+            if(i == 0 || distinct[i] != distinct[i - 1])
+                distinct[distinctCount++] = distinct[i];
+        }
+        int[] result = new int[numberOfNodes];
+        for(int i = 0; i < numberOfNodes; i++){
+            result[i] = Arrays.binarySearch(distinct, 0, distinctCount, rank[i]);
+        }
+        return result;
+    }
+
+    private void cycledfs(){
+        Graph dfs = new Graph();
+        boolean[] inactive = new boolean[numberOfNodes];
+        int activeHead = 0;
+        int activeSize = numberOfNodes;
+        while(activeSize > 0){
+            while(inactive[activeHead])
+                activeHead++;
+            int seed = activeHead;
+            int u = seed;
+            parent[u] = -1;
+            while(u >= 0){
+                int e = dfs.outHead[u];
+                if(e < 0){
+                    inactive[u] = true;
+                    activeSize--;
+                    dfs.unbindNode(u);
+                    u = parent[u];
+                }else{
+                    int v = dfs.child[e];
+                    if(parent[v] < 0 && v != seed){
+                        parent[v] = u;
+                        parentEdge[v] = e;
+                        u = v;
+                    }else{
+                        for(int w = u; w != v; w = parent[w]){
+                            eulerian[parentEdge[w]] = true;
+                            dfs.unbind(parentEdge[w]);
+                        }
+                        eulerian[e] = true;
+                        dfs.unbind(e);
+
+                        int wnext;
+                        for(int w = u; w != v; w = wnext){
+                            wnext = parent[w];
+                            parent[w] = -1;
+                        }
+                        u = v;
+                    }
+                }
+            }
+        }
+    }
+
+    private void initagony(){
+        this.dag = new Graph();
+        this.euler = new Graph();
+        for(int i = 0; i < numberOfEdges; i++){
+            if(eulerian[i]){
+                dag.unbind(i);
+                dual++;
+            }else{
+                euler.unbind(i);
+            }
+        }
+        primal = dual;
+    }
+
+    private void initrank(){
+        int[] count = new int[numberOfNodes];
+        int[] sources = new int[numberOfNodes];
+        int top = 0;
+        for(int i = 0; i < numberOfNodes; i++){
+            count[i] = dag.inDegree[i];
+            if(count[i] == 0){
+                newrank[i] = 0;
+                rank[i] = 0;
+                sources[top++] = i;
+            }
+        }
+        while(top > 0){
+            int n = sources[--top];
+            for(int e = dag.outHead[n]; e >= 0; e = dag.outNext[e]){
+                int m = dag.child[e];
+                count[m]--;
+                int max = Math.max(rank[m], rank[n] + 1);
+                rank[m] = max;
+                newrank[m] = max;
+                if(count[m] == 0){
+                    sources[top++] = m;
+                }
+            }
+        }
+
+        Arrays.fill(slackHead, -1);
+        Arrays.fill(slackTail, -1);
+        this.curslack = -1;
+        for(int i = 0; i < numberOfEdges; i++){
+            if(eulerian[i])
+                addslack(i);
+            curslack = Math.max(slack(i), curslack);
+        }
+    }
+
+    private void minagony(){
+        while(true){
+            while(curslack >= 0 && slackHead[curslack] < 0){
+                curslack--;
+            }
+            if(curslack < 0)
+                break;
+            relief(slackHead[curslack]);
+            LOGGER.debug("Primal: {} Dual: {}", primal, dual);
+        }
+    }
+
+    private void relief(int edge){
+        int p = euler.parent[edge];
+        int s = euler.child[edge];
+
+        parent[p] = -1;
+        diff[p] = slack(p, s);
+        assert diff[p] > 0;
+
+        initQueues(diff[p]);
+        queueAdd(diff[p] - 1, p);
+        int curstack = diff[p] - 1;
+
+        nlCount = 0;
+        visitedCount = 0;
+        nl = add(nl, nlCount++, p);
+
+        int bound = 0;
+
+        while(true){
+            while(curstack >= 0 && queueSize[curstack] == 0){
+                curstack--;
+            }
+            if(curstack < bound){
+                break;
+            }
+            int u = queuePoll(curstack);
+            newrank[u] = rank[u] + diff[u];
+            visited = add(visited, visitedCount++, u);
+            diff[u] = 0;// diff = 0 means that u is no longer in the stack
+
+            if(u == s){
+                break;
+            }
+
+            for(int e = dag.outHead[u]; e >= 0; e = dag.outNext[e]){
+                int v = dag.child[e];
+                if(newrank[v] <= newrank[u]){
+                    int t = newrank[u] + 1 - newrank[v];
+                    if(v == s){
+                        bound = Math.max(bound, t);
+                    }
+                    if(t > diff[v]){
+                        moveInQueue(v, t);
+                        parent[v] = u;
+                        parentEdge[v] = e;
+                    }
+                }
+            }
+
+            for(int e = euler.inHead[u]; e >= 0; e = euler.inNext[e]){
+                int v = euler.parent[e];
+                int newslack = newslack(v, u);
+                int oldslack = slack(v, u);
+                if(newslack > oldslack){
+                    int t = newslack - oldslack;
+                    if(v == s){
+                        bound = Math.max(bound, t);
+                    }
+                    if(t > diff[v]){
+                        moveInQueue(v, t);
+                        parent[v] = u;
+                        parentEdge[v] = e;
+                    }
+                }
+            }
+        }
+
+        if(curstack >= 0){
+            for(int i = 0; i < visitedCount; i++){
+                newrank[visited[i]] -= curstack + 1;
+            }
+        }
+        updaterelief();
+        if(slack(p, s) != 0){
+            extractcycle(edge);
+        }
+    }
+
+    private void moveInQueue(int v, int t){
+        if(diff[v] > 0){
+            queueRemove(diff[v] - 1, v);
+        }else{
+            nl = add(nl, nlCount++, v);
+        }
+        diff[v] = t;
+        queueAdd(diff[v] - 1, v);
+    }
+
+    private void updaterelief(){
+        for(int i = 0; i < nlCount; i++){
+            int n = nl[i];
+            rank[n] = newrank[n];
+            diff[n] = 0;
+        }
+        for(int i = 0; i < nlCount; i++){
+            int u = nl[i];
+            for(int e = euler.outHead[u]; e >= 0; e = euler.outNext[e]){
+                int v = edgeTo[e];
+                if(slack(u, v) != slack[e]){
+                    deleteslack(e);
+                    addslack(e);
+                }
+            }
+        }
+    }
+
+    private void extractcycle(int eid){
+        int p = euler.parent[eid];
+        int s = euler.child[eid];
+        for(int u = s; u != p; u = parent[u]){
+            int f = parentEdge[u];
+            if(eulerian[f]){
+                eulerian[f] = false;
+                euler.unbind(f);
+                dag.bind(f, u, parent[u]);
+                deleteslack(f);
+                dual--;
+                primal--;
+            }else{
+                eulerian[f] = true;
+                dag.unbind(f);
+                euler.bind(f, parent[u], u);
+                addslack(f);
+                dual++;
+                primal++;
+            }
+        }
+        eulerian[eid] = false;
+        euler.unbind(eid);
+        dag.bind(eid, p, s);
+        dual--;
+        primal--;
+        deleteslack(eid);
+    }
+
+    private void deleteslack(int eid){
+        int t = slack[eid];
+        if(t > 0 && slackList[eid] == t - 1){
+            int prev = slackPrev[eid];
+            int next = slackNext[eid];
+            if(prev < 0)
+                slackHead[t - 1] = next;
+            else
+                slackNext[prev] = next;
+            if(next < 0)
+                slackTail[t - 1] = prev;
+            else
+                slackPrev[next] = prev;
+            slackList[eid] = -1;
+        }
+        this.primal -= t;
+    }
+
+    private void addslack(int eid){
+        int t = slack(eid);
+        slack[eid] = t;
+        if(t > 0){
+            int list = t - 1;
+            slackPrev[eid] = slackTail[list];
+            slackNext[eid] = -1;
+            if(slackTail[list] < 0)
+                slackHead[list] = eid;
+            else
+                slackNext[slackTail[list]] = eid;
+            slackTail[list] = eid;
+            slackList[eid] = list;
+        }
+        this.primal += t;
+    }
+
+    private int slack(int v, int u){
+        if(rank[u] > rank[v] + 1){
+            return rank[u] - rank[v] - 1;
+        }
+        return 0;
+    }
+
+    private int newslack(int v, int u){
+        if(newrank[u] > newrank[v] + 1){
+            return newrank[u] - newrank[v] - 1;
+        }
+        return 0;
+    }
+
+    private int slack(int eid){
+        return slack(edgeFrom[eid], edgeTo[eid]);
+    }
+
+    //relief queues
+
+    private void initQueues(int numberOfQueues){
+        if(queueHead.length < numberOfQueues){
+            int capacity = Math.max(numberOfQueues, queueHead.length * 2);
+            queueHead = new int[capacity];
+            queueTail = new int[capacity];
+            queueSize = new int[capacity];
+        }
+        Arrays.fill(queueHead, 0, numberOfQueues, -1);
+        Arrays.fill(queueTail, 0, numberOfQueues, -1);
+        Arrays.fill(queueSize, 0, numberOfQueues, 0);
+        entryCount = 0;
+        removed.clear();
+    }
+
+    private void queueAdd(int queue, int node){
+        if(entryCount == entryNode.length){
+            entryNode = Arrays.copyOf(entryNode, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        int entry = entryCount++;
+        entryNode[entry] = node;
+        entryNext[entry] = -1;
+        if(queueTail[queue] < 0)
+            queueHead[queue] = entry;
+        else
+            entryNext[queueTail[queue]] = entry;
+        queueTail[queue] = entry;
+        queueSize[queue]++;
+    }
+
+    private int queuePoll(int queue){
+        while(true){
+            int entry = queueHead[queue];
+            queueHead[queue] = entryNext[entry];
+            if(queueHead[queue] < 0)
+                queueTail[queue] = -1;
+            int node = entryNode[entry];
+            if(removed.remove(key(queue, node))){
+                continue;
+            }
+            queueSize[queue]--;
+            return node;
+        }
+    }
+
+    /**
+     * Removes the node lazily from the queue: like {@link AgonyQueue#remove(AgonyNode) } the node is stored in a set of removed nodes of this queue
+     * and skipped when it is reached.
+     * @param queue the queue
+     * @param node the node
+     */
+    private void queueRemove(int queue, int node){
+        removed.add(key(queue, node));
+        queueSize[queue]--;
+    }
+
+    private static long key(int queue, int node){
+        return ((long) queue << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    private static int[] add(int[] array, int position, int value){
+        if(position == array.length)
+            array = Arrays.copyOf(array, array.length * 2);
+        array[position] = value;
+        return array;
+    }
+
+    /**
+     * Graph with doubly linked in and out lists of edge ids (same order as the linked lists in {@link AgonyGraphNode}).
+     * A new graph contains all edges of the input graph (bound in the order of the edge ids).
+     */
+    private class Graph {
+        private final int[] parent;
+        private final int[] child;
+        private final boolean[] bound;
+        private final int[] outHead;
+        private final int[] outTail;
+        private final int[] outNext;
+        private final int[] outPrev;
+        private final int[] inHead;
+        private final int[] inTail;
+        private final int[] inNext;
+        private final int[] inPrev;
+        private final int[] inDegree;
+
+        Graph(){
+            this.parent = new int[numberOfEdges];
+            this.child = new int[numberOfEdges];
+            this.bound = new boolean[numberOfEdges];
+            this.outHead = new int[numberOfNodes];
+            this.outTail = new int[numberOfNodes];
+            this.outNext = new int[numberOfEdges];
+            this.outPrev = new int[numberOfEdges];
+            this.inHead = new int[numberOfNodes];
+            this.inTail = new int[numberOfNodes];
+            this.inNext = new int[numberOfEdges];
+            this.inPrev = new int[numberOfEdges];
+            this.inDegree = new int[numberOfNodes];
+            Arrays.fill(outHead, -1);
+            Arrays.fill(outTail, -1);
+            Arrays.fill(inHead, -1);
+            Arrays.fill(inTail, -1);
+            for(int e = 0; e < numberOfEdges; e++){
+                bind(e, edgeFrom[e], edgeTo[e]);
+            }
+        }
+
+        void bind(int e, int n, int m){
+            outPrev[e] = outTail[n];
+            outNext[e] = -1;
+            if(outTail[n] < 0)
+                outHead[n] = e;
+            else
+                outNext[outTail[n]] = e;
+            outTail[n] = e;
+
+            inPrev[e] = inTail[m];
+            inNext[e] = -1;
+            if(inTail[m] < 0)
+                inHead[m] = e;
+            else
+                inNext[inTail[m]] = e;
+            inTail[m] = e;
+            inDegree[m]++;
+
+            bound[e] = true;
+            parent[e] = n;
+            child[e] = m;
+        }
+
+        void unbind(int e){
+            if(bound[e] == false)
+                return;
+            int n = parent[e];
+            if(outPrev[e] < 0)
+                outHead[n] = outNext[e];
+            else
+                outNext[outPrev[e]] = outNext[e];
+            if(outNext[e] < 0)
+                outTail[n] = outPrev[e];
+            else
+                outPrev[outNext[e]] = outPrev[e];
+
+            int m = child[e];
+            if(inPrev[e] < 0)
+                inHead[m] = inNext[e];
+            else
+                inNext[inPrev[e]] = inNext[e];
+            if(inNext[e] < 0)
+                inTail[m] = inPrev[e];
+            else
+                inPrev[inNext[e]] = inPrev[e];
+            inDegree[m]--;
+
+            bound[e] = false;
+        }
+
+        void unbindNode(int n){
+            while(outHead[n] >= 0)
+                unbind(outHead[n]);
+            while(inHead[n] >= 0)
+                unbind(inHead[n]);
+        }
+    }
+
+    /**
+     * Open addressing hash set of long values (linear probing, backward shift deletion).
+     * Clearing is done in constant time by increasing the generation.
+     */
+    private static class LongSet {
+        private long[] keys;
+        private int[] generations;
+        private int generation;
+        private int size;
+        private int mask;
+
+        LongSet(){
+            this.keys = new long[64];
+            this.generations = new int[64];
+            this.generation = 1;
+            this.size = 0;
+            this.mask = 63;
+        }
+
+        void clear(){
+            if(size == 0)
+                return;
+            generation++;
+            size = 0;
+            if(generation == Integer.MAX_VALUE){
+                Arrays.fill(generations, 0);
+                generation = 1;
+            }
+        }
+
+        private int slot(long key){
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        boolean add(long key){
+            if((size + 1) * 2 > keys.length)
+                grow();
+            int i = slot(key);
+            while(generations[i] == generation){
+                if(keys[i] == key)
+                    return false;
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            generations[i] = generation;
+            size++;
+            return true;
+        }
+
+        boolean remove(long key){
+            if(size == 0)
+                return false;
+            int i = slot(key);
+            while(generations[i] == generation){
+                if(keys[i] == key){
+                    generations[i] = 0;
+                    size--;
+                    //shift following entries back to keep the probe sequences intact
+                    int free = i;
+                    int j = (i + 1) & mask;
+                    while(generations[j] == generation){
+                        int home = slot(keys[j]);
+                        boolean between = free <= j ? (free < home && home <= j) : (free < home || home <= j);
+                        if(between == false){
+                            keys[free] = keys[j];
+                            generations[free] = generation;
+                            generations[j] = 0;
+                            free = j;
+                        }
+                        j = (j + 1) & mask;
+                    }
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        private void grow(){
+            long[] oldKeys = keys;
+            int[] oldGenerations = generations;
+            int oldGeneration = generation;
+            keys = new long[oldKeys.length * 2];
+            generations = new int[oldKeys.length * 2];
+            mask = keys.length - 1;
+            generation = 1;
+            size = 0;
+            for(int i = 0; i < oldKeys.length; i++){
+                if(oldGenerations[i] == oldGeneration)
+                    add(oldKeys[i]);
+            }
+        }
+    }
+}
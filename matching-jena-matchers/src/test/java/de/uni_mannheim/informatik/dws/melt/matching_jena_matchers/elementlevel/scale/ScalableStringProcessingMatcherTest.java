@@ -7,6 +7,7 @@ import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Corresponde
 import java.util.Arrays;
 import java.util.Properties;
 import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.RDFS;
@@ -88,4 +89,43 @@ public class ScalableStringProcessingMatcherTest {
         assertTrue(a.contains(new Correspondence("http://source.de/one", "http://target.de/one", CorrespondenceRelation.EQUIVALENCE)));
         assertEquals(1, a.size());
     }
+    
+    @Test
+    void parallelMatchingIsEqualToSequential() throws Exception {
+        OntModel source = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        OntModel target = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        for(int i = 0; i < 500; i++){
+            source.createIndividual("http://source.de/" + i, OWL.Thing)
+                .addLiteral(RDFS.label, "entity number " + i)
+                .addLiteral(SKOS.altLabel, "alternative " + (i % 50));
+            target.createIndividual("http://target.de/" + i, OWL.Thing)
+                .addLiteral(RDFS.label, (i % 3 == 0 ? "ENTITY NUMBER " : "entity numbr ") + i)
+                .addLiteral(SKOS.altLabel, "alternative " + (i % 70));
+        }
+        ScalableStringProcessingMatcher matcher = new ScalableStringProcessingMatcher(Arrays.asList(
+                new PropertySpecificStringProcessing(text -> text, 1.0, RDFS.label),
+                new PropertySpecificStringProcessing(text -> text.toLowerCase(), 0.9, Arrays.asList(new ValueExtractorProperty(RDFS.label)), 1, 5),
+                new PropertySpecificStringProcessing(text -> text, 0.5, SKOS.altLabel)
+        ));
+        matcher.setEarlyStopping(false);
+        Alignment sequential = matcher.match(source, target, new Alignment(), new Properties());
+        
+        matcher.setNumberOfThreads(4);
+        Alignment parallel = matcher.match(source, target, new Alignment(), new Properties());
+        
+        assertTrue(sequential.size() > 1000);
+        assertEquals(sequential.size(), parallel.size());
+        for(Correspondence c : sequential){
+            Correspondence p = parallel.getCorrespondence(c.getEntityOne(), c.getEntityTwo(), c.getRelation());
+            assertNotNull(p);
+            assertEquals(c.getConfidence(), p.getConfidence());
+        }
+        
+        //models with reasoner are read synchronized
+        OntModel sourceInf = ModelFactory.createOntologyModel();
+        sourceInf.add(source);
+        OntModel targetInf = ModelFactory.createOntologyModel();
+        targetInf.add(target);
+        assertEquals(sequential.size(), matcher.match(sourceInf, targetInf, new Alignment(), new Properties()).size());
+    }
 }
@@ -0,0 +1,35 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter;
+
+import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.instance.SimilarHierarchyFilter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import org.apache.jena.ontology.Individual;
+import org.apache.jena.ontology.OntClass;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimilarHierarchyFilterTest {
+    private static final String NS = "http://example.com/";
+
+    @Test
+    void testHierarchyLevelsContainParentlessTypes() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        OntClass person = model.createClass(NS + "Person");
+        OntClass student = model.createClass(NS + "Student");
+        student.addSuperClass(person);
+        model.createClass(NS + "Unconnected");
+        Individual alice = model.createIndividual(NS + "alice", student);
+        alice.addRDFType(person);
+        alice.addRDFType(model.getOntClass(NS + "Unconnected"));
+
+        // Person has no parent but it is the parent of the other type Student
+        Map<String, Double> levels = new SimilarHierarchyFilter().getNormalizedHierarchyLevels(alice);
+        assertEquals(new HashSet<>(Arrays.asList(NS + "Person", NS + "Student")), levels.keySet());
+        assertEquals(new HashSet<>(Arrays.asList(0.0, 1.0)), new HashSet<>(levels.values()));
+    }
+}
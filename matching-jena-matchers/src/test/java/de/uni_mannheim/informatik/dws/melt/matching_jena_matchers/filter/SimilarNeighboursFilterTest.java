@@ -0,0 +1,78 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter;
+
+import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.filter.instance.SimilarNeighboursFilter;
+import de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.util.SetSimilarity;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import java.util.HashSet;
+import java.util.Properties;
+import org.apache.jena.ontology.OntClass;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class SimilarNeighboursFilterTest {
+    private static final String namespaceSource = "http://melt.dws.informatik.uni-mannheim.de/source/";
+    private static final String namespaceTarget = "http://melt.dws.informatik.uni-mannheim.de/target/";
+    
+    @Test
+    void testFilter() throws Exception {
+        OntModel source = generate(namespaceSource, "Label");
+        OntModel target = generate(namespaceTarget, "label");
+        target.getIndividual(namespaceTarget + "a").addProperty(target.getProperty(namespaceTarget + "p"), 
+                target.getOntClass(namespaceTarget + "Class").createIndividual(namespaceTarget + "e"));
+        
+        //resource neighbours of a: b, c, d (ingoing) in source and additionally e in target
+        SimilarNeighboursFilter filter = new SimilarNeighboursFilter(0.5, p -> true, l -> l.getLexicalForm(), r -> new HashSet<>(), 2.0, SetSimilarity.ABSOLUTE);
+        Alignment filtered = filter.match(source, target, generateAlignment(), new Properties());
+        assertEquals(2, filtered.size());
+        Correspondence a = filtered.getCorrespondence(namespaceSource + "a", namespaceTarget + "a", generateAlignment().iterator().next().getRelation());
+        assertNotNull(a);
+        //b and d are mapped neighbours, c is below the minimal resource confidence and the literals are different
+        assertEquals(2.0, a.getAdditionalConfidence(SimilarNeighboursFilter.class));
+        assertNotNull(filtered.getCorrespondence(namespaceSource + "p", namespaceTarget + "p", a.getRelation())); // not an individual
+        
+        //literals are compared after processing
+        filter = new SimilarNeighboursFilter(0.5, p -> true, l -> l.getLexicalForm().toLowerCase(), r -> new HashSet<>(), 3.0, SetSimilarity.ABSOLUTE);
+        filter.setAddNeighboursToCorrespondence(true);
+        filtered = filter.match(source, target, generateAlignment(), new Properties());
+        assertEquals(2, filtered.size());
+        assertEquals(3.0, filtered.getCorrespondence(namespaceSource + "a", namespaceTarget + "a", a.getRelation()).getAdditionalConfidence(SimilarNeighboursFilter.class));
+        
+        //each of b, c and d has only a as (mapped) neighbour
+        filter = new SimilarNeighboursFilter(0.5, p -> true, l -> l.getLexicalForm(), r -> new HashSet<>(), 1.0, SetSimilarity.ABSOLUTE);
+        assertEquals(5, filter.match(source, target, generateAlignment(), new Properties()).size());
+        //without ingoing edges, b and c have no mapped neighbours
+        filter.setUseIngoing(false);
+        assertEquals(3, filter.match(source, target, generateAlignment(), new Properties()).size());
+    }
+    
+    private Alignment generateAlignment(){
+        Alignment alignment = new Alignment();
+        alignment.add(namespaceSource + "a", namespaceTarget + "a", 0.9);
+        alignment.add(namespaceSource + "b", namespaceTarget + "b", 0.8);
+        alignment.add(namespaceSource + "c", namespaceTarget + "c", 0.3);
+        alignment.add(namespaceSource + "d", namespaceTarget + "d", 0.9);
+        alignment.add(namespaceSource + "p", namespaceTarget + "p", 0.9);
+        return alignment;
+    }
+    
+    private OntModel generate(String namespace, String label){
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        OntClass clazz = model.createClass(namespace + "Class");
+        Property p = model.createObjectProperty(namespace + "p");
+        Property q = model.createDatatypeProperty(namespace + "q");
+        Resource a = clazz.createIndividual(namespace + "a");
+        a.addProperty(p, clazz.createIndividual(namespace + "b"));
+        a.addProperty(p, clazz.createIndividual(namespace + "c"));
+        a.addProperty(q, label);
+        clazz.createIndividual(namespace + "d").addProperty(p, a);
+        return model;
+    }
+}
@@ -94,7 +94,7 @@ public class TestExtractors {
     @Test
     void testMaxWeightBipartiteExtractor() throws Exception {
         //same checks as in hungarian
-        for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.NAIVE, MwbInitHeuristic.SIMPLE)){
+        for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.values())){
             Alignment aFiltered = MaxWeightBipartiteExtractor.filter(new Alignment(caseA), init);
             assertEquals(3, aFiltered.size());
             assertTrue(aFiltered.containsAll(Arrays.asList(a1, a5, a10)));
@@ -112,7 +112,7 @@ public class TestExtractors {
     void testRandomAlignment() throws SAXException, IOException{
         Alignment caseD = new Alignment(TestExtractors.class.getClassLoader().getResourceAsStream("randomAlignmentForTestingExtractors.xml"));
         Alignment hungarian = HungarianExtractor.filter(new Alignment(caseD));         
-        for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.NAIVE, MwbInitHeuristic.SIMPLE)){
+        for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.values())){
             Alignment mwbge = MaxWeightBipartiteExtractor.filter(new Alignment(caseD), init);
             assertEquals(hungarian, mwbge);
         }
@@ -123,7 +123,7 @@ public class TestExtractors {
         //random.serialize(new File("targetSmallerThanSource.xml"));
         Alignment caseE = new Alignment(TestExtractors.class.getClassLoader().getResourceAsStream("targetSmallerThanSource.xml"));
         hungarian = HungarianExtractor.filter(new Alignment(caseE));
-        for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.NAIVE, MwbInitHeuristic.SIMPLE)){
+        for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.values())){
             Alignment mwbge = MaxWeightBipartiteExtractor.filter(new Alignment(caseE), init);
             assertEquals(hungarian, mwbge);
         }        
@@ -133,7 +133,7 @@ public class TestExtractors {
         for(int i=0; i<10; i++){
             Alignment random = randomAlignment(500,500,1000);
             Alignment hungarianRandom = HungarianExtractor.filter(new Alignment(random)); 
-            for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.NAIVE, MwbInitHeuristic.SIMPLE)){
+            for(MwbInitHeuristic init : Arrays.asList(MwbInitHeuristic.values())){
                 Alignment mwbgeRandom = MaxWeightBipartiteExtractor.filter(new Alignment(random), init);
                 assertEquals(hungarianRandom, mwbgeRandom);
             }
@@ -142,6 +142,60 @@ public class TestExtractors {
     }
     
     
+    @Test
+    void testMaxWeightBipartiteExtractorComponents() throws SAXException, IOException{
+        //many small components (also 1:1 and 1:n components) and one larger component
+        Alignment caseF = new Alignment(caseA);
+        caseF.add("http://one.com", "http://two.com", 0.7);
+        caseF.add("http://single.com", "http://first.com", 0.3);
+        caseF.add("http://single.com", "http://second.com", 0.8);
+        caseF.add("http://zero.com", "http://zero.com", 0.0);
+        Random r = new Random(1234);
+        for(int i = 0; i < 200; i++){
+            for(int j = 0; j < 5; j++){
+                caseF.add("http://source.com/" + i + "/" + r.nextInt(4), "http://target.com/" + i + "/" + r.nextInt(4), r.nextDouble());
+            }
+        }
+        Alignment hungarian = HungarianExtractor.filter(new Alignment(caseF));
+        assertTrue(hungarian.contains(new Correspondence("http://single.com", "http://second.com", 0.8)));
+        for(MwbInitHeuristic init : MwbInitHeuristic.values()){
+            assertEquals(hungarian, MaxWeightBipartiteExtractor.filter(new Alignment(caseF), init));
+            assertEquals(hungarian, MaxWeightBipartiteExtractor.filter(new Alignment(caseF), init, 4));
+        }
+        
+        Alignment caseE = new Alignment(TestExtractors.class.getClassLoader().getResourceAsStream("targetSmallerThanSource.xml"));
+        assertEquals(HungarianExtractor.filter(new Alignment(caseE)), MaxWeightBipartiteExtractor.filter(new Alignment(caseE), MwbInitHeuristic.REFINED, 4));
+    }
+    
+    @Test
+    void testSparseAssignmentExtractor() throws SAXException, IOException{
+        //same checks as in hungarian
+        Alignment aFiltered = SparseAssignmentExtractor.filter(new Alignment(caseA));
+        assertEquals(3, aFiltered.size());
+        assertTrue(aFiltered.containsAll(Arrays.asList(a1, a5, a10)));
+
+        Alignment bFiltered = SparseAssignmentExtractor.filter(new Alignment(caseB));
+        assertEquals(2, bFiltered.size());
+
+        Alignment cFiltered = SparseAssignmentExtractor.filter(new Alignment(caseC));
+        assertEquals(2, cFiltered.size());
+        assertTrue(cFiltered.containsAll(Arrays.asList(c2, c3)));
+        
+        for(String file : Arrays.asList("randomAlignmentForTestingExtractors.xml", "targetSmallerThanSource.xml")){
+            Alignment alignment = new Alignment(TestExtractors.class.getClassLoader().getResourceAsStream(file));
+            assertEquals(HungarianExtractor.filter(new Alignment(alignment)), SparseAssignmentExtractor.filter(new Alignment(alignment)));
+        }
+        
+        Random r = new Random(42);
+        for(int i = 0; i < 20; i++){
+            Alignment random = new Alignment();
+            for(int j = 0; j < 150; j++){
+                random.add("http://source.com/resource/" + r.nextInt(60), "http://target.com/resource/" + r.nextInt(40), r.nextDouble());
+            }
+            assertEquals(HungarianExtractor.filter(new Alignment(random)), SparseAssignmentExtractor.filter(new Alignment(random)));
+        }
+    }
+    
     private static Alignment randomAlignment(int conceptsSource, int conceptsTargets, int correspondences){
         Random r = new Random();
         Alignment a = new Alignment();
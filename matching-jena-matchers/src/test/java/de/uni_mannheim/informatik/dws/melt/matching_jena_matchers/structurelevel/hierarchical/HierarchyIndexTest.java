@@ -0,0 +1,128 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import org.apache.jena.ontology.OntClass;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyIndexTest {
+    private static final String NS = "http://example.com/";
+    
+    @Test
+    void testQueries() {
+        OntModel model = generate();
+        HierarchyIndex index = HierarchyIndex.get(model, RDFS.subClassOf);
+        assertSame(index, HierarchyIndex.get(model, RDFS.subClassOf));
+        
+        int thing = id(index, "Thing");
+        int person = id(index, "Person");
+        int student = id(index, "Student");
+        int employee = id(index, "Employee");
+        int workingStudent = id(index, "WorkingStudent");
+        int university = id(index, "University");
+        int x = id(index, "X");
+        
+        assertTrue(index.isAncestor(thing, workingStudent));
+        assertTrue(index.isAncestor(student, student));
+        assertFalse(index.isAncestor(student, employee));
+        assertEquals(4, index.getDistanceToAncestor(workingStudent, thing)); //WorkingStudent -> Student -> Person -> Agent -> Thing
+        assertEquals(-1, index.getDistanceToAncestor(thing, person));
+        assertEquals(0, index.getDepth(thing));
+        assertEquals(4, index.getDepth(workingStudent));
+        
+        assertEquals(2, index.getDistance(student, employee));
+        assertEquals(Arrays.asList(person), index.getLowestCommonAncestors(student, employee));
+        assertEquals(4, index.getDistance(student, university));
+        assertEquals(-1, index.getDistance(student, x));
+        assertTrue(index.getLowestCommonAncestors(student, x).isEmpty());
+        
+        //cycles are allowed
+        int y = id(index, "Y");
+        assertTrue(index.isAncestor(x, y));
+        assertTrue(index.isAncestor(y, x));
+        
+        //same result as a breadth first search from the types
+        Map<Resource, Integer> distances = index.getAncestorDistances(Arrays.asList(model.getResource(NS + "Student"), model.getResource(NS + "Employee"), model.getResource(NS + "Unknown")));
+        assertEquals(6, distances.size());
+        assertEquals(0, distances.get(model.getResource(NS + "Employee")));
+        assertEquals(0, distances.get(model.getResource(NS + "Unknown")));
+        assertEquals(1, distances.get(model.getResource(NS + "Person")));
+        assertEquals(3, distances.get(model.getResource(NS + "Thing")));
+        
+        //agony levels: a child is below its parent
+        assertTrue(index.getHierarchyLevel(student) != index.getHierarchyLevel(person));
+        assertEquals(2, Math.abs(index.getHierarchyLevel(thing) - index.getHierarchyLevel(person)));
+    }
+    
+    @Test
+    void testIndexIsRemovedOnChange() {
+        OntModel model = generate();
+        HierarchyIndex index = HierarchyIndex.get(model, RDFS.subClassOf);
+        assertTrue(model.getGraph().getEventManager().listening());
+        model.getOntClass(NS + "X").addSuperClass(model.getOntClass(NS + "Thing"));
+        //no index of the model is left, thus the listener is unregistered
+        assertFalse(model.getGraph().getEventManager().listening());
+        HierarchyIndex newIndex = HierarchyIndex.get(model, RDFS.subClassOf);
+        assertNotSame(index, newIndex);
+        assertTrue(newIndex.isAncestor(id(newIndex, "Thing"), id(newIndex, "Y")));
+    }
+    
+    @Test
+    void testIndexDoesNotKeepModelReachable() throws InterruptedException {
+        WeakReference<OntModel> reference = createIndexedModel();
+        for(int i = 0; i < 50 && reference.get() != null; i++){
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+    }
+    
+    private static WeakReference<OntModel> createIndexedModel(){
+        OntModel model = generate();
+        HierarchyIndex index = HierarchyIndex.get(model, model.getProperty(RDFS.subClassOf.getURI()));
+        assertEquals(4, index.getDepth(id(index, "WorkingStudent")));
+        assertEquals(6, index.getAncestorDistances(Arrays.asList(model.getResource(NS + "WorkingStudent"))).size());
+        index.getHierarchyLevel(id(index, "Thing"));
+        return new WeakReference<>(model);
+    }
+    
+    private static int id(HierarchyIndex index, String localName){
+        for(int i = 0; i < index.size(); i++){
+            if(index.getResource(i).getURI().equals(NS + localName))
+                return i;
+        }
+        return -1;
+    }
+    
+    private static OntModel generate(){
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        OntClass thing = model.createClass(NS + "Thing");
+        OntClass agent = model.createClass(NS + "Agent");
+        agent.addSuperClass(thing);
+        OntClass person = model.createClass(NS + "Person");
+        person.addSuperClass(agent);
+        OntClass organisation = model.createClass(NS + "Organisation");
+        organisation.addSuperClass(agent);
+        model.createClass(NS + "University").addSuperClass(organisation);
+        OntClass student = model.createClass(NS + "Student");
+        student.addSuperClass(person);
+        OntClass employee = model.createClass(NS + "Employee");
+        employee.addSuperClass(person);
+        OntClass workingStudent = model.createClass(NS + "WorkingStudent");
+        workingStudent.addSuperClass(student);
+        workingStudent.addSuperClass(employee);
+        OntClass x = model.createClass(NS + "X");
+        OntClass y = model.createClass(NS + "Y");
+        x.addSuperClass(y);
+        y.addSuperClass(x);
+        return model;
+    }
+}
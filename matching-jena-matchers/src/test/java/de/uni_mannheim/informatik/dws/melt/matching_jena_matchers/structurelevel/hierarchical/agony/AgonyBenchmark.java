@@ -0,0 +1,92 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena_matchers.structurelevel.hierarchical.agony;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark which compares {@link Agony} with {@link PrimitiveAgony}.
+ * It is not executed during the build. Run the main method (with the test classpath) to execute it.
+ * The graphs are the Wiki-Vote graph of the test resources and a generated class hierarchy (a tree with additional
+ * parents and some edges pointing downwards which create cycles). For allocation numbers add the gc profiler (-prof gc).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgonyBenchmark {
+
+    @Param({"wikivote", "hierarchy"})
+    private String graph;
+
+    @Param({"object", "primitive"})
+    private String implementation;
+
+    private List<Entry<String, String>> edges;
+
+    @Setup(Level.Trial)
+    public void setup() throws URISyntaxException{
+        if(graph.equals("wikivote")){
+            File file = Paths.get(AgonyBenchmark.class.getClassLoader().getResource("Wiki-Vote.txt").toURI()).toFile();
+            this.edges = Agony.readEdges(file);
+        }else{
+            this.edges = generateHierarchy(100_000, new Random(1234));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> computeAgony(){
+        if(implementation.equals("primitive"))
+            return PrimitiveAgony.computeAgony(edges);
+        return new Agony<>(edges).computeAgony();
+    }
+
+    private static List<Entry<String, String>> generateHierarchy(int numberOfNodes, Random rnd){
+        List<Entry<String, String>> list = new ArrayList<>();
+        for(int i = 1; i < numberOfNodes; i++){
+            String child = "http://example.com/class" + i;
+            list.add(new SimpleEntry<>(child, "http://example.com/class" + rnd.nextInt(i)));
+            if(rnd.nextInt(10) == 0){
+                //multiple inheritance
+                list.add(new SimpleEntry<>(child, "http://example.com/class" + rnd.nextInt(i)));
+            }
+            if(rnd.nextInt(100) == 0){
+                //edge to a descendant or an unrelated class (may create a cycle)
+                list.add(new SimpleEntry<>("http://example.com/class" + rnd.nextInt(i), child));
+            }
+        }
+        return list;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AgonyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
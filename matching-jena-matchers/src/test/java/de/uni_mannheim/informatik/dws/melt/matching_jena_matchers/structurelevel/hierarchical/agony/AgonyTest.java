@@ -7,8 +7,13 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +35,27 @@ public class AgonyTest {
         assertEquals(wikivoteResult, wikiVoteAgony);
     }
     
+    @Test
+    void testWikiVotePrimitive() {
+        Map<String, Integer> wikivoteResult = readResult(getResourceFile("Wiki-Vote_result.txt"));
+        Map<String, Integer> wikiVoteAgony = PrimitiveAgony.computeAgony(Agony.readEdges(getResourceFile("Wiki-Vote.txt")));
+        assertEquals(wikivoteResult, wikiVoteAgony);
+    }
+    
+    @Test
+    void testPrimitiveSameAsAgony() {
+        Random rnd = new Random(1234);
+        for(int run = 0; run < 200; run++){
+            int nodes = 2 + rnd.nextInt(40);
+            int numberOfEdges = 1 + rnd.nextInt(nodes * 3);
+            List<Entry<Integer, Integer>> edges = new ArrayList<>();
+            for(int i = 0; i < numberOfEdges; i++){
+                edges.add(new SimpleEntry<>(rnd.nextInt(nodes), rnd.nextInt(nodes)));
+            }
+            assertEquals(new Agony<>(edges).computeAgony(), PrimitiveAgony.computeAgony(edges), "Different ranks for edges " + edges);
+        }
+    }
+    
     //Util methods:
     
     private File getResourceFile(String resource){
@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.melt.matching_jena;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.PipelineInstrumentation;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 
 import java.util.Arrays;
@@ -25,7 +26,8 @@ public class MatcherPipelineYAAAJenaConstructor extends MatcherYAAAJena{
     @Override
     public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
         for(MatcherYAAAJena matcher : this.matchers){
-             inputAlignment = matcher.match(source, target, inputAlignment, properties);
+             final Alignment stageInput = inputAlignment;
+             inputAlignment = PipelineInstrumentation.measure(PipelineInstrumentation.getStageName(matcher), stageInput, () -> matcher.match(source, target, stageInput, properties));
         }
         return inputAlignment;
     }
@@ -0,0 +1,284 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena;
+
+import de.uni_mannheim.informatik.dws.melt.matching_base.PipelineInstrumentation;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.jena.ontology.OntModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pipeline of Jena matchers whose stages form a directed acyclic graph (DAG) instead of a sequence.
+ * Each stage names the stages it depends on:
+ * <ul>
+ * <li>a stage without predecessors receives (a copy of) the input alignment of the pipeline</li>
+ * <li>a stage with one predecessor receives the alignment of the predecessor</li>
+ * <li>a stage with multiple predecessors receives the merged alignments of the predecessors</li>
+ * </ul>
+ * The result of the pipeline is the (merged) alignment of all stages which have no successor.
+ * Stages which do not depend on each other are executed concurrently and share the same source and target OntModel.
+ * Thus the stages should only read the models.
+ * <pre>{@code
+ * new MatcherPipelineYAAAJenaDAG(MergeStrategy.ADDITIONAL_CONFIDENCE)
+ *     .addStage("label", new LabelMatcher())
+ *     .addStage("comment", new CommentMatcher())
+ *     .addStage("combine", new ConfidenceCombiner(), "label", "comment");
+ * }</pre>
+ * Stages have to be added in topological order (all predecessors before the stage) which also rules out cycles.
+ */
+public class MatcherPipelineYAAAJenaDAG extends MatcherYAAAJena {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatcherPipelineYAAAJenaDAG.class);
+
+    /**
+     * The strategy to merge the alignments of multiple stages.
+     */
+    public enum MergeStrategy {
+        /**
+         * Union of all correspondences. If a correspondence is found by multiple stages, the highest confidence is used.
+         */
+        MAX_CONFIDENCE,
+        /**
+         * Same as {@link #MAX_CONFIDENCE} but additionally the confidence of each stage is added as additional confidence
+         * with the stage name as key (0.0 if the stage did not find the correspondence).
+         * This allows to combine the confidences later on e.g. with a ConfidenceCombiner.
+         */
+        ADDITIONAL_CONFIDENCE
+    }
+
+    private final Map<String, MatcherYAAAJena> stages;
+    private final Map<String, List<String>> predecessors;
+    private final MergeStrategy mergeStrategy;
+    private final int numberOfThreads;
+
+    /**
+     * Constructor which uses as many threads as processors are available.
+     * @param mergeStrategy the strategy to merge alignments of multiple stages
+     */
+    public MatcherPipelineYAAAJenaDAG(MergeStrategy mergeStrategy) {
+        this(mergeStrategy, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * @param mergeStrategy the strategy to merge alignments of multiple stages
+     * @param numberOfThreads the maximum number of stages which are executed concurrently
+     */
+    public MatcherPipelineYAAAJenaDAG(MergeStrategy mergeStrategy, int numberOfThreads) {
+        this.stages = new LinkedHashMap<>();
+        this.predecessors = new HashMap<>();
+        this.mergeStrategy = mergeStrategy;
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+    }
+
+    /**
+     * Adds a stage to the pipeline.
+     * @param name the unique name of the stage (also used as key for additional confidences)
+     * @param matcher the matcher of this stage
+     * @param dependsOn the names of the stages which have to be executed before (they need to be already added)
+     * @return this pipeline (for chaining)
+     */
+    public MatcherPipelineYAAAJenaDAG addStage(String name, MatcherYAAAJena matcher, String... dependsOn) {
+        if (this.stages.containsKey(name))
+            throw new IllegalArgumentException("A stage with name " + name + " already exists in the pipeline.");
+        for (String predecessor : dependsOn) {
+            if (!this.stages.containsKey(predecessor))
+                throw new IllegalArgumentException("The stage " + name + " depends on stage " + predecessor
+                        + " which is not added before. Add the stages in topological order.");
+        }
+        this.stages.put(name, matcher);
+        this.predecessors.put(name, Arrays.asList(dependsOn));
+        return this;
+    }
+
+    @Override
+    public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+        if (this.stages.isEmpty())
+            return inputAlignment;
+        Map<String, Integer> successorCount = getSuccessorCount();
+        List<String> sinks = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : successorCount.entrySet()) {
+            if (entry.getValue() == 0)
+                sinks.add(entry.getKey());
+        }
+        int roots = 0;
+        for (List<String> stagePredecessors : this.predecessors.values()) {
+            if (stagePredecessors.isEmpty())
+                roots++;
+        }
+        final boolean copyInput = roots > 1;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.numberOfThreads, this.stages.size()));
+        try {
+            Map<String, CompletableFuture<Alignment>> results = new HashMap<>();
+            for (Map.Entry<String, MatcherYAAAJena> entry : this.stages.entrySet()) {
+                String name = entry.getKey();
+                MatcherYAAAJena matcher = entry.getValue();
+                List<String> stagePredecessors = this.predecessors.get(name);
+                CompletableFuture<Alignment> stageInput;
+                if (stagePredecessors.isEmpty()) {
+                    stageInput = CompletableFuture.completedFuture(copyInput ? copy(inputAlignment) : inputAlignment);
+                } else {
+                    List<CompletableFuture<Alignment>> inputs = new ArrayList<>();
+                    for (String predecessor : stagePredecessors) {
+                        inputs.add(results.get(predecessor));
+                    }
+                    stageInput = CompletableFuture.allOf(inputs.toArray(new CompletableFuture[0]))
+                            .thenApply(v -> getInput(stagePredecessors, results, successorCount));
+                }
+                results.put(name, stageInput.thenApplyAsync(alignment -> runStage(name, matcher, source, target, alignment, properties), executor));
+            }
+
+            List<Alignment> sinkAlignments = new ArrayList<>();
+            for (String sink : sinks) {
+                sinkAlignments.add(results.get(sink).join());
+            }
+            if (sinkAlignments.size() == 1)
+                return sinkAlignments.get(0);
+            return merge(sinks, sinkAlignments, this.mergeStrategy);
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof StageException)
+                cause = cause.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            throw ex;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Alignment runStage(String name, MatcherYAAAJena matcher, OntModel source, OntModel target, Alignment input, Properties properties) {
+        LOGGER.debug("Run stage {} of DAG pipeline.", name);
+        try {
+            return PipelineInstrumentation.measure(name, input, () -> matcher.match(source, target, input, properties));
+        } catch (Exception ex) {
+            throw new StageException(ex);
+        }
+    }
+
+    /**
+     * Returns the input alignment for a stage with predecessors.
+     * The alignment of a predecessor is copied if it is consumed by more than one stage,
+     * because stages may modify their input alignment.
+     * @param stagePredecessors the names of the predecessors
+     * @param results the (already completed) results of all stages
+     * @param successorCount the number of successors for each stage
+     * @return the input alignment
+     */
+    private Alignment getInput(List<String> stagePredecessors, Map<String, CompletableFuture<Alignment>> results, Map<String, Integer> successorCount) {
+        List<Alignment> alignments = new ArrayList<>(stagePredecessors.size());
+        for (String predecessor : stagePredecessors) {
+            alignments.add(results.get(predecessor).join());
+        }
+        if (alignments.size() > 1)
+            return merge(stagePredecessors, alignments, this.mergeStrategy);
+        String predecessor = stagePredecessors.get(0);
+        return successorCount.get(predecessor) > 1 ? copy(alignments.get(0)) : alignments.get(0);
+    }
+
+    private Map<String, Integer> getSuccessorCount() {
+        Map<String, Integer> successorCount = new LinkedHashMap<>();
+        for (String name : this.stages.keySet()) {
+            successorCount.put(name, 0);
+        }
+        for (List<String> stagePredecessors : this.predecessors.values()) {
+            for (String predecessor : stagePredecessors) {
+                successorCount.merge(predecessor, 1, Integer::sum);
+            }
+        }
+        return successorCount;
+    }
+
+    /**
+     * Merges the alignments of multiple stages into a new alignment. The given alignments are not modified.
+     * @param names the names of the stages (in the same order as the alignments)
+     * @param alignments the alignments of the stages
+     * @param mergeStrategy the merge strategy
+     * @return the merged alignment
+     */
+    public static Alignment merge(List<String> names, List<Alignment> alignments, MergeStrategy mergeStrategy) {
+        if (names.size() != alignments.size())
+            throw new IllegalArgumentException("The number of names and alignments differ.");
+        if (alignments.isEmpty())
+            return new Alignment();
+        Alignment merged = new Alignment(alignments.get(0), false);
+        for (int i = 0; i < alignments.size(); i++) {
+            for (Correspondence c : alignments.get(i)) {
+                merged.addOrUseHighestConfidence(copy(c));
+                if (mergeStrategy == MergeStrategy.ADDITIONAL_CONFIDENCE) {
+                    merged.getCorrespondence(c.getEntityOne(), c.getEntityTwo(), c.getRelation())
+                            .addAdditionalConfidence(names.get(i), c.getConfidence());
+                }
+            }
+        }
+        if (mergeStrategy == MergeStrategy.ADDITIONAL_CONFIDENCE) {
+            for (Correspondence c : merged) {
+                for (String name : names) {
+                    if (c.getAdditionalConfidence(name) == null)
+                        c.addAdditionalConfidence(name, 0.0);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static Alignment copy(Alignment alignment) {
+        Alignment copy = new Alignment(alignment, false);
+        List<Correspondence> correspondences = new ArrayList<>(alignment.size());
+        for (Correspondence c : alignment) {
+            correspondences.add(copy(c));
+        }
+        copy.addAllBulk(correspondences);
+        return copy;
+    }
+
+    private static Correspondence copy(Correspondence c) {
+        return new Correspondence(c.getEntityOne(), c.getEntityTwo(), c.getConfidence(), c.getRelation(),
+                c.getExtensions() == null ? null : new HashMap<>(c.getExtensions()), c.getIdentifier());
+    }
+
+    /**
+     * Returns the stages of this pipeline (in the order they are added).
+     * @return the stages by name
+     */
+    public Map<String, MatcherYAAAJena> getStages() {
+        return Collections.unmodifiableMap(stages);
+    }
+
+    /**
+     * Returns the names of the stages which have to be executed before the given stage.
+     * @param name the name of the stage
+     * @return the names of the predecessors
+     */
+    public List<String> getPredecessors(String name) {
+        return predecessors.getOrDefault(name, Collections.emptyList());
+    }
+
+    public MergeStrategy getMergeStrategy() {
+        return mergeStrategy;
+    }
+
+    /**
+     * Wraps the checked exception of a stage to transport it through the completable futures.
+     */
+    private static class StageException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StageException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -21,25 +21,33 @@ public abstract class MatcherYAAAJena extends MatcherYAAA {
     
     /**
      * Default implementation to load an ontology from an url with jena.
-     * Uses the cache.
+     * Uses the cache and pins the model such that it is not evicted while the matcher is running
+     * (the pin is released by {@link #match(URL, URL, Alignment, Properties)}).
      * It can be changed by subclasses.
      * @param url the url pointing to an ontology
      * @param spec the spec which should be used
      * @return ont model
      */
     protected OntModel readOntology(URL url, OntModelSpec spec){
-        return OntologyCacheJena.get(url, spec);
+        return OntologyCacheJena.getPinned(url.toString(), spec);
     }
          
     @Override
     public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
-        OntModel jena_source = readOntology(source, getModelSpec());
-        OntModel jena_target = readOntology(target, getModelSpec());
-        
-        inputAlignment.setOnto1(new OntoInfo(jena_source.getNsPrefixURI(""), source.toString()));
-        inputAlignment.setOnto2(new OntoInfo(jena_target.getNsPrefixURI(""), target.toString()));
-               
-        return this.match(jena_source, jena_target, inputAlignment, properties);
+        OntModelSpec spec = getModelSpec();
+        OntModel jena_source = readOntology(source, spec);
+        try {
+            OntModel jena_target = readOntology(target, spec);
+            try {
+                inputAlignment.setOnto1(new OntoInfo(jena_source.getNsPrefixURI(""), source.toString()));
+                inputAlignment.setOnto2(new OntoInfo(jena_target.getNsPrefixURI(""), target.toString()));
+                return this.match(jena_source, jena_target, inputAlignment, properties);
+            } finally {
+                OntologyCacheJena.unpin(target.toString(), spec, jena_target);
+            }
+        } finally {
+            OntologyCacheJena.unpin(source.toString(), spec, jena_source);
+        }
     }
 
      /**
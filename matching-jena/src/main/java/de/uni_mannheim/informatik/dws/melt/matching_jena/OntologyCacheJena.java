@@ -1,19 +1,40 @@
 package de.uni_mannheim.informatik.dws.melt.matching_jena;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.HashMap;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.HashUtil;
+import de.uni_mannheim.informatik.dws.melt.matching_base.OntologyCache;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Cache and reader for Jena ontologies.
+ * The cache is thread-safe and loads each ontology only once even if it is requested concurrently.
+ * It can be bounded (see {@link #getCache()}); the weight of a model is its number of asserted triples (without inferred triples).
  * @author Sven Hertling
  * @author Jan Portisch
  */
@@ -33,12 +54,27 @@ public class OntologyCacheJena {
     /**
      * The internal cache for ontologies that is dependent on the OntModelSpec.
      */
-    private static Map<String, OntModel> ontologyCache = new HashMap<>();
+    private static final OntologyCache<OntModel> ontologyCache = new OntologyCache<>(model -> model.getBaseModel().size());
 
     /**
      * This flag indicates whether the cache is to be used (i.e., ontologies are held in memory).
      */
-    private static boolean isDeactivatedCache = false;
+    private static volatile boolean isDeactivatedCache = false;
+
+    /**
+     * Only local ontology files within this folder are snapshotted (null if snapshots are disabled).
+     */
+    private static volatile File snapshotSourceFolder = null;
+
+    /**
+     * The folder where the snapshots are stored.
+     */
+    private static volatile File snapshotFolder = null;
+
+    /**
+     * Cache for the hashes of snapshotted files (key is the path, file length and modification time).
+     */
+    private static final Map<String, String> fileHashes = new ConcurrentHashMap<>();
 
     /**
      * Returns the OntModel for the given uri using a cache if indicated to do so.
@@ -48,21 +84,27 @@ public class OntologyCacheJena {
      * @return OntModel reference.
      */
     public static OntModel get(String uri, OntModelSpec spec, boolean useCache) {
-        if (useCache) {
-            String keyForCache = uri + "_" + spec.hashCode();
-            OntModel model = ontologyCache.get(keyForCache);            
-            if (model == null) {
-                // model not found in cache → read, put it there and return
+        return get(uri, spec, useCache, false);
+    }
+
+    /**
+     * Returns the OntModel for the given uri using the cache and pins it (atomically) such that it is not evicted while it is in use.
+     * The call has to be followed by a call to {@link #unpin(String, OntModelSpec, OntModel)}.
+     * If the cache is deactivated, the model is read without the cache and nothing is pinned.
+     * @param uri The URI of the ontology.
+     * @param spec The specification of the ontology.
+     * @return OntModel reference.
+     */
+    public static OntModel getPinned(String uri, OntModelSpec spec) {
+        return get(uri, spec, true, true);
+    }
+
+    private static OntModel get(String uri, OntModelSpec spec, boolean useCache, boolean pin) {
+        if (useCache && !isDeactivatedCache) {
+            return ontologyCache.get(getKey(uri, spec), () -> {
                 LOGGER.info("Reading model into cache (" + uri + ")");
-                model = readOntModel(uri, spec);
-                if(!isDeactivatedCache){
-                    ontologyCache.put(keyForCache, model);
-                }
-                return model;
-            } else {
-                //LOGGER.info("Returning model from cache.");
-                return model;
-            }
+                return readOntModel(uri, spec);
+            }, pin);
         } else {
             // → do not use cache
             // plain vanilla case: read ontology and return
@@ -70,18 +112,142 @@ public class OntologyCacheJena {
         }
     }
 
+    private static String getKey(String uri, OntModelSpec spec) {
+        return uri + "_" + spec.hashCode();
+    }
+
     /**
      * Read and parse an ontology.
+     * If snapshots are enabled and the ontology is a local file in the snapshot source folder,
+     * the ontology is loaded from its snapshot or a snapshot is written after parsing.
      * @param uri URI from which shall be read.
      * @param spec Jena Ontology Model specification.
      * @return OntModel instance that was read.
      */
     private static OntModel readOntModel(String uri, OntModelSpec spec){
+        File snapshot = getSnapshotFile(uri);
+        if(snapshot != null && snapshot.isFile()){
+            OntModel model = readSnapshot(snapshot, spec);
+            if(model != null)
+                return model;
+        }
         OntModel model = ModelFactory.createOntologyModel(spec);
         model.read(uri);
+        if(snapshot != null)
+            writeSnapshot(model, snapshot);
         return model;
     }
 
+    /**
+     * Loads the snapshot. Imports are processed by the OntModel (depending on the spec) as if the ontology is parsed.
+     * @param snapshot the snapshot file
+     * @param spec Jena Ontology Model specification.
+     * @return the model or null if the snapshot cannot be read (in this case it is deleted)
+     */
+    private static OntModel readSnapshot(File snapshot, OntModelSpec spec){
+        LOGGER.info("Reading model from snapshot " + snapshot);
+        Model base = ModelFactory.createDefaultModel();
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))){
+            long expectedSize = in.readLong();
+            RDFDataMgr.read(base, in, Lang.RDFTHRIFT);
+            if(base.size() != expectedSize)
+                throw new IOException("The snapshot contains " + base.size() + " triples instead of " + expectedSize);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Could not read snapshot " + snapshot + ". Delete it and parse the ontology again.", ex);
+            if(!snapshot.delete())
+                LOGGER.warn("Could not delete snapshot " + snapshot);
+            return null;
+        }
+        return ModelFactory.createOntologyModel(spec, base);
+    }
+
+    /**
+     * Writes the base model (without imports) as RDF Thrift prefixed with the number of triples
+     * (which is used to detect corrupt snapshots). The file is first written to a temporary file and then moved,
+     * such that concurrent or interrupted runs never see an incomplete snapshot.
+     * @param model the model to write
+     * @param snapshot the snapshot file
+     */
+    private static void writeSnapshot(OntModel model, File snapshot){
+        File folder = snapshot.getParentFile();
+        if(!folder.isDirectory() && !folder.mkdirs()){
+            LOGGER.warn("Could not create snapshot folder " + folder);
+            return;
+        }
+        try {
+            File tmp = File.createTempFile(snapshot.getName(), ".tmp", folder);
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))){
+                out.writeLong(model.getBaseModel().size());
+                RDFDataMgr.write(out, model.getBaseModel(), RDFFormat.RDF_THRIFT);
+            }
+            try {
+                Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Could not write snapshot " + snapshot, ex);
+        }
+    }
+
+    /**
+     * Returns the snapshot file for the given uri. The name is the hash of the uri (which is the base for relative IRIs)
+     * and the content of the file, thus a changed ontology file results in a new snapshot.
+     * @param uri URI from which shall be read.
+     * @return the snapshot file or null if snapshots are disabled or the uri is not a local file in the snapshot source folder
+     */
+    private static File getSnapshotFile(String uri){
+        File sourceFolder = snapshotSourceFolder;
+        File targetFolder = snapshotFolder;
+        if(sourceFolder == null || targetFolder == null)
+            return null;
+        File file = getLocalFile(uri);
+        if(file == null || !file.isFile())
+            return null;
+        try {
+            String sourceFolderPath = sourceFolder.getCanonicalPath() + File.separator;
+            if(!file.getCanonicalPath().startsWith(sourceFolderPath))
+                return null;
+            String key = file.getCanonicalPath() + "|" + file.length() + "|" + file.lastModified();
+            String contentHash = fileHashes.get(key);
+            if(contentHash == null){
+                contentHash = hashFile(file);
+                fileHashes.put(key, contentHash);
+            }
+            String name = HashUtil.sha256Hex(uri + "\n" + contentHash);
+            return new File(targetFolder, name + ".rt");
+        } catch (IOException ex) {
+            LOGGER.warn("Could not compute the snapshot of " + uri + ". The ontology is parsed without snapshot.", ex);
+            return null;
+        }
+    }
+
+    private static File getLocalFile(String uri){
+        try {
+            URI parsed = new URI(uri);
+            if(parsed.getScheme() == null)
+                return new File(uri);
+            if("file".equals(parsed.getScheme()))
+                return new File(parsed);
+            return null;
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            return new File(uri);
+        }
+    }
+
+    private static String hashFile(File file) throws IOException {
+        MessageDigest digest = HashUtil.sha256();
+        byte[] buffer = new byte[65536];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HashUtil.toHex(digest.digest());
+    }
+
+
     /**
      * Returns the OntModel for the given uri using a cache by default.
      * @param uri The URI of the ontology that shall be cached.
@@ -166,14 +332,72 @@ public class OntologyCacheJena {
     public static void put(String key, OntModel model) {
         ontologyCache.put(key, model);
     }
-    
 
+    /**
+     * Pins the cached model such that it is not evicted while it is in use.
+     * If the call returns true, it has to be followed by a call to {@link #unpin(String, OntModelSpec)}.
+     * @param uri The URI of the ontology.
+     * @param spec The specification of the ontology.
+     * @return true if the model is in the cache and pinned
+     */
+    public static boolean pin(String uri, OntModelSpec spec) {
+        return ontologyCache.pin(getKey(uri, spec));
+    }
+
+    /**
+     * Releases a pin which was acquired with {@link #pin(String, OntModelSpec)}.
+     * @param uri The URI of the ontology.
+     * @param spec The specification of the ontology.
+     */
+    public static void unpin(String uri, OntModelSpec spec) {
+        ontologyCache.unpin(getKey(uri, spec));
+    }
+
+    /**
+     * Releases a pin which was acquired with {@link #getPinned(String, OntModelSpec)}.
+     * Nothing happens if the cache does not contain the given model (anymore).
+     * @param uri The URI of the ontology.
+     * @param spec The specification of the ontology.
+     * @param model The model which was returned by {@link #getPinned(String, OntModelSpec)}.
+     */
+    public static void unpin(String uri, OntModelSpec spec, OntModel model) {
+        ontologyCache.unpin(getKey(uri, spec), model);
+    }
+
+    /**
+     * Returns the underlying cache which allows to set a budget (number of models or number of triples) and to retrieve statistics.
+     * @return the cache
+     */
+    public static OntologyCache<OntModel> getCache() {
+        return ontologyCache;
+    }
 
     /**
      * Empties the cache.
      */
     public static void emptyCache() {
-        ontologyCache = new HashMap<>();
+        ontologyCache.clear();
+    }
+
+    /**
+     * Enables persistent snapshots: local ontology files within the source folder are parsed only once.
+     * After parsing, the triples are written in the binary RDF Thrift format to the snapshot folder
+     * and later reads (also in other JVMs) load the snapshot which is much faster than parsing e.g. RDF/XML.
+     * The snapshot depends on the content of the file, thus a changed file is parsed again.
+     * @param sourceFolder only ontology files in this folder (or subfolders) are snapshotted; null disables snapshots
+     * @param snapshotFolder the folder in which the snapshots are stored; null disables snapshots
+     */
+    public static void setSnapshotFolder(File sourceFolder, File snapshotFolder) {
+        OntologyCacheJena.snapshotSourceFolder = sourceFolder;
+        OntologyCacheJena.snapshotFolder = snapshotFolder;
+    }
+
+    /**
+     * Returns the folder where snapshots are stored.
+     * @return the snapshot folder or null if snapshots are disabled
+     */
+    public static File getSnapshotFolder() {
+        return snapshotFolder;
     }
 
     public static boolean isDeactivatedCache() {
@@ -191,17 +415,4 @@ public class OntologyCacheJena {
         }
         isDeactivatedCache = deactivatedCache;
     }
-    
-    /*
-    //methods for createing and loading TDB Model
-    private static void createTDBcache(String url, String tdblocation){
-        Dataset d = TDBFactory.createDataset(tdblocation);
-        GraphTDB graphTDB = (GraphTDB)d.asDatasetGraph().getDefaultGraph();
-        TDBLoader.load(graphTDB,url, true);
-    }
-    private static OntModel loadTDBcache(String tdblocation, OntModelSpec spec){
-        Dataset d = TDBFactory.createDataset(tdblocation);
-        return ModelFactory.createOntologyModel(spec, d.getDefaultModel());
-    }
-    */
 }
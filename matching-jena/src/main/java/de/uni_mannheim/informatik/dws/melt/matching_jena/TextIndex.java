@@ -0,0 +1,401 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import org.apache.jena.graph.Node;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.rdf.listeners.StatementListener;
+import org.apache.jena.rdf.model.InfModel;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the literals of one model which can be shared by all element level matchers.
+ * Instead of iterating over the statements of each resource in every matcher, the literals of a property are extracted
+ * once for the whole model (one scan over the statements with this property) and are reused by all matchers.
+ * Additionally, inverted indices (normalized text to resources) are cached for each combination of
+ * resource type, properties and normalization function.
+ * <p>
+ * The index is cached together with the model (it is removed when the model is garbage collected)
+ * and it is cleared whenever statements are added to or removed from the model via the model API.
+ * The listener which detects these changes is only registered as long as the index contains extracted tables:
+ * it is unregistered on the first change (so bulk updates of the model are only slowed down by a single notification)
+ * and when the index is removed, and it is registered again with the next extraction.
+ * To not keep the model reachable, the index only stores nodes and strings (no resources or literals which refer to the model).
+ * The literals are created for the model on each request.
+ * <pre>{@code
+ * TextIndex index = TextIndex.get(ontModel);
+ * index.prepare(Arrays.asList(RDFS.label, SKOS.altLabel)); // extract tables in parallel
+ * Set<String> labels = index.getValues(uri, Arrays.asList(RDFS.label), String::toLowerCase);
+ * Map<String, Set<String>> labelToClasses = index.getInvertedIndex(ResourceType.CLASS, Arrays.asList(RDFS.label), String::toLowerCase);
+ * }</pre>
+ */
+public class TextIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TextIndex.class);
+
+    private static final Map<Model, TextIndex> INDICES = new WeakHashMap<>();
+
+    /**
+     * The type of resources in an OntModel.
+     */
+    public enum ResourceType {
+        CLASS, PROPERTY, INSTANCE;
+
+        private Iterator<? extends Resource> list(OntModel model) {
+            switch (this) {
+                case CLASS:
+                    return model.listClasses();
+                case PROPERTY:
+                    return model.listAllOntProperties();
+                default:
+                    return model.listIndividuals();
+            }
+        }
+    }
+
+    private final WeakReference<Model> model;
+
+    /**
+     * Property to (subject URI to literal nodes). The key null is used for the table which contains literals of all properties.
+     * Nodes are stored instead of literals because a literal refers to the model (which is the weak key of the cache).
+     */
+    private final Map<PropertyKey, FutureTask<Map<String, List<Node>>>> literalTables;
+    private final Map<ResourceType, Set<String>> resources;
+    private final Map<InvertedIndexKey, Map<String, Set<String>>> invertedIndices;
+    /**
+     * Listener which invalidates the index when the model changes. It refers only to the index and not to the model.
+     */
+    private final StatementListener listener;
+    private boolean listenerRegistered;
+
+    private TextIndex(Model model) {
+        this.model = new WeakReference<>(model);
+        this.literalTables = new ConcurrentHashMap<>();
+        this.resources = new ConcurrentHashMap<>();
+        this.invertedIndices = new ConcurrentHashMap<>();
+        this.listener = new StatementListener() {
+            @Override
+            public void addedStatement(Statement s) {
+                invalidate();
+            }
+
+            @Override
+            public void removedStatement(Statement s) {
+                invalidate();
+            }
+        };
+        this.listenerRegistered = false;
+    }
+
+    /**
+     * Returns the index of the given model (it is created if it does not exist yet).
+     * @param model the model
+     * @return the index of the model
+     */
+    public static TextIndex get(Model model) {
+        synchronized (INDICES) {
+            return INDICES.computeIfAbsent(model, TextIndex::new);
+        }
+    }
+
+    /**
+     * Removes the index of the given model.
+     * @param model the model
+     */
+    public static void remove(Model model) {
+        synchronized (INDICES) {
+            TextIndex index = INDICES.remove(model);
+            if (index != null)
+                index.invalidate();
+        }
+    }
+
+    /**
+     * Extracts the literal tables of the given properties (only those which are not extracted yet).
+     * The tables are extracted in parallel if the model has no reasoner (models with a reasoner can not be read concurrently).
+     * @param properties the properties
+     */
+    public void prepare(Collection<Property> properties) {
+        List<Property> missing = new ArrayList<>();
+        for (Property p : properties) {
+            if (!literalTables.containsKey(new PropertyKey(p)))
+                missing.add(p);
+        }
+        if (missing.size() > 1 && !hasReasoner(getModel())) {
+            missing.parallelStream().forEach(this::getLiteralTable);
+        } else {
+            missing.forEach(this::getLiteralTable);
+        }
+    }
+
+    /**
+     * Returns the literals of the resource for the given property.
+     * @param uri the uri of the resource
+     * @param property the property
+     * @return the literals (empty list if there are none)
+     */
+    public List<Literal> getLiterals(String uri, Property property) {
+        return toLiterals(getLiteralTable(property).get(uri));
+    }
+
+    /**
+     * Returns the literals of the resource for all properties.
+     * @param uri the uri of the resource
+     * @return the literals (empty list if there are none)
+     */
+    public List<Literal> getLiterals(String uri) {
+        return toLiterals(getLiteralTable(null).get(uri));
+    }
+
+    private List<Literal> toLiterals(List<Node> nodes) {
+        if (nodes == null)
+            return Collections.emptyList();
+        Model m = getModel();
+        List<Literal> literals = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            literals.add(m.asRDFNode(node).asLiteral());
+        }
+        return literals;
+    }
+
+    /**
+     * Returns the normalized lexical forms of the literals of the resource for the given properties.
+     * Blank texts (after normalization) are not included.
+     * @param uri the uri of the resource
+     * @param properties the properties
+     * @param normalization the normalization which is applied to each lexical form
+     * @return the set of normalized texts
+     */
+    public Set<String> getValues(String uri, Collection<Property> properties, Function<String, String> normalization) {
+        Set<String> values = new HashSet<>();
+        for (Property p : properties) {
+            for (Node node : getLiteralTable(p).getOrDefault(uri, Collections.emptyList())) {
+                String processed = normalization.apply(node.getLiteralLexicalForm());
+                if (isBlank(processed) == false)
+                    values.add(processed);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the uris of all resources of the given type (only URI resources).
+     * This requires that the model is an OntModel.
+     * @param type the type of the resources
+     * @return the uris of the resources
+     */
+    public Set<String> getResources(ResourceType type) {
+        Set<String> uris = resources.get(type);
+        if (uris == null) {
+            Model m = getModel();
+            if (!(m instanceof OntModel))
+                throw new IllegalStateException("Resources of a specific type can only be listed for an OntModel.");
+            registerListener(m);
+            uris = new LinkedHashSet<>();
+            Iterator<? extends Resource> iterator = type.list((OntModel) m);
+            while (iterator.hasNext()) {
+                Resource r = iterator.next();
+                if (r.isURIResource())
+                    uris.add(r.getURI());
+            }
+            uris = Collections.unmodifiableSet(uris);
+            resources.put(type, uris);
+        }
+        return uris;
+    }
+
+    /**
+     * Returns the inverted index which maps a normalized text to all resources of the given type which have this text
+     * (in one of the given properties). The inverted index is cached for the same type, properties and normalization (instance).
+     * @param type the type of the resources
+     * @param properties the properties
+     * @param normalization the normalization which is applied to each lexical form
+     * @return map from normalized text to uris of resources
+     */
+    public Map<String, Set<String>> getInvertedIndex(ResourceType type, Collection<Property> properties, Function<String, String> normalization) {
+        InvertedIndexKey key = new InvertedIndexKey(type, properties, normalization);
+        Map<String, Set<String>> inverted = invertedIndices.get(key);
+        if (inverted == null) {
+            prepare(properties);
+            inverted = new HashMap<>();
+            for (String uri : getResources(type)) {
+                for (String text : getValues(uri, properties, normalization)) {
+                    inverted.computeIfAbsent(text, k -> new HashSet<>()).add(uri);
+                }
+            }
+            inverted = Collections.unmodifiableMap(inverted);
+            invertedIndices.put(key, inverted);
+        }
+        return inverted;
+    }
+
+    /**
+     * Removes all extracted tables and inverted indices.
+     */
+    public void clear() {
+        literalTables.clear();
+        resources.clear();
+        invertedIndices.clear();
+    }
+
+    /**
+     * Clears the index and unregisters the change listener from the model (if it is still reachable).
+     */
+    private synchronized void invalidate() {
+        clear();
+        if (listenerRegistered) {
+            Model m = this.model.get();
+            if (m != null)
+                m.unregister(listener);
+            listenerRegistered = false;
+        }
+    }
+
+    /**
+     * Registers the change listener at the model before anything is extracted from it.
+     * @param m the model
+     */
+    private synchronized void registerListener(Model m) {
+        if (!listenerRegistered) {
+            m.register(listener);
+            listenerRegistered = true;
+        }
+    }
+
+    /**
+     * Returns the literal table of the property. Concurrent requests for the same property wait for a single extraction.
+     * @param property the property (null for all properties)
+     * @return map from subject URI to literal nodes
+     */
+    private Map<String, List<Node>> getLiteralTable(Property property) {
+        PropertyKey key = new PropertyKey(property);
+        FutureTask<Map<String, List<Node>>> task = literalTables.get(key);
+        if (task == null) {
+            FutureTask<Map<String, List<Node>>> newTask = new FutureTask<>(() -> extractLiteralTable(property));
+            task = literalTables.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            literalTables.remove(key, task);
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException("Could not extract the literals of property " + property, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while extracting the literals of property " + property, ex);
+        }
+    }
+
+    private Map<String, List<Node>> extractLiteralTable(Property property) {
+        long startTime = System.currentTimeMillis();
+        Map<String, List<Node>> table = new HashMap<>();
+        Model m = getModel();
+        registerListener(m);
+        StmtIterator i = m.listStatements(null, property, (RDFNode) null);
+        while (i.hasNext()) {
+            Statement s = i.next();
+            if (s.getSubject().isURIResource() && s.getObject().isLiteral()) {
+                table.computeIfAbsent(s.getSubject().getURI(), k -> new ArrayList<>()).add(s.getObject().asNode());
+            }
+        }
+        LOGGER.debug("Extracted literal table of property {} with {} resources in {} ms.", property, table.size(), System.currentTimeMillis() - startTime);
+        return table;
+    }
+
+    private Model getModel() {
+        Model m = this.model.get();
+        if (m == null)
+            throw new IllegalStateException("The model of the text index is already garbage collected.");
+        return m;
+    }
+
+    private static boolean isBlank(String text) {
+        if (text == null)
+            return true;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean hasReasoner(Model model) {
+        return model instanceof InfModel && ((InfModel) model).getReasoner() != null;
+    }
+
+    /**
+     * Key which also allows null (for all properties) in a concurrent hash map.
+     */
+    private static class PropertyKey {
+        private final Node property;
+
+        PropertyKey(Property property) {
+            this.property = property == null ? null : property.asNode();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(property);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof PropertyKey && Objects.equals(property, ((PropertyKey) obj).property);
+        }
+    }
+
+    private static class InvertedIndexKey {
+        private final ResourceType type;
+        private final List<Node> properties;
+        private final Function<String, String> normalization;
+
+        InvertedIndexKey(ResourceType type, Collection<Property> properties, Function<String, String> normalization) {
+            this.type = type;
+            this.properties = new ArrayList<>(properties.size());
+            for (Property p : properties) {
+                this.properties.add(p.asNode());
+            }
+            this.normalization = normalization;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, properties, normalization);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof InvertedIndexKey))
+                return false;
+            InvertedIndexKey other = (InvertedIndexKey) obj;
+            return type == other.type && properties.equals(other.properties) && normalization.equals(other.normalization);
+        }
+    }
+}
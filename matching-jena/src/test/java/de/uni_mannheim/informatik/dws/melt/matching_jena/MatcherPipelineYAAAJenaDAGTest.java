@@ -0,0 +1,118 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena;
+
+import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherPipelineYAAAJenaDAG.MergeStrategy;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Correspondence;
+import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.CorrespondenceRelation;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.ontology.OntModel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatcherPipelineYAAAJenaDAGTest {
+
+    @Test
+    void independentStagesRunConcurrently() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        MatcherPipelineYAAAJenaDAG pipeline = new MatcherPipelineYAAAJenaDAG(MergeStrategy.ADDITIONAL_CONFIDENCE, 2)
+                .addStage("one", new WaitingStage(latch, "http://a", 0.4))
+                .addStage("two", new WaitingStage(latch, "http://a", 0.8))
+                .addStage("three", new AddStage("http://b", 0.5), "two");
+
+        URL cmt = new File("./src/test/resources/cmt.owl").toURI().toURL();
+        Alignment result = pipeline.match(cmt, cmt, new Alignment(), new Properties());
+        assertEquals(2, result.size());
+
+        Correspondence a = result.getCorrespondence("http://a", "http://target", CorrespondenceRelation.EQUIVALENCE);
+        assertEquals(0.8, a.getConfidence());
+        assertEquals(0.4, a.getAdditionalConfidence("one"));
+        assertEquals(0.8, a.getAdditionalConfidence("three"));
+
+        Correspondence b = result.getCorrespondence("http://b", "http://target", CorrespondenceRelation.EQUIVALENCE);
+        assertEquals(0.5, b.getConfidence());
+        assertEquals(0.0, b.getAdditionalConfidence("one"));
+        assertEquals(0.5, b.getAdditionalConfidence("three"));
+    }
+
+    @Test
+    void branchesDoNotShareInput() throws Exception {
+        Alignment input = new Alignment();
+        input.add("http://input", "http://target", 0.3);
+        MatcherPipelineYAAAJenaDAG pipeline = new MatcherPipelineYAAAJenaDAG(MergeStrategy.MAX_CONFIDENCE)
+                .addStage("root", new AddStage("http://root", 1.0))
+                .addStage("left", new AddStage("http://left", 0.6), "root")
+                .addStage("right", new AddStage("http://right", 0.7), "root")
+                .addStage("join", new AddStage("http://join", 0.9), "left", "right");
+
+        URL cmt = new File("./src/test/resources/cmt.owl").toURI().toURL();
+        Alignment result = pipeline.match(cmt, cmt, input, new Properties());
+        assertEquals(5, result.size());
+        assertTrue(result.getCorrespondencesSource("http://left").iterator().hasNext());
+        assertTrue(result.getCorrespondencesSource("http://right").iterator().hasNext());
+        assertNull(result.iterator().next().getAdditionalConfidence("left"));
+    }
+
+    @Test
+    void exceptionOfStageIsThrown() throws Exception {
+        MatcherPipelineYAAAJenaDAG pipeline = new MatcherPipelineYAAAJenaDAG(MergeStrategy.MAX_CONFIDENCE)
+                .addStage("one", new AddStage("http://a", 0.4))
+                .addStage("failing", new FailingStage())
+                .addStage("after", new AddStage("http://b", 0.4), "failing");
+        URL cmt = new File("./src/test/resources/cmt.owl").toURI().toURL();
+        assertThrows(IOException.class, () -> pipeline.match(cmt, cmt, new Alignment(), new Properties()));
+    }
+
+    @Test
+    void stagesInTopologicalOrder() {
+        MatcherPipelineYAAAJenaDAG pipeline = new MatcherPipelineYAAAJenaDAG(MergeStrategy.MAX_CONFIDENCE)
+                .addStage("one", new AddStage("http://a", 0.4));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.addStage("two", new AddStage("http://b", 0.4), "three"));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.addStage("one", new AddStage("http://b", 0.4)));
+    }
+
+    private static class AddStage extends MatcherYAAAJena {
+        private final String source;
+        private final double confidence;
+
+        AddStage(String source, double confidence) {
+            this.source = source;
+            this.confidence = confidence;
+        }
+
+        @Override
+        public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+            inputAlignment.add(this.source, "http://target", this.confidence);
+            return inputAlignment;
+        }
+    }
+
+    private static class WaitingStage extends AddStage {
+        private final CountDownLatch latch;
+
+        WaitingStage(CountDownLatch latch, String source, double confidence) {
+            super(source, confidence);
+            this.latch = latch;
+        }
+
+        @Override
+        public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+            latch.countDown();
+            // only succeeds if the other stage runs at the same time
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            return super.match(source, target, inputAlignment, properties);
+        }
+    }
+
+    private static class FailingStage extends MatcherYAAAJena {
+        @Override
+        public Alignment match(OntModel source, OntModel target, Alignment inputAlignment, Properties properties) throws Exception {
+            throw new IOException("Stage failed.");
+        }
+    }
+}
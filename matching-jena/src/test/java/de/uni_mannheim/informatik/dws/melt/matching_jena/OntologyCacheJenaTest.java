@@ -4,10 +4,18 @@ import org.apache.jena.ontology.OntClass;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
 import org.junit.jupiter.api.AfterEach;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.file.Files;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -88,9 +96,45 @@ class OntologyCacheJenaTest {
         assertEquals(NUMBER_MODEL_CLASSES, model.listClasses().toList().size());
     }
 
+    @Test
+    void snapshot(@TempDir File tempDir) throws IOException {
+        File sourceFolder = new File(tempDir, "track");
+        File snapshotFolder = new File(tempDir, "snapshots");
+        assertTrue(sourceFolder.mkdirs());
+        File ontologyFile = new File(sourceFolder, "cmt.owl");
+        Files.copy(new File("./src/test/resources/cmt.owl").toPath(), ontologyFile.toPath());
+
+        // files outside of the source folder are not snapshotted
+        OntologyCacheJena.setSnapshotFolder(sourceFolder, snapshotFolder);
+        OntologyCacheJena.get(new File("./src/test/resources/cmt.owl").toURI().toString(), OntModelSpec.OWL_DL_MEM, false);
+        assertFalse(snapshotFolder.exists());
+
+        OntModel parsed = OntologyCacheJena.get(ontologyFile.toURI().toString(), OntModelSpec.OWL_DL_MEM, false);
+        File[] snapshots = snapshotFolder.listFiles();
+        assertEquals(1, snapshots.length);
+
+        OntModel fromSnapshot = OntologyCacheJena.get(ontologyFile.toURI().toString(), OntModelSpec.OWL_DL_MEM, false);
+        assertTrue(parsed.getBaseModel().isIsomorphicWith(fromSnapshot.getBaseModel()));
+        assertEquals(NUMBER_MODEL_CLASSES, fromSnapshot.listClasses().toList().size());
+        assertEquals(parsed.getNsPrefixURI(""), fromSnapshot.getNsPrefixURI(""));
+
+        // the snapshot is really used: replace it with an empty model
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(snapshots[0]))) {
+            out.writeLong(0);
+            RDFDataMgr.write(out, ModelFactory.createDefaultModel(), RDFFormat.RDF_THRIFT);
+        }
+        assertEquals(0, OntologyCacheJena.get(ontologyFile.toURI().toString(), OntModelSpec.OWL_DL_MEM, false).size());
+
+        // a corrupt snapshot is replaced
+        Files.write(snapshots[0].toPath(), new byte[]{1, 2, 3});
+        assertEquals(NUMBER_MODEL_CLASSES, OntologyCacheJena.get(ontologyFile.toURI().toString(), OntModelSpec.OWL_DL_MEM, false).listClasses().toList().size());
+        assertEquals(NUMBER_MODEL_CLASSES, OntologyCacheJena.get(ontologyFile.toURI().toString(), OntModelSpec.OWL_DL_MEM, false).listClasses().toList().size());
+    }
+
     @AfterEach
     void teardown(){
         OntologyCacheJena.emptyCache();
+        OntologyCacheJena.setSnapshotFolder(null, null);
     }
 
 }
\ No newline at end of file
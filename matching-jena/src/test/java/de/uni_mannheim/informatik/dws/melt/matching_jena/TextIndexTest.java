@@ -0,0 +1,101 @@
+package de.uni_mannheim.informatik.dws.melt.matching_jena;
+
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex.ResourceType;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDFS;
+import org.apache.jena.vocabulary.SKOS;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+
+    @Test
+    void lookups() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        model.createClass("http://example.com/Person").addLabel("Person", "en");
+        model.createClass("http://example.com/Human").addLabel("person", null);
+        model.createIndividual("http://example.com/alice", OWL.Thing)
+                .addLiteral(SKOS.altLabel, "Alice ");
+        model.getResource("http://example.com/alice").addProperty(RDFS.label, "Alice");
+
+        TextIndex index = TextIndex.get(model);
+        assertSame(index, TextIndex.get(model));
+        index.prepare(Arrays.asList(RDFS.label, SKOS.altLabel));
+
+        assertEquals(1, index.getLiterals("http://example.com/Person", RDFS.label).size());
+        assertEquals(2, index.getLiterals("http://example.com/alice").size());
+        assertTrue(index.getLiterals("http://example.com/unknown", RDFS.label).isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("alice")),
+                index.getValues("http://example.com/alice", Arrays.asList(RDFS.label, SKOS.altLabel), text -> text.trim().toLowerCase()));
+
+        assertEquals(new HashSet<>(Arrays.asList("http://example.com/Person", "http://example.com/Human")), index.getResources(ResourceType.CLASS));
+        Function<String, String> lowercase = String::toLowerCase;
+        Map<String, Set<String>> inverted = index.getInvertedIndex(ResourceType.CLASS, Arrays.asList(RDFS.label), lowercase);
+        assertEquals(index.getResources(ResourceType.CLASS), inverted.get("person"));
+        assertSame(inverted, index.getInvertedIndex(ResourceType.CLASS, Arrays.asList(RDFS.label), lowercase));
+        assertNull(index.getInvertedIndex(ResourceType.INSTANCE, Arrays.asList(RDFS.label), lowercase).get("person"));
+    }
+
+    @Test
+    void indexIsClearedOnChange() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        model.createClass("http://example.com/Person").addLabel("Person", null);
+        TextIndex index = TextIndex.get(model);
+        assertEquals(Collections.singleton("Person"), index.getValues("http://example.com/Person", Arrays.asList(RDFS.label), Function.identity()));
+
+        model.getResource("http://example.com/Person").addProperty(RDFS.label, "Human");
+        assertEquals(new HashSet<>(Arrays.asList("Person", "Human")), index.getValues("http://example.com/Person", Arrays.asList(RDFS.label), Function.identity()));
+        TextIndex.remove(model);
+        assertNotSame(index, TextIndex.get(model));
+    }
+
+    @Test
+    void listenerIsUnregistered() {
+        Model model = ModelFactory.createDefaultModel();
+        model.createResource("http://example.com/Person").addProperty(RDFS.label, "Person");
+        TextIndex index = TextIndex.get(model);
+        assertFalse(model.getGraph().getEventManager().listening());
+        assertEquals(1, index.getLiterals("http://example.com/Person", RDFS.label).size());
+        assertTrue(model.getGraph().getEventManager().listening());
+
+        // the first change invalidates the index and unregisters the listener
+        model.getResource("http://example.com/Person").addProperty(RDFS.label, "Human");
+        assertFalse(model.getGraph().getEventManager().listening());
+        assertEquals(2, index.getLiterals("http://example.com/Person", RDFS.label).size());
+        assertTrue(model.getGraph().getEventManager().listening());
+
+        TextIndex.remove(model);
+        assertFalse(model.getGraph().getEventManager().listening());
+    }
+
+    @Test
+    void indexDoesNotKeepModelReachable() throws InterruptedException {
+        WeakReference<OntModel> reference = createIndexedModel();
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+    }
+
+    private static WeakReference<OntModel> createIndexedModel() {
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
+        model.createClass("http://example.com/Person").addLabel("Person", null);
+        TextIndex index = TextIndex.get(model);
+        assertEquals(1, index.getLiterals("http://example.com/Person", model.getProperty(RDFS.label.getURI())).size());
+        assertEquals(1, index.getInvertedIndex(ResourceType.CLASS, Arrays.asList(RDFS.label), String::toLowerCase).size());
+        return new WeakReference<>(model);
+    }
+}
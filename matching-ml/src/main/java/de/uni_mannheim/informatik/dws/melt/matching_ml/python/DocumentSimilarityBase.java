@@ -1,6 +1,7 @@
 package de.uni_mannheim.informatik.dws.melt.matching_ml.python;
 
 import de.uni_mannheim.informatik.dws.melt.matching_jena.MatcherYAAAJena;
+import de.uni_mannheim.informatik.dws.melt.matching_jena.TextIndex;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -20,8 +21,6 @@ import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntResource;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.RDF;
 import org.slf4j.Logger;
@@ -100,24 +99,21 @@ public abstract class DocumentSimilarityBase extends MatcherYAAAJena{
             }
         }
 
-        List<Statement> statements = new ArrayList<>();
+        TextIndex index = TextIndex.get(r.getModel());
+        List<Literal> literals = new ArrayList<>();
         if(this.textProperties.isEmpty()){
-            statements = r.listProperties().toList();
+            literals.addAll(index.getLiterals(r.getURI()));
         }else{
             for(Property p : this.textProperties){
-                statements.addAll(r.listProperties(p).toList());
+                literals.addAll(index.getLiterals(r.getURI(), p));
             }
         }
 
-        for(Statement stmt : statements){
-            RDFNode n = stmt.getObject();
-            if(n.isLiteral()){
-                Literal lit = n.asLiteral();
-                if(isString(lit)){
-                    String processed = processText(lit.getLexicalForm());
-                    if(isBlank(processed) == false)
-                        resourceText.add(processed);
-                }
+        for(Literal lit : literals){
+            if(isString(lit)){
+                String processed = processText(lit.getLexicalForm());
+                if(isBlank(processed) == false)
+                    resourceText.add(processed);
             }
         }
         return String.join(" ", resourceText);        
@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.melt.matching_owlapi;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.PipelineInstrumentation;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 
 import java.util.List;
@@ -17,7 +18,8 @@ public abstract class MatcherPipelineYAAAOwlApi extends MatcherYAAAOwlApi{
     @Override
     public Alignment match(OWLOntology source, OWLOntology target, Alignment inputAlignment, Properties p) throws Exception {
         for(MatcherYAAAOwlApi matcher : this.matchers){
-             inputAlignment = matcher.match(source, target, inputAlignment, p);
+             final Alignment stageInput = inputAlignment;
+             inputAlignment = PipelineInstrumentation.measure(PipelineInstrumentation.getStageName(matcher), stageInput, () -> matcher.match(source, target, stageInput, p));
         }
         return inputAlignment;
     }
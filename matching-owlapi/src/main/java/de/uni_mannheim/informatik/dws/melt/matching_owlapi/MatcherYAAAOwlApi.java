@@ -13,23 +13,31 @@ public abstract class MatcherYAAAOwlApi extends MatcherYAAA {
     
     /**
      * Default implementation to load an ontology from an url with the owlapi.
+     * Uses the cache and pins the ontology such that it is not evicted while the matcher is running
+     * (the pin is released by {@link #match(URL, URL, Alignment, Properties)}).
      * It can be changed by subclasses.
      * @param url a location where an ontology can be found
      * @return the loaded ontology as an OWLOntology object
      */
     protected OWLOntology readOntology(URL url){
-        return OntologyCacheOwlApi.get(url);
+        return OntologyCacheOwlApi.getPinned(url.toString());
     }
     
     @Override
     public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
         OWLOntology owlapiSource = readOntology(source);
-        OWLOntology owlapiTarget = readOntology(target);
-        
-        //inputAlignment.setOnto1(new OntoInfo(jena_source.getNsPrefixURI(""), source.toString()));
-        //inputAlignment.setOnto2(new OntoInfo(jena_target.getNsPrefixURI(""), target.toString()));
-        
-        return this.match(owlapiSource, owlapiTarget, inputAlignment, properties);
+        try {
+            OWLOntology owlapiTarget = readOntology(target);
+            try {
+                //inputAlignment.setOnto1(new OntoInfo(jena_source.getNsPrefixURI(""), source.toString()));
+                //inputAlignment.setOnto2(new OntoInfo(jena_target.getNsPrefixURI(""), target.toString()));
+                return this.match(owlapiSource, owlapiTarget, inputAlignment, properties);
+            } finally {
+                OntologyCacheOwlApi.unpin(target.toString(), owlapiTarget);
+            }
+        } finally {
+            OntologyCacheOwlApi.unpin(source.toString(), owlapiSource);
+        }
     }
 
     public abstract Alignment match(OWLOntology source, OWLOntology target, Alignment inputAlignment, Properties p) throws Exception ;
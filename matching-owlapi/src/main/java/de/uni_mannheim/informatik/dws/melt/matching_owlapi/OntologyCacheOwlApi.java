@@ -1,8 +1,7 @@
 package de.uni_mannheim.informatik.dws.melt.matching_owlapi;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.OntologyCache;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntology;
@@ -13,6 +12,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Cache for ontologies for the OWL Api.
+ * The cache is thread-safe and loads each ontology only once even if it is requested concurrently.
+ * It can be bounded (see {@link #getCache()}); the weight of an ontology is its number of axioms.
+ * Each ontology is loaded with its own OWLOntologyManager, such that evicted ontologies can be garbage collected
+ * and the same ontology can be loaded again.
  */
 public class OntologyCacheOwlApi {
 
@@ -21,14 +24,12 @@ public class OntologyCacheOwlApi {
     /**
      * The internal cache for ontologies that is dependent on the OntModelSpec.
      */
-    private static Map<String, OWLOntology> ontologyCache = new HashMap<>();
-    
-    private static OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+    private static final OntologyCache<OWLOntology> ontologyCache = new OntologyCache<>(OWLOntology::getAxiomCount);
 
     /**
      * This flag indicates whether the cache is to be used (i.e., ontologies are held in memory).
      */
-    private static boolean isDeactivatedCache = false;
+    private static volatile boolean isDeactivatedCache = false;
 
     /**
      * Returns the OntModel for the given uri using a cache if indicated to do so.
@@ -37,20 +38,26 @@ public class OntologyCacheOwlApi {
      * @return OntModel reference.
      */
     public static OWLOntology get(String uri, boolean useCache) {
-        if (useCache) {
-            OWLOntology model = ontologyCache.get(uri);            
-            if (model == null) {
-                // model not found in cache → read, put it there and return
+        return get(uri, useCache, false);
+    }
+
+    /**
+     * Returns the ontology for the given uri using the cache and pins it (atomically) such that it is not evicted while it is in use.
+     * The call has to be followed by a call to {@link #unpin(String, OWLOntology)}.
+     * If the cache is deactivated, the ontology is read without the cache and nothing is pinned.
+     * @param uri The URI of the ontology.
+     * @return OWLOntology reference.
+     */
+    public static OWLOntology getPinned(String uri) {
+        return get(uri, true, true);
+    }
+
+    private static OWLOntology get(String uri, boolean useCache, boolean pin) {
+        if (useCache && !isDeactivatedCache) {
+            return ontologyCache.get(uri, () -> {
                 LOGGER.info("Reading model into cache (" + uri + ")");
-                model = readOWLOntology(uri);
-                if(!isDeactivatedCache) {
-                    ontologyCache.put(uri, model);
-                }
-                return model;                
-            } else {
-                LOGGER.info("Returning model from cache.");
-                return model;
-            }
+                return readOWLOntology(uri);
+            }, pin);
         } else {
             // → do not use cache
             // plain vanilla case: read ontology and return
@@ -58,6 +65,7 @@ public class OntologyCacheOwlApi {
         }
     }
     private static OWLOntology readOWLOntology(String uri){
+        OWLOntologyManager man = OWLManager.createOWLOntologyManager();
         try {
             return man.loadOntologyFromOntologyDocument(IRI.create(uri));
         } catch (OWLOntologyCreationException ex) {
@@ -83,6 +91,42 @@ public class OntologyCacheOwlApi {
         return get(url, true);
     }
 
+    /**
+     * Pins the cached ontology such that it is not evicted while it is in use.
+     * If the call returns true, it has to be followed by a call to {@link #unpin(String)}.
+     * @param uri The URI of the ontology.
+     * @return true if the ontology is in the cache and pinned
+     */
+    public static boolean pin(String uri) {
+        return ontologyCache.pin(uri);
+    }
+
+    /**
+     * Releases a pin which was acquired with {@link #pin(String)}.
+     * @param uri The URI of the ontology.
+     */
+    public static void unpin(String uri) {
+        ontologyCache.unpin(uri);
+    }
+
+    /**
+     * Releases a pin which was acquired with {@link #getPinned(String)}.
+     * Nothing happens if the cache does not contain the given ontology (anymore).
+     * @param uri The URI of the ontology.
+     * @param ontology The ontology which was returned by {@link #getPinned(String)}.
+     */
+    public static void unpin(String uri, OWLOntology ontology) {
+        ontologyCache.unpin(uri, ontology);
+    }
+
+    /**
+     * Returns the underlying cache which allows to set a budget (number of ontologies or number of axioms) and to retrieve statistics.
+     * @return the cache
+     */
+    public static OntologyCache<OWLOntology> getCache() {
+        return ontologyCache;
+    }
+
     public boolean isDeactivatedCache() {
         return isDeactivatedCache;
     }
@@ -91,17 +135,18 @@ public class OntologyCacheOwlApi {
      * Empties the cache.
      */
     public static void emptyCache() {
-        ontologyCache = new HashMap<>();
+        ontologyCache.clear();
     }
 
     /**
      * Deactivating the cache will also clear the cache.
      * If an ontology is requested twice it is ready every time from disk.
+     * The flag is shared by all instances (like the cache itself).
      * @param deactivatedCache true if cache is to be deactivated, else false.
      */
     public void setDeactivatedCache(boolean deactivatedCache) {
         if(deactivatedCache){
-            this.emptyCache();
+            emptyCache();
         }
         isDeactivatedCache = deactivatedCache;
     }
@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.melt.matching_yaaa;
 
+import de.uni_mannheim.informatik.dws.melt.matching_base.PipelineInstrumentation;
 import de.uni_mannheim.informatik.dws.melt.matching_base.IMatcher;
 import de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api.Alignment;
 
@@ -24,7 +25,8 @@ public abstract class MatcherPipelineYAAA extends MatcherYAAA implements IMatche
     @Override
     public Alignment match(URL source, URL target, Alignment inputAlignment, Properties properties) throws Exception {
         for(MatcherYAAA matcher : this.matchers){
-             inputAlignment = matcher.match(source, target, inputAlignment, properties);
+             final Alignment stageInput = inputAlignment;
+             inputAlignment = PipelineInstrumentation.measure(PipelineInstrumentation.getStageName(matcher), stageInput, () -> matcher.match(source, target, stageInput, properties));
         }
         return inputAlignment;
     }
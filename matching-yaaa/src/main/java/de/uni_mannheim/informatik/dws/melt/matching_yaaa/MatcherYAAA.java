@@ -18,7 +18,20 @@ public abstract class MatcherYAAA extends MatcherFile implements IMatcher<Alignm
 
     @Override
     public void match(URL source, URL target, URL inputAlignment, File alignmentFile) throws Exception {
-
+        Alignment m = this.matchAsAlignment(source, target, inputAlignment);
+        AlignmentSerializer.serialize(m, alignmentFile);
+    }
+    
+    /**
+     * Aligns two ontologies specified via URL and returns the resulting alignment directly (without writing it to a file).
+     * This is used by the evaluation framework to avoid serializing and parsing the alignment.
+     * @param source this url represents the source ontology
+     * @param target this url represents the target ontology
+     * @param inputAlignment this url represents the input alignment (can be null)
+     * @return The resulting alignment of the matching process.
+     * @throws Exception An exception that was risen while matching.
+     */
+    public Alignment matchAsAlignment(URL source, URL target, URL inputAlignment) throws Exception {
         Alignment m = new Alignment();
         
         if(inputAlignment != null){
@@ -26,9 +39,7 @@ public abstract class MatcherYAAA extends MatcherFile implements IMatcher<Alignm
         }
         Properties p = new Properties();
         
-        m = this.match(source, target, m, p);
-        
-        AlignmentSerializer.serialize(m, alignmentFile);
+        return this.match(source, target, m, p);
     }
 
      /**
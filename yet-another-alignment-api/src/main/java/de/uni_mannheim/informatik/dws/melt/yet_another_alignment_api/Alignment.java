@@ -3,6 +3,9 @@ package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
 import com.googlecode.cqengine.ConcurrentIndexedCollection;
 import com.googlecode.cqengine.index.hash.HashIndex;
 import com.googlecode.cqengine.index.navigable.NavigableIndex;
+import com.googlecode.cqengine.index.support.CloseableIterator;
+import com.googlecode.cqengine.persistence.support.ObjectSet;
+import com.googlecode.cqengine.query.option.QueryOptions;
 import com.googlecode.cqengine.query.QueryFactory;
 import static com.googlecode.cqengine.query.QueryFactory.noQueryOptions;
 import com.googlecode.cqengine.resultset.ResultSet;
@@ -12,6 +15,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -21,6 +25,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +38,9 @@ import org.xml.sax.SAXException;
  * Each {@link Correspondence} is uniquely identified by entityOne, entityTwo and relation.
  * This means, if you add a Correspondence which already exists, it will not be modified.
  * To modify an already existant correspondence you can use addOrModify.
+ * <br>
+ * Modifications are serialized by a lock, such that the key map (see {@link #Alignment(boolean, boolean, boolean, boolean, boolean)})
+ * and the indices stay consistent when multiple threads add and remove the same correspondence. Reads are not blocked.
  *
  * @author Sven Hertling
  * @author Jan Portisch
@@ -55,6 +63,26 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
     protected HashIndex<String, Correspondence> indexTarget = null;
     protected HashIndex<CorrespondenceRelation, Correspondence> indexRelation = null;
     protected NavigableIndex<Double, Correspondence> indexConfidence = null;
+    
+    /**
+     * Maps each correspondence to itself.
+     * Because a correspondence is equal to another one if source, target and relation are equal,
+     * this allows to retrieve the stored correspondence for a (source, target, relation) key with a single hash lookup.
+     * The correspondences are not copied, but each one needs an additional map entry (roughly 40 bytes).
+     * Null if the alignment is created without key map; then the lookups are CQEngine queries.
+     */
+    private Map<Correspondence, Correspondence> correspondenceByKey;
+    
+    /**
+     * True if a subclass stores the correspondences on its own (see {@link #Alignment(boolean)}).
+     * In this case, there are no CQEngine indices and no key map.
+     */
+    private boolean ownStorage;
+    
+    /**
+     * Lock for all modifications (such that the key map and the indices are modified atomically).
+     */
+    private final Object modificationLock = new Object();
 
     /**
      * Extended attributes.
@@ -62,17 +90,44 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
     protected Map<String, String> extensions;
 
     public Alignment() {
-        init(true, true, true, true);
+        init(true, true, true, true, true);
     }
     
     public Alignment(Iterable<Correspondence> correspondences) {
-        init(true, true, true, true);
-        for(Correspondence c : correspondences)
-            this.add(c);
+        init(true, true, true, true, true);
+        addAllBulk(correspondences);
     }
         
     public Alignment(boolean indexSource, boolean indexTarget, boolean indexRelation, boolean indexConfidence){
-        init(indexSource, indexTarget, indexRelation, indexConfidence);
+        init(indexSource, indexTarget, indexRelation, indexConfidence, true);
+    }
+    
+    /**
+     * Constructor which allows to choose the indices and whether a key map is used.
+     * The key map allows to retrieve a correspondence by source, target and relation (e.g. in {@link #addOrModify(Correspondence)},
+     * {@link #addOrUseHighestConfidence(Correspondence)} and {@link #getCorrespondence(String, String, CorrespondenceRelation)})
+     * with a single hash lookup. It does not copy the correspondences, but needs one additional map entry (roughly 40 bytes)
+     * per correspondence. Without key map, these lookups are CQEngine queries which saves memory for huge alignments
+     * that are rarely modified.
+     * @param indexSource true if an index on the source should be created
+     * @param indexTarget true if an index on the target should be created
+     * @param indexRelation true if an index on the relation should be created
+     * @param indexConfidence true if an index on the confidence should be created
+     * @param keyMap true if the key map should be created
+     */
+    public Alignment(boolean indexSource, boolean indexTarget, boolean indexRelation, boolean indexConfidence, boolean keyMap){
+        init(indexSource, indexTarget, indexRelation, indexConfidence, keyMap);
+    }
+    
+    /**
+     * Constructor for subclasses which store the correspondences on their own (like {@link CompactAlignment})
+     * and override all methods which access them.
+     * If createStorage is false, neither the CQEngine indices nor the key map are created.
+     * @param createStorage true to create all indices and the key map (like the default constructor), false to create none of them
+     */
+    protected Alignment(boolean createStorage){
+        init(createStorage, createStorage, createStorage, createStorage, createStorage);
+        this.ownStorage = !createStorage;
     }
     
     public Alignment(URL url) throws SAXException, IOException{
@@ -92,12 +147,12 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
     }
     
     public Alignment(InputStream s) throws SAXException, IOException{
-        init(true, true, true, true);
+        init(true, true, true, true, true);
         AlignmentParser.parse(s, this);
     }
     
     public Alignment(InputStream s, boolean indexSource, boolean indexTarget, boolean indexRelation, boolean indexConfidence) throws SAXException, IOException{
-        init(indexSource, indexTarget, indexRelation, indexConfidence);
+        init(indexSource, indexTarget, indexRelation, indexConfidence, true);
         AlignmentParser.parse(s, this);
     }
 
@@ -115,23 +170,38 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @param copyCorrespondences if true copies all information, if false copies all but no correspondences
      */
     public Alignment(Alignment alignment, boolean copyCorrespondences) {
-        init(alignment.indexSource != null, alignment.indexTarget != null, alignment.indexRelation != null, alignment.indexConfidence != null);
+        if(alignment.ownStorage){
+            //the indices of the given alignment are not visible, use the default ones
+            init(true, true, true, true, true);
+        }else{
+            init(alignment.indexSource != null, alignment.indexTarget != null, alignment.indexRelation != null, alignment.indexConfidence != null,
+                alignment.correspondenceByKey != null);
+        }
+        copyMetaData(alignment);
+        if(copyCorrespondences)
+            addAllDistinct(new ArrayList<>(alignment));
+    }
+    
+    /**
+     * Copies the meta data (method, type, level, ontology information and extensions) but no correspondences from the given alignment.
+     * @param alignment the alignment whose meta data is copied
+     */
+    protected void copyMetaData(Alignment alignment) {
         this.method = alignment.method;
         this.type = alignment.type;
         this.level = alignment.level;
         this.onto1 = new OntoInfo(alignment.onto1);
         this.onto2 = new OntoInfo(alignment.onto2);        
         this.extensions = new HashMap<>(alignment.extensions);
-        if(copyCorrespondences)
-            addAll(alignment);
     }
     
-    private void init(boolean indexSource, boolean indexTarget, boolean indexRelation, boolean indexConfidence){
+    private void init(boolean indexSource, boolean indexTarget, boolean indexRelation, boolean indexConfidence, boolean keyMap){
         this.method = "";
         this.type = "11";
         this.onto1 = new OntoInfo();
         this.onto2 = new OntoInfo();
         this.extensions = new HashMap<>();   
+        this.correspondenceByKey = keyMap ? new ConcurrentHashMap<>() : null;
 
         if(indexSource)
             this.assertIndexOnSource();
@@ -144,6 +214,243 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
     }
     
     
+    /**
+     * Creates a new alignment (with all indices) which contains the given correspondences.
+     * The correspondences are added in bulk (see {@link #addAllBulk(Iterable)}).
+     * @param correspondences the correspondences to add
+     * @return the new alignment
+     */
+    public static Alignment fromBulk(Iterable<? extends Correspondence> correspondences) {
+        Alignment alignment = new Alignment();
+        alignment.addAllBulk(correspondences);
+        return alignment;
+    }
+    
+    /**
+     * Adds all given correspondences at once instead of one by one.
+     * The correspondences are first collected without any index and deduplicated on source, target and relation
+     * (like in add, the first correspondence wins and already contained correspondences are not modified).
+     * Afterwards the object store and every index are updated in one batch.
+     * This is much faster than calling add for each correspondence when loading huge alignments.
+     * @param correspondences the correspondences to add
+     */
+    public void addAllBulk(Iterable<? extends Correspondence> correspondences) {
+        Set<Correspondence> distinct = correspondences instanceof Collection ?
+                new HashSet<>((int)(((Collection<?>)correspondences).size() / .75f) + 1) : new HashSet<>();
+        synchronized(this.modificationLock){
+            for(Correspondence c : correspondences){
+                if(!this.contains(c))
+                    distinct.add(c);
+            }
+            addAllDistinct(distinct);
+        }
+    }
+    
+    /**
+     * Adds the given correspondences in one batch without checking for duplicates.
+     * All correspondences have to be distinct and must not be contained in this alignment already
+     * (otherwise the indices will contain additional entries).
+     * @param correspondences distinct correspondences which are not contained in this alignment.
+     */
+    protected void addAllDistinct(Collection<Correspondence> correspondences) {
+        if(correspondences.isEmpty())
+            return;
+        synchronized(this.modificationLock){
+            if(this.correspondenceByKey != null){
+                for(Correspondence c : correspondences){
+                    this.correspondenceByKey.put(c, c);
+                }
+            }
+            super.addAll(correspondences);
+        }
+    }
+    
+    /**
+     * Adds all given correspondences in one batch (see {@link #addAllBulk(Iterable)}).
+     * @param correspondences the correspondences to add
+     * @return true if this alignment changed as a result of the call
+     */
+    @Override
+    public boolean addAll(Collection<? extends Correspondence> correspondences) {
+        int sizeBefore = this.size();
+        addAllBulk(correspondences);
+        return this.size() != sizeBefore;
+    }
+    
+    /**
+     * Adds the correspondence if no correspondence with the same source, target and relation is contained.
+     * @param correspondence the correspondence to add
+     * @return true if the correspondence was added
+     */
+    @Override
+    public boolean add(Correspondence correspondence) {
+        synchronized(this.modificationLock){
+            if(this.correspondenceByKey == null)
+                return super.add(correspondence);
+            if(this.correspondenceByKey.putIfAbsent(correspondence, correspondence) != null)
+                return false;
+            return super.add(correspondence);
+        }
+    }
+    
+    /**
+     * Removes the correspondence with the same source, target and relation.
+     * The stored correspondence is removed from all indices (even if the given one has a different confidence).
+     * @param o the correspondence to remove
+     * @return true if the correspondence was removed
+     */
+    @Override
+    public boolean remove(Object o) {
+        if(!(o instanceof Correspondence))
+            return false;
+        synchronized(this.modificationLock){
+            Correspondence stored = removeFromKeyMap((Correspondence) o);
+            if(stored == null)
+                return false;
+            return super.remove(stored);
+        }
+    }
+    
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        synchronized(this.modificationLock){
+            List<Correspondence> stored = new ArrayList<>();
+            for(Object o : c){
+                if(!(o instanceof Correspondence))
+                    continue;
+                Correspondence correspondence = removeFromKeyMap((Correspondence) o);
+                if(correspondence != null)
+                    stored.add(correspondence);
+            }
+            if(stored.isEmpty())
+                return false;
+            return super.removeAll(stored);
+        }
+    }
+    
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        synchronized(this.modificationLock){
+            List<Correspondence> toBeRemoved = new ArrayList<>();
+            for(Correspondence correspondence : this){
+                if(!c.contains(correspondence))
+                    toBeRemoved.add(correspondence);
+            }
+            return removeAll(toBeRemoved);
+        }
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        if(o == null)
+            return false;
+        if(this.correspondenceByKey == null)
+            return super.contains(o);
+        return this.correspondenceByKey.containsKey(o);
+    }
+    
+    @Override
+    public void clear() {
+        synchronized(this.modificationLock){
+            if(this.correspondenceByKey != null)
+                this.correspondenceByKey.clear();
+            super.clear();
+        }
+    }
+    
+    /**
+     * Returns the stored correspondence which has the same source, target and relation as the given one.
+     * @param correspondence the correspondence which is used as key
+     * @return the stored correspondence or null if there is none
+     */
+    private Correspondence getStoredCorrespondence(Correspondence correspondence){
+        if(correspondence == null)
+            return null;
+        if(this.correspondenceByKey != null)
+            return this.correspondenceByKey.get(correspondence);
+        ResultSet<Correspondence> r = this.retrieve(
+                QueryFactory.and(
+                    QueryFactory.equal(Correspondence.SOURCE, correspondence.getEntityOne()),
+                    QueryFactory.equal(Correspondence.TARGET, correspondence.getEntityTwo()),
+                    QueryFactory.equal(Correspondence.RELATION, correspondence.getRelation())
+                ));
+        Iterator<Correspondence> iterator = r.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Correspondence result = iterator.next();
+        if (iterator.hasNext()) {
+            LOGGER.error("Alignment contains more than one correspondence with source, target, relation. Maybe equals and/or hashcode of Correspondence are overridden. " +
+                    "A mapping correspondence is equal when source, target and relation are equal.");
+        }
+        return result;
+    }
+    
+    /**
+     * Removes the correspondence from the key map (if there is one) and returns the stored correspondence.
+     * Has to be called while holding the modification lock.
+     * @param correspondence the correspondence which is used as key
+     * @return the stored correspondence or null if there is none
+     */
+    private Correspondence removeFromKeyMap(Correspondence correspondence){
+        if(this.correspondenceByKey == null)
+            return getStoredCorrespondence(correspondence);
+        return this.correspondenceByKey.remove(correspondence);
+    }
+    
+    @Override
+    public boolean update(Iterable<Correspondence> objectsToRemove, Iterable<Correspondence> objectsToAdd) {
+        return update(objectsToRemove, objectsToAdd, noQueryOptions());
+    }
+    
+    @Override
+    public boolean update(Iterable<Correspondence> objectsToRemove, Iterable<Correspondence> objectsToAdd, QueryOptions queryOptions) {
+        boolean modified = false;
+        synchronized(this.modificationLock){
+            for(Correspondence c : objectsToRemove){
+                if(remove(c))
+                    modified = true;
+            }
+            for(Correspondence c : objectsToAdd){
+                if(add(c))
+                    modified = true;
+            }
+        }
+        return modified;
+    }
+    
+    @Override
+    public CloseableIterator<Correspondence> iterator() {
+        CloseableIterator<Correspondence> iterator = super.iterator();
+        return new CloseableIterator<Correspondence>() {
+            private Correspondence current = null;
+            
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Correspondence next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if(current == null)
+                    throw new IllegalStateException();
+                Alignment.this.remove(current);
+                current = null;
+            }
+
+            @Override
+            public void close() {
+                iterator.close();
+            }
+        };
+    }
+    
     /**
      * Creates a new {@link Correspondence} and adds it to this mapping.
      * @param entityOne URI of the entity from the source ontology as String.
@@ -278,22 +585,15 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @param correspondence Correspondence to be added.
      */
     public void addOrModify(Correspondence correspondence) {
-        ResultSet<Correspondence> r = this.retrieve(
-                QueryFactory.and(
-                    QueryFactory.equal(Correspondence.SOURCE, correspondence.getEntityOne()),
-                    QueryFactory.equal(Correspondence.TARGET, correspondence.getEntityTwo()),
-                    QueryFactory.equal(Correspondence.RELATION, correspondence.getRelation())
-                ));
-        Iterator<Correspondence> iterator = r.iterator();
-        if (!iterator.hasNext()) {
-           this.add(correspondence);
-           return;            
+        synchronized(this.modificationLock){
+            Correspondence result = getStoredCorrespondence(correspondence);
+            if (result == null) {
+               this.add(correspondence);
+               return;            
+            }
+            result.getExtensions().putAll(correspondence.getExtensions());
+            updateConfidence(result, correspondence.getConfidence());
         }
-        Correspondence result = iterator.next();
-        this.remove(result);
-        result.getExtensions().putAll(correspondence.getExtensions());
-        result.setConfidence(correspondence.getConfidence());
-        this.add(result);
     }
     
     
@@ -303,25 +603,36 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @param c Correspondence to be added
      */
     public void addOrUseHighestConfidence(Correspondence c) {
-        ResultSet<Correspondence> r = this.retrieve(
-                QueryFactory.and(
-                    QueryFactory.equal(Correspondence.SOURCE, c.getEntityOne()),
-                    QueryFactory.equal(Correspondence.TARGET, c.getEntityTwo()),
-                    QueryFactory.equal(Correspondence.RELATION, c.getRelation())
-                ));
-        Iterator<Correspondence> iterator = r.iterator();
-        if (!iterator.hasNext()) {
-           this.add(c);
-           return;
+        synchronized(this.modificationLock){
+            Correspondence result = getStoredCorrespondence(c);
+            if (result == null) {
+               this.add(c);
+               return;
+            }
+            result.getExtensions().putAll(c.getExtensions());
+            if(c.getConfidence() > result.getConfidence()){ // set the confidence only if higher
+                updateConfidence(result, c.getConfidence());
+            }
         }
-        Correspondence result = iterator.next();
-        result.getExtensions().putAll(c.getExtensions());
-        if(c.getConfidence() > result.getConfidence()){ // set the confidence only if higher
-            this.remove(result);
-            result.setConfidence(c.getConfidence());
-            this.add(result);
-            //this.update(Arrays.asList(result), Arrays.asList(result));
+    }
+    
+    /**
+     * Changes the confidence of a correspondence which is contained in this alignment.
+     * Only the confidence index is updated because source, target and relation (and thus all other indices) stay the same.
+     * @param storedCorrespondence the correspondence which is contained in this alignment
+     * @param confidence the new confidence
+     */
+    private void updateConfidence(Correspondence storedCorrespondence, double confidence){
+        if(Double.compare(storedCorrespondence.getConfidence(), confidence) == 0)
+            return;
+        if(this.indexConfidence == null){
+            storedCorrespondence.setConfidence(confidence);
+            return;
         }
+        ObjectSet<Correspondence> objectSet = ObjectSet.fromCollection(Collections.singleton(storedCorrespondence));
+        this.indexConfidence.removeAll(objectSet, noQueryOptions());
+        storedCorrespondence.setConfidence(confidence);
+        this.indexConfidence.addAll(objectSet, noQueryOptions());
     }
     
     /**
@@ -344,22 +655,7 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @return mapping correspondence or null
      */
     public Correspondence getCorrespondence(String source, String target, CorrespondenceRelation relation) {
-        ResultSet<Correspondence> r = this.retrieve(
-                QueryFactory.and(
-                    QueryFactory.equal(Correspondence.SOURCE, source),
-                    QueryFactory.equal(Correspondence.TARGET, target),
-                    QueryFactory.equal(Correspondence.RELATION, relation)
-                ));
-        Iterator<Correspondence> iterator = r.iterator();
-        if (!iterator.hasNext()) {
-            return null;
-        }
-        Correspondence result = iterator.next();
-        if (iterator.hasNext()) {
-            LOGGER.error("Alignment contains more than one correspondence with source, target, relation. Maybe equals and/or hashcode of Correspondence are overridden. " +
-                    "A mapping correspondence is equal when source, target and relation are equal.");
-        }
-        return result;
+        return getStoredCorrespondence(new Correspondence(source, target, 1.0, relation, null, null));
     }
     
     public Iterable<Correspondence> getCorrespondencesSourceTarget(String source, String target) {
@@ -494,15 +790,11 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
         assertIndexOnConfidence();
         Alignment m = new Alignment(this, false);
         ResultSet<Correspondence> result = this.retrieve(QueryFactory.greaterThanOrEqualTo(Correspondence.CONFIDENCE, threshold));
-        //m.addAll(result.stream().collect(Collectors.toList()));  //makes an arraylist 
-        //List<Correspondence> list = new ArrayList<>(result.size());
-        //for(Correspondence c : result){
-        //    list.add(c);
-        //}
-        //m.addAll(list);        
+        List<Correspondence> list = new ArrayList<>();
         for(Correspondence c : result){
-            m.add(c);
+            list.add(c);
         }
+        m.addAllDistinct(list);
         return m;
     }
 
@@ -590,9 +882,11 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      */
     public Alignment reverseWithoutRelationChange() {
         Alignment result = new Alignment(this, false);//copy constructor but no copy of correspondences
+        List<Correspondence> reversed = new ArrayList<>(this.size());
         for(Correspondence c : this){
-            result.add(c.reverseWithoutRelationChange());
+            reversed.add(c.reverseWithoutRelationChange());
         }
+        result.addAllDistinct(reversed);
         return result;
     }
     
@@ -604,9 +898,11 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      */
     public Alignment reverse() {
         Alignment result = new Alignment(this, false);//copy constructor but no copy of correspondences
+        List<Correspondence> reversed = new ArrayList<>(this.size());
         for(Correspondence c : this){
-            result.add(c.reverse());
+            reversed.add(c.reverse());
         }
+        result.addAllDistinct(reversed);
         return result;
     }
 
@@ -618,9 +914,13 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @return Subtraction alignment.
      */
     public static Alignment subtraction(Alignment alignment_1, Alignment alignment_2) {
+        List<Correspondence> list = new ArrayList<>();
+        for(Correspondence c : alignment_1){
+            if(!alignment_2.contains(c))
+                list.add(c);
+        }
         Alignment result = new Alignment();
-        result.addAll(alignment_1);
-        result.removeAll(alignment_2);
+        result.addAllDistinct(list);
         return result;
     }
 
@@ -632,11 +932,13 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @return Intersection alignment.
      */
     public static Alignment intersection(Alignment alignment_1, Alignment alignment_2) {
+        List<Correspondence> list = new ArrayList<>();
+        for(Correspondence c : alignment_1){
+            if(alignment_2.contains(c))
+                list.add(c);
+        }
         Alignment result = new Alignment();
-        result.addAll(alignment_1);
-        result.addAll(alignment_2);
-        result.retainAll(alignment_1);
-        result.retainAll(alignment_2);
+        result.addAllDistinct(list);
         return result;
     }
 
@@ -647,9 +949,12 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
      * @return Union alignment.
      */
     public static Alignment union(Alignment alignment_1, Alignment alignment_2) {
+        Set<Correspondence> distinct = new HashSet<>(alignment_1);
+        for(Correspondence c : alignment_2){
+            distinct.add(c);
+        }
         Alignment result = new Alignment();
-        result.addAll(alignment_1);
-        result.addAll(alignment_2);
+        result.addAllDistinct(distinct);
         return result;
     }
     
@@ -695,6 +1000,16 @@ public class Alignment extends ConcurrentIndexedCollection<Correspondence> {
         AlignmentSerializer.serializeToCSV(this, file);
     }
     
+    /**
+     * Serialize this mapping directly to a given file in the compact binary format.
+     * The file can be read again with all parse methods (the format is detected automatically).
+     * @param file The file for writing the mapping.
+     * @throws IOException An IOException.
+     */
+    public void serializeToBinary(File file) throws IOException{
+        AlignmentSerializer.serializeToBinary(this, file);
+    }
+    
     public String getMethod() {
         return method;
     }
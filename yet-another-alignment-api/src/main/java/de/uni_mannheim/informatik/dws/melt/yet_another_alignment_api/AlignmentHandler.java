@@ -1,5 +1,8 @@
 package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.Attributes;
@@ -47,6 +50,22 @@ class AlignmentHandler extends DefaultHandler{
     private Alignment alignment;
     private Correspondence cell;
     private OntoInfo currentOntoInfo;
+    
+    /**
+     * All parsed correspondences which are added in bulk to the alignment at the end of the document.
+     * Null if the correspondences are streamed to a consumer.
+     */
+    private List<Correspondence> parsedCorrespondences;
+    
+    /**
+     * Receives each parsed correspondence as soon as the corresponding cell is closed.
+     */
+    private Consumer<Correspondence> correspondenceConsumer;
+    
+    /**
+     * If false, the extensions of correspondences are not parsed (alignment extensions are still parsed).
+     */
+    private boolean parseCorrespondenceExtensions;
 
     /**
      * Indicator whether the parser is currently within a cell or not.
@@ -64,6 +83,26 @@ class AlignmentHandler extends DefaultHandler{
         this.alignment = alignment;
         this.cell = new Correspondence();
         this.currentOntoInfo = new OntoInfo();
+        this.parsedCorrespondences = new ArrayList<>();
+        this.correspondenceConsumer = this.parsedCorrespondences::add;
+        this.parseCorrespondenceExtensions = true;
+    }
+    
+    /**
+     * Constructor which does not collect the correspondences but passes each of them to the consumer.
+     * The given alignment will only hold the meta data (ontology information, type, level, and alignment extensions).
+     * @param alignment Alignment which will hold the parsed meta data.
+     * @param correspondenceConsumer consumer which receives each correspondence directly after it is parsed.
+     * @param parseCorrespondenceExtensions if false, the extensions of the correspondences are skipped.
+     */
+    public AlignmentHandler(Alignment alignment, Consumer<Correspondence> correspondenceConsumer, boolean parseCorrespondenceExtensions){
+        this.content = null;    
+        this.alignment = alignment;
+        this.cell = new Correspondence();
+        this.currentOntoInfo = new OntoInfo();
+        this.parsedCorrespondences = null;
+        this.correspondenceConsumer = correspondenceConsumer;
+        this.parseCorrespondenceExtensions = parseCorrespondenceExtensions;
     }
 
     @Override
@@ -143,7 +182,7 @@ class AlignmentHandler extends DefaultHandler{
                 if ( this.cell.getEntityOne() == null || this.cell.getEntityTwo() == null) {
                     LOGGER.warn( "(cell voided), missing entity {} {}", this.cell.getEntityOne(), this.cell.getEntityTwo() );
                 } else{
-                    this.alignment.add(cell);
+                    this.correspondenceConsumer.accept(cell);
                 }
                 this.inCorrespondence = false;
             } else if (pName.equals(URI1)) {                
@@ -180,7 +219,8 @@ class AlignmentHandler extends DefaultHandler{
         } else {
             // we are parsing an extension
             if(inCorrespondence) {
-                this.cell.addExtensionValue(namespaceURI + pName, content.toString());
+                if(this.parseCorrespondenceExtensions)
+                    this.cell.addExtensionValue(namespaceURI + pName, content.toString());
             } else {
                 this.alignment.addExtensionValue(namespaceURI + pName, content.toString());
             }
@@ -189,6 +229,14 @@ class AlignmentHandler extends DefaultHandler{
         //content = null; // set it for the character patch
     }
     
+    @Override
+    public void endDocument() throws SAXException {
+        if(this.parsedCorrespondences == null)
+            return;
+        this.alignment.addAllBulk(this.parsedCorrespondences);
+        this.parsedCorrespondences.clear();
+    }
+    
     public Alignment getAlignment(){
         return this.alignment;
     }
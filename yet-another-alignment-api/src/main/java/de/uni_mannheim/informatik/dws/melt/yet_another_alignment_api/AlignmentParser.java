@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import org.xml.sax.SAXException;
@@ -11,9 +12,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -80,7 +88,22 @@ public class AlignmentParser {
         return parse(uri.toURL());
     }
     
+    /**
+     * Parses the alignment at the given URL.
+     * Local files with the binary file extension (.mlta) are memory mapped, all other inputs are detected by their first bytes.
+     * @param url the url of the alignment file
+     * @return Parsed alignment instance.
+     * @throws SAXException Parsing exception.
+     * @throws IOException IO exception.
+     */
     public static Alignment parse(URL url) throws SAXException, IOException{
+        if("file".equals(url.getProtocol()) && url.getPath().endsWith(BinaryAlignmentFormat.FILE_EXTENSION)){
+            try {
+                return parseBinary(Paths.get(url.toURI()).toFile());
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                LOGGER.debug("Could not convert URL to file - read it as stream.", ex);
+            }
+        }
         return parse(getInputStreamFromURL(url));
     }
 
@@ -92,19 +115,135 @@ public class AlignmentParser {
      * @throws IOException An IOException.
      */
     public static Alignment parse(File fileToBeParsed) throws SAXException, IOException {
+        if(isBinary(fileToBeParsed))
+            return parseBinary(fileToBeParsed);
 	return parse(new FileInputStream(fileToBeParsed));
     }
     
     public static Alignment parse(InputStream s) throws SAXException, IOException {
         Alignment m = new Alignment();
-        AlignmentHandler p = new AlignmentHandler(m);
-        threadLocal.get().parse(s, p);
-        return p.getAlignment();
+        parse(s, m);
+        return m;
     }
     
+    /**
+     * Parses the given stream into the given alignment.
+     * The format (XML or binary) is detected by the first bytes of the stream.
+     * @param s the input stream to parse
+     * @param m the alignment which receives the meta data and the correspondences
+     * @throws SAXException Parsing exception.
+     * @throws IOException IO exception.
+     */
     public static void parse(InputStream s, Alignment m) throws SAXException, IOException {
+        InputStream in = s.markSupported() ? s : new BufferedInputStream(s);
+        if(isBinary(in)){
+            List<Correspondence> correspondences = new ArrayList<>();
+            BinaryAlignmentFormat.read(in, m, correspondences::add, true);
+            m.addAllBulk(correspondences);
+            return;
+        }
         AlignmentHandler p = new AlignmentHandler(m);
-        threadLocal.get().parse(s, p);
+        threadLocal.get().parse(in, p);
+    }
+    
+    /**
+     * Parses a file in the binary alignment format (see {@link AlignmentSerializer#serializeToBinary(Alignment, File)}).
+     * The file is memory mapped (in chunks, thus also files larger than 2 GB) and the columns are read without copying them.
+     * @param file the binary alignment file
+     * @return Parsed alignment instance.
+     * @throws IOException IO exception or if the file is not a binary alignment.
+     */
+    public static Alignment parseBinary(File file) throws IOException {
+        Alignment m = new Alignment();
+        List<Correspondence> correspondences = new ArrayList<>();
+        streamBinary(file, m, correspondences::add, true);
+        m.addAllBulk(correspondences);
+        return m;
+    }
+    
+    private static void streamBinary(File file, Alignment meta, Consumer<Correspondence> consumer, boolean parseCorrespondenceExtensions) throws IOException {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            BinaryAlignmentFormat.read(channel, meta, consumer, parseCorrespondenceExtensions);
+        }
+    }
+    
+    private static boolean isBinary(File file) throws IOException {
+        try(InputStream s = new FileInputStream(file)){
+            byte[] bytes = new byte[BinaryAlignmentFormat.MAGIC.length];
+            int read = s.read(bytes);
+            return BinaryAlignmentFormat.hasMagicBytes(bytes, read);
+        }
+    }
+    
+    private static boolean isBinary(InputStream markSupportingStream) throws IOException {
+        byte[] bytes = new byte[BinaryAlignmentFormat.MAGIC.length];
+        markSupportingStream.mark(bytes.length);
+        int read = 0;
+        while(read < bytes.length){
+            int r = markSupportingStream.read(bytes, read, bytes.length - read);
+            if(r < 0)
+                break;
+            read += r;
+        }
+        markSupportingStream.reset();
+        return BinaryAlignmentFormat.hasMagicBytes(bytes, read);
+    }
+    
+    /**
+     * Parses the given alignment file and passes each correspondence to the consumer as soon as it is parsed.
+     * The correspondences are not stored which allows to process very large alignment files in constant memory.
+     * Duplicate correspondences are not removed (in contrast to the parse methods which return an alignment).
+     * @param s the input stream to parse
+     * @param consumer the consumer which receives each correspondence
+     * @return an alignment which contains only the meta data (ontology information, type, level and alignment extensions) but no correspondences.
+     * @throws SAXException Parsing exception.
+     * @throws IOException IO exception.
+     */
+    public static Alignment stream(InputStream s, Consumer<Correspondence> consumer) throws SAXException, IOException {
+        return stream(s, consumer, true);
+    }
+    
+    /**
+     * Parses the given alignment file and passes each correspondence to the consumer as soon as it is parsed.
+     * The correspondences are not stored which allows to process very large alignment files in constant memory.
+     * Duplicate correspondences are not removed (in contrast to the parse methods which return an alignment).
+     * @param s the input stream to parse
+     * @param consumer the consumer which receives each correspondence
+     * @param parseCorrespondenceExtensions if false, the extensions of each correspondence are skipped (faster and less memory).
+     * @return an alignment which contains only the meta data (ontology information, type, level and alignment extensions) but no correspondences.
+     * @throws SAXException Parsing exception.
+     * @throws IOException IO exception.
+     */
+    public static Alignment stream(InputStream s, Consumer<Correspondence> consumer, boolean parseCorrespondenceExtensions) throws SAXException, IOException {
+        Alignment m = new Alignment();
+        InputStream in = s.markSupported() ? s : new BufferedInputStream(s);
+        if(isBinary(in)){
+            BinaryAlignmentFormat.read(in, m, consumer, parseCorrespondenceExtensions);
+            return m;
+        }
+        AlignmentHandler p = new AlignmentHandler(m, consumer, parseCorrespondenceExtensions);
+        threadLocal.get().parse(in, p);
+        return p.getAlignment();
+    }
+    
+    /**
+     * Parses the given alignment file and passes each correspondence to the consumer as soon as it is parsed.
+     * @param file the file to parse
+     * @param consumer the consumer which receives each correspondence
+     * @param parseCorrespondenceExtensions if false, the extensions of each correspondence are skipped (faster and less memory).
+     * @return an alignment which contains only the meta data (ontology information, type, level and alignment extensions) but no correspondences.
+     * @throws SAXException Parsing exception.
+     * @throws IOException IO exception.
+     */
+    public static Alignment stream(File file, Consumer<Correspondence> consumer, boolean parseCorrespondenceExtensions) throws SAXException, IOException {
+        if(isBinary(file)){
+            Alignment m = new Alignment();
+            streamBinary(file, m, consumer, parseCorrespondenceExtensions);
+            return m;
+        }
+        try(InputStream s = new FileInputStream(file)){
+            return stream(s, consumer, parseCorrespondenceExtensions);
+        }
     }
     
     
@@ -122,7 +261,7 @@ public class AlignmentParser {
      * @throws java.io.IOException thrown if some io error occurs.
      */
     public static Alignment parseCSV(File file) throws IOException{
-        Alignment a = new Alignment();
+        List<Correspondence> correspondences = new ArrayList<>();
         try(CSVParser csvParser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))){
             for (CSVRecord record : csvParser) {
                 Correspondence correspondence = new Correspondence(record.get("source").trim(), record.get("target").trim());
@@ -132,10 +271,10 @@ public class AlignmentParser {
                 if(record.isSet("relation")){
                     correspondence.setRelation(CorrespondenceRelation.parse(record.get("relation").trim()));
                 }
-                a.add(correspondence);
+                correspondences.add(correspondence);
             }
         }
-        return a;
+        return Alignment.fromBulk(correspondences);
     }
     
     /**
@@ -147,7 +286,7 @@ public class AlignmentParser {
      * @throws java.io.IOException thrown if some io error occurs.
      */
     public static Alignment parseTSV(File file) throws IOException{
-        Alignment a = new Alignment();
+        List<Correspondence> correspondences = new ArrayList<>();
         try(CSVParser csvParser = CSVFormat.DEFAULT.withDelimiter('\t').parse(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))){
             for (CSVRecord record : csvParser) {
                 Correspondence correspondence = new Correspondence(record.get(0).trim(), record.get(1).trim());
@@ -157,10 +296,10 @@ public class AlignmentParser {
                 if(record.isSet(3)){
                     correspondence.setRelation(CorrespondenceRelation.parse(record.get(3).trim()));
                 }
-                a.add(correspondence);
+                correspondences.add(correspondence);
             }
         }
-        return a;
+        return Alignment.fromBulk(correspondences);
     }
 }
     
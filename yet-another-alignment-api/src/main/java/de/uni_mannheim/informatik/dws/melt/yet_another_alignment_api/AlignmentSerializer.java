@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -258,6 +259,22 @@ public class AlignmentSerializer {
         }
     }
     
+    /**
+     * Method to write the specified alignment to the specified file in the compact binary format.
+     * The binary format stores each URI only once and the correspondences in columns.
+     * It can be read much faster than the XML format (the parser memory maps the file).
+     * The parser detects the format automatically. The usual file extension is .mlta
+     * @param alignment The alignment that shall be written.
+     * @param file The file to which the alignment shall be written.
+     * @throws IOException Exception that occurred while serializing the alignment.
+     */
+    public static void serializeToBinary(Alignment alignment, File file) throws IOException {
+        checkFile(file);
+        try(BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file))){
+            BinaryAlignmentFormat.write(alignment, out);
+        }
+    }
+    
     private static void checkFile(File file) throws IOException{
         if (file.exists()) {
             if (file.isDirectory()) {
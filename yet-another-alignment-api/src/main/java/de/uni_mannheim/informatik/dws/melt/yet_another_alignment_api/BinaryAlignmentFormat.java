@@ -0,0 +1,472 @@
+package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary (columnar) format for alignments.
+ * All numbers are written in big endian byte order. The layout is:
+ * <ol>
+ * <li>header: magic bytes (MLTA), version (int), number of URIs (int), number of correspondences (int), flags (int)</li>
+ * <li>meta data: type, level, method, onto1 (id, location, formalism, formalism uri), onto2 (same), alignment extensions</li>
+ * <li>URI dictionary: each URI as string</li>
+ * <li>zero bytes until the next offset which is a multiple of eight</li>
+ * <li>columns: source ids (int[]), target ids (int[]), confidences (double[]), relations (byte[] - ordinal of {@link CorrespondenceRelation} or -1 if no relation is set)</li>
+ * <li>extension section (only if the flag is set): number of rows with extensions or identifier, followed by row index, identifier and extensions of each of these rows</li>
+ * </ol>
+ * Strings are written as length of the UTF-8 bytes (int, -1 for null) followed by the bytes.
+ * The int and double columns are written before the byte column such that they are aligned in a memory mapped file.
+ * Because the columns have a fixed size, they are read directly from the (memory mapped) buffer without copying them.
+ * All offsets are longs, and files are mapped in chunks of {@link #CHUNK_SHIFT 1 GB} such that alignments larger than 2 GB can be read.
+ * Extension values are written as strings (the same as in the XML format).
+ */
+class BinaryAlignmentFormat {
+
+    /**
+     * Magic bytes at the beginning of each binary alignment file.
+     */
+    static final byte[] MAGIC = new byte[]{'M', 'L', 'T', 'A'};
+
+    /**
+     * The file extension which is used for binary alignment files.
+     */
+    static final String FILE_EXTENSION = ".mlta";
+
+    /**
+     * Files and streams are split in chunks of 2^CHUNK_SHIFT bytes (1 GB) because a ByteBuffer is indexed by int.
+     */
+    static final int CHUNK_SHIFT = 30;
+
+    private static final int VERSION = 1;
+    private static final int FLAG_EXTENSIONS = 1;
+    private static final byte NO_RELATION = -1;
+    private static final Charset ENCODING = StandardCharsets.UTF_8;
+    private static final CorrespondenceRelation[] RELATIONS = CorrespondenceRelation.values();
+
+    /**
+     * Writes the alignment in the binary format to the given output stream.
+     * The stream is not closed.
+     * @param alignment the alignment to write
+     * @param outputStream the stream to write to
+     * @throws IOException in case of an io error
+     */
+    static void write(Alignment alignment, OutputStream outputStream) throws IOException {
+        int size = alignment.size();
+        UriDictionary dictionary = new UriDictionary(size);
+        int[] sources = new int[size];
+        int[] targets = new int[size];
+        double[] confidences = new double[size];
+        byte[] relations = new byte[size];
+
+        ByteArrayOutputStream extensionBytes = new ByteArrayOutputStream();
+        DataOutputStream extensionOut = new DataOutputStream(extensionBytes);
+        int rowsWithExtensions = 0;
+
+        int row = 0;
+        for(Correspondence c : alignment){
+            if(row == size)
+                throw new IOException("The alignment was modified during serialization.");
+            sources[row] = dictionary.intern(c.getEntityOne());
+            targets[row] = dictionary.intern(c.getEntityTwo());
+            confidences[row] = c.getConfidence();
+            relations[row] = c.getRelation() == null ? NO_RELATION : (byte) c.getRelation().ordinal();
+            Map<String, Object> extensions = c.getExtensions();
+            boolean hasExtensions = extensions != null && !extensions.isEmpty();
+            if(hasExtensions || c.getIdentifier() != null){
+                rowsWithExtensions++;
+                extensionOut.writeInt(row);
+                writeString(extensionOut, c.getIdentifier());
+                if(hasExtensions){
+                    extensionOut.writeInt(extensions.size());
+                    for(Map.Entry<String, Object> entry : extensions.entrySet()){
+                        writeString(extensionOut, entry.getKey());
+                        writeString(extensionOut, entry.getValue() == null ? null : entry.getValue().toString());
+                    }
+                }else{
+                    extensionOut.writeInt(0);
+                }
+            }
+            row++;
+        }
+        if(row != size)
+            throw new IOException("The alignment was modified during serialization.");
+        extensionOut.flush();
+
+        //DataOutputStream.size() is an int which saturates at 2 GB, thus count the bytes separately
+        CountingOutputStream counter = new CountingOutputStream(outputStream);
+        DataOutputStream out = new DataOutputStream(counter);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dictionary.size());
+        out.writeInt(size);
+        out.writeInt(rowsWithExtensions > 0 ? FLAG_EXTENSIONS : 0);
+
+        writeString(out, alignment.getType());
+        writeString(out, alignment.getLevel());
+        writeString(out, alignment.getMethod());
+        writeOntoInfo(out, alignment.getOnto1());
+        writeOntoInfo(out, alignment.getOnto2());
+        writeStringMap(out, alignment.getExtensions());
+
+        for(int i = 0; i < dictionary.size(); i++){
+            writeString(out, dictionary.getUri(i));
+        }
+        out.write(new byte[padding(counter.getCount())]);
+        for(int source : sources)
+            out.writeInt(source);
+        for(int target : targets)
+            out.writeInt(target);
+        for(double confidence : confidences)
+            out.writeDouble(confidence);
+        out.write(relations);
+        if(rowsWithExtensions > 0){
+            out.writeInt(rowsWithExtensions);
+            extensionBytes.writeTo(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a binary alignment from the file channel. The file is memory mapped in chunks of {@link #CHUNK_SHIFT 1 GB}.
+     * @param channel the channel of the file
+     * @param meta the alignment which receives the meta data
+     * @param consumer the consumer which receives each correspondence
+     * @param parseCorrespondenceExtensions if false, the extensions and identifiers of the correspondences are skipped
+     * @throws IOException in case of an io error or if the file does not contain a binary alignment
+     */
+    static void read(FileChannel channel, Alignment meta, Consumer<Correspondence> consumer, boolean parseCorrespondenceExtensions) throws IOException {
+        read(ChunkedInput.map(channel, CHUNK_SHIFT), meta, consumer, parseCorrespondenceExtensions);
+    }
+
+    /**
+     * Reads the whole stream and parses it as binary alignment.
+     * @param inputStream the stream to read from (will not be closed)
+     * @param meta the alignment which receives the meta data
+     * @param consumer the consumer which receives each correspondence
+     * @param parseCorrespondenceExtensions if false, the extensions and identifiers of the correspondences are skipped
+     * @throws IOException in case of an io error or if the stream does not contain a binary alignment
+     */
+    static void read(InputStream inputStream, Alignment meta, Consumer<Correspondence> consumer, boolean parseCorrespondenceExtensions) throws IOException {
+        read(ChunkedInput.read(inputStream, CHUNK_SHIFT), meta, consumer, parseCorrespondenceExtensions);
+    }
+
+    /**
+     * Reads a binary alignment from the input (starting at position zero).
+     * @param input the input to read from
+     * @param meta the alignment which receives the meta data
+     * @param consumer the consumer which receives each correspondence
+     * @param parseCorrespondenceExtensions if false, the extensions and identifiers of the correspondences are skipped
+     * @throws IOException if the input does not contain a binary alignment
+     */
+    static void read(ChunkedInput input, Alignment meta, Consumer<Correspondence> consumer, boolean parseCorrespondenceExtensions) throws IOException {
+        if(!hasMagicBytes(input))
+            throw new IOException("The given input is not a binary alignment (magic bytes are missing).");
+        input.position(MAGIC.length);
+        int version = input.readInt();
+        if(version != VERSION)
+            throw new IOException("Binary alignment version " + version + " is not supported.");
+        int numberOfUris = input.readInt();
+        int size = input.readInt();
+        int flags = input.readInt();
+
+        meta.setType(input.readString());
+        meta.setLevel(input.readString());
+        meta.setMethod(input.readString());
+        meta.setOnto1(readOntoInfo(input));
+        meta.setOnto2(readOntoInfo(input));
+        int alignmentExtensions = input.readInt();
+        for(int i = 0; i < alignmentExtensions; i++){
+            meta.addExtensionValue(input.readString(), input.readString());
+        }
+
+        String[] uris = new String[numberOfUris];
+        for(int i = 0; i < numberOfUris; i++){
+            uris[i] = input.readString();
+        }
+
+        //positions of the columns - they are read directly from the input
+        long sourceStart = input.position() + padding(input.position());
+        long targetStart = sourceStart + (long) size * 4;
+        long confidenceStart = targetStart + (long) size * 4;
+        long relationStart = confidenceStart + (long) size * 8;
+        input.position(relationStart + size);
+        if(input.position() > input.size())
+            throw new IOException("The binary alignment is truncated.");
+
+        int nextExtensionRow = -1;
+        int remainingExtensionRows = 0;
+        if(parseCorrespondenceExtensions && (flags & FLAG_EXTENSIONS) != 0){
+            remainingExtensionRows = input.readInt();
+            if(remainingExtensionRows > 0)
+                nextExtensionRow = input.readInt();
+        }
+
+        for(int row = 0; row < size; row++){
+            byte relation = input.get(relationStart + row);
+            if(relation < NO_RELATION || relation >= RELATIONS.length)
+                throw new IOException("Unknown relation in binary alignment: " + relation);
+            Correspondence c = new Correspondence(
+                    uris[input.getInt(sourceStart + (long) row * 4)],
+                    uris[input.getInt(targetStart + (long) row * 4)],
+                    input.getDouble(confidenceStart + (long) row * 8),
+                    relation == NO_RELATION ? null : RELATIONS[relation]);
+            if(row == nextExtensionRow){
+                c.setIdentifier(input.readString());
+                int extensions = input.readInt();
+                for(int i = 0; i < extensions; i++){
+                    c.addExtensionValue(input.readString(), input.readString());
+                }
+                remainingExtensionRows--;
+                nextExtensionRow = remainingExtensionRows > 0 ? input.readInt() : -1;
+            }
+            consumer.accept(c);
+        }
+    }
+
+    private static boolean hasMagicBytes(ChunkedInput input){
+        if(input.size() < MAGIC.length)
+            return false;
+        for(int i = 0; i < MAGIC.length; i++){
+            if(input.get(i) != MAGIC[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given bytes are the magic bytes of the binary format.
+     * @param bytes the first bytes of a file or stream
+     * @param length the number of valid bytes in the array
+     * @return true if the bytes start a binary alignment
+     */
+    static boolean hasMagicBytes(byte[] bytes, int length){
+        return length >= MAGIC.length && Arrays.equals(Arrays.copyOf(bytes, MAGIC.length), MAGIC);
+    }
+
+    private static int padding(long offset){
+        return (int) ((8 - (offset % 8)) % 8);
+    }
+
+    private static void writeOntoInfo(DataOutputStream out, OntoInfo info) throws IOException{
+        if(info == null)
+            info = new OntoInfo();
+        writeString(out, info.getOntoID());
+        writeString(out, info.getOntoLocation());
+        writeString(out, info.getFormalism());
+        writeString(out, info.getFormalismURI());
+        writeStringMap(out, info.getExtensions());
+    }
+
+    private static OntoInfo readOntoInfo(ChunkedInput input){
+        OntoInfo info = new OntoInfo(input.readString(), input.readString());
+        info.setFormalism(input.readString());
+        info.setFormalismURI(input.readString());
+        int extensions = input.readInt();
+        for(int i = 0; i < extensions; i++){
+            info.addExtensionValue(input.readString(), input.readString());
+        }
+        return info;
+    }
+
+    private static void writeStringMap(DataOutputStream out, Map<String, String> map) throws IOException{
+        if(map == null){
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(map.size());
+        for(Map.Entry<String, String> entry : map.entrySet()){
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException{
+        if(s == null){
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(ENCODING);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Counts the written bytes with a long (in contrast to {@link DataOutputStream#size()}).
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out){
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount(){
+            return count;
+        }
+    }
+
+    /**
+     * Bytes of a binary alignment with long positions. The bytes are split in chunks (buffers) of 2^shift bytes
+     * (only the last chunk may be smaller) because a ByteBuffer is indexed by int.
+     * Values which cross the border of two chunks are assembled byte by byte.
+     * Besides the random access methods, it has a position for sequential reads.
+     */
+    static class ChunkedInput {
+        private final ByteBuffer[] chunks;
+        private final int shift;
+        private final long mask;
+        private final long size;
+        private long position;
+
+        /**
+         * Constructor.
+         * @param chunks the chunks, each of them except the last one has exactly 2^shift remaining bytes (starting at position zero)
+         * @param shift the logarithm of the chunk size
+         */
+        ChunkedInput(ByteBuffer[] chunks, int shift){
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = (1L << shift) - 1;
+            long s = 0;
+            for(ByteBuffer chunk : chunks){
+                s += chunk.limit();
+            }
+            this.size = s;
+            this.position = 0;
+        }
+
+        /**
+         * Maps the file in chunks (read only).
+         * @param channel the file channel
+         * @param shift the logarithm of the chunk size (at most 30)
+         * @return the chunked input
+         * @throws IOException in case of an io error
+         */
+        static ChunkedInput map(FileChannel channel, int shift) throws IOException {
+            long fileSize = channel.size();
+            long chunkSize = 1L << shift;
+            List<ByteBuffer> chunks = new ArrayList<>();
+            for(long start = 0; start < fileSize; start += chunkSize){
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, fileSize - start)));
+            }
+            return new ChunkedInput(chunks.toArray(new ByteBuffer[0]), shift);
+        }
+
+        /**
+         * Reads the whole stream into chunks on the heap.
+         * @param inputStream the stream (will not be closed)
+         * @param shift the logarithm of the chunk size (at most 30)
+         * @return the chunked input
+         * @throws IOException in case of an io error
+         */
+        static ChunkedInput read(InputStream inputStream, int shift) throws IOException {
+            int chunkSize = 1 << shift;
+            List<ByteBuffer> chunks = new ArrayList<>();
+            while(true){
+                byte[] chunk = new byte[Math.min(chunkSize, 8192)];
+                int filled = 0;
+                int read = 0;
+                while(read >= 0 && filled < chunkSize){
+                    if(filled == chunk.length)
+                        chunk = Arrays.copyOf(chunk, (int) Math.min(chunkSize, chunk.length * 2L));
+                    read = inputStream.read(chunk, filled, chunk.length - filled);
+                    if(read > 0)
+                        filled += read;
+                }
+                if(filled > 0)
+                    chunks.add(ByteBuffer.wrap(chunk, 0, filled).slice());
+                if(read < 0)
+                    break;
+            }
+            return new ChunkedInput(chunks.toArray(new ByteBuffer[0]), shift);
+        }
+
+        long size(){
+            return size;
+        }
+
+        long position(){
+            return position;
+        }
+
+        void position(long newPosition){
+            this.position = newPosition;
+        }
+
+        byte get(long index){
+            return chunks[(int) (index >>> shift)].get((int) (index & mask));
+        }
+
+        int getInt(long index){
+            ByteBuffer chunk = chunks[(int) (index >>> shift)];
+            int offset = (int) (index & mask);
+            if(offset + 4 <= chunk.limit())
+                return chunk.getInt(offset);
+            int value = 0;
+            for(int i = 0; i < 4; i++){
+                value = (value << 8) | (get(index + i) & 0xFF);
+            }
+            return value;
+        }
+
+        double getDouble(long index){
+            ByteBuffer chunk = chunks[(int) (index >>> shift)];
+            int offset = (int) (index & mask);
+            if(offset + 8 <= chunk.limit())
+                return chunk.getDouble(offset);
+            long value = 0;
+            for(int i = 0; i < 8; i++){
+                value = (value << 8) | (get(index + i) & 0xFF);
+            }
+            return Double.longBitsToDouble(value);
+        }
+
+        int readInt(){
+            int value = getInt(position);
+            position += 4;
+            return value;
+        }
+
+        String readString(){
+            int length = readInt();
+            if(length < 0)
+                return null;
+            byte[] bytes = new byte[length];
+            for(int copied = 0; copied < length;){
+                ByteBuffer chunk = chunks[(int) ((position + copied) >>> shift)].duplicate();
+                int offset = (int) ((position + copied) & mask);
+                int n = Math.min(length - copied, chunk.limit() - offset);
+                chunk.position(offset);
+                chunk.get(bytes, copied, n);
+                copied += n;
+            }
+            position += length;
+            return new String(bytes, ENCODING);
+        }
+    }
+}
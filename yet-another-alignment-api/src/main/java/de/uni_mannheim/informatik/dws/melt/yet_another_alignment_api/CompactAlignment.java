@@ -0,0 +1,912 @@
+package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
+
+import com.googlecode.cqengine.index.support.CloseableIterator;
+import com.googlecode.cqengine.query.Query;
+import com.googlecode.cqengine.query.option.QueryOptions;
+import static com.googlecode.cqengine.query.QueryFactory.noQueryOptions;
+import com.googlecode.cqengine.resultset.ResultSet;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.xml.sax.SAXException;
+
+/**
+ * Memory efficient alignment which can be used instead of {@link Alignment} for very large alignments
+ * (e.g. candidate alignments on knowledge graph tracks with millions of correspondences).
+ * <p>
+ * In contrast to the CQEngine backed {@link Alignment}, no {@link Correspondence} objects are stored.
+ * All URIs are interned into a per alignment int dictionary and the source, target, relation and confidence
+ * of each correspondence are stored in parallel primitive arrays.
+ * The source and target index map the entity id to the ids of the rows and the confidence index is a
+ * sorted array of row ids which is (re)build lazily when needed (e.g. for {@link #cut(double)}).
+ * Extensions and identifiers are only stored for correspondences which actually have them.
+ * <p>
+ * All methods of {@link Alignment} can be used. The difference is that correspondences returned by
+ * the iterator or any get method are created on the fly.
+ * Thus changing the confidence of such a correspondence will not change the alignment - use
+ * {@link #addOrModify(Correspondence)} or {@link #addOrUseHighestConfidence(Correspondence)} for this.
+ * Extensions of correspondences which already had extensions when they were added are shared and can be modified directly.
+ * Generic CQEngine queries ({@link #retrieve(Query, QueryOptions)}) are supported but evaluated with a full scan.
+ * <p>
+ * This class is not thread safe.
+ */
+public class CompactAlignment extends Alignment {
+
+    private static final CorrespondenceRelation[] RELATIONS = CorrespondenceRelation.values();
+    private static final byte NO_RELATION = -1;
+
+    private UriDictionary dictionary;
+
+    private int[] sources;
+    private int[] targets;
+    private byte[] relations;
+    private double[] confidences;
+
+    /**
+     * Rows which are removed (row ids stay stable until the storage is compacted).
+     */
+    private BitSet removed;
+    private int removedCount;
+
+    /**
+     * Number of used rows (including removed rows).
+     */
+    private int rowCount;
+
+    private RowIndex indexSourceRows;
+    private RowIndex indexTargetRows;
+
+    /**
+     * Live row ids sorted ascending by confidence or null if it needs to be rebuild.
+     */
+    private int[] confidenceOrder;
+
+    private Map<Integer, Map<String, Object>> rowExtensions;
+    private Map<Integer, String> rowIdentifiers;
+
+    public CompactAlignment() {
+        super(false);
+        initStorage(16);
+    }
+
+    /**
+     * Constructor
+     * @param expectedSize the expected number of correspondences (used to presize the arrays).
+     */
+    public CompactAlignment(int expectedSize) {
+        super(false);
+        initStorage(expectedSize);
+    }
+
+    public CompactAlignment(Iterable<Correspondence> correspondences) {
+        super(false);
+        initStorage(16);
+        for(Correspondence c : correspondences)
+            this.add(c);
+    }
+
+    public CompactAlignment(URL url) throws SAXException, IOException{
+        this(AlignmentParser.getInputStreamFromURL(url));
+    }
+
+    public CompactAlignment(File f) throws SAXException, IOException{
+        this(new FileInputStream(f));
+    }
+
+    public CompactAlignment(InputStream s) throws SAXException, IOException{
+        super(false);
+        initStorage(16);
+        AlignmentParser.parse(s, this);
+    }
+
+    /**
+     * Copy constructor which copies all information stores in alignment as well as all correspondences.
+     * @param alignment The alignment which shall be copied.
+     */
+    public CompactAlignment(Alignment alignment) {
+        this(alignment, true);
+    }
+
+    /**
+     * Copy constructor which copies all information stores in alignment as well as all correspondences (depending on attribute copyCorrespondences).
+     * @param alignment The alignment which shall be copied.
+     * @param copyCorrespondences if true copies all information, if false copies all but no correspondences
+     */
+    public CompactAlignment(Alignment alignment, boolean copyCorrespondences) {
+        super(false);
+        copyMetaData(alignment);
+        initStorage(copyCorrespondences ? alignment.size() : 16);
+        if(copyCorrespondences){
+            for(Correspondence c : alignment)
+                this.add(c);
+        }
+    }
+
+    private void initStorage(int expectedSize){
+        int capacity = Math.max(expectedSize, 16);
+        this.dictionary = new UriDictionary(capacity);
+        this.sources = new int[capacity];
+        this.targets = new int[capacity];
+        this.relations = new byte[capacity];
+        this.confidences = new double[capacity];
+        this.removed = new BitSet();
+        this.removedCount = 0;
+        this.rowCount = 0;
+        this.indexSourceRows = new RowIndex(capacity);
+        this.indexTargetRows = new RowIndex(capacity);
+        this.confidenceOrder = null;
+        this.rowExtensions = new HashMap<>();
+        this.rowIdentifiers = new HashMap<>();
+    }
+
+    //////////////////////////////////
+    // Collection methods
+    //////////////////////////////////
+
+    @Override
+    public boolean add(Correspondence c) {
+        int source = dictionary.intern(c.getEntityOne());
+        int target = dictionary.intern(c.getEntityTwo());
+        byte relation = toByte(c.getRelation());
+        if(findRow(source, target, relation) >= 0)
+            return false;
+        appendRow(source, target, relation, c.getConfidence(), c.getExtensions(), c.getIdentifier());
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Correspondence> c) {
+        boolean modified = false;
+        for(Correspondence correspondence : c){
+            if(add(correspondence))
+                modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Adds all given correspondences.
+     * There is no need for a special bulk path because adding a correspondence only appends to the primitive arrays.
+     * @param correspondences the correspondences to add
+     */
+    @Override
+    public void addAllBulk(Iterable<? extends Correspondence> correspondences) {
+        for(Correspondence correspondence : correspondences){
+            add(correspondence);
+        }
+    }
+
+    @Override
+    protected void addAllDistinct(Collection<Correspondence> correspondences) {
+        addAllBulk(correspondences);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int row = findRow(o);
+        if(row < 0)
+            return false;
+        removeRow(row);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean modified = false;
+        for(Object o : c){
+            if(remove(o))
+                modified = true;
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean modified = false;
+        Iterator<Correspondence> it = iterator();
+        while(it.hasNext()){
+            if(!c.contains(it.next())){
+                it.remove();
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return findRow(o) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        for(Object o : c){
+            if(!contains(o))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return rowCount - removedCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        initStorage(16);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return toList().toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return toList().toArray(a);
+    }
+
+    /**
+     * Materializes all correspondences (the ArrayList copy constructor can not be used because it calls toArray).
+     */
+    private List<Correspondence> toList() {
+        List<Correspondence> list = new ArrayList<>(size());
+        for(Correspondence c : this)
+            list.add(c);
+        return list;
+    }
+
+    @Override
+    public CloseableIterator<Correspondence> iterator() {
+        return new CloseableIterator<Correspondence>() {
+            private int next = nextLiveRow(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                next = nextLiveRow(next);
+                return next < rowCount;
+            }
+
+            @Override
+            public Correspondence next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                last = next;
+                next++;
+                return materialize(last);
+            }
+
+            @Override
+            public void remove() {
+                if(last < 0)
+                    throw new IllegalStateException();
+                if(!removed.get(last))
+                    removeRow(last);
+                last = -1;
+            }
+
+            @Override
+            public void close() { }
+        };
+    }
+
+    @Override
+    public boolean update(Iterable<Correspondence> objectsToRemove, Iterable<Correspondence> objectsToAdd, QueryOptions queryOptions) {
+        boolean modified = false;
+        for(Correspondence c : objectsToRemove){
+            if(remove(c))
+                modified = true;
+        }
+        for(Correspondence c : objectsToAdd){
+            if(add(c))
+                modified = true;
+        }
+        return modified;
+    }
+
+    @Override
+    public ResultSet<Correspondence> retrieve(Query<Correspondence> query) {
+        return retrieve(query, noQueryOptions());
+    }
+
+    /**
+     * Evaluates the given query with a full scan over all correspondences.
+     * Ordering query options are not supported.
+     * Use the specialised methods like {@link #getCorrespondencesSource(String)} whenever possible.
+     * @param query the query
+     * @param queryOptions the query options
+     * @return the result set which contains all matching correspondences
+     */
+    @Override
+    public ResultSet<Correspondence> retrieve(Query<Correspondence> query, QueryOptions queryOptions) {
+        List<Correspondence> result = new ArrayList<>();
+        for(Correspondence c : this){
+            if(query.matches(c, queryOptions))
+                result.add(c);
+        }
+        return new ListResultSet(result, query, queryOptions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(!(o instanceof Set))
+            return false;
+        Set<?> other = (Set<?>) o;
+        if(other.size() != size())
+            return false;
+        return containsAll(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for(Correspondence c : this){
+            hash += c.hashCode();
+        }
+        return hash;
+    }
+
+    //////////////////////////////////
+    // Alignment methods
+    //////////////////////////////////
+
+    @Override
+    public void addOrModify(Correspondence correspondence) {
+        int source = dictionary.intern(correspondence.getEntityOne());
+        int target = dictionary.intern(correspondence.getEntityTwo());
+        byte relation = toByte(correspondence.getRelation());
+        int row = findRow(source, target, relation);
+        if(row < 0){
+            appendRow(source, target, relation, correspondence.getConfidence(), correspondence.getExtensions(), correspondence.getIdentifier());
+            return;
+        }
+        mergeExtensions(row, correspondence.getExtensions());
+        setRowConfidence(row, correspondence.getConfidence());
+    }
+
+    @Override
+    public void addOrUseHighestConfidence(Correspondence c) {
+        int source = dictionary.intern(c.getEntityOne());
+        int target = dictionary.intern(c.getEntityTwo());
+        byte relation = toByte(c.getRelation());
+        int row = findRow(source, target, relation);
+        if(row < 0){
+            appendRow(source, target, relation, c.getConfidence(), c.getExtensions(), c.getIdentifier());
+            return;
+        }
+        mergeExtensions(row, c.getExtensions());
+        if(c.getConfidence() > confidences[row]){
+            setRowConfidence(row, c.getConfidence());
+        }
+    }
+
+    @Override
+    public Correspondence getCorrespondence(String source, String target, CorrespondenceRelation relation) {
+        int row = findRow(dictionary.getId(source), dictionary.getId(target), toByte(relation));
+        if(row < 0)
+            return null;
+        return materialize(row);
+    }
+
+    @Override
+    public Iterable<Correspondence> getCorrespondencesSourceTarget(String source, String target) {
+        int sourceId = dictionary.getId(source);
+        int targetId = dictionary.getId(target);
+        List<Correspondence> result = new ArrayList<>();
+        if(sourceId < 0 || targetId < 0)
+            return result;
+        int[] rows = indexSourceRows.get(sourceId);
+        int size = indexSourceRows.size(sourceId);
+        for(int i = 0; i < size; i++){
+            if(targets[rows[i]] == targetId)
+                result.add(materialize(rows[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<Correspondence> getCorrespondencesSource(String source) {
+        return materializeRows(indexSourceRows, dictionary.getId(source), null);
+    }
+
+    @Override
+    public boolean isSourceContained(String source) {
+        int sourceId = dictionary.getId(source);
+        return sourceId >= 0 && indexSourceRows.size(sourceId) > 0;
+    }
+
+    @Override
+    public Iterable<Correspondence> getCorrespondencesSourceRelation(String source, CorrespondenceRelation relation) {
+        return materializeRows(indexSourceRows, dictionary.getId(source), relation);
+    }
+
+    @Override
+    public Iterable<Correspondence> getCorrespondencesTarget(String target) {
+        return materializeRows(indexTargetRows, dictionary.getId(target), null);
+    }
+
+    @Override
+    public boolean isTargetContained(String target) {
+        int targetId = dictionary.getId(target);
+        return targetId >= 0 && indexTargetRows.size(targetId) > 0;
+    }
+
+    @Override
+    public Iterable<Correspondence> getCorrespondencesTargetRelation(String target, CorrespondenceRelation relation) {
+        return materializeRows(indexTargetRows, dictionary.getId(target), relation);
+    }
+
+    @Override
+    public Iterable<Correspondence> getCorrespondencesRelation(CorrespondenceRelation relation) {
+        byte r = toByte(relation);
+        List<Correspondence> result = new ArrayList<>();
+        for(int row = nextLiveRow(0); row < rowCount; row = nextLiveRow(row + 1)){
+            if(relations[row] == r)
+                result.add(materialize(row));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new alignment which contains only correspondences above or equal the given threshold (it will not modify the current object).
+     * It uses the sorted confidence index and thus only touches the correspondences which are actually returned.
+     * @param threshold Threshold for cutting (correspondences greater than or equal the threshold will be added).
+     * @return A new compact alignment with filtered correspondences. This alignment stays untouched from the operation.
+     */
+    @Override
+    public CompactAlignment cut(double threshold) {
+        int[] order = getConfidenceOrder();
+        int start = lowerBound(order, threshold);
+        CompactAlignment m = new CompactAlignment(this, false);
+        for(int i = start; i < order.length; i++){
+            int row = order[i];
+            m.appendRow(m.dictionary.intern(dictionary.getUri(sources[row])), m.dictionary.intern(dictionary.getUri(targets[row])),
+                    relations[row], confidences[row], rowExtensions.get(row), rowIdentifiers.get(row));
+        }
+        return m;
+    }
+
+    @Override
+    public CompactAlignment reverseWithoutRelationChange() {
+        CompactAlignment result = new CompactAlignment(this, false);
+        for(int row = nextLiveRow(0); row < rowCount; row = nextLiveRow(row + 1)){
+            result.addRow(result.dictionary.intern(dictionary.getUri(targets[row])), result.dictionary.intern(dictionary.getUri(sources[row])),
+                    relations[row], confidences[row], rowExtensions.get(row), rowIdentifiers.get(row));
+        }
+        return result;
+    }
+
+    @Override
+    public CompactAlignment reverse() {
+        CompactAlignment result = new CompactAlignment(this, false);
+        for(int row = nextLiveRow(0); row < rowCount; row = nextLiveRow(row + 1)){
+            byte relation = relations[row] == NO_RELATION ? NO_RELATION : toByte(RELATIONS[relations[row]].reverse());
+            result.addRow(result.dictionary.intern(dictionary.getUri(targets[row])), result.dictionary.intern(dictionary.getUri(sources[row])),
+                    relation, confidences[row], rowExtensions.get(row), rowIdentifiers.get(row));
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<String> getDistinctSources() {
+        return distinctEntities(indexSourceRows);
+    }
+
+    @Override
+    public Iterable<String> getDistinctTargets() {
+        return distinctEntities(indexTargetRows);
+    }
+
+    @Override
+    public Iterable<CorrespondenceRelation> getDistinctRelations() {
+        Set<CorrespondenceRelation> result = EnumSet.noneOf(CorrespondenceRelation.class);
+        for(int row = nextLiveRow(0); row < rowCount; row = nextLiveRow(row + 1)){
+            if(relations[row] != NO_RELATION)
+                result.add(RELATIONS[relations[row]]);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterable<Double> getDistinctConfidences() {
+        List<Double> result = new ArrayList<>();
+        int[] order = getConfidenceOrder();
+        for(int i = 0; i < order.length; i++){
+            if(i == 0 || Double.compare(confidences[order[i]], confidences[order[i - 1]]) != 0)
+                result.add(confidences[order[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct URIs (sources and targets) which were interned in this alignment.
+     * URIs of removed correspondences are not removed from the dictionary.
+     * @return number of interned URIs
+     */
+    public int getNumberOfInternedUris(){
+        return dictionary.size();
+    }
+
+    /**
+     * Removes all rows which are marked as removed and shrinks the primitive arrays to the actual size.
+     * This is also done automatically when the arrays need to grow and more than half of the rows are removed.
+     */
+    public void trimToSize(){
+        compact(Math.max(size(), 16));
+    }
+
+    //////////////////////////////////
+    // internal storage
+    //////////////////////////////////
+
+    private int findRow(Object o){
+        if(!(o instanceof Correspondence))
+            return -1;
+        Correspondence c = (Correspondence) o;
+        return findRow(dictionary.getId(c.getEntityOne()), dictionary.getId(c.getEntityTwo()), toByte(c.getRelation()));
+    }
+
+    private int findRow(int source, int target, byte relation){
+        if(source < 0 || target < 0)
+            return -1;
+        int sourceSize = indexSourceRows.size(source);
+        int targetSize = indexTargetRows.size(target);
+        if(sourceSize <= targetSize){
+            int[] rows = indexSourceRows.get(source);
+            for(int i = 0; i < sourceSize; i++){
+                int row = rows[i];
+                if(targets[row] == target && relations[row] == relation)
+                    return row;
+            }
+        }else{
+            int[] rows = indexTargetRows.get(target);
+            for(int i = 0; i < targetSize; i++){
+                int row = rows[i];
+                if(sources[row] == source && relations[row] == relation)
+                    return row;
+            }
+        }
+        return -1;
+    }
+
+    private void addRow(int source, int target, byte relation, double confidence, Map<String, Object> extensions, String identifier){
+        if(findRow(source, target, relation) < 0)
+            appendRow(source, target, relation, confidence, extensions, identifier);
+    }
+
+    private void appendRow(int source, int target, byte relation, double confidence, Map<String, Object> extensions, String identifier){
+        if(rowCount == sources.length){
+            if(removedCount > rowCount / 2){
+                compact(sources.length);
+            }else{
+                compact(sources.length + (sources.length >> 1));
+            }
+        }
+        int row = rowCount++;
+        sources[row] = source;
+        targets[row] = target;
+        relations[row] = relation;
+        confidences[row] = confidence;
+        if(extensions != null && !extensions.isEmpty())
+            rowExtensions.put(row, extensions);
+        if(identifier != null)
+            rowIdentifiers.put(row, identifier);
+        indexSourceRows.add(source, row);
+        indexTargetRows.add(target, row);
+        confidenceOrder = null;
+    }
+
+    private void removeRow(int row){
+        removed.set(row);
+        removedCount++;
+        indexSourceRows.remove(sources[row], row);
+        indexTargetRows.remove(targets[row], row);
+        rowExtensions.remove(row);
+        rowIdentifiers.remove(row);
+        confidenceOrder = null;
+    }
+
+    private void setRowConfidence(int row, double confidence){
+        if(Double.compare(confidences[row], confidence) != 0){
+            confidences[row] = confidence;
+            confidenceOrder = null;
+        }
+    }
+
+    private void mergeExtensions(int row, Map<String, Object> extensions){
+        if(extensions == null || extensions.isEmpty())
+            return;
+        Map<String, Object> existing = rowExtensions.get(row);
+        if(existing == null){
+            rowExtensions.put(row, new HashMap<>(extensions));
+        }else if(existing != extensions){
+            existing.putAll(extensions);
+        }
+    }
+
+    /**
+     * Moves all live rows to the front of newly allocated arrays with the given capacity and rebuilds the row indices.
+     * @param capacity the new capacity (at least the number of live rows)
+     */
+    private void compact(int capacity){
+        int[] newSources = new int[capacity];
+        int[] newTargets = new int[capacity];
+        byte[] newRelations = new byte[capacity];
+        double[] newConfidences = new double[capacity];
+        Map<Integer, Map<String, Object>> newExtensions = new HashMap<>();
+        Map<Integer, String> newIdentifiers = new HashMap<>();
+        RowIndex newSourceRows = new RowIndex(dictionary.size());
+        RowIndex newTargetRows = new RowIndex(dictionary.size());
+        int newRow = 0;
+        for(int row = nextLiveRow(0); row < rowCount; row = nextLiveRow(row + 1)){
+            newSources[newRow] = sources[row];
+            newTargets[newRow] = targets[row];
+            newRelations[newRow] = relations[row];
+            newConfidences[newRow] = confidences[row];
+            Map<String, Object> extensions = rowExtensions.get(row);
+            if(extensions != null)
+                newExtensions.put(newRow, extensions);
+            String identifier = rowIdentifiers.get(row);
+            if(identifier != null)
+                newIdentifiers.put(newRow, identifier);
+            newSourceRows.add(sources[row], newRow);
+            newTargetRows.add(targets[row], newRow);
+            newRow++;
+        }
+        this.sources = newSources;
+        this.targets = newTargets;
+        this.relations = newRelations;
+        this.confidences = newConfidences;
+        this.rowExtensions = newExtensions;
+        this.rowIdentifiers = newIdentifiers;
+        this.indexSourceRows = newSourceRows;
+        this.indexTargetRows = newTargetRows;
+        this.removed = new BitSet();
+        this.removedCount = 0;
+        this.rowCount = newRow;
+        this.confidenceOrder = null;
+    }
+
+    private int nextLiveRow(int fromRow){
+        if(removedCount == 0)
+            return fromRow;
+        return removed.nextClearBit(fromRow);
+    }
+
+    private Correspondence materialize(int row){
+        Map<String, Object> extensions = rowExtensions.get(row);
+        return new Correspondence(
+                dictionary.getUri(sources[row]),
+                dictionary.getUri(targets[row]),
+                confidences[row],
+                relations[row] == NO_RELATION ? null : RELATIONS[relations[row]],
+                extensions == null ? new HashMap<>() : extensions,
+                rowIdentifiers.get(row));
+    }
+
+    private List<Correspondence> materializeRows(RowIndex index, int entity, CorrespondenceRelation relation){
+        List<Correspondence> result = new ArrayList<>();
+        if(entity < 0)
+            return result;
+        byte r = toByte(relation);
+        int[] rows = index.get(entity);
+        int size = index.size(entity);
+        for(int i = 0; i < size; i++){
+            if(relation == null || relations[rows[i]] == r)
+                result.add(materialize(rows[i]));
+        }
+        return result;
+    }
+
+    private List<String> distinctEntities(RowIndex index){
+        List<String> result = new ArrayList<>();
+        for(int id = 0; id < dictionary.size(); id++){
+            if(index.size(id) > 0)
+                result.add(dictionary.getUri(id));
+        }
+        return result;
+    }
+
+    private int[] getConfidenceOrder(){
+        if(confidenceOrder == null){
+            int[] order = new int[size()];
+            int i = 0;
+            for(int row = nextLiveRow(0); row < rowCount; row = nextLiveRow(row + 1)){
+                order[i++] = row;
+            }
+            mergeSortByConfidence(order, new int[order.length], 0, order.length);
+            confidenceOrder = order;
+        }
+        return confidenceOrder;
+    }
+
+    /**
+     * Stable merge sort of row ids by their confidence (ascending) without boxing.
+     * @param rows the row ids to sort
+     * @param buffer temporary buffer with the same length as rows
+     * @param from start index (inclusive)
+     * @param to end index (exclusive)
+     */
+    private void mergeSortByConfidence(int[] rows, int[] buffer, int from, int to){
+        if(to - from < 2)
+            return;
+        if(to - from <= 16){
+            for(int i = from + 1; i < to; i++){
+                int row = rows[i];
+                int j = i - 1;
+                while(j >= from && confidences[rows[j]] > confidences[row]){
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSortByConfidence(rows, buffer, from, mid);
+        mergeSortByConfidence(rows, buffer, mid, to);
+        if(confidences[rows[mid - 1]] <= confidences[rows[mid]])
+            return;
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from, right = mid, k = from;
+        while(left < mid && right < to){
+            if(confidences[buffer[right]] < confidences[buffer[left]])
+                rows[k++] = buffer[right++];
+            else
+                rows[k++] = buffer[left++];
+        }
+        while(left < mid)
+            rows[k++] = buffer[left++];
+        while(right < to)
+            rows[k++] = buffer[right++];
+    }
+
+    /**
+     * Returns the first position in the confidence order with a confidence greater or equal to the threshold.
+     * @param order row ids sorted by confidence
+     * @param threshold the threshold
+     * @return the first position (or the length of the order array if no such position exists)
+     */
+    private int lowerBound(int[] order, double threshold){
+        int low = 0;
+        int high = order.length;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(confidences[order[mid]] < threshold)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static byte toByte(CorrespondenceRelation relation){
+        if(relation == null)
+            return NO_RELATION;
+        return (byte) relation.ordinal();
+    }
+
+    /**
+     * Maps an entity id to the ids of all rows in which the entity appears.
+     * Each entity has its own growable int array.
+     */
+    private static class RowIndex {
+        private static final int[] EMPTY = new int[0];
+
+        private int[][] rows;
+        private int[] sizes;
+
+        RowIndex(int expectedEntities){
+            int capacity = Math.max(expectedEntities, 16);
+            this.rows = new int[capacity][];
+            this.sizes = new int[capacity];
+        }
+
+        void add(int entity, int row){
+            if(entity >= rows.length){
+                int newLength = Math.max(entity + 1, rows.length + (rows.length >> 1));
+                rows = Arrays.copyOf(rows, newLength);
+                sizes = Arrays.copyOf(sizes, newLength);
+            }
+            int[] entityRows = rows[entity];
+            if(entityRows == null){
+                entityRows = new int[2];
+                rows[entity] = entityRows;
+            }else if(sizes[entity] == entityRows.length){
+                entityRows = Arrays.copyOf(entityRows, entityRows.length * 2);
+                rows[entity] = entityRows;
+            }
+            entityRows[sizes[entity]++] = row;
+        }
+
+        void remove(int entity, int row){
+            int[] entityRows = rows[entity];
+            int size = sizes[entity];
+            for(int i = 0; i < size; i++){
+                if(entityRows[i] == row){
+                    entityRows[i] = entityRows[size - 1];
+                    sizes[entity] = size - 1;
+                    if(size == 1)
+                        rows[entity] = null;
+                    return;
+                }
+            }
+        }
+
+        int[] get(int entity){
+            if(entity >= rows.length || rows[entity] == null)
+                return EMPTY;
+            return rows[entity];
+        }
+
+        int size(int entity){
+            if(entity >= sizes.length)
+                return 0;
+            return sizes[entity];
+        }
+    }
+
+    /**
+     * Result set which is backed by an already computed list.
+     */
+    private static class ListResultSet extends ResultSet<Correspondence> {
+        private final List<Correspondence> list;
+        private final Query<Correspondence> query;
+        private final QueryOptions queryOptions;
+
+        ListResultSet(List<Correspondence> list, Query<Correspondence> query, QueryOptions queryOptions){
+            this.list = list;
+            this.query = query;
+            this.queryOptions = queryOptions;
+        }
+
+        @Override
+        public Iterator<Correspondence> iterator() { return list.iterator(); }
+
+        @Override
+        public boolean contains(Correspondence object) { return list.contains(object); }
+
+        @Override
+        public boolean matches(Correspondence object) { return query.matches(object, queryOptions); }
+
+        @Override
+        public Query<Correspondence> getQuery() { return query; }
+
+        @Override
+        public QueryOptions getQueryOptions() { return queryOptions; }
+
+        @Override
+        public int getRetrievalCost() { return 0; }
+
+        @Override
+        public int getMergeCost() { return list.size(); }
+
+        @Override
+        public int size() { return list.size(); }
+
+        @Override
+        public void close() { }
+    }
+}
@@ -0,0 +1,157 @@
+package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary which maps URIs (strings) to dense int ids (starting from zero) and back.
+ * It uses open addressing on an int array instead of a HashMap to avoid one boxed Integer and one map entry per URI.
+ * Each URI is stored only once, no matter how often it is interned.
+ * Null (which is allowed as entity of a correspondence) gets its own id on the first request which is never stored in the hash table.
+ * This class is not thread safe.
+ */
+class UriDictionary {
+
+    private static final int EMPTY = -1;
+
+    /**
+     * Maximum length of the hash table (the largest power of two of an int array).
+     */
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+    /**
+     * The URIs ordered by their id.
+     */
+    private String[] uris;
+
+    /**
+     * Number of used ids.
+     */
+    private int size;
+
+    /**
+     * Open addressing hash table which contains the ids (or EMPTY).
+     */
+    private int[] table;
+
+    /**
+     * The id which is reserved for null or EMPTY if null was not interned yet.
+     */
+    private int nullId;
+
+    public UriDictionary(){
+        this(16);
+    }
+
+    public UriDictionary(int expectedSize){
+        this.uris = new String[Math.max(expectedSize, 4)];
+        this.size = 0;
+        this.table = new int[tableSizeFor(Math.max(expectedSize, 4))];
+        Arrays.fill(this.table, EMPTY);
+        this.nullId = EMPTY;
+    }
+
+    /**
+     * Returns the id of the given URI or -1 if the URI is not contained in the dictionary.
+     * @param uri the uri to look up
+     * @return the id or -1
+     */
+    public int getId(String uri){
+        if(uri == null)
+            return nullId;
+        int mask = table.length - 1;
+        int pos = hash(uri) & mask;
+        while(true){
+            int id = table[pos];
+            if(id == EMPTY)
+                return EMPTY;
+            if(uris[id].equals(uri))
+                return id;
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the id of the given URI and adds it to the dictionary if not already contained.
+     * @param uri the uri to intern (can be null)
+     * @return the id of the uri
+     */
+    public int intern(String uri){
+        if(uri == null){
+            if(nullId == EMPTY){
+                nullId = appendUri(null);
+            }
+            return nullId;
+        }
+        int mask = table.length - 1;
+        int pos = hash(uri) & mask;
+        while(true){
+            int id = table[pos];
+            if(id == EMPTY)
+                break;
+            if(uris[id].equals(uri))
+                return id;
+            pos = (pos + 1) & mask;
+        }
+        int newId = appendUri(uri);
+        table[pos] = newId;
+        if(size * 2L > table.length && table.length < MAXIMUM_TABLE_SIZE){
+            rehash(table.length * 2);
+        }
+        return newId;
+    }
+
+    private int appendUri(String uri){
+        if(size == uris.length){
+            uris = Arrays.copyOf(uris, uris.length + (uris.length >> 1));
+        }
+        int newId = size++;
+        uris[newId] = uri;
+        return newId;
+    }
+
+    /**
+     * Returns the URI for the given id.
+     * @param id the id
+     * @return the URI
+     */
+    public String getUri(int id){
+        return uris[id];
+    }
+
+    /**
+     * Returns the number of URIs in this dictionary.
+     * Ids range from zero (inclusive) to size (exclusive).
+     * @return number of URIs
+     */
+    public int size(){
+        return size;
+    }
+
+    private void rehash(int newTableSize){
+        int[] newTable = new int[newTableSize];
+        Arrays.fill(newTable, EMPTY);
+        int mask = newTableSize - 1;
+        for(int id = 0; id < size; id++){
+            if(id == nullId)
+                continue;
+            int pos = hash(uris[id]) & mask;
+            while(newTable[pos] != EMPTY){
+                pos = (pos + 1) & mask;
+            }
+            newTable[pos] = id;
+        }
+        this.table = newTable;
+    }
+
+    private static int hash(String s){
+        int h = s.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSizeFor(int expectedSize){
+        if(expectedSize > MAXIMUM_TABLE_SIZE / 2)
+            return MAXIMUM_TABLE_SIZE;
+        int n = Integer.highestOneBit(expectedSize * 2 - 1) << 1;
+        return Math.max(n, 8);
+    }
+}
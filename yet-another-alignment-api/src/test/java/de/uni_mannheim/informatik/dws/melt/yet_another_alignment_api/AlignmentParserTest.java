@@ -6,11 +6,14 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AlignmentParserTest {
     
@@ -27,6 +30,31 @@ class AlignmentParserTest {
         assertEquals("[]", b.iterator().next().getExtensionValueAsString("http://melt.dws.uni-mannheim.de/configuration#test"));
     }
     
+    @Test
+    public void testStream() throws SAXException, IOException {
+        Alignment a = new Alignment(Arrays.asList(
+                new Correspondence("http://one", "http://two", 0.8, "http://example.com/ext", "value"),
+                new Correspondence("http://three", "http://four", 0.3)
+        ));
+        a.setOnto1(new OntoInfo("http://onto1", "http://onto1/location"));
+        String serialized = a.serialize();
+        
+        List<Correspondence> streamed = new ArrayList<>();
+        Alignment meta = AlignmentParser.stream(new ByteArrayInputStream(serialized.getBytes()), streamed::add);
+        assertEquals(0, meta.size());
+        assertEquals("http://onto1/location", meta.getOnto1().getOntoLocation());
+        assertEquals(a, new Alignment(streamed));
+        assertEquals("value", new Alignment(streamed).getCorrespondence("http://one", "http://two", CorrespondenceRelation.EQUIVALENCE).getExtensionValue("http://example.com/ext"));
+        
+        List<Correspondence> withoutExtensions = new ArrayList<>();
+        AlignmentParser.stream(new ByteArrayInputStream(serialized.getBytes()), withoutExtensions::add, false);
+        assertEquals(2, withoutExtensions.size());
+        for(Correspondence c : withoutExtensions){
+            assertTrue(c.getExtensions().isEmpty());
+            assertNull(c.getExtensionValue("http://example.com/ext"));
+        }
+    }
+    
     @Test
     public void testConfidenceRepresentations() throws SAXException, IOException {
         //https://docs.oracle.com/javase/7/docs/api/java/lang/Double.html#toString%28double%29
@@ -1,6 +1,15 @@
 package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -62,4 +71,79 @@ class AlignmentSerializerTest {
     }
     
 
-}
\ No newline at end of file
+    @Test
+    void serializeBinary() throws IOException, SAXException{
+        Alignment a = AlignmentGenerator.generateRandomAlignment(500);
+        a.add(new Correspondence("http://one", "http://two", 0.42, CorrespondenceRelation.SUBSUME, "http://example.com/ext", "value"));
+        a.add(new Correspondence("http://äöü/unicode", "http://two", 0.1));
+        a.setOnto1(new OntoInfo("http://onto1", "http://onto1/location"));
+        a.addExtensionValue("http://example.com/alignmentExt", "alignmentValue");
+        
+        File file = File.createTempFile("alignment", ".mlta");
+        file.deleteOnExit();
+        a.serializeToBinary(file);
+        
+        List<Alignment> parsedAlignments = new ArrayList<>();
+        parsedAlignments.add(AlignmentParser.parse(file)); //memory mapped
+        parsedAlignments.add(AlignmentParser.parse(file.toURI().toURL()));
+        try(InputStream in = new FileInputStream(file)){
+            parsedAlignments.add(AlignmentParser.parse(in)); //detection by magic bytes
+        }
+        for(Alignment parsed : parsedAlignments){
+            assertEquals(a.size(), parsed.size());
+            assertEquals(a, parsed);
+            for(Correspondence c : a){
+                assertEquals(c.getConfidence(), parsed.getCorrespondence(c.getEntityOne(), c.getEntityTwo(), c.getRelation()).getConfidence());
+            }
+            assertEquals("value", parsed.getCorrespondence("http://one", "http://two", CorrespondenceRelation.SUBSUME).getExtensionValue("http://example.com/ext"));
+            assertEquals("http://onto1/location", parsed.getOnto1().getOntoLocation());
+            assertEquals("alignmentValue", parsed.getExtensions().get("http://example.com/alignmentExt"));
+        }
+        
+        List<Correspondence> streamed = new ArrayList<>();
+        AlignmentParser.stream(file, streamed::add, false);
+        assertEquals(a.size(), streamed.size());
+        for(Correspondence c : streamed){
+            assertTrue(c.getExtensions().isEmpty());
+        }
+    }
+
+    @Test
+    void serializeBinaryWithoutRelation() throws IOException, SAXException{
+        CompactAlignment a = new CompactAlignment();
+        a.add(new Correspondence("http://one", "http://two", 0.5, (CorrespondenceRelation) null));
+        a.add(new Correspondence("http://one", "http://three", 0.7, CorrespondenceRelation.EQUIVALENCE));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryAlignmentFormat.write(a, bytes);
+        
+        List<Correspondence> streamed = new ArrayList<>();
+        AlignmentParser.stream(new ByteArrayInputStream(bytes.toByteArray()), streamed::add);
+        assertEquals(2, streamed.size());
+        assertNull(streamed.get(0).getRelation());
+        assertEquals("http://two", streamed.get(0).getEntityTwo());
+        assertEquals(CorrespondenceRelation.EQUIVALENCE, streamed.get(1).getRelation());
+    }
+    
+    @Test
+    void serializeBinaryChunked() throws IOException, SAXException{
+        Alignment a = AlignmentGenerator.generateRandomAlignment(200);
+        a.add(new Correspondence("http://one", "http://two", 0.42, CorrespondenceRelation.SUBSUME, "http://example.com/ext", "value"));
+        a.setOnto1(new OntoInfo("http://onto1", "http://onto1/location"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryAlignmentFormat.write(a, bytes);
+        
+        //chunks of 8 and 16 bytes: strings, ints and doubles cross the chunk borders (like the 1 GB chunks of large files)
+        for(int shift : new int[]{3, 4}){
+            Alignment parsed = new Alignment();
+            BinaryAlignmentFormat.ChunkedInput input = BinaryAlignmentFormat.ChunkedInput.read(new ByteArrayInputStream(bytes.toByteArray()), shift);
+            assertEquals(bytes.size(), input.size());
+            BinaryAlignmentFormat.read(input, parsed, parsed::add, true);
+            assertEquals(a, parsed);
+            for(Correspondence c : a){
+                assertEquals(c.getConfidence(), parsed.getCorrespondence(c.getEntityOne(), c.getEntityTwo(), c.getRelation()).getConfidence());
+            }
+            assertEquals("value", parsed.getCorrespondence("http://one", "http://two", CorrespondenceRelation.SUBSUME).getExtensionValue("http://example.com/ext"));
+            assertEquals("http://onto1/location", parsed.getOnto1().getOntoLocation());
+        }
+    }
+}
@@ -130,6 +130,98 @@ public class AlignmentTest {
         assertTrue(result.containsAll(Arrays.asList(one, two, three)), "Union correspondence not contained in result.");
     }
 
+    @Test
+    void upsertKeepsIndicesConsistent(){
+        upsertKeepsIndicesConsistent(new Alignment());
+        upsertKeepsIndicesConsistent(new Alignment(true, true, true, true, false));
+    }
+    
+    private static void upsertKeepsIndicesConsistent(Alignment a){
+        a.add("one", "two", 0.5);
+        a.add("one", "three", 0.6);
+        
+        a.addOrUseHighestConfidence("one", "two", 0.9);
+        assertEquals(0.9, a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+        assertEquals(new HashSet<>(Arrays.asList(0.9, 0.6)), a.getDistinctConfidencesAsSet());
+        assertEquals(1, a.cut(0.8).size());
+        assertEquals(2, Alignment.makeSet(a.getCorrespondencesSource("one")).size());
+        
+        a.addOrModify(new Correspondence("one", "three", 0.2));
+        assertEquals(new HashSet<>(Arrays.asList(0.9, 0.2)), a.getDistinctConfidencesAsSet());
+        assertEquals(2, a.size());
+        
+        //remove with a different confidence removes the stored correspondence from all indices
+        assertTrue(a.remove(new Correspondence("one", "two", 0.1)));
+        assertEquals(new HashSet<>(Arrays.asList(0.2)), a.getDistinctConfidencesAsSet());
+        assertEquals(0, a.cut(0.8).size());
+        assertNull(a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE));
+        
+        Iterator<Correspondence> it = a.iterator();
+        it.next();
+        it.remove();
+        assertTrue(a.isEmpty());
+        assertFalse(a.isSourceContained("one"));
+        assertTrue(a.getDistinctConfidencesAsSet().isEmpty());
+    }
+
+    @Test
+    void nullIsNotContained(){
+        Alignment a = new Alignment();
+        a.add("one", "two", 0.5);
+        assertFalse(a.contains(null));
+        assertFalse(a.remove(null));
+        assertFalse(a.removeAll(Arrays.asList((Correspondence) null)));
+        assertEquals(1, a.size());
+    }
+    
+    @Test
+    void concurrentAddAndRemoveKeepKeyMapConsistent() throws InterruptedException{
+        Alignment a = new Alignment();
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++){
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < 5000; i++){
+                    Correspondence c = new Correspondence("one", "two" + (i % 3), i);
+                    if(i % 2 == 0)
+                        a.add(c);
+                    else
+                        a.remove(c);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        for(int i = 0; i < 3; i++){
+            Correspondence c = a.getCorrespondence("one", "two" + i, CorrespondenceRelation.EQUIVALENCE);
+            //the key map (getCorrespondence) and the object store (iteration) have to contain the same correspondences
+            assertEquals(c != null, Alignment.makeSet(a).contains(new Correspondence("one", "two" + i)));
+            assertEquals(c != null, a.isSourceContained("one") && Alignment.makeSet(a.getCorrespondencesSourceTarget("one", "two" + i)).size() == 1);
+        }
+        assertEquals(Alignment.makeSet(a).size(), a.size());
+    }
+
+    @Test
+    void fromBulk(){
+        Alignment a = Alignment.fromBulk(Arrays.asList(
+                new Correspondence("one", "two", 0.5),
+                new Correspondence("one", "two", 0.7),
+                new Correspondence("one", "three", 0.6),
+                new Correspondence("one", "two", 0.8, CorrespondenceRelation.INCOMPAT)
+        ));
+        assertEquals(3, a.size());
+        assertEquals(0.5, a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence()); // first one wins
+        assertEquals(new HashSet<>(Arrays.asList(0.5, 0.6, 0.8)), a.getDistinctConfidencesAsSet()); // no index entry for duplicates
+        assertEquals(3, Alignment.makeList(a.getCorrespondencesSource("one")).size());
+        
+        a.addAllBulk(Arrays.asList(new Correspondence("one", "two", 0.9), new Correspondence("four", "five", 0.1)));
+        assertEquals(4, a.size());
+        assertEquals(0.5, a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+        assertEquals(new HashSet<>(Arrays.asList(0.1, 0.5, 0.6, 0.8)), a.getDistinctConfidencesAsSet());
+        assertEquals(1, a.cut(0.7).size());
+    }
+    
     @Test
     void getExtension(){
         Alignment alignment_1 = new Alignment();
@@ -0,0 +1,154 @@
+package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark which compares the CQEngine backed {@link Alignment} with the {@link CompactAlignment}.
+ * It is not executed during the build. Run the main method (with the test classpath) to execute it.
+ * The main method first prints the retained heap of both implementations (a large alignment and many empty ones) and afterwards
+ * runs the JMH benchmarks (lookup by source, cut, building the alignment and creating an empty alignment).
+ * For allocation numbers add the gc profiler (-prof gc).
+ * The empty alignments show the saving of the constructor of {@link CompactAlignment} which does not allocate the CQEngine indices
+ * and the key map of {@link Alignment}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompactAlignmentBenchmark {
+
+    @Param({"100000"})
+    private int numberOfCorrespondences;
+
+    @Param({"cqengine", "compact"})
+    private String implementation;
+
+    private List<Correspondence> correspondences;
+    private List<String> lookupSources;
+    private Alignment alignment;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        this.correspondences = generateCorrespondences(numberOfCorrespondences, new Random(1234));
+        this.alignment = createAlignment(implementation, correspondences);
+        this.lookupSources = new ArrayList<>();
+        Random rnd = new Random(42);
+        for(int i = 0; i < 1000; i++){
+            this.lookupSources.add(correspondences.get(rnd.nextInt(correspondences.size())).getEntityOne());
+        }
+    }
+
+    @Benchmark
+    public void lookupSource(Blackhole blackhole){
+        for(String source : lookupSources){
+            for(Correspondence c : alignment.getCorrespondencesSource(source)){
+                blackhole.consume(c);
+            }
+        }
+    }
+
+    @Benchmark
+    public Alignment cut(){
+        return alignment.cut(0.9);
+    }
+
+    @Benchmark
+    public Alignment build(){
+        return createAlignment(implementation, correspondences);
+    }
+
+    @Benchmark
+    public Alignment createEmpty(){
+        return createAlignment(implementation, 0);
+    }
+
+    private static Alignment createAlignment(String implementation, int expectedSize){
+        return implementation.equals("compact") ? new CompactAlignment(expectedSize) : new Alignment();
+    }
+
+    private static Alignment createAlignment(String implementation, List<Correspondence> correspondences){
+        Alignment a = createAlignment(implementation, correspondences.size());
+        for(Correspondence c : correspondences){
+            a.add(c.getEntityOne(), c.getEntityTwo(), c.getConfidence());
+        }
+        return a;
+    }
+
+    private static List<Correspondence> generateCorrespondences(int numberOfCorrespondences, Random rnd){
+        //sources and targets appear multiple times (like in a candidate alignment)
+        int entities = Math.max(numberOfCorrespondences / 5, 1);
+        List<Correspondence> list = new ArrayList<>(numberOfCorrespondences);
+        for(int i = 0; i < numberOfCorrespondences; i++){
+            list.add(new Correspondence(
+                    "http://exampleLeftWithALongURI/" + rnd.nextInt(entities),
+                    "http://exampleRightWithALongURI/" + rnd.nextInt(entities),
+                    rnd.nextDouble()));
+        }
+        return list;
+    }
+
+    private static long usedMemory(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void printRetainedHeap(int numberOfCorrespondences){
+        for(String implementation : new String[]{"cqengine", "compact"}){
+            long before = usedMemory();
+            //generate the strings for each implementation to not count shared strings twice
+            List<Correspondence> correspondences = generateCorrespondences(numberOfCorrespondences, new Random(1234));
+            Alignment a = createAlignment(implementation, correspondences);
+            correspondences = null;
+            long after = usedMemory();
+            System.out.println(implementation + " alignment with " + a.size() + " correspondences retains approx. " +
+                    ((after - before) / (1024 * 1024)) + " MB (including the URI strings)");
+        }
+    }
+
+    private static void printRetainedHeapOfEmptyAlignments(int numberOfAlignments){
+        for(String implementation : new String[]{"cqengine", "compact"}){
+            long before = usedMemory();
+            List<Alignment> alignments = new ArrayList<>(numberOfAlignments);
+            for(int i = 0; i < numberOfAlignments; i++){
+                alignments.add(createAlignment(implementation, 0));
+            }
+            long after = usedMemory();
+            System.out.println("empty " + implementation + " alignment retains approx. " +
+                    ((after - before) / alignments.size()) + " bytes");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printRetainedHeap(1_000_000);
+        printRetainedHeapOfEmptyAlignments(10_000);
+        Options opt = new OptionsBuilder()
+                .include(CompactAlignmentBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
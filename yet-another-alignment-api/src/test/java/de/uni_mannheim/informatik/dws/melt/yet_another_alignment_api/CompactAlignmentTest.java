@@ -0,0 +1,182 @@
+package de.uni_mannheim.informatik.dws.melt.yet_another_alignment_api;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactAlignmentTest {
+
+    @Test
+    public void testEmpty(){
+        CompactAlignment m = new CompactAlignment();
+        assertFalse(m.iterator().hasNext(), "Has next");
+        assertEquals(0, m.size());
+        assertFalse(m.getCorrespondencesSource("notAvailable").iterator().hasNext());
+    }
+
+    @Test
+    public void testNullEntities(){
+        CompactAlignment compact = new CompactAlignment();
+        assertNull(compact.getCorrespondence(null, "two", CorrespondenceRelation.EQUIVALENCE));
+        compact.add(new Correspondence(null, "two", 0.5));
+        compact.add(new Correspondence("one", null, 0.6));
+        compact.add(new Correspondence(null, "two", 0.7));
+        assertEquals(2, compact.size());
+        assertEquals(3, compact.getNumberOfInternedUris());
+        assertEquals(new HashSet<>(Arrays.asList(new Correspondence(null, "two"), new Correspondence("one", null))), new HashSet<>(compact));
+        assertTrue(compact.contains(new Correspondence(null, "two", 0.5)));
+        assertEquals(0.5, compact.getCorrespondence(null, "two", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+        assertTrue(compact.remove(new Correspondence("one", null)));
+        assertEquals(1, compact.size());
+    }
+
+    @Test
+    public void testDictionaryTableSize(){
+        assertEquals(8, UriDictionary.tableSizeFor(4));
+        assertEquals(1 << 30, UriDictionary.tableSizeFor(1 << 29));
+        assertEquals(1 << 30, UriDictionary.tableSizeFor((1 << 29) + 1));
+        assertEquals(1 << 30, UriDictionary.tableSizeFor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testAddingMultipleSameCorrespondences(){
+        CompactAlignment m = new CompactAlignment();
+        m.add(new Correspondence("one", "two", 0.5));
+        m.add(new Correspondence("one", "two", 0.7));
+        m.add("one", "two", 0.8);
+        m.add("one", "two", 0.9, CorrespondenceRelation.INCOMPAT);
+
+        assertEquals(2, m.size());
+        assertEquals(0.5, m.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence(), 0.0);
+        assertEquals(0.9, m.getCorrespondence("one", "two", CorrespondenceRelation.INCOMPAT).getConfidence(), 0.0);
+        assertEquals(2, m.getNumberOfInternedUris());
+    }
+
+    @Test
+    public void testSameBehaviourAsAlignment(){
+        Alignment original = AlignmentGenerator.generateRandomAlignment(5000);
+        CompactAlignment compact = new CompactAlignment(original);
+
+        assertEquals(original.size(), compact.size());
+        assertEquals(original, compact);
+        assertEquals(compact, original);
+        assertEquals(original.getDistinctSourcesAsSet(), compact.getDistinctSourcesAsSet());
+        assertEquals(original.getDistinctTargetsAsSet(), compact.getDistinctTargetsAsSet());
+        assertEquals(original.getDistinctConfidencesAsSet(), compact.getDistinctConfidencesAsSet());
+        assertEquals(original.getDistinctRelationsAsSet(), compact.getDistinctRelationsAsSet());
+
+        for(Correspondence c : original){
+            assertTrue(compact.contains(c));
+            assertEquals(
+                    Alignment.makeSet(original.getCorrespondencesSource(c.getEntityOne())),
+                    Alignment.makeSet(compact.getCorrespondencesSource(c.getEntityOne())));
+            assertEquals(
+                    Alignment.makeSet(original.getCorrespondencesTarget(c.getEntityTwo())),
+                    Alignment.makeSet(compact.getCorrespondencesTarget(c.getEntityTwo())));
+        }
+
+        Alignment originalCut = original.cut(0.7);
+        Alignment compactCut = compact.cut(0.7);
+        assertEquals(originalCut.size(), compactCut.size());
+        assertEquals(originalCut, compactCut);
+        for(Correspondence c : compactCut){
+            assertTrue(c.getConfidence() >= 0.7);
+        }
+        assertEquals(original.reverse(), compact.reverse());
+    }
+
+    @Test
+    public void testCopyToAlignmentHasIndices(){
+        CompactAlignment compact = new CompactAlignment();
+        compact.setMethod("compact");
+        compact.add("one", "two", 0.5);
+        assertTrue(compact.toStringMultilineInfo().contains("indexSource=false"));
+
+        Alignment copy = new Alignment(compact);
+        assertEquals("compact", copy.getMethod());
+        assertEquals(1, copy.size());
+        assertTrue(copy.toStringMultilineInfo().contains("indexSource=true, indexTarget=true, indexRelation=true, indexConfidence=true"));
+        assertEquals(0.5, copy.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+    }
+
+    @Test
+    public void testRemove(){
+        CompactAlignment m = new CompactAlignment();
+        Correspondence x = new Correspondence("x_left", "x_right", 0.3);
+        Correspondence y = new Correspondence("y_left", "y_right", 0.6);
+        Correspondence z = new Correspondence("x_left", "z_right", 0.9);
+        m.addAll(Arrays.asList(x, y, z));
+
+        assertTrue(m.remove(x));
+        assertFalse(m.remove(x));
+        assertEquals(2, m.size());
+        assertFalse(m.contains(x));
+        assertEquals(new HashSet<>(Arrays.asList(z)), Alignment.makeSet(m.getCorrespondencesSource("x_left")));
+        assertFalse(m.isTargetContained("x_right"));
+        assertEquals(new HashSet<>(Arrays.asList("x_left", "y_left")), m.getDistinctSourcesAsSet());
+
+        Iterator<Correspondence> it = m.iterator();
+        while(it.hasNext()){
+            if(it.next().getConfidence() > 0.8)
+                it.remove();
+        }
+        assertEquals(1, m.size());
+        assertTrue(m.contains(y));
+        assertEquals(1, m.cut(0.0).size());
+
+        m.removeCorrespondencesSource("y_left");
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testManyRemovalsAndAdds(){
+        CompactAlignment m = new CompactAlignment();
+        for(int i = 0; i < 1000; i++){
+            m.add("left" + i, "right" + i, i / 1000.0);
+        }
+        for(int i = 0; i < 1000; i += 2){
+            m.remove(new Correspondence("left" + i, "right" + i));
+        }
+        for(int i = 1000; i < 3000; i++){
+            m.add("left" + i, "right" + i, 0.5);
+        }
+        assertEquals(2500, m.size());
+        m.trimToSize();
+        assertEquals(2500, m.size());
+        assertNotNull(m.getCorrespondence("left1", "right1", CorrespondenceRelation.EQUIVALENCE));
+        assertNull(m.getCorrespondence("left2", "right2", CorrespondenceRelation.EQUIVALENCE));
+        assertNotNull(m.getCorrespondence("left2999", "right2999", CorrespondenceRelation.EQUIVALENCE));
+    }
+
+    @Test
+    public void testAddOrUseHighestConfidenceAndModify(){
+        CompactAlignment a = new CompactAlignment();
+        a.add("one", "two", 0.5);
+
+        a.addOrUseHighestConfidence("one", "two", 0.4);
+        assertEquals(0.5, a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+        a.addOrUseHighestConfidence("one", "two", 0.8);
+        assertEquals(0.8, a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE).getConfidence());
+        assertEquals(new HashSet<>(Arrays.asList(0.8)), a.getDistinctConfidencesAsSet());
+        assertEquals(0, a.cut(0.9).size());
+
+        a.addOrModify("one", "two", "http://example.com/ext", "value");
+        Correspondence c = a.getCorrespondence("one", "two", CorrespondenceRelation.EQUIVALENCE);
+        assertEquals(1.0, c.getConfidence());
+        assertEquals("value", c.getExtensionValue("http://example.com/ext"));
+        assertEquals(1, a.size());
+    }
+
+    @Test
+    public void testRetrieve(){
+        CompactAlignment a = new CompactAlignment();
+        a.add("one", "two", 0.5);
+        a.add("one", "three", 0.9);
+        Set<Correspondence> s = Alignment.makeSet(a.retrieve(
+                com.googlecode.cqengine.query.QueryFactory.greaterThan(Correspondence.CONFIDENCE, 0.6)));
+        assertEquals(new HashSet<>(Arrays.asList(new Correspondence("one", "three"))), s);
+    }
+}